@@ -0,0 +1,101 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.benchmarks;
+
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.biu.scapi.midLayer.asymmetricCrypto.encryption.DJKeyGenParameterSpec;
+import edu.biu.scapi.midLayer.asymmetricCrypto.encryption.ScDamgardJurikEnc;
+import edu.biu.scapi.midLayer.asymmetricCrypto.keys.DamgardJurikPublicKey;
+import edu.biu.scapi.midLayer.ciphertext.AsymmetricCiphertext;
+import edu.biu.scapi.midLayer.plaintext.BigIntegerPlainText;
+import edu.biu.scapi.midLayer.plaintext.Plaintext;
+
+/**
+ * Measures the encryption and decryption of the Damgard-Jurik encryption scheme. <p>
+ * The length parameter s of the encryption is chosen by the length of the plaintext, so each benchmark encrypts a plaintext 
+ * of the longest length that has the given s. With s=1 the scheme is the Paillier encryption scheme. 
+ * No random values are precomputed, so every encryption includes the computation of r^N.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DamgardJurikBenchmark {
+
+	@Param({"2048"})
+	public int modulusLength;
+	
+	@Param({"1", "2", "3"})
+	public int s;
+	
+	private ScDamgardJurikEnc encryption;
+	private Plaintext plaintext;
+	private AsymmetricCiphertext ciphertext;
+	
+	@Setup
+	public void setup() throws Exception {
+		SecureRandom random = new SecureRandom();
+		encryption = new ScDamgardJurikEnc(random);
+		KeyPair pair = encryption.generateKey(new DJKeyGenParameterSpec(modulusLength, 40));
+		encryption.setKey(pair.getPublic(), pair.getPrivate());
+		
+		//The encryption uses the length parameter s=(|x|/(|n|-1)) + 1, so the longest plaintext of s has s*(|n|-1) - 1 bits.
+		int nLength = ((DamgardJurikPublicKey) pair.getPublic()).getModulus().bitLength();
+		BigInteger x = new BigInteger(s * (nLength - 1) - 1, random).setBit(s * (nLength - 1) - 2);
+		plaintext = new BigIntegerPlainText(x);
+		ciphertext = encryption.encrypt(plaintext);
+	}
+	
+	@Benchmark
+	public AsymmetricCiphertext encrypt() {
+		return encryption.encrypt(plaintext);
+	}
+	
+	@Benchmark
+	public Plaintext decrypt() throws Exception {
+		return encryption.decrypt(ciphertext);
+	}
+}
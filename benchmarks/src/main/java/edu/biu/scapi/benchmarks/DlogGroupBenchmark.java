@@ -0,0 +1,162 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.benchmarks;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.biu.scapi.primitives.dlog.DlogGroup;
+import edu.biu.scapi.primitives.dlog.GroupElement;
+import edu.biu.scapi.primitives.dlog.ScDlogZpSafePrime;
+import edu.biu.scapi.primitives.dlog.bc.BcDlogECF2m;
+import edu.biu.scapi.primitives.dlog.bc.BcDlogECFp;
+import edu.biu.scapi.primitives.dlog.cryptopp.CryptoPpDlogZpSafePrime;
+import edu.biu.scapi.primitives.dlog.groupParams.ZpGroupParams;
+import edu.biu.scapi.primitives.dlog.miracl.MiraclDlogECF2m;
+import edu.biu.scapi.primitives.dlog.miracl.MiraclDlogECFp;
+import edu.biu.scapi.primitives.dlog.openSSL.OpenSSLDlogECF2m;
+import edu.biu.scapi.primitives.dlog.openSSL.OpenSSLDlogECFp;
+import edu.biu.scapi.primitives.dlog.openSSL.OpenSSLDlogZpSafePrime;
+
+/**
+ * Measures the exponentiations of each Dlog group. <p>
+ * A group is given as provider:parameters, where the parameters are a curve name for the elliptic curve groups,
+ * or Zp-1024 or Zp-2048 for the Zp* groups. The Zp* groups use the fixed safe primes of RFC 2409 and RFC 3526
+ * instead of generating a safe prime in the setup of every benchmark.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DlogGroupBenchmark {
+
+	//The 1024 bit MODP group of RFC 2409, whose generator is 2.
+	private static final String ZP_1024 = "FFFFFFFFFFFFFFFFC90FDAA22168C234C4C6628B80DC1CD129024E088A67CC74020BBEA63B139B22514A08798E3404DD"
+			+ "EF9519B3CD3A431B302B0A6DF25F14374FE1356D6D51C245E485B576625E7EC6F44C42E9A637ED6B0BFF5CB6F406B7ED"
+			+ "EE386BFB5A899FA5AE9F24117C4B1FE649286651ECE65381FFFFFFFFFFFFFFFF";
+	
+	//The 2048 bit MODP group of RFC 3526, whose generator is 2.
+	private static final String ZP_2048 = "FFFFFFFFFFFFFFFFC90FDAA22168C234C4C6628B80DC1CD129024E088A67CC74020BBEA63B139B22514A08798E3404DD"
+			+ "EF9519B3CD3A431B302B0A6DF25F14374FE1356D6D51C245E485B576625E7EC6F44C42E9A637ED6B0BFF5CB6F406B7ED"
+			+ "EE386BFB5A899FA5AE9F24117C4B1FE649286651ECE45B3DC2007CB8A163BF0598DA48361C55D39A69163FA8FD24CF5F"
+			+ "83655D23DCA3AD961C62F356208552BB9ED529077096966D670C354E4ABC9804F1746C08CA18217C32905E462E36CE3B"
+			+ "E39E772C180E86039B2783A2EC07A28FB5C55DF06F4C52C9DE2BCBF6955817183995497CEA956AE515D2261898FA0510"
+			+ "15728E5A8AACAA68FFFFFFFFFFFFFFFF";
+	
+	//The number of bases in each simultaneous multiple exponentiation.
+	private static final int SIMULTANEOUS_BASES = 8;
+	
+	@Param({"BC:K-233", "OpenSSL:P-256", "OpenSSL:K-233", "Miracl:P-256", "Miracl:K-233",
+		"Scapi:Zp-2048", "OpenSSL:Zp-2048", "CryptoPP:Zp-2048"})
+	public String group;
+	
+	private DlogGroup dlog;
+	private GroupElement base;
+	private BigInteger exponent;
+	private GroupElement[] bases;
+	private BigInteger[] exponents;
+	
+	@Setup
+	public void setup() throws Exception {
+		dlog = createGroup(group);
+		SecureRandom random = new SecureRandom();
+		BigInteger q = dlog.getOrder();
+		
+		base = dlog.createRandomElement();
+		exponent = new BigInteger(q.bitLength(), random).mod(q);
+		bases = new GroupElement[SIMULTANEOUS_BASES];
+		exponents = new BigInteger[SIMULTANEOUS_BASES];
+		for (int i = 0; i < SIMULTANEOUS_BASES; i++) {
+			bases[i] = dlog.createRandomElement();
+			exponents[i] = new BigInteger(q.bitLength(), random).mod(q);
+		}
+	}
+	
+	@Benchmark
+	public GroupElement exponentiate() {
+		return dlog.exponentiate(base, exponent);
+	}
+	
+	@Benchmark
+	public GroupElement exponentiateWithPreComputedValues() {
+		return dlog.exponentiateWithPreComputedValues(dlog.getGenerator(), exponent);
+	}
+	
+	@Benchmark
+	public GroupElement simultaneousMultipleExponentiations() {
+		return dlog.simultaneousMultipleExponentiations(bases, exponents);
+	}
+	
+	/**
+	 * Creates the group described by the given string.
+	 * @param group The provider and the parameters of the group, separated by a colon.
+	 */
+	static DlogGroup createGroup(String group) throws Exception {
+		int separator = group.indexOf(':');
+		String provider = group.substring(0, separator);
+		String params = group.substring(separator + 1);
+		
+		if (params.startsWith("Zp-")) {
+			BigInteger p = new BigInteger(params.equals("Zp-1024") ? ZP_1024 : ZP_2048, 16);
+			ZpGroupParams groupParams = new ZpGroupParams(p.shiftRight(1), BigInteger.valueOf(2), p);
+			if (provider.equals("Scapi")) {
+				return new ScDlogZpSafePrime(groupParams);
+			} else if (provider.equals("OpenSSL")) {
+				return new OpenSSLDlogZpSafePrime(groupParams);
+			} else if (provider.equals("CryptoPP")) {
+				return new CryptoPpDlogZpSafePrime(groupParams);
+			}
+		} else {
+			//The Koblitz and binary curves are over F2m, the rest are over Fp.
+			boolean f2m = params.startsWith("K-") || params.startsWith("B-");
+			if (provider.equals("BC")) {
+				return f2m ? new BcDlogECF2m(params) : new BcDlogECFp(params);
+			} else if (provider.equals("OpenSSL")) {
+				return f2m ? new OpenSSLDlogECF2m(params) : new OpenSSLDlogECFp(params);
+			} else if (provider.equals("Miracl")) {
+				return f2m ? new MiraclDlogECF2m(params) : new MiraclDlogECFp(params);
+			}
+		}
+		throw new IllegalArgumentException("unknown group " + group);
+	}
+}
@@ -0,0 +1,125 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.benchmarks;
+
+import java.io.File;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.biu.scapi.circuits.circuit.BooleanCircuit;
+import edu.biu.scapi.circuits.encryption.AES128MultiKeyEncryption;
+import edu.biu.scapi.circuits.garbledCircuit.CircuitCreationValues;
+import edu.biu.scapi.circuits.garbledCircuit.FreeXORGarblingParameters;
+import edu.biu.scapi.circuits.garbledCircuit.GarbledBooleanCircuit;
+import edu.biu.scapi.circuits.garbledCircuit.GarbledBooleanCircuitImp;
+import edu.biu.scapi.circuits.garbledCircuit.GarbledWire;
+import edu.biu.scapi.circuits.garbledCircuit.GarblingParameters;
+import edu.biu.scapi.circuits.garbledCircuit.StandardGarblingParameters;
+import edu.biu.scapi.exceptions.NotAllInputsSetException;
+import edu.biu.scapi.primitives.prf.AES;
+
+/**
+ * Measures the garbling and the computation of a garbled circuit, for each garbling scheme. <p>
+ * The default circuit is the AES circuit that is shipped with the Yao protocol. Its path is relative to the benchmarks directory, 
+ * and another circuit file can be given by the circuit parameter.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GarbledCircuitBenchmark {
+
+	@Param({"../src/java/edu/biu/SCProtocols/YaoProtocol/AES_Final-2.txt"})
+	public String circuit;
+	
+	@Param({"FreeXOR", "FreeXORRowReduction", "Standard", "StandardRowReduction"})
+	public String scheme;
+	
+	@Param({"BC"})
+	public String provider;
+	
+	private GarbledBooleanCircuit garbledCircuit;
+	
+	@Setup
+	public void setup() throws Exception {
+		BooleanCircuit bc = new BooleanCircuit(new File(circuit));
+		AES aes = PrfBenchmark.createAES(provider);
+		
+		GarblingParameters params;
+		if (scheme.equals("FreeXOR")) {
+			params = new FreeXORGarblingParameters(bc, new AES128MultiKeyEncryption(aes), false);
+		} else if (scheme.equals("FreeXORRowReduction")) {
+			params = new FreeXORGarblingParameters(bc, new AES128MultiKeyEncryption(aes), true);
+		} else if (scheme.equals("Standard")) {
+			params = new StandardGarblingParameters(bc, new AES128MultiKeyEncryption(aes), new SecureRandom(), false);
+		} else if (scheme.equals("StandardRowReduction")) {
+			params = new StandardGarblingParameters(bc, new AES128MultiKeyEncryption(aes), new SecureRandom(), true);
+		} else {
+			throw new IllegalArgumentException("unknown garbling scheme " + scheme);
+		}
+		garbledCircuit = new GarbledBooleanCircuitImp(params);
+		
+		//Garble the circuit and set random inputs, so that compute can be called.
+		CircuitCreationValues values = garbledCircuit.garble();
+		Random random = new Random(1);
+		Map<Integer, Byte> inputs = new HashMap<Integer, Byte>();
+		for (int party = 1; party <= garbledCircuit.getNumberOfParties(); party++) {
+			for (int wire : garbledCircuit.getInputWireIndices(party)) {
+				inputs.put(wire, (byte) random.nextInt(2));
+			}
+		}
+		garbledCircuit.setGarbledInputFromUngarbledInput(inputs, values.getAllInputWireValues());
+	}
+	
+	@Benchmark
+	public CircuitCreationValues garble() {
+		return garbledCircuit.garble();
+	}
+	
+	@Benchmark
+	public Map<Integer, GarbledWire> compute() throws NotAllInputsSetException {
+		return garbledCircuit.compute();
+	}
+}
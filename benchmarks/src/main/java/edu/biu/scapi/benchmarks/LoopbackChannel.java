@@ -0,0 +1,89 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.benchmarks;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import edu.biu.scapi.comm.Channel;
+
+/**
+ * An in-memory channel that connects two parties that run in the same JVM. <p>
+ * The messages are passed by reference through blocking queues, without serialization, so that the benchmarks
+ * measure the computation of the protocols and not the network.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public class LoopbackChannel implements Channel {
+
+	private BlockingQueue<Serializable> in;		//The messages sent by the other party.
+	private BlockingQueue<Serializable> out;	//The messages sent to the other party.
+	private boolean closed;
+	
+	private LoopbackChannel(BlockingQueue<Serializable> in, BlockingQueue<Serializable> out) {
+		this.in = in;
+		this.out = out;
+	}
+	
+	/**
+	 * Creates two connected channels. A message sent on one of them is received on the other.
+	 * @return an array of the two channels.
+	 */
+	public static LoopbackChannel[] createPair() {
+		BlockingQueue<Serializable> first = new LinkedBlockingQueue<Serializable>();
+		BlockingQueue<Serializable> second = new LinkedBlockingQueue<Serializable>();
+		return new LoopbackChannel[] {new LoopbackChannel(first, second), new LoopbackChannel(second, first)};
+	}
+	
+	@Override
+	public void send(Serializable data) throws IOException {
+		if (closed) {
+			throw new IOException("the channel is closed");
+		}
+		out.add(data);
+	}
+
+	@Override
+	public Serializable receive() throws ClassNotFoundException, IOException {
+		try {
+			return in.take();
+		} catch (InterruptedException e) {
+			throw new IOException("interrupted while waiting for a message");
+		}
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+	}
+
+	@Override
+	public boolean isClosed() {
+		return closed;
+	}
+}
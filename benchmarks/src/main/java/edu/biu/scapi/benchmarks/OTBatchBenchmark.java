@@ -0,0 +1,175 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.benchmarks;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.biu.scapi.comm.Channel;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchOnByteArraySInput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchRBasicInput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchRInput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchROutput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchReceiver;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchSInput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchSender;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.otExtension.OTExtensionGeneralRInput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.otExtension.OTExtensionGeneralSInput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.otExtension.OTSemiHonestIKNPExtensionReceiver;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.otExtension.OTSemiHonestIKNPExtensionSender;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.semiHonest.OTSemiHonestDDHBatchOnByteArrayReceiver;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.semiHonest.OTSemiHonestDDHBatchOnByteArraySender;
+import edu.biu.scapi.primitives.dlog.DlogGroup;
+import edu.biu.scapi.primitives.kdf.KeyDerivationFunction;
+import edu.biu.scapi.tools.Factories.KdfFactory;
+
+/**
+ * Measures a batch of OTs, from the sender's input to the receiver's output. <p>
+ * The sender runs in the benchmark thread and the receiver runs in a second thread. The parties communicate through
+ * a {@link LoopbackChannel}. The base OTs of the OT extension are done in the setup, so that the measured transfers
+ * use only symmetric operations.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OTBatchBenchmark {
+
+	//The size in bytes of each input of the sender.
+	private static final int ELEMENT_SIZE = 16;
+	
+	@Param({"DDH", "IKNP"})
+	public String protocol;
+	
+	@Param({"128", "4096"})
+	public int numOfOts;
+	
+	@Param({"BC:K-233"})
+	public String group;
+	
+	private ExecutorService receiverThread;
+	private Channel senderChannel;
+	private Channel receiverChannel;
+	private OTBatchSender sender;
+	private OTBatchReceiver receiver;
+	private OTBatchSInput senderInput;
+	private OTBatchRInput receiverInput;
+	
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		receiverThread = Executors.newSingleThreadExecutor();
+		LoopbackChannel[] channels = LoopbackChannel.createPair();
+		senderChannel = channels[0];
+		receiverChannel = channels[1];
+		
+		DlogGroup dlog = DlogGroupBenchmark.createGroup(group);
+		KeyDerivationFunction kdf = KdfFactory.getInstance().getObject("HKDF(HMac(SHA-256))");
+		Random random = new Random(1);
+		byte[] x0 = new byte[numOfOts * ELEMENT_SIZE];
+		byte[] x1 = new byte[numOfOts * ELEMENT_SIZE];
+		byte[] sigma = new byte[numOfOts];
+		random.nextBytes(x0);
+		random.nextBytes(x1);
+		for (int i = 0; i < numOfOts; i++) {
+			sigma[i] = (byte) random.nextInt(2);
+		}
+		
+		if (protocol.equals("DDH")) {
+			sender = new OTSemiHonestDDHBatchOnByteArraySender(dlog, kdf, new SecureRandom());
+			receiver = new OTSemiHonestDDHBatchOnByteArrayReceiver(dlog, kdf, new SecureRandom());
+			
+			ArrayList<byte[]> x0Arr = new ArrayList<byte[]>();
+			ArrayList<byte[]> x1Arr = new ArrayList<byte[]>();
+			ArrayList<Byte> sigmaArr = new ArrayList<Byte>();
+			for (int i = 0; i < numOfOts; i++) {
+				byte[] x0i = new byte[ELEMENT_SIZE];
+				byte[] x1i = new byte[ELEMENT_SIZE];
+				System.arraycopy(x0, i * ELEMENT_SIZE, x0i, 0, ELEMENT_SIZE);
+				System.arraycopy(x1, i * ELEMENT_SIZE, x1i, 0, ELEMENT_SIZE);
+				x0Arr.add(x0i);
+				x1Arr.add(x1i);
+				sigmaArr.add(sigma[i]);
+			}
+			senderInput = new OTBatchOnByteArraySInput(x0Arr, x1Arr);
+			receiverInput = new OTBatchRBasicInput(sigmaArr);
+			
+		} else if (protocol.equals("IKNP")) {
+			//The receiver of the extension is the sender of the base OTs and vice versa.
+			sender = new OTSemiHonestIKNPExtensionSender(new OTSemiHonestDDHBatchOnByteArrayReceiver(dlog, kdf, new SecureRandom()), new SecureRandom());
+			receiver = new OTSemiHonestIKNPExtensionReceiver(new OTSemiHonestDDHBatchOnByteArraySender(dlog, kdf, new SecureRandom()), new SecureRandom());
+			senderInput = new OTExtensionGeneralSInput(x0, x1, numOfOts);
+			receiverInput = new OTExtensionGeneralRInput(sigma, ELEMENT_SIZE * 8);
+			
+			//The first transfer runs the base OTs.
+			transfer();
+		} else {
+			throw new IllegalArgumentException("unknown protocol " + protocol);
+		}
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		receiverThread.shutdownNow();
+		senderChannel.close();
+		receiverChannel.close();
+	}
+	
+	@Benchmark
+	public OTBatchROutput transfer() throws Exception {
+		Future<OTBatchROutput> output = receiverThread.submit(new Callable<OTBatchROutput>() {
+			@Override
+			public OTBatchROutput call() throws Exception {
+				return receiver.transfer(receiverChannel, receiverInput);
+			}
+		});
+		sender.transfer(senderChannel, senderInput);
+		return output.get();
+	}
+}
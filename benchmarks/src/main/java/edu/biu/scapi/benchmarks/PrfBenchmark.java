@@ -0,0 +1,110 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.benchmarks;
+
+import java.security.InvalidKeyException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.IllegalBlockSizeException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.biu.scapi.primitives.prf.AES;
+import edu.biu.scapi.primitives.prf.PseudorandomFunction;
+import edu.biu.scapi.primitives.prf.bc.BcAES;
+import edu.biu.scapi.primitives.prf.cryptopp.CryptoPpAES;
+import edu.biu.scapi.primitives.prf.openSSL.OpenSSLAES;
+
+/**
+ * Measures {@link PseudorandomFunction#computeBlock(byte[], int, byte[], int)} of AES for each provider. <p>
+ * Each invocation computes the given number of consecutive blocks, so that the per call overhead of the native 
+ * providers can be compared with the cost of the block computation itself.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrfBenchmark {
+
+	@Param({"BC", "OpenSSL", "CryptoPP"})
+	public String provider;
+	
+	@Param({"1", "1024"})
+	public int blocks;
+	
+	private PseudorandomFunction prf;
+	private byte[] in;
+	private byte[] out;
+	
+	@Setup
+	public void setup() throws InvalidKeyException {
+		prf = createAES(provider);
+		prf.setKey(prf.generateKey(128));
+		
+		int blockSize = prf.getBlockSize();
+		in = new byte[blocks * blockSize];
+		out = new byte[blocks * blockSize];
+		new Random(1).nextBytes(in);
+	}
+	
+	@Benchmark
+	public byte[] computeBlock() throws IllegalBlockSizeException {
+		int blockSize = prf.getBlockSize();
+		for (int i = 0; i < blocks; i++) {
+			prf.computeBlock(in, i * blockSize, out, i * blockSize);
+		}
+		return out;
+	}
+	
+	/**
+	 * Creates the AES implementation of the given provider.
+	 */
+	static AES createAES(String provider) {
+		if (provider.equals("BC")) {
+			return new BcAES();
+		} else if (provider.equals("OpenSSL")) {
+			return new OpenSSLAES();
+		} else if (provider.equals("CryptoPP")) {
+			return new CryptoPpAES();
+		}
+		throw new IllegalArgumentException("unknown provider " + provider);
+	}
+}
@@ -1,4 +1,5 @@
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
@@ -13,6 +14,7 @@ import edu.biu.scapi.circuits.garbledCircuit.GarblingParameters;
 import edu.biu.scapi.circuits.garbledCircuit.FreeXORGarblingParameters;
 import edu.biu.scapi.circuits.garbledCircuit.GarbledBooleanCircuit;
 import edu.biu.scapi.circuits.garbledCircuit.GarbledBooleanCircuitImp;
+import edu.biu.scapi.comm.BinaryChannel;
 import edu.biu.scapi.comm.Channel;
 import edu.biu.scapi.exceptions.CheatAttemptException;
 import edu.biu.scapi.exceptions.InvalidDlogGroupException;
@@ -33,6 +35,12 @@ public class PartyOne {
 	GarbledBooleanCircuit circuit;	//The garbled circuit used in the protocol.
 	Channel channel;				//The channel between both parties.
 	
+	/*
+	 * The number of gates whose garbled tables are sent in each message of the pipelined mode. 
+	 * Zero means that the pipelined mode is not used and all the garbled tables are sent in one message.
+	 */
+	int gatesPerChunk;
+	
 	/**
 	 * Constructor that sets the parameters of the OT protocol and creates the garbled circuit.
 	 * @param channel The channel between both parties.
@@ -41,9 +49,28 @@ public class PartyOne {
 	 * @param otSender The OT object to use in the protocol.
 	 */
 	public PartyOne(Channel channel, BooleanCircuit bc, MultiKeyEncryptionScheme mes, OTBatchSender otSender){
+		this(channel, bc, mes, otSender, 0);
+	}
+	
+	/**
+	 * Constructor that sets the parameters of the OT protocol, creates the garbled circuit and sets the pipelined mode.<p>
+	 * In the pipelined mode, the garbled tables are sent after the inputs, in messages of gatesPerChunk gates each. 
+	 * This way, party two can compute the gates of each message while the next messages are sent, and it does not need to hold 
+	 * all the garbled tables in memory. Party two should be created with the same number of gates per chunk.
+	 * @param channel The channel between both parties.
+	 * @param bc The boolean circuit that should be garbled.
+	 * @param mes The encryption scheme to use in the garbled circuit.
+	 * @param otSender The OT object to use in the protocol.
+	 * @param gatesPerChunk The number of gates whose garbled tables are sent in each message. Zero disables the pipelined mode.
+	 */
+	public PartyOne(Channel channel, BooleanCircuit bc, MultiKeyEncryptionScheme mes, OTBatchSender otSender, int gatesPerChunk){
+		if (gatesPerChunk < 0){
+			throw new IllegalArgumentException("the number of gates per chunk should not be negative");
+		}
 		//Set the given parameters.
 		this.channel = channel;
 		this.otSender = otSender;
+		this.gatesPerChunk = gatesPerChunk;
 		
 		//Create the garbled circuit.
 		Date before = new Date();
@@ -73,7 +100,10 @@ public class PartyOne {
 		
 		start = new Date();
 		//Send garbled tables and the translation table to p2.
-		channel.send(circuit.getGarbledTables());
+		//In the pipelined mode, the garbled tables are sent after the inputs so that p2 can compute the circuit while receiving them.
+		if (gatesPerChunk == 0){
+			channel.send(circuit.getGarbledTables());
+		}
 		channel.send(circuit.getTranslationTable());
 		end = new Date();
 		time = (end.getTime() - start.getTime());
@@ -92,12 +122,67 @@ public class PartyOne {
 		end = new Date();
 		time = (end.getTime() - start.getTime());
 		System.out.println("run OT took " +time + " milis");
+		
+		if (gatesPerChunk > 0){
+			start = new Date();
+			//Send the garbled tables in chunks.
+			streamGarbledTables();
+			end = new Date();
+			time = (end.getTime() - start.getTime());
+			System.out.println("stream garbled tables took " +time + " milis");
+		}
 		Date yaoEnd = new Date();
 		long yaoTime = (yaoEnd.getTime() - startProtocol.getTime());
 		System.out.println("run one protocol took " +yaoTime + " milis");
 		
 	}
 
+	/**
+	 * Sends the garbled tables to p2 in messages of gatesPerChunk gates each.<p>
+	 * Each message contains the index of its first gate and the number of its gates, followed by the length and the content of 
+	 * each gate's garbled table. A gate without garbled table (for example, a free XOR gate) has length -1.
+	 * @throws IOException In case there was a problem to send via the channel.
+	 */
+	private void streamGarbledTables() throws IOException {
+		byte[][] tables = circuit.getGarbledTables().toDoubleByteArray();
+		int numberOfGates = tables.length;
+		
+		//The chunk buffer is reused by all the messages, unless the channel can not send a part of an array.
+		ByteBuffer chunk = null;
+		for (int fromGate = 0; fromGate < numberOfGates; fromGate += gatesPerChunk) {
+			int toGate = Math.min(fromGate + gatesPerChunk, numberOfGates);
+			
+			//Calculate the size of the message.
+			int size = 8;
+			for (int gate = fromGate; gate < toGate; gate++) {
+				size += 4 + ((tables[gate] == null) ? 0 : tables[gate].length);
+			}
+			if (chunk == null || chunk.capacity() < size || !(channel instanceof BinaryChannel)){
+				chunk = ByteBuffer.allocate(size);
+			}
+			
+			//Put the gates' garbled tables in the message.
+			chunk.clear();
+			chunk.putInt(fromGate);
+			chunk.putInt(toGate - fromGate);
+			for (int gate = fromGate; gate < toGate; gate++) {
+				if (tables[gate] == null){
+					chunk.putInt(-1);
+				} else{
+					chunk.putInt(tables[gate].length);
+					chunk.put(tables[gate]);
+				}
+			}
+			
+			//Send the message. A binary channel sends the bytes without serializing them.
+			if (channel instanceof BinaryChannel){
+				((BinaryChannel) channel).send(chunk.array(), 0, size);
+			} else{
+				channel.send(chunk.array());
+			}
+		}
+	}
+	
 	/**
 	 * Sends p1 input keys to p2.
 	 * @param ungarbledInput The boolean input of each wire.
@@ -1,11 +1,14 @@
 import java.io.IOException;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
@@ -15,7 +18,6 @@ import edu.biu.scapi.circuits.circuit.Wire;
 import edu.biu.scapi.circuits.encryption.MultiKeyEncryptionScheme;
 import edu.biu.scapi.circuits.garbledCircuit.GarblingParameters;
 import edu.biu.scapi.circuits.garbledCircuit.FreeXORGarblingParameters;
-import edu.biu.scapi.circuits.garbledCircuit.GarbledBooleanCircuit;
 import edu.biu.scapi.circuits.garbledCircuit.GarbledBooleanCircuitImp;
 import edu.biu.scapi.circuits.garbledCircuit.GarbledTablesHolder;
 import edu.biu.scapi.circuits.garbledCircuit.GarbledWire;
@@ -39,9 +41,15 @@ import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.otExtension.OTExtensionG
 public class PartyTwo {
 
 	OTBatchReceiver otReceiver;			//The OT object that used in the protocol.	
-	GarbledBooleanCircuit circuit;		//The garbled circuit used in the protocol.
+	GarbledBooleanCircuitImp circuit;	//The garbled circuit used in the protocol.
 	Channel channel;					//The channel between both parties.
 	
+	/*
+	 * The maximal number of received garbled tables' chunks that wait to be computed in the pipelined mode. 
+	 * Zero means that the pipelined mode is not used and all the garbled tables are received in one message.
+	 */
+	int window;
+	
 	/**
 	 * Constructor that sets the parameters of the OT protocol and creates the garbled circuit.
 	 * @param channel The channel between both parties.
@@ -50,9 +58,28 @@ public class PartyTwo {
 	 * @param otReceiver The OT object to use in the protocol.
 	 */
 	public PartyTwo(Channel channel, BooleanCircuit bc, MultiKeyEncryptionScheme mes, OTBatchReceiver otReceiver){
+		this(channel, bc, mes, otReceiver, 0);
+	}
+	
+	/**
+	 * Constructor that sets the parameters of the OT protocol, creates the garbled circuit and sets the pipelined mode.<p>
+	 * In the pipelined mode, party one sends the garbled tables in chunks after the inputs. The chunks are received by a separate thread 
+	 * while the gates of the previous chunks are computed, and each chunk is released after its gates are computed. 
+	 * Thus, at most window chunks are held in memory. Party one should be created in the pipelined mode as well.
+	 * @param channel The channel between both parties.
+	 * @param bc The boolean circuit that should be garbled.
+	 * @param mes The encryption scheme to use in the garbled circuit.
+	 * @param otReceiver The OT object to use in the protocol.
+	 * @param window The maximal number of received chunks that wait to be computed. Zero disables the pipelined mode.
+	 */
+	public PartyTwo(Channel channel, BooleanCircuit bc, MultiKeyEncryptionScheme mes, OTBatchReceiver otReceiver, int window){
+		if (window < 0){
+			throw new IllegalArgumentException("the window should not be negative");
+		}
 		//Set the given parameters.
 		this.channel = channel;
 		this.otReceiver = otReceiver;
+		this.window = window;
 		
 		//Create the garbled circuit.
 		Date before = new Date();
@@ -120,12 +147,15 @@ public class PartyTwo {
 	 * @throws IOException
 	 */
 	private void receiveCircuit() throws CheatAttemptException, ClassNotFoundException, IOException {
-		//Receive garbled tables.
-		Serializable msg = channel.receive();
-		if (!(msg instanceof GarbledTablesHolder)){
-			throw new CheatAttemptException("the received message should be an instance of GarbledTablesHolder");
+		//Receive garbled tables. In the pipelined mode, the garbled tables are received during the computation.
+		Serializable msg;
+		if (window == 0){
+			msg = channel.receive();
+			if (!(msg instanceof GarbledTablesHolder)){
+				throw new CheatAttemptException("the received message should be an instance of GarbledTablesHolder");
+			}
+			circuit.setGarbledTables((GarbledTablesHolder) msg);
 		}
-		GarbledTablesHolder garbledTables = (GarbledTablesHolder) msg;
 	
 		//Receive translation table.
 		msg = channel.receive();
@@ -134,8 +164,7 @@ public class PartyTwo {
 		}
 		HashMap<Integer, Byte> translationTable = (HashMap<Integer, Byte>) msg;
 			
-		//Set garbled tables and translation table to the circuit.
-		circuit.setGarbledTables(garbledTables);
+		//Set translation table to the circuit.
 		circuit.setTranslationTable(translationTable);
 	}
 	
@@ -195,7 +224,7 @@ public class PartyTwo {
 	 * @param otOutput The output from the OT protocol, which are party two inputs.
 	 * @return 
 	 */
-	private Map<Integer, Wire> computeCircuit(OTBatchROutput otOutput) {
+	private Map<Integer, Wire> computeCircuit(OTBatchROutput otOutput) throws CheatAttemptException, IOException {
 		//Get the output of the protocol.
 		byte[] keys = ((OTOnByteArrayROutput)otOutput).getXSigma();
 		
@@ -223,7 +252,11 @@ public class PartyTwo {
 		//Compute the circuit.
   		HashMap<Integer, GarbledWire> garbledOutput = null;
 		try {
-			garbledOutput = circuit.compute();
+			if (window == 0){
+				garbledOutput = circuit.compute();
+			} else{
+				garbledOutput = computeStreamedCircuit();
+			}
 		} catch (NotAllInputsSetException e) {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
@@ -233,4 +266,111 @@ public class PartyTwo {
   		Map<Integer, Wire> circuitOutput = circuit.translate(garbledOutput);
   		return circuitOutput;
 	}
+	
+	/**
+	 * Computes the circuit while receiving its garbled tables in chunks, as sent by party one in the pipelined mode.<p>
+	 * A separate thread receives the chunks into a queue of size window, while this thread computes the gates of each chunk and 
+	 * then releases the chunk's garbled tables. If the computation fails, the receiving thread is stopped.
+	 * @return the garbled output of the circuit.
+	 * @throws NotAllInputsSetException if not all the inputs have been set.
+	 * @throws CheatAttemptException if a received chunk does not match the circuit.
+	 * @throws IOException if there was a problem to receive a chunk.
+	 */
+	private HashMap<Integer, GarbledWire> computeStreamedCircuit() throws NotAllInputsSetException, CheatAttemptException, IOException {
+		final byte[][] tables = circuit.getGarbledTables().toDoubleByteArray();
+		final int numberOfGates = circuit.getNumberOfGates();
+		final BlockingQueue<ByteBuffer> chunks = new ArrayBlockingQueue<ByteBuffer>(window);
+		final Exception[] receiveException = new Exception[1];
+		
+		//Receive the chunks in a separate thread, so that the network transfer overlaps the computation.
+		Thread receiver = new Thread(){
+			public void run(){
+				try {
+					int receivedGates = 0;
+					while (receivedGates < numberOfGates){
+						Serializable msg = channel.receive();
+						if (!(msg instanceof byte[]) || ((byte[]) msg).length < 8){
+							throw new CheatAttemptException("the received message should be a chunk of garbled tables");
+						}
+						ByteBuffer chunk = ByteBuffer.wrap((byte[]) msg);
+						//The chunks should cover the gates in their order.
+						int gates = chunk.getInt(4);
+						if (chunk.getInt(0) != receivedGates || gates <= 0 || gates > numberOfGates - receivedGates){
+							throw new CheatAttemptException("the received chunk of garbled tables does not match the circuit");
+						}
+						receivedGates += gates;
+						chunks.put(chunk);
+					}
+				} catch (InterruptedException e) {
+					//The computing thread stopped, so there is no one to receive the rest of the chunks.
+				} catch (Exception e) {
+					receiveException[0] = e;
+					//An empty chunk signals the computing thread to stop.
+					try {
+						chunks.put(ByteBuffer.allocate(0));
+					} catch (InterruptedException e1) {
+						//The computing thread stopped, so it does not wait for the signal.
+					}
+				}
+			}
+		};
+		receiver.setDaemon(true);
+		receiver.start();
+		
+		int computedGates = 0;
+		try {
+			while (computedGates < numberOfGates){
+				ByteBuffer chunk;
+				try {
+					chunk = chunks.take();
+				} catch (InterruptedException e) {
+					throw new IOException("interrupted while waiting for the garbled tables");
+				}
+				if (chunk.capacity() == 0){
+					if (receiveException[0] instanceof CheatAttemptException){
+						throw (CheatAttemptException) receiveException[0];
+					}
+					throw new IOException("failed to receive the garbled tables. The thrown message is: " + receiveException[0].getMessage());
+				}
+				
+				//Put the chunk's garbled tables in the circuit.
+				int fromGate = chunk.getInt();
+				int toGate = fromGate + chunk.getInt();
+				for (int gate = fromGate; gate < toGate; gate++){
+					if (chunk.remaining() < 4){
+						throw new CheatAttemptException("the received chunk of garbled tables is too short");
+					}
+					int length = chunk.getInt();
+					//Each garbled table should have exactly the size that the gate expects.
+					if (length != circuit.getGarbledTableSize(gate)){
+						throw new CheatAttemptException("the received garbled table of gate " + gate + " does not match the gate");
+					}
+					if (length > chunk.remaining()){
+						throw new CheatAttemptException("the received chunk of garbled tables is too short");
+					}
+					if (length < 0){
+						tables[gate] = null;
+					} else{
+						tables[gate] = new byte[length];
+						chunk.get(tables[gate]);
+					}
+				}
+				
+				//Compute the chunk's gates and release their garbled tables.
+				circuit.computeGates(fromGate, toGate);
+				for (int gate = fromGate; gate < toGate; gate++){
+					tables[gate] = null;
+				}
+				computedGates = toGate;
+			}
+		} finally {
+			if (computedGates < numberOfGates){
+				//The computation failed. Stop the receiving thread, which may be blocked on a full queue, and release the received chunks.
+				receiver.interrupt();
+				chunks.clear();
+			}
+		}
+		
+		return circuit.getComputedOutput();
+	}
 }
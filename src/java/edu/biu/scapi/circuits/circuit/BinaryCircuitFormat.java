@@ -0,0 +1,309 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.circuits.circuit;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import edu.biu.scapi.exceptions.CircuitFileFormatException;
+import edu.biu.scapi.exceptions.NoSuchPartyException;
+
+/**
+ * Reads and writes {@link BooleanCircuit}s in a compact binary format. <p>
+ * Loading a big circuit from the text format (see {@link BooleanCircuit#BooleanCircuit(File)}) is slow, since every number and truth table 
+ * is parsed from a separate token. The binary format keeps the same information as the text format, but all the numbers are 
+ * 4 bytes big endian integers and the truth tables are written once per gate type. The file is memory mapped when it is loaded, 
+ * and all the gates of the same type share a single truth table. <p>
+ * 
+ * The format of the file is:
+ * <ul>
+ * <li> The magic number 0x53434243 ("SCBC") and the format version.
+ * <li> The number of gates and the number of parties.
+ * <li> For each party: the number of its input wires followed by their indices.
+ * <li> The number of output wires followed by their indices.
+ * <li> The number of gate types. For each type: the number of input wires, the number of output wires, the number of bytes of the 
+ * 		truth table and these bytes, where row j of the truth table is bit (j % 8) of byte number j / 8.
+ * <li> For each gate, in topological order: the code of the gate's type (its index in the list of types), 
+ * 		followed by the indices of the gate's input wires and then the indices of its output wires.
+ * </ul>
+ * A text circuit file can be converted to the binary format by {@link #convert(File, File)} or from the command line by: 
+ * {@code java edu.biu.scapi.circuits.circuit.BinaryCircuitFormat <text circuit file> <binary circuit file>}.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public final class BinaryCircuitFormat {
+	
+	private static final int MAGIC = 0x53434243;
+	private static final int VERSION = 1;
+	
+	private BinaryCircuitFormat() {
+	}
+	
+	/**
+	 * Writes the given circuit to the given file in the binary format.
+	 * @param circuit The circuit to write.
+	 * @param f The file to write to.
+	 * @throws IOException if the writing failed.
+	 */
+	public static void write(BooleanCircuit circuit, File f) throws IOException {
+		Gate[] gates = circuit.getGates();
+		
+		//Collect the distinct gate types and give each gate the code of its type.
+		ArrayList<Gate> types = new ArrayList<Gate>();
+		Map<GateType, Integer> typeCodes = new HashMap<GateType, Integer>();
+		int[] gateTypes = new int[gates.length];
+		for (int i = 0; i < gates.length; i++) {
+			GateType type = new GateType(gates[i]);
+			Integer code = typeCodes.get(type);
+			if (code == null) {
+				code = types.size();
+				typeCodes.put(type, code);
+				types.add(gates[i]);
+			}
+			gateTypes[i] = code;
+		}
+		
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(f), 1 << 16));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(gates.length);
+			int numberOfParties = circuit.getNumberOfParties();
+			out.writeInt(numberOfParties);
+			for (int party = 1; party <= numberOfParties; party++) {
+				ArrayList<Integer> inputs = null;
+				try {
+					inputs = circuit.getInputWireIndices(party);
+				} catch (NoSuchPartyException e) {
+					// Should not occur since the party numbers are between 1 to getNumberOfParties.
+				}
+				out.writeInt(inputs.size());
+				for (int w : inputs) {
+					out.writeInt(w);
+				}
+			}
+			writeIndices(out, circuit.getOutputWireIndices());
+			
+			out.writeInt(types.size());
+			for (Gate type : types) {
+				out.writeInt(type.getInputWireIndices().length);
+				out.writeInt(type.getOutputWireIndices().length);
+				BitSet truthTable = type.getTruthTable();
+				byte[] truthTableBytes = new byte[(truthTable.length() + 7) / 8];
+				for (int row = truthTable.nextSetBit(0); row >= 0; row = truthTable.nextSetBit(row + 1)) {
+					truthTableBytes[row / 8] |= 1 << (row % 8);
+				}
+				out.writeInt(truthTableBytes.length);
+				out.write(truthTableBytes);
+			}
+			
+			for (int i = 0; i < gates.length; i++) {
+				out.writeInt(gateTypes[i]);
+				for (int w : gates[i].getInputWireIndices()) {
+					out.writeInt(w);
+				}
+				for (int w : gates[i].getOutputWireIndices()) {
+					out.writeInt(w);
+				}
+			}
+		} finally {
+			out.close();
+		}
+	}
+	
+	/**
+	 * Reads a circuit from the given binary circuit file. <p>
+	 * The file is memory mapped, so it can not be larger than 2GB.
+	 * @param f The file to read.
+	 * @return the read circuit.
+	 * @throws IOException if the reading failed.
+	 * @throws CircuitFileFormatException if the file is not a valid binary circuit file.
+	 */
+	public static BooleanCircuit read(File f) throws IOException, CircuitFileFormatException {
+		RandomAccessFile file = new RandomAccessFile(f, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new CircuitFileFormatException();
+			}
+			return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		} finally {
+			file.close();
+		}
+	}
+	
+	/**
+	 * Reads a circuit from the given buffer, which contains a binary circuit file starting at its current position.
+	 * @param buffer The buffer to read from. Its byte order should be big endian, which is the default order of a {@code ByteBuffer}.
+	 * @return the read circuit.
+	 * @throws CircuitFileFormatException if the buffer does not contain a valid binary circuit file.
+	 */
+	public static BooleanCircuit read(ByteBuffer buffer) throws CircuitFileFormatException {
+		try {
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+				throw new CircuitFileFormatException();
+			}
+			int numberOfGates = readCount(buffer);
+			int numberOfParties = readCount(buffer);
+			ArrayList<ArrayList<Integer>> eachPartysInputWires = new ArrayList<ArrayList<Integer>>(numberOfParties);
+			for (int party = 0; party < numberOfParties; party++) {
+				int numberOfInputs = readCount(buffer);
+				ArrayList<Integer> inputs = new ArrayList<Integer>(numberOfInputs);
+				for (int i = 0; i < numberOfInputs; i++) {
+					inputs.add(buffer.getInt());
+				}
+				eachPartysInputWires.add(inputs);
+			}
+			int[] outputWireIndices = readIndices(buffer, readCount(buffer));
+			
+			//Read the gate types. All the gates of a type share the same truth table.
+			int numberOfTypes = readCount(buffer);
+			int[] typeInputs = new int[numberOfTypes];
+			int[] typeOutputs = new int[numberOfTypes];
+			BitSet[] typeTruthTables = new BitSet[numberOfTypes];
+			for (int type = 0; type < numberOfTypes; type++) {
+				typeInputs[type] = readCount(buffer);
+				typeOutputs[type] = readCount(buffer);
+				int truthTableSize = readCount(buffer);
+				BitSet truthTable = new BitSet(truthTableSize * 8);
+				for (int i = 0; i < truthTableSize; i++) {
+					byte b = buffer.get();
+					for (int bit = 0; bit < 8; bit++) {
+						if ((b & (1 << bit)) != 0) {
+							truthTable.set(i * 8 + bit);
+						}
+					}
+				}
+				typeTruthTables[type] = truthTable;
+			}
+			
+			Gate[] gates = new Gate[numberOfGates];
+			for (int i = 0; i < numberOfGates; i++) {
+				int type = buffer.getInt();
+				if (type < 0 || type >= numberOfTypes) {
+					throw new CircuitFileFormatException();
+				}
+				int[] inputs = readIndices(buffer, typeInputs[type]);
+				int[] outputs = readIndices(buffer, typeOutputs[type]);
+				gates[i] = new Gate(i, typeTruthTables[type], inputs, outputs);
+			}
+			return new BooleanCircuit(gates, outputWireIndices, eachPartysInputWires);
+			
+		} catch (BufferUnderflowException e) {
+			// The file ended before all the circuit was read.
+			throw new CircuitFileFormatException();
+		}
+	}
+	
+	/**
+	 * Converts the given text circuit file to the binary format.
+	 * @param textFile The circuit file to convert. Its format is described in {@link BooleanCircuit#BooleanCircuit(File)}.
+	 * @param binaryFile The file to write the binary circuit to.
+	 * @throws IOException if the reading or writing failed.
+	 * @throws CircuitFileFormatException if there is a problem with the format of the text file.
+	 */
+	public static void convert(File textFile, File binaryFile) throws IOException, CircuitFileFormatException {
+		write(new BooleanCircuit(textFile), binaryFile);
+	}
+	
+	/**
+	 * Converts a text circuit file to the binary format.
+	 * @param args The text circuit file and the binary file to write.
+	 */
+	public static void main(String[] args) throws IOException, CircuitFileFormatException {
+		if (args.length != 2) {
+			System.err.println("usage: BinaryCircuitFormat <text circuit file> <binary circuit file>");
+			System.exit(1);
+		}
+		convert(new File(args[0]), new File(args[1]));
+	}
+	
+	private static void writeIndices(DataOutputStream out, int[] indices) throws IOException {
+		out.writeInt(indices.length);
+		for (int w : indices) {
+			out.writeInt(w);
+		}
+	}
+	
+	private static int[] readIndices(ByteBuffer buffer, int count) {
+		int[] indices = new int[count];
+		for (int i = 0; i < count; i++) {
+			indices[i] = buffer.getInt();
+		}
+		return indices;
+	}
+	
+	/**
+	 * Reads a number of elements, which can not be negative or bigger than the rest of the buffer.
+	 */
+	private static int readCount(ByteBuffer buffer) throws CircuitFileFormatException {
+		int count = buffer.getInt();
+		if (count < 0 || count > buffer.remaining()) {
+			throw new CircuitFileFormatException();
+		}
+		return count;
+	}
+	
+	/**
+	 * The type of a gate: its number of input and output wires and its truth table.
+	 */
+	private static class GateType {
+		private int numberOfInputs;
+		private int numberOfOutputs;
+		private BitSet truthTable;
+		
+		GateType(Gate gate) {
+			numberOfInputs = gate.getInputWireIndices().length;
+			numberOfOutputs = gate.getOutputWireIndices().length;
+			truthTable = gate.getTruthTable();
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof GateType)) {
+				return false;
+			}
+			GateType other = (GateType) obj;
+			return numberOfInputs == other.numberOfInputs && numberOfOutputs == other.numberOfOutputs && truthTable.equals(other.truthTable);
+		}
+		
+		@Override
+		public int hashCode() {
+			return (numberOfInputs * 31 + numberOfOutputs) * 31 + truthTable.hashCode();
+		}
+	}
+}
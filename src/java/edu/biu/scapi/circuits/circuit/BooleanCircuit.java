@@ -27,6 +27,7 @@ package edu.biu.scapi.circuits.circuit;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Map;
@@ -40,7 +41,10 @@ import edu.biu.scapi.exceptions.NotAllInputsSetException;
 /**
  * A software representation of a boolean circuit. <p>
  * The circuit is constructed from {@code Wire}s and {@code Gate}s. Once input has been set, the compute() function performs the 
- * computation and returns the computed output {@code Wire}s. 
+ * computation and returns the computed output {@code Wire}s. <p>
+ * When the circuit is loaded its wires are renumbered densely (0, 1, ..., numberOfWires-1) in the order they are first defined. 
+ * The computation uses these dense indices to keep the wire values in a flat array instead of a map; 
+ * the {@code Map} based input and output functions translate between the original indices and the dense ones.
  * The equals function verifies that two gates are equivalent.
  * 
  * @author Steven Goldfeder
@@ -55,11 +59,20 @@ public class BooleanCircuit {
 	private boolean[] isInputSet;
 	
 	/**
-	 * A {@code Map} that maps the number of a {@code Wire} to the previously set {@code Wire}. 
-	 * Only {@code Wire}s whose value has been set will be on this map.
-	 * 
+	 * The values of all the {@code Wire}s of this circuit, indexed by the dense wire index.
+	 */
+	private byte[] wireValues;
+	
+	/**
+	 * Maps the original index of each {@code Wire} (as given in the circuit file) to its dense index. 
+	 * It is only used when translating the input and output of the circuit, never during the computation itself.
+	 */
+	private WireIndexTable denseWireIndices;
+	
+	/**
+	 * An array containing the dense indices of the output {@code Wire}s of this {@code BooleanCircuit}.
 	 */
-	private Map<Integer, Wire> computedWires = new HashMap<Integer,Wire>();
+	private int[] denseOutputWireIndices;
   
 	/**
 	 * An array of the {@code Gate}s of this {@code BooleanCircuit} sorted topologically.
@@ -80,6 +93,11 @@ public class BooleanCircuit {
 	 * An arrayList containing the indices of the input {@code Wire}s of this {@code BooleanCircuit} indexed by the party number.
 	 */
 	private ArrayList<ArrayList<Integer>> eachPartysInputWires = new ArrayList<ArrayList<Integer>>();
+	
+	/**
+	 * The indices of the {@code Gate}s of this {@code BooleanCircuit} grouped by their level. Created on the first call to {@link #getLevels()}.
+	 */
+	private int[][] levels;
 
 	/**
 	 * Constructs a BooleanCircuit from a File. <p>
@@ -88,6 +106,7 @@ public class BooleanCircuit {
 	 * Next it lists the number of output {@code Wire}s followed by the index of each of these {@code Wires}. <p>
 	 * Then for each gate, we have the following: number of inputWires, number of OutputWires inputWireIndices OutputWireIndices and the gate's truth Table (as a 0-1 string).<P>
 	 * example file: 1 2 1 1 1 2 1 2 1 3 2 1 1 2 3 0001<p>
+	 * Big circuits are loaded much faster from the binary format of {@link BinaryCircuitFormat}.
 	 *
 	 * @param f The {@link File} from which the circuit is read.
 	 * @throws FileNotFoundException if f is not found in the specified directory.
@@ -176,6 +195,86 @@ public class BooleanCircuit {
 	    	//Construct the gate.
 	    	gates[i] = new Gate(i, truthTable, inputWireIndices, outputWireIndices);
 	    }
+	    
+	    //Renumber the wires so the computation can use flat arrays.
+	    createDenseWireIndices();
+	}
+	
+	/**
+	 * Renumbers the wires of the circuit densely and sets the dense indices in the gates. <p>
+	 * The input wires of the parties get the first indices, then each gate's output wires in topological order. 
+	 * A wire that is used before it is defined (for example, a constant wire that is not listed as any party's input) gets 
+	 * an index on its first use.
+	 */
+	private void createDenseWireIndices() {
+		//Find the range of the original wire indices and an upper bound on the number of distinct wires.
+		int minWire = Integer.MAX_VALUE;
+		int maxWire = Integer.MIN_VALUE;
+		int wireReferences = outputWireIndices.length;
+		for (ArrayList<Integer> partyInputs : eachPartysInputWires) {
+			for (int w : partyInputs) {
+				minWire = Math.min(minWire, w);
+				maxWire = Math.max(maxWire, w);
+			}
+			wireReferences += partyInputs.size();
+		}
+		for (Gate g : gates) {
+			for (int w : g.getInputWireIndices()) {
+				minWire = Math.min(minWire, w);
+				maxWire = Math.max(maxWire, w);
+			}
+			for (int w : g.getOutputWireIndices()) {
+				minWire = Math.min(minWire, w);
+				maxWire = Math.max(maxWire, w);
+			}
+			wireReferences += g.getInputWireIndices().length + g.getOutputWireIndices().length;
+		}
+		for (int w : outputWireIndices) {
+			minWire = Math.min(minWire, w);
+			maxWire = Math.max(maxWire, w);
+		}
+		denseWireIndices = new WireIndexTable(minWire, maxWire, wireReferences);
+		
+		//Index the parties' input wires.
+		for (ArrayList<Integer> partyInputs : eachPartysInputWires) {
+			for (int w : partyInputs) {
+				getOrCreateDenseIndex(w);
+			}
+		}
+		
+		//Index the gates' wires and set the dense indices in each gate.
+		for (Gate g : gates) {
+			int[] inputs = g.getInputWireIndices();
+			int[] outputs = g.getOutputWireIndices();
+			int[] denseInputs = new int[inputs.length];
+			int[] denseOutputs = new int[outputs.length];
+			for (int i = 0; i < inputs.length; i++) {
+				denseInputs[i] = getOrCreateDenseIndex(inputs[i]);
+			}
+			for (int i = 0; i < outputs.length; i++) {
+				denseOutputs[i] = getOrCreateDenseIndex(outputs[i]);
+			}
+			g.setDenseWireIndices(denseInputs, denseOutputs);
+		}
+		
+		denseOutputWireIndices = new int[outputWireIndices.length];
+		for (int i = 0; i < outputWireIndices.length; i++) {
+			denseOutputWireIndices[i] = getOrCreateDenseIndex(outputWireIndices[i]);
+		}
+		
+		wireValues = new byte[denseWireIndices.size()];
+	}
+	
+	/**
+	 * Returns the dense index of the given wire. If the wire has no dense index yet, gives it the next free one.
+	 * @param wireIndex The original index of the wire.
+	 */
+	private int getOrCreateDenseIndex(int wireIndex) {
+		int denseIndex = denseWireIndices.get(wireIndex);
+		if (denseIndex == -1) {
+			denseIndex = denseWireIndices.add(wireIndex);
+		}
+		return denseIndex;
 	}
 
 	private String read(Scanner s){
@@ -202,6 +301,15 @@ public class BooleanCircuit {
 		this.outputWireIndices = outputWireIndices;
 		this.eachPartysInputWires = eachPartysInputWires;
 		numberOfParties = eachPartysInputWires.size();
+		
+		//A party that has no inputs does not need to set them.
+		isInputSet = new boolean[numberOfParties];
+		for (int i = 0; i < numberOfParties; i++) {
+			isInputSet[i] = eachPartysInputWires.get(i).isEmpty();
+		}
+		
+		//Renumber the wires so the computation can use flat arrays.
+		createDenseWireIndices();
   	}
 
     /**
@@ -216,7 +324,13 @@ public class BooleanCircuit {
 		if(partyNumber < 1 || partyNumber > numberOfParties){
 			throw new NoSuchPartyException();
 		}
-		computedWires.putAll(presetInputWires);
+		for (Map.Entry<Integer, Wire> input : presetInputWires.entrySet()) {
+			int denseIndex = getDenseWireIndex(input.getKey());
+			//Wires that do not belong to this circuit do not affect the computation.
+			if (denseIndex != -1) {
+				wireValues[denseIndex] = input.getValue().getValue();
+			}
+		}
 		isInputSet[partyNumber-1]=true;
 	}
 
@@ -261,17 +375,17 @@ public class BooleanCircuit {
 		 * its input Wires will have already been assigned values
 		 */
 		for (Gate g : getGates()) {
-			g.compute(computedWires);
+			g.compute(wireValues);
 		}
 		
 		/*
-		 * The computedWires array contains all the computed wire values, even those that it is no longer necessary to retain.
+		 * The wireValues array contains all the computed wire values, even those that it is no longer necessary to retain.
 		 * So, we create a new Map called outputMap which only stores the Wires that are output Wires to the circuit. 
 		 * We return outputMap.
 		 */
 		Map<Integer, Wire> outputMap = new HashMap<Integer, Wire>();
-		for (int w : outputWireIndices) {
-			outputMap.put(w, computedWires.get(w));
+		for (int i = 0; i < outputWireIndices.length; i++) {
+			outputMap.put(outputWireIndices[i], new Wire(wireValues[denseOutputWireIndices[i]]));
 		}
 		return outputMap;
 	}
@@ -350,6 +464,181 @@ public class BooleanCircuit {
 	public int getNumberOfParties() {
 		return numberOfParties;
 	}
+	
+	/**
+	 * Returns the number of distinct wires of this circuit. The dense wire indices are 0 to getNumberOfWires()-1.
+	 */
+	public int getNumberOfWires() {
+		return denseWireIndices.size();
+	}
+	
+	/**
+	 * Returns the dense index of the given wire. <p>
+	 * Arrays of wire values (such as garbled wire labels) are indexed by this number instead of the original wire index.
+	 * @param wireIndex The original index of the wire, as given in the circuit file.
+	 * @return the dense index of the wire, or -1 if there is no such wire in this circuit.
+	 */
+	public int getDenseWireIndex(int wireIndex) {
+		return denseWireIndices.get(wireIndex);
+	}
+	
+	/**
+	 * @return an array of the dense indices of the output {@link Wire}s of this circuit, in the order of {@link #getOutputWireIndices()}.
+	 */
+	public int[] getDenseOutputWireIndices() {
+		return denseOutputWireIndices;
+	}
+	
+	/**
+	 * Returns the gates of this circuit grouped by their level (depth). <p>
+	 * Level 0 contains the gates that depend only on the circuit's input wires, and every other gate is in the level that follows
+	 * the deepest gate it depends on. Thus, the gates of a level are independent of each other: once all the previous levels were computed,
+	 * they can be computed in any order, or concurrently. 
+	 * The gates of each level are sorted by their index in {@link #getGates()}.
+	 * @return an array that contains, for each level, the indices in {@link #getGates()} of the level's gates.
+	 */
+	public int[][] getLevels() {
+		if (levels == null) {
+			levels = createLevels();
+		}
+		return levels;
+	}
+	
+	/**
+	 * Computes the level of each gate and groups the gates by their levels. <p>
+	 * A gate is put after the gates that compute its input wires. If a gate writes a wire that was already used by an earlier gate, 
+	 * it is also put after that gate, so that computing the levels gives the same wire values as computing the gates in their order.
+	 */
+	private int[][] createLevels() {
+		int numberOfWires = getNumberOfWires();
+		//The first level that can use each wire's value, and the last level that uses each wire.
+		int[] readyLevel = new int[numberOfWires];
+		int[] lastUseLevel = new int[numberOfWires];
+		Arrays.fill(lastUseLevel, -1);
+		
+		int[] gateLevels = new int[gates.length];
+		int[] levelSizes = new int[gates.length];
+		int numberOfLevels = 0;
+		for (int g = 0; g < gates.length; g++) {
+			int[] inputs = gates[g].getDenseInputWireIndices();
+			int[] outputs = gates[g].getDenseOutputWireIndices();
+			
+			int level = 0;
+			for (int w : inputs) {
+				level = Math.max(level, readyLevel[w]);
+			}
+			for (int w : outputs) {
+				level = Math.max(level, lastUseLevel[w] + 1);
+			}
+			
+			for (int w : inputs) {
+				lastUseLevel[w] = Math.max(lastUseLevel[w], level);
+			}
+			for (int w : outputs) {
+				readyLevel[w] = level + 1;
+				lastUseLevel[w] = level;
+			}
+			gateLevels[g] = level;
+			levelSizes[level]++;
+			numberOfLevels = Math.max(numberOfLevels, level + 1);
+		}
+		
+		int[][] levels = new int[numberOfLevels][];
+		for (int i = 0; i < numberOfLevels; i++) {
+			levels[i] = new int[levelSizes[i]];
+		}
+		int[] positions = new int[numberOfLevels];
+		for (int g = 0; g < gates.length; g++) {
+			levels[gateLevels[g]][positions[gateLevels[g]]++] = g;
+		}
+		return levels;
+	}
+	
+	/**
+	 * A map from original wire indices to dense wire indices that does not box its keys and values. <p>
+	 * Circuit files usually number their wires 0 to n-1, so when the indices fall in a range that is not much larger than the 
+	 * number of wires the map is a flat array indexed by the wire index. Otherwise it is an open addressing hash table with 
+	 * linear probing.
+	 */
+	private static class WireIndexTable {
+		
+		private static final int EMPTY = -1;
+		
+		private final int minWire;
+		//Either the flat array (indexed by wireIndex - minWire) or the values of the hash table.
+		private int[] denseIndices;
+		//The keys of the hash table. Null when the flat array is used.
+		private int[] keys;
+		private int size;
+		
+		/**
+		 * @param minWire The smallest wire index that will be added.
+		 * @param maxWire The largest wire index that will be added.
+		 * @param maxSize An upper bound on the number of wires that will be added.
+		 */
+		WireIndexTable(int minWire, int maxWire, int maxSize) {
+			this.minWire = minWire;
+			long range = (long) maxWire - minWire + 1;
+			if (range <= 0) {
+				//There are no wires at all.
+				denseIndices = new int[0];
+			} else if (range <= 2L * maxSize + 64) {
+				denseIndices = new int[(int) range];
+			} else {
+				//Keep the load factor at most 1/2.
+				int capacity = Integer.highestOneBit(Math.max(maxSize, 8)) << 2;
+				keys = new int[capacity];
+				denseIndices = new int[capacity];
+			}
+			Arrays.fill(denseIndices, EMPTY);
+		}
+		
+		/**
+		 * @return the dense index of the given wire, or -1 if it was not added.
+		 */
+		int get(int wireIndex) {
+			if (keys == null) {
+				long offset = (long) wireIndex - minWire;
+				return (offset < 0 || offset >= denseIndices.length) ? EMPTY : denseIndices[(int) offset];
+			}
+			int slot = slot(wireIndex);
+			return denseIndices[slot];
+		}
+		
+		/**
+		 * Gives the given wire the next dense index. The wire must not have been added already.
+		 * @return the new dense index.
+		 */
+		int add(int wireIndex) {
+			if (keys == null) {
+				denseIndices[wireIndex - minWire] = size;
+			} else {
+				int slot = slot(wireIndex);
+				keys[slot] = wireIndex;
+				denseIndices[slot] = size;
+			}
+			return size++;
+		}
+		
+		/**
+		 * @return the number of wires that were added.
+		 */
+		int size() {
+			return size;
+		}
+		
+		/**
+		 * Returns the slot of the hash table that holds the given wire, or the empty slot where it should be added.
+		 */
+		private int slot(int wireIndex) {
+			int mask = keys.length - 1;
+			//Spread the bits so consecutive indices do not form long probe sequences.
+			int hash = wireIndex * 0x9E3779B9;
+			int slot = (hash ^ (hash >>> 16)) & mask;
+			while (denseIndices[slot] != EMPTY && keys[slot] != wireIndex) {
+				slot = (slot + 1) & mask;
+			}
+			return slot;
+		}
+	}
 }
-
-
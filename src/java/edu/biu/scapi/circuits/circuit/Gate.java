@@ -25,7 +25,6 @@
 package edu.biu.scapi.circuits.circuit;
 
 import java.util.BitSet;
-import java.util.Map;
 
 /**
  * The {@code Gate} class is a software representation of a circuit's gate.<p>
@@ -67,6 +66,13 @@ public class Gate {
 	 * The number of this {@code Gate}. This number is used to order {@code Gate}s in a {@link BooleanCircuit}.
 	 */
 	private int gateNumber;
+	
+	/*
+	 * The indices of the input and output wires after the containing {@link BooleanCircuit} renumbered its wires densely 
+	 * (0, 1, ..., numberOfWires-1). These are set by the circuit at load time and are used to address flat arrays of wire values.
+	 */
+	private int[] denseInputWireIndices;
+	private int[] denseOutputWireIndices;
 
 	/**
 	 * Sets the given values.
@@ -86,19 +92,19 @@ public class Gate {
 
 	/**
 	 * Compute the gate operation.<p>
-	 * @param computedWires A {@code Map} that maps an integer wire index to the Wire. 
-	 * The values of these {@code Wire}s has already been set (it has been <b>computed</b>--hence the name computedWires).
+	 * @param wireValues An array that holds the values of all the circuit's wires, indexed by their dense index. 
+	 * The values of the input {@code Wire}s of this gate have already been set (they have been <b>computed</b>).
 	 */
-	void compute(Map<Integer, Wire> computedWires) {
+	void compute(byte[] wireValues) {
     
 		// We call the calculateIndexOfTruthTable method to tell us the position of the output value in the truth table 
 		// and look up the value at that position.
-		byte outputValue = (byte) ((truthTable.get(calculateIndexOfTruthTable(computedWires))) ? 1 : 0);
+		byte outputValue = (byte) ((truthTable.get(calculateIndexOfTruthTable(wireValues))) ? 1 : 0);
 
-		int numberOfOutputs = outputWireIndices.length;
+		int numberOfOutputs = denseOutputWireIndices.length;
 		// Assigns output value to each of this gate's output Wires.
 		for (int i = 0; i < numberOfOutputs; i++) {
-			computedWires.put(outputWireIndices[i], new Wire(outputValue));
+			wireValues[denseOutputWireIndices[i]] = outputValue;
 		}
 	}
 
@@ -160,22 +166,21 @@ public class Gate {
 	 * This is a helper method that calculates the index of the output value on a truth table corresponding to 
 	 * the values of the input {@code Wire}s.
 	 * 
-	 * @param computedWires A {@code Map} that maps an integer wire index to the Wire. 
-	 * The values of these {@code Wire}s have already been set (they has been <b>computed</b>--hence the name computedWires).
+	 * @param wireValues An array that holds the values of all the circuit's wires, indexed by their dense index.
   	 * @return the index of the Truth table output corresponding to the values of the input {@code Wire}s.
   	 */
-	private int calculateIndexOfTruthTable(Map<Integer, Wire> computedWires) {
+	private int calculateIndexOfTruthTable(byte[] wireValues) {
   
 		/*
 		 * Since a truth tables order is the order of binary counting, the index of a desired row can be calculated as follows: 
 		 * For a truth table with L inputs whose input columns are labeled aL...ai...a2,a1, 
 		 * the output index for a given input set is given by: summation from 0 to L : ai *2^i. 
-		 * This is calculated below:
+		 * The first input wire is the most significant bit, so we shift the accumulated index left for each input.
 		 */
 		int truthTableIndex = 0;
-		int numberOfInputs = inputWireIndices.length;
-		for (int i = numberOfInputs - 1, j = 0; j < numberOfInputs; i--, j++) {
-			truthTableIndex += computedWires.get(inputWireIndices[i]).getValue() * Math.pow(2, j);
+		int numberOfInputs = denseInputWireIndices.length;
+		for (int i = 0; i < numberOfInputs; i++) {
+			truthTableIndex = (truthTableIndex << 1) | wireValues[denseInputWireIndices[i]];
 		}
 		return truthTableIndex;
 	}
@@ -208,6 +213,32 @@ public class Gate {
 		return truthTable;
 	}
 
+	/**
+	 * Sets the dense indices of this gate's wires. Called by the {@link BooleanCircuit} that contains this gate.
+	 * @param denseInputWireIndices The dense indices of the input wires, in the same order as {@link #getInputWireIndices()}.
+	 * @param denseOutputWireIndices The dense indices of the output wires, in the same order as {@link #getOutputWireIndices()}.
+	 */
+	void setDenseWireIndices(int[] denseInputWireIndices, int[] denseOutputWireIndices) {
+		this.denseInputWireIndices = denseInputWireIndices;
+		this.denseOutputWireIndices = denseOutputWireIndices;
+	}
+	
+	/**
+	 * Returns the dense indices of the input {@code Wire}s to this {@code Gate}, as numbered by the containing {@link BooleanCircuit}.
+	 * @return an array containing the dense indices of the input {@code Wire}s to this {@code Gate}.
+	 */
+	public int[] getDenseInputWireIndices() {
+		return denseInputWireIndices;
+	}
+	
+	/**
+	 * Returns the dense indices of the output {@code Wire}s of this {@code Gate}, as numbered by the containing {@link BooleanCircuit}.
+	 * @return an array containing the dense indices of the output {@code Wire}s of this {@code Gate}.
+	 */
+	public int[] getDenseOutputWireIndices() {
+		return denseOutputWireIndices;
+	}
+
 	/**
 	 * Returns the {@code Gate}'s number.
      * @return the number of this gate.
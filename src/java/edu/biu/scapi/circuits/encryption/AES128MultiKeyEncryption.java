@@ -24,10 +24,12 @@
 */
 package edu.biu.scapi.circuits.encryption;
 
+import java.lang.reflect.InvocationTargetException;
 import java.security.InvalidKeyException;
 
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
 
 import edu.biu.scapi.exceptions.CiphertextTooLongException;
 import edu.biu.scapi.exceptions.KeyNotSetException;
@@ -69,6 +71,10 @@ public class AES128MultiKeyEncryption implements MultiKeyEncryptionScheme {
 	private AES aes;
 	private byte[] tweak;
 	private boolean isTweakSet;
+	
+	//Buffers that are reused by the array based decrypt and encryptBatch functions.
+	private byte[] outBuffer = new byte[KEY_SIZE / 8];
+	private byte[] tempBuffer = new byte[KEY_SIZE / 8];
 
 	public AES128MultiKeyEncryption(AES aes) {
 		this.aes = aes;
@@ -173,6 +179,59 @@ public class AES128MultiKeyEncryption implements MultiKeyEncryptionScheme {
 		return outBytes;
 	}
 
+	/**
+	 * This scheme sets each individual key as the AES key, so unlike the other schemes it does create a key object for each key. 
+	 * It avoids the rest of the allocations of {@link #decrypt(byte[])}.
+	 */
+	@Override
+	public void decrypt(byte[] labels, int[] labelIndices, byte[] tweak, byte[] ciphertext, int ciphertextOffset, byte[] plaintext, int plaintextOffset) 
+			throws InvalidKeyException, IllegalBlockSizeException {
+		int size = KEY_SIZE / 8;
+		
+		//Encrypt the tweak with each key and XOR the results to each other.
+		for (int i = 0; i < labelIndices.length; i++) {
+			aes.setKey(new SecretKeySpec(labels, labelIndices[i] * size, size, ""));
+			aes.computeBlock(tweak, 0, (i == 0) ? outBuffer : tempBuffer, 0);
+			if (i > 0) {
+				for (int currentByte = 0; currentByte < size; currentByte++) {
+					outBuffer[currentByte] ^= tempBuffer[currentByte];
+				}
+			}
+		}
+		// XOR the result to the ciphertext to get the plaintext.
+		for (int currentByte = 0; currentByte < size; currentByte++) {
+			plaintext[plaintextOffset + currentByte] = (byte) (outBuffer[currentByte] ^ ciphertext[ciphertextOffset + currentByte]);
+		}
+	}
+
+	/**
+	 * This scheme has to set each individual key as the AES key, so the batch is computed block by block, 
+	 * without the allocations of {@link #encrypt(byte[])}.
+	 */
+	@Override
+	public void encryptBatch(byte[] keys, int keysPerBlock, byte[] tweaks, int tweakSize, byte[] plaintexts, byte[] ciphertexts, int numberOfBlocks) 
+			throws InvalidKeyException, IllegalBlockSizeException {
+		int size = KEY_SIZE / 8;
+		
+		for (int block = 0; block < numberOfBlocks; block++) {
+			//Encrypt the tweak of the block with each one of its keys and XOR the results to each other.
+			for (int i = 0; i < keysPerBlock; i++) {
+				aes.setKey(new SecretKeySpec(keys, (block * keysPerBlock + i) * size, size, ""));
+				aes.computeBlock(tweaks, block * tweakSize, (i == 0) ? outBuffer : tempBuffer, 0);
+				if (i > 0) {
+					for (int currentByte = 0; currentByte < size; currentByte++) {
+						outBuffer[currentByte] ^= tempBuffer[currentByte];
+					}
+				}
+			}
+			// XOR the result to the plaintext to get the ciphertext.
+			int offset = block * size;
+			for (int currentByte = 0; currentByte < size; currentByte++) {
+				ciphertexts[offset + currentByte] = (byte) (outBuffer[currentByte] ^ plaintexts[offset + currentByte]);
+			}
+		}
+	}
+
 	@Override
 	public boolean isKeySet() {
 		return isKeySet;
@@ -192,5 +251,21 @@ public class AES128MultiKeyEncryption implements MultiKeyEncryptionScheme {
 		
 		return aes.getBlockSize(); 
 	}
+	
+	@Override
+	public MultiKeyEncryptionScheme createCopy() {
+		//The AES object holds the key that was last set, so the copy needs its own AES object of the same implementation.
+		try {
+			return new AES128MultiKeyEncryption(aes.getClass().getDeclaredConstructor().newInstance());
+		} catch (InstantiationException e) {
+			throw new IllegalStateException("the AES implementation " + aes.getClass().getName() + " can not be created by a default constructor");
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException("the AES implementation " + aes.getClass().getName() + " can not be created by a default constructor");
+		} catch (NoSuchMethodException e) {
+			throw new IllegalStateException("the AES implementation " + aes.getClass().getName() + " can not be created by a default constructor");
+		} catch (InvocationTargetException e) {
+			throw new IllegalStateException("the AES implementation " + aes.getClass().getName() + " could not be created", e.getCause());
+		}
+	}
 
 }
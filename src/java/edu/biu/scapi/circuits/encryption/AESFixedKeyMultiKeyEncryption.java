@@ -35,6 +35,7 @@ import javax.crypto.spec.SecretKeySpec;
 import edu.biu.scapi.exceptions.KeyNotSetException;
 import edu.biu.scapi.exceptions.TweakNotSetException;
 import edu.biu.scapi.primitives.prf.AES;
+import edu.biu.scapi.primitives.prf.PrfFixedBatch;
 import edu.biu.scapi.primitives.prf.cryptopp.CryptoPpAES;
 
 /**
@@ -78,6 +79,14 @@ public class AESFixedKeyMultiKeyEncryption implements MultiKeyEncryptionScheme {
 	//To avoid that, the input to the aes function should be different. 
 	//This flag indicates which algorithm to use.
 	private boolean isFreeXor = false; 
+	
+	//Buffers that are reused by the array based decrypt function.
+	private byte[] inBuffer = new byte[KEY_SIZE / 8];
+	private byte[] outBuffer = new byte[KEY_SIZE / 8];
+	
+	//Buffers that hold the inputs and outputs of all the AES computations of a batch. They are reused as long as the batch size does not change.
+	private byte[] batchIn;
+	private byte[] batchOut;
 
 	public AESFixedKeyMultiKeyEncryption() {
 		aes = new CryptoPpAES();
@@ -206,6 +215,104 @@ public class AESFixedKeyMultiKeyEncryption implements MultiKeyEncryptionScheme {
 		return outBytes;
 	}
 
+	@Override
+	public void decrypt(byte[] labels, int[] labelIndices, byte[] tweak, byte[] ciphertext, int ciphertextOffset, byte[] plaintext, int plaintextOffset) 
+			throws IllegalBlockSizeException {
+		int size = KEY_SIZE / 8;
+		
+		/*
+		 * Calculate K - the XOR of all the keys (shifted, in case of free xor) and the tweak - directly into the input buffer. 
+		 * The keys are treated as big endian longs, exactly as in the shiftLeft and shiftRight functions.
+		 */
+		for (int half = 0; half < size; half += 8) {
+			long k = 0;
+			for (int i = 0; i < labelIndices.length; i++) {
+				long currKey = readLong(labels, labelIndices[i] * size + half);
+				if (isFreeXor){
+					currKey = (i == 0) ? currKey << 1 : currKey >> 1;
+				}
+				k ^= currKey;
+			}
+			writeLong(k ^ readLong(tweak, half), inBuffer, half);
+		}
+		
+		aes.computeBlock(inBuffer, 0, outBuffer, 0);
+		
+		//XOR the output of the AES with K and then with the ciphertext to obtain the plaintext.
+		for (int byteNumber = 0; byteNumber < size; byteNumber++) {
+			plaintext[plaintextOffset + byteNumber] = (byte) (outBuffer[byteNumber] ^ inBuffer[byteNumber] ^ ciphertext[ciphertextOffset + byteNumber]);
+		}
+	}
+	
+	/**
+	 * Computes K of all the blocks in the batch (see {@link #encrypt(byte[])}) and then computes the fixed key AES on all of them together. 
+	 * Since the key of the AES is fixed, the AES computations of the whole batch are done by a single call to the Crypto++ AES.
+	 */
+	@Override
+	public void encryptBatch(byte[] keys, int keysPerBlock, byte[] tweaks, int tweakSize, byte[] plaintexts, byte[] ciphertexts, int numberOfBlocks) 
+			throws IllegalBlockSizeException {
+		if (numberOfBlocks == 0) {
+			return;
+		}
+		int size = KEY_SIZE / 8;
+		int length = numberOfBlocks * size;
+		if (batchIn == null || batchIn.length != length) {
+			batchIn = new byte[length];
+			batchOut = new byte[length];
+		}
+		
+		//Calculate K of each block, exactly as in the array based decrypt function.
+		for (int block = 0; block < numberOfBlocks; block++) {
+			int keysOffset = block * keysPerBlock * size;
+			for (int half = 0; half < size; half += 8) {
+				long k = 0;
+				for (int i = 0; i < keysPerBlock; i++) {
+					long currKey = readLong(keys, keysOffset + i * size + half);
+					if (isFreeXor){
+						currKey = (i == 0) ? currKey << 1 : currKey >> 1;
+					}
+					k ^= currKey;
+				}
+				writeLong(k ^ readLong(tweaks, block * tweakSize + half), batchIn, block * size + half);
+			}
+		}
+		
+		//Compute the AES on all the blocks.
+		if (aes instanceof PrfFixedBatch) {
+			((PrfFixedBatch) aes).optimizedCompute(batchIn, batchOut);
+		} else {
+			for (int block = 0; block < numberOfBlocks; block++) {
+				aes.computeBlock(batchIn, block * size, batchOut, block * size);
+			}
+		}
+		
+		//XOR the output of the AES with K and then with the plaintext to obtain the ciphertext.
+		for (int i = 0; i < length; i++) {
+			ciphertexts[i] = (byte) (batchOut[i] ^ batchIn[i] ^ plaintexts[i]);
+		}
+	}
+	
+	/**
+	 * Reads a big endian long from the given array.
+	 */
+	private static long readLong(byte[] bytes, int offset){
+		long value = 0;
+		for (int i = 0; i < 8; i++){
+			value = (value << 8) | (bytes[offset + i] & 0xFF);
+		}
+		return value;
+	}
+	
+	/**
+	 * Writes the given long to the given array in big endian order.
+	 */
+	private static void writeLong(long value, byte[] bytes, int offset){
+		for (int i = 7; i >= 0; i--){
+			bytes[offset + i] = (byte) value;
+			value >>>= 8;
+		}
+	}
+	
 	/**
 	 * Shifts the bits of the given array to the right.
 	 * @param bytes to shift right.
@@ -258,4 +365,11 @@ public class AESFixedKeyMultiKeyEncryption implements MultiKeyEncryptionScheme {
 		
 		return aes.getBlockSize();
 	} 
+	
+	@Override
+	public MultiKeyEncryptionScheme createCopy() {
+		AESFixedKeyMultiKeyEncryption copy = new AESFixedKeyMultiKeyEncryption();
+		copy.setFreeXor(isFreeXor);
+		return copy;
+	}
 }
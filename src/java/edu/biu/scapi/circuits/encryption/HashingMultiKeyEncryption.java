@@ -24,6 +24,7 @@
 */
 package edu.biu.scapi.circuits.encryption;
 
+import java.lang.reflect.InvocationTargetException;
 import java.security.SecureRandom;
 
 import javax.crypto.SecretKey;
@@ -65,6 +66,9 @@ public class HashingMultiKeyEncryption implements MultiKeyEncryptionScheme {
 	private boolean isKeySet;
 
 	private CryptographicHash hash;
+	
+	//A buffer for the hash output that is reused by the array based decrypt and encryptBatch functions.
+	private byte[] hashOutput;
 
 	/**
 	 * Constructor that sets the given values.
@@ -160,6 +164,48 @@ public class HashingMultiKeyEncryption implements MultiKeyEncryptionScheme {
 		return output;
 	}
 
+	@Override
+	public void decrypt(byte[] labels, int[] labelIndices, byte[] tweak, byte[] ciphertext, int ciphertextOffset, byte[] plaintext, int plaintextOffset) {
+		
+		int size = keySize / 8;
+		// See comments to encrypt method to understand the encryption/decryption. This scheme does not use the tweak.
+		for (int i = 0; i < labelIndices.length; i++) {
+			hash.update(labels, labelIndices[i] * size, size);
+		}
+		if (hashOutput == null) {
+			hashOutput = new byte[hash.getHashedMsgSize()];
+		}
+		hash.hashFinal(hashOutput, 0);
+		
+		//Use only the last bytes of the hash output, as in the regular decrypt function.
+		int offset = hashOutput.length - size;
+		for (int i = 0; i < size; i++) {
+			plaintext[plaintextOffset + i] = (byte) (hashOutput[i + offset] ^ ciphertext[ciphertextOffset + i]);
+		}
+	}
+
+	@Override
+	public void encryptBatch(byte[] keys, int keysPerBlock, byte[] tweaks, int tweakSize, byte[] plaintexts, byte[] ciphertexts, int numberOfBlocks) 
+			throws PlaintextTooLongException {
+		
+		int size = keySize / 8;
+		int hashSize = hash.getHashedMsgSize();
+		// See comments to encrypt method to understand the encryption/decryption. This scheme does not use the tweaks.
+		int offset = hashSize - size;
+		if (offset < 0) {
+			// The plaintexts are longer than the output of the hash and cannot be XOR'd to it.
+			throw new PlaintextTooLongException();
+		}
+		// The keys of each block are stored one after the other, so all the blocks are hashed in one batch.
+		byte[] hashOutputs = new byte[numberOfBlocks * hashSize];
+		hash.hashMany(keys, 0, keysPerBlock * size, numberOfBlocks, hashOutputs, 0);
+		for (int block = 0; block < numberOfBlocks; block++) {
+			for (int i = 0; i < size; i++) {
+				ciphertexts[block * size + i] = (byte) (hashOutputs[block * hashSize + i + offset] ^ plaintexts[block * size + i]);
+			}
+		}
+	}
+
 	@Override
 	public SecretKey generateKey() {
 		//Divide by 8 since the key size is specified in bits and we are using a byte array
@@ -197,4 +243,24 @@ public class HashingMultiKeyEncryption implements MultiKeyEncryptionScheme {
 
 		return keySize/8;
 	}  
+	
+	@Override
+	public MultiKeyEncryptionScheme createCopy() {
+		//The hash object keeps its state between updates, so the copy needs its own hash object of the same implementation.
+		//The SecureRandom is thread safe and can be shared.
+		try {
+			return new HashingMultiKeyEncryption(keySize, hash.getClass().getDeclaredConstructor().newInstance(), random);
+		} catch (InstantiationException e) {
+			throw new IllegalStateException("the hash implementation " + hash.getClass().getName() + " can not be created by a default constructor");
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException("the hash implementation " + hash.getClass().getName() + " can not be created by a default constructor");
+		} catch (NoSuchMethodException e) {
+			throw new IllegalStateException("the hash implementation " + hash.getClass().getName() + " can not be created by a default constructor");
+		} catch (InvocationTargetException e) {
+			throw new IllegalStateException("the hash implementation " + hash.getClass().getName() + " could not be created", e.getCause());
+		} catch (InvalidKeySizeException e) {
+			// Should not occur since the key size of this scheme is valid.
+			throw new IllegalStateException(e);
+		}
+	}
 }
@@ -127,6 +127,46 @@ public interface MultiKeyEncryptionScheme {
 	 */
 
 	public byte[] decrypt(byte[] ciphertext) throws CiphertextTooLongException, KeyNotSetException, TweakNotSetException, InvalidKeyException, IllegalBlockSizeException;
+	
+	/**
+	 * Decrypts a single ciphertext using keys that are stored in a flat array of labels, without creating any key objects. <p>
+	 * This is used by the garbled gates in order to evaluate a circuit without allocating memory for each gate. <p>
+	 * The key and tweak that were set using {@link #setKey(MultiSecretKey)} and {@link #setTweak(byte[])} are neither used nor changed.
+	 * 
+	 * @param labels An array that contains the keys. Each key is {@link #getCipherSize()} bytes long.
+	 * @param labelIndices The indices of the keys to decrypt with. Key number i starts at {@code labels[labelIndices[i]*getCipherSize()]}.
+	 * @param tweak The tweak to use in this decryption.
+	 * @param ciphertext An array that contains the ciphertext to decrypt.
+	 * @param ciphertextOffset The offset of the ciphertext in the ciphertext array.
+	 * @param plaintext The array to put the plaintext in. It may be the labels array itself, as long as the plaintext does not overlap the keys.
+	 * @param plaintextOffset The offset in the plaintext array to put the plaintext in.
+	 * @throws InvalidKeyException
+	 * @throws IllegalBlockSizeException
+	 */
+	public void decrypt(byte[] labels, int[] labelIndices, byte[] tweak, byte[] ciphertext, int ciphertextOffset, byte[] plaintext, int plaintextOffset) 
+			throws InvalidKeyException, IllegalBlockSizeException;
+	
+	/**
+	 * Encrypts a batch of plaintexts, each one with its own combination of keys and its own tweak. <p>
+	 * All the inputs are given in contiguous arrays, so that an implementation can perform the whole batch in one pass. 
+	 * For example, the garbled circuits use this function in order to encrypt the rows of many gates at once instead of calling 
+	 * {@link #setKey(MultiSecretKey)}, {@link #setTweak(byte[])} and {@link #encrypt(byte[])} for each row. <p>
+	 * The key and tweak that were set using {@link #setKey(MultiSecretKey)} and {@link #setTweak(byte[])} are neither used nor changed.
+	 * 
+	 * @param keys An array that contains the keys of all the blocks. Each key is {@link #getCipherSize()} bytes long and the keys of 
+	 * 			   block number i are the {@code keysPerBlock} keys that start at {@code keys[i*keysPerBlock*getCipherSize()]}.
+	 * @param keysPerBlock The number of keys that are used to encrypt each block.
+	 * @param tweaks An array that contains the tweaks of all the blocks. The tweak of block number i starts at {@code tweaks[i*tweakSize]}.
+	 * @param tweakSize The size of each tweak, in bytes.
+	 * @param plaintexts An array that contains the plaintexts of all the blocks. Each plaintext is {@link #getCipherSize()} bytes long.
+	 * @param ciphertexts An array to put the ciphertexts in. Ciphertext number i will be put at {@code ciphertexts[i*getCipherSize()]}.
+	 * @param numberOfBlocks The number of blocks to encrypt.
+	 * @throws InvalidKeyException
+	 * @throws IllegalBlockSizeException
+	 * @throws PlaintextTooLongException
+	 */
+	public void encryptBatch(byte[] keys, int keysPerBlock, byte[] tweaks, int tweakSize, byte[] plaintexts, byte[] ciphertexts, int numberOfBlocks) 
+			throws InvalidKeyException, IllegalBlockSizeException, PlaintextTooLongException;
 
 	/**
 	 * Checks if the key for this {@code MultiKeyEncryptionScheme} has been set.<P>
@@ -141,5 +181,13 @@ public interface MultiKeyEncryptionScheme {
 	 * Returns the size of the ciphertext.
 	 */
 	public int getCipherSize();
+	
+	/**
+	 * Creates a new encryption scheme of the same type and with the same parameters as this one. <p>
+	 * The new scheme does not share any state with this one (in particular, the key and the tweak are not copied), 
+	 * so that the two schemes can be used by different threads at the same time.
+	 * @return the created encryption scheme.
+	 */
+	public MultiKeyEncryptionScheme createCopy();
 
 }
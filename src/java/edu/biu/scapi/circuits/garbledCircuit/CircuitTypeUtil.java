@@ -74,4 +74,11 @@ interface CircuitTypeUtil {
 	public CircuitCreationValues garble(BooleanCircuit ungarbledCircuit, GarbledTablesHolder garbledTablesHolder, 
 			GarbledGate[] gates, PseudorandomGenerator prg, byte[] seed) throws InvalidKeyException;
 	
+	/**
+	 * Sets the executor that creates the garbled tables in parallel. <p>
+	 * The wire keys are always generated sequentially, so the garbled tables do not depend on whether an executor is set.
+	 * @param executor The executor to use, or null in order to create the garbled tables in the calling thread.
+	 */
+	public void setParallelExecutor(ParallelGarblingExecutor executor);
+	
 }
@@ -63,6 +63,8 @@ class FreeXORGarbledBooleanCircuitUtil implements CircuitTypeUtil {
 	
 	protected MultiKeyEncryptionScheme mes;
 	
+	protected ParallelGarblingExecutor executor;	//Creates the garbled tables in parallel. Null if they are created sequentially.
+	
 	// We save the XOR and XORNOT truth tables because they will be used many times and we want to avoid repeated creations.
 	private BitSet XORNOTTruthTable;	
 	private BitSet XORTruthTable;
@@ -260,18 +262,29 @@ class FreeXORGarbledBooleanCircuitUtil implements CircuitTypeUtil {
 	 */
 	protected void createGarbledTables(GarbledGate[] gates, BasicGarbledTablesHolder garbledTablesHolder, Gate[] ungarbledGates, Map<Integer, SecretKey[]> allWireValues) throws InvalidKeyException, IllegalBlockSizeException, PlaintextTooLongException {
 			
-		// Get the XOR and XORNOT truth table to be used to test against for equality.
-		BitSet XORTruthTable = getXORTruthTable();
-		BitSet XORNOTTruthTable = getXORNOTTruthTable();
-				
-		//For each Standard gate, create the suitable StandardGarbledGate object. 
+		//Collect the Standard gates. 
 		//Free XOR gate and Free XOR NOT gates do not have a garbled tables, thus they should not be created.
+		//Gates of other types (such as half gates) create their garbled tables while their keys are generated.
+		ArrayList<StandardGarbledGate> standardGates = new ArrayList<StandardGarbledGate>();
+		ArrayList<Gate> standardUngarbledGates = new ArrayList<Gate>();
 		for (int gate = 0; gate < ungarbledGates.length; gate++) {
 			
-			if (!ungarbledGates[gate].getTruthTable().equals(XORTruthTable) && !(ungarbledGates[gate].getTruthTable().equals(XORNOTTruthTable))) {
-				((StandardGarbledGate) gates[gate]).createGarbledTable(ungarbledGates[gate], allWireValues);
+			if (gates[gate] instanceof StandardGarbledGate) {
+				standardGates.add((StandardGarbledGate) gates[gate]);
+				standardUngarbledGates.add(ungarbledGates[gate]);
 			}
 		}
+		//Create the garbled tables of all the standard gates.
+		if (executor == null) {
+			StandardGarbledGate.createGarbledTables(standardGates, standardUngarbledGates, allWireValues, mes);
+		} else {
+			executor.createGarbledTables(standardGates, standardUngarbledGates, allWireValues, mes);
+		}
+	}
+	
+	@Override
+	public void setParallelExecutor(ParallelGarblingExecutor executor) {
+		this.executor = executor;
 	}
 	
 	/**
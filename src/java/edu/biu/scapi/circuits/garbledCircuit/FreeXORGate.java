@@ -65,6 +65,10 @@ class FreeXORGate implements GarbledGate{
 	  
 	 //An array containing the indices of the output {@code GarbledWire}(s).
 	 protected int[] outputWireIndices;
+	 
+	 //The dense indices of the input and output wires. These are used to address the circuit's flat array of wire labels.
+	 protected int[] denseInputWireIndices;
+	 protected int[] denseOutputWireIndices;
 	  
 	 /*
 	  * The number of this {@code FreeXORGarbledGate}. 
@@ -82,6 +86,8 @@ class FreeXORGate implements GarbledGate{
 	 FreeXORGate(Gate ungarbledGate) {
 		  inputWireIndices = ungarbledGate.getInputWireIndices();
 		  outputWireIndices = ungarbledGate.getOutputWireIndices();
+		  denseInputWireIndices = ungarbledGate.getDenseInputWireIndices();
+		  denseOutputWireIndices = ungarbledGate.getDenseOutputWireIndices();
 		  gateNumber = ungarbledGate.getGateNumber();
 	 }
 
@@ -109,6 +115,23 @@ class FreeXORGate implements GarbledGate{
 	     }
 	     
 	 }
+	 
+	 @Override
+	 public void compute(byte[] wireLabels, int labelSize) {
+		 
+		 // XOR the input labels directly into the first output label.
+		 int firstInput = denseInputWireIndices[0] * labelSize;
+		 int secondInput = denseInputWireIndices[1] * labelSize;
+		 int output = denseOutputWireIndices[0] * labelSize;
+		 for (int currentByte = 0; currentByte < labelSize; currentByte++) {
+			 wireLabels[output + currentByte] = (byte) (wireLabels[firstInput + currentByte] ^ wireLabels[secondInput + currentByte]);
+		 }
+		 
+		 // Copy the result to the rest of the output wires, if there are any.
+		 for (int i = 1; i < denseOutputWireIndices.length; i++) {
+			 System.arraycopy(wireLabels, output, wireLabels, denseOutputWireIndices[i] * labelSize, labelSize);
+		 }
+	 }
 
 	 @Override
 	 public boolean verify(Gate g, Map<Integer, SecretKey[]> allWireValues) {
@@ -216,5 +239,11 @@ class FreeXORGate implements GarbledGate{
 	 public int[] getOutputWireIndices() {
 		 return outputWireIndices;
 	 }
+	 
+	 @Override
+	 public int getGarbledTableSize() {
+		 //Free XOR gates are computed without a garbled table.
+		 return -1;
+	 }
  
 }
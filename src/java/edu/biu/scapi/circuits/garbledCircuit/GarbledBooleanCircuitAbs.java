@@ -32,6 +32,7 @@ import java.util.Set;
 
 import javax.crypto.SecretKey;
 
+import edu.biu.scapi.circuits.circuit.BooleanCircuit;
 import edu.biu.scapi.circuits.circuit.Wire;
 import edu.biu.scapi.exceptions.CheatAttemptException;
 import edu.biu.scapi.exceptions.NoSuchPartyException;
@@ -75,11 +76,20 @@ abstract class GarbledBooleanCircuitAbs implements GarbledBooleanCircuit{
 	protected HashMap<Integer, Byte> translationTable;
   	
 	
-	//A map that is used during computation to map a {@code GarbledWire}'s index to the computed and set {@code GarbledWire}.
-	protected Map<Integer, GarbledWire> computedWires;
+	protected BooleanCircuit bc;	// The Boolean circuit that this circuit should be the garbling of.
+	
+	/*
+	 * The labels of all the wires that are used during computation. The label of the wire with dense index w 
+	 * (see {@link BooleanCircuit#getDenseWireIndex(int)}) is stored in computedWireLabels[w*labelSize ... (w+1)*labelSize-1].
+	 * The array is allocated when the first input is set, since only then the size of the labels is known.
+	 */
+	protected byte[] computedWireLabels;
+	protected int labelSize;
+	
+	//Indicates for each dense wire index whether its label has been set as input.
+	protected boolean[] isWireLabelSet;
 	
 	public GarbledBooleanCircuitAbs(){
-		computedWires = new HashMap<Integer,GarbledWire>();
 		eachPartysInputWires = new ArrayList<ArrayList<Integer>>();
 	}
 	
@@ -99,7 +109,23 @@ abstract class GarbledBooleanCircuitAbs implements GarbledBooleanCircuit{
   	@Override
   	public void setInputs(Map<Integer, GarbledWire> presetInputWires) {
   		
-  		computedWires.putAll(presetInputWires);
+  		for (Map.Entry<Integer, GarbledWire> input : presetInputWires.entrySet()) {
+  			int denseIndex = bc.getDenseWireIndex(input.getKey());
+  			//Wires that do not belong to this circuit do not affect the computation.
+  			if (denseIndex == -1) {
+  				continue;
+  			}
+  			byte[] label = input.getValue().getValueAndSignalBit().getEncoded();
+  			
+  			//The first label that is set determines the size of all the labels in the circuit.
+  			if (computedWireLabels == null) {
+  				labelSize = label.length;
+  				computedWireLabels = new byte[bc.getNumberOfWires() * labelSize];
+  				isWireLabelSet = new boolean[bc.getNumberOfWires()];
+  			}
+  			System.arraycopy(label, 0, computedWireLabels, denseIndex * labelSize, labelSize);
+  			isWireLabelSet[denseIndex] = true;
+  		}
  	}
   	
   	/**
@@ -29,8 +29,10 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
 
 import edu.biu.scapi.circuits.circuit.BooleanCircuit;
 import edu.biu.scapi.circuits.encryption.AESFixedKeyMultiKeyEncryption;
@@ -48,10 +50,10 @@ import edu.biu.scapi.primitives.prg.PseudorandomGenerator;
  */
 public class GarbledBooleanCircuitImp extends GarbledBooleanCircuitAbs implements GarbledBooleanCircuit {
 
-	private BooleanCircuit bc;			// The Boolean circuit that this circuit should be the garbling of.
 	private CircuitTypeUtil util; 		//Executes all functionalities that specific to the circuit type.
 	private PseudorandomGenerator prg;  //used in case of generating the keys using a seed.
 	private GarbledGate[] gates; 		// The garbled gates of this garbled circuit.
+	private ParallelGarblingExecutor executor;	// Garbles and computes the circuit in parallel. Null if the circuit is garbled and computed sequentially.
 	
   	/**
 	 * Default constructor. Sets the given boolean circuit and creates a Free XOR circuit using a AESFixedKeyMultiKeyEncryption.
@@ -144,32 +146,56 @@ public class GarbledBooleanCircuitImp extends GarbledBooleanCircuitAbs implement
 		return values;
 	}
  
+	/**
+	 * Sets a fork-join pool whose threads garble and compute this circuit. <p>
+	 * The wire keys are still generated sequentially, and then the garbled tables are created concurrently by the pool's threads, 
+	 * so the garbled tables are identical to the ones that are created without a pool. <p>
+	 * The {@link #compute()} function computes the circuit level by level (see {@link BooleanCircuit#getLevels()}), where the gates of each level 
+	 * are divided between the pool's threads. Each thread uses its own copy of the encryption scheme. 
+	 * A circuit that contains gates that can not be computed concurrently (such as the gates of the row reduction technique) 
+	 * is computed sequentially, and so is a circuit that is computed in parts by {@link #computeGates(int, int)}.
+	 * @param pool The pool to use, or null in order to garble and compute the circuit in the calling thread.
+	 */
+	public void setForkJoinPool(ForkJoinPool pool){
+		executor = (pool == null) ? null : new ParallelGarblingExecutor(pool, gates);
+		util.setParallelExecutor(executor);
+	}
+	
   	@Override
   	public HashMap<Integer, GarbledWire> compute() throws NotAllInputsSetException{
-  		//Check that all the inputs have been set.
-  		for (int i=1; i <= getNumberOfParties(); i++){
-  			List<Integer> wireNumbers = null;
-			try {
-				wireNumbers = getInputWireIndices(i);
-			} catch (NoSuchPartyException e) {
-				// Should not occur since the parties numbers are between 1 to getNumberOfParties.
-			}
-  			
-	  		for (int wireNumber : wireNumbers){
-	  			if (!computedWires.containsKey(wireNumber)) {
-	  				throw new NotAllInputsSetException();
-	  			}
-	  		}
+  		if (executor != null && executor.canComputeInParallel()){
+  			checkInputsSet();
+  			executor.compute(bc.getLevels(), computedWireLabels, labelSize);
+  		} else {
+  			computeGates(0, gates.length);
   		}
-  		
+  		return getComputedOutput();
+  	}
+
+  	/**
+  	 * Computes the gates whose indices are in the given range. <p>
+  	 * This allows computing the circuit while its garbled tables are received in parts: each call needs only the garbled tables of
+  	 * the gates in the given range, and these tables can be released once the call returns.
+  	 * The gates should be computed in their order, starting with gate 0. After all the gates were computed, the output can be
+  	 * retrieved by {@link #getComputedOutput()}. Calling this function with the range of all gates is the same as calling {@link #compute()}.
+  	 * @param fromGate The index of the first gate to compute.
+  	 * @param toGate The index that follows the last gate to compute.
+  	 * @throws NotAllInputsSetException if fromGate is zero and not all the inputs have been set.
+  	 */
+  	public void computeGates(int fromGate, int toGate) throws NotAllInputsSetException{
+  		//Check that all the inputs have been set before computing the first gate.
+  		if (fromGate == 0){
+  			checkInputsSet();
+  		}
+
   		/*
-  		 * We use the interface GarbledGate and thus this works for all implementing classes. The compute method of the 
-  		 * specific garbled gate being used will be called. This allows us to have circuits with different types of gates 
+  		 * We use the interface GarbledGate and thus this works for all implementing classes. The compute method of the
+  		 * specific garbled gate being used will be called. This allows us to have circuits with different types of gates
   		 * {i.e a FreeXORGarbledBooleanCircuit contains both StandardGarbledGates and FreeXORGates) and this will work for all the gates.
   		 */
-  		for (GarbledGate g : gates) {
+  		for (int i = fromGate; i < toGate; i++) {
   			try {
-				g.compute(computedWires);
+				gates[i].compute(computedWireLabels, labelSize);
 			} catch (InvalidKeyException e) {
 				// Should not occur since the keys were generated through the encryption scheme that generates keys that match it.
 			} catch (IllegalBlockSizeException e) {
@@ -178,20 +204,66 @@ public class GarbledBooleanCircuitImp extends GarbledBooleanCircuitAbs implement
 				// Should not occur since the keys were generated through the encryption scheme that generates keys that match it.
 			}
   		}
-  		
+  	}
+
+  	/**
+  	 * Returns the size in bytes of the garbled table of the given gate, so that a garbled table that was received in parts 
+  	 * (see {@link #computeGates(int, int)}) can be checked before the gate is computed.
+  	 * @param gate The index of the gate.
+  	 * @return the size of the garbled table, or -1 if the gate has no garbled table.
+  	 */
+  	public int getGarbledTableSize(int gate){
+  		return gates[gate].getGarbledTableSize();
+  	}
+
+  	/**
+  	 * Checks that the labels of all the input wires have been set.
+  	 * @throws NotAllInputsSetException if not all the inputs have been set.
+  	 */
+  	private void checkInputsSet() throws NotAllInputsSetException{
+  		for (int i=1; i <= getNumberOfParties(); i++){
+  			List<Integer> wireNumbers = null;
+			try {
+				wireNumbers = getInputWireIndices(i);
+			} catch (NoSuchPartyException e) {
+				// Should not occur since the parties numbers are between 1 to getNumberOfParties.
+			}
+
+	  		for (int wireNumber : wireNumbers){
+	  			if (computedWireLabels == null || !isWireLabelSet[bc.getDenseWireIndex(wireNumber)]) {
+	  				throw new NotAllInputsSetException();
+	  			}
+	  		}
+  		}
+  	}
+
+  	/**
+  	 * Returns the garbled values of the output wires, after all the gates were computed by {@link #computeGates(int, int)}.
+  	 * @return a {@code HashMap} that maps the index of the output wire to the garbled value of the wire.
+  	 */
+  	public HashMap<Integer, GarbledWire> getComputedOutput(){
   		/*
-  		 * Copy only the values that we need to retain -- i.e. the values of the output wires to a new map to be returned. 
-  		 * The computedWire's map contains more values than we need to retain as it has values for all wires, 
+  		 * Copy only the values that we need to retain -- i.e. the values of the output wires to a new map to be returned.
+  		 * The computedWireLabels array contains more values than we need to retain as it has values for all wires,
   		 * not only circuit output wires.
   		 */
   		HashMap<Integer, GarbledWire> garbledOutput = new HashMap<Integer, GarbledWire>();
-  		for (int w : outputWireIndices) {
-  			garbledOutput.put(w, computedWires.get(w));
+  		int[] denseOutputWireIndices = bc.getDenseOutputWireIndices();
+  		for (int i = 0; i < outputWireIndices.length; i++) {
+  			SecretKey outputValue = new SecretKeySpec(computedWireLabels, denseOutputWireIndices[i] * labelSize, labelSize, "");
+  			garbledOutput.put(outputWireIndices[i], new GarbledWire(outputValue));
   		}
 
   		return garbledOutput;
-  	}	
-  	
+  	}
+
+  	/**
+  	 * Returns the number of gates in this circuit, which is also the number of entries in the garbled tables.
+  	 */
+  	public int getNumberOfGates(){
+  		return gates.length;
+  	}
+
   	byte getKeySignalBit(SecretKey key){
   		return (byte) ((key.getEncoded()[key.getEncoded().length - 1] & 1) == 0 ? 0 : 1);
   	}
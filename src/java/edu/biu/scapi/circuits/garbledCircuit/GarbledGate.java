@@ -52,6 +52,25 @@ public interface GarbledGate {
 	 * @throws CiphertextTooLongException
 	 */
 	public void compute(Map<Integer, GarbledWire> computedWires) throws InvalidKeyException, IllegalBlockSizeException, CiphertextTooLongException;
+	
+	/**
+	 * Computes the output of this gate on the flat array of the circuit's wire labels and writes the output label(s) into the same array.<p>
+	 * The label of the wire with dense index w (see {@link Gate#getDenseInputWireIndices()}) is stored in 
+	 * {@code wireLabels[w*labelSize ... (w+1)*labelSize-1]}. The least significant bit of the last byte is the signal bit.
+	 * @param wireLabels The labels of all the circuit's wires. The labels of this gate's input wires have already been set.
+	 * @param labelSize The size in bytes of a single label.
+	 * @throws InvalidKeyException
+	 * @throws IllegalBlockSizeException
+	 * @throws CiphertextTooLongException
+	 */
+	public void compute(byte[] wireLabels, int labelSize) throws InvalidKeyException, IllegalBlockSizeException, CiphertextTooLongException;
+	
+	/**
+	 * Returns the size in bytes of the garbled table of this gate. This allows checking a garbled table that was received from another party 
+	 * before the gate is computed with it.
+	 * @return the size of the garbled table, or -1 if the gate has no garbled table (for example, a free XOR gate).
+	 */
+	public int getGarbledTableSize();
 
 	/**
 	 * This method tests an ungarbled {@link Gate} for equality to this {@code GarbledGate}. <P>
@@ -0,0 +1,125 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.circuits.garbledCircuit;
+
+import java.security.InvalidKeyException;
+import java.util.Map;
+
+import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.SecretKey;
+
+import edu.biu.scapi.circuits.circuit.Gate;
+import edu.biu.scapi.circuits.encryption.AES128MultiKeyEncryption;
+import edu.biu.scapi.circuits.encryption.AESFixedKeyMultiKeyEncryption;
+import edu.biu.scapi.circuits.encryption.MultiKeyEncryptionScheme;
+import edu.biu.scapi.exceptions.PlaintextTooLongException;
+
+/**
+ * The {@code HalfGatesGarbledBooleanCircuitUtil} class is a utility class that computes the functionalities regarding Free XOR Garbled 
+ * Boolean Circuit using the half gates technique. <p>
+ * 
+ * XOR and XOR NOT gates are free, as in the Free XOR circuit. Every other 2-input gate whose truth table has an odd number of ones 
+ * (AND, OR, NAND, NOR and their variants with negated inputs) is garbled as a {@link HalfGatesGarbledGate} with two ciphertexts. 
+ * The remaining gates are garbled as standard Free XOR gates. <p>
+ * The keys of the output wire of a half gate are computed from the keys of its input wires, so its garbled table is created while the keys 
+ * of the circuit are generated.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+class HalfGatesGarbledBooleanCircuitUtil extends FreeXORGarbledBooleanCircuitUtil {
+	
+	private GarbledGate[] gates;	// The garbled gates of the circuit, used to find the half gates when generating the keys.
+	
+	/**
+	 * Sets the given MultiKeyEncryptionScheme.
+	 * @param mes The concrete encryption object to use. Should be one of the tweakable schemes, see {@link #checkScheme(MultiKeyEncryptionScheme)}.
+	 * @throws IllegalArgumentException if the given scheme does not use the tweak.
+	 */
+	HalfGatesGarbledBooleanCircuitUtil(MultiKeyEncryptionScheme mes) {
+		super(checkScheme(mes));
+	}
+	
+	/**
+	 * Checks that the given MultiKeyEncryptionScheme can be used by the half gates technique. <p>
+	 * The technique hashes the same input key in every gate that uses the wire, so the hash must depend on a distinct tweak of each gate. 
+	 * Otherwise, two half gates that share an input wire reveal the global free XOR offset. 
+	 * Only {@link AESFixedKeyMultiKeyEncryption} and {@link AES128MultiKeyEncryption} use the tweak.
+	 * @param mes The scheme to check.
+	 * @return the given scheme.
+	 * @throws IllegalArgumentException if the given scheme does not use the tweak.
+	 */
+	static MultiKeyEncryptionScheme checkScheme(MultiKeyEncryptionScheme mes) {
+		if (!(mes instanceof AESFixedKeyMultiKeyEncryption) && !(mes instanceof AES128MultiKeyEncryption)) {
+			throw new IllegalArgumentException("the half gates technique requires a tweakable encryption scheme: AESFixedKeyMultiKeyEncryption or AES128MultiKeyEncryption");
+		}
+		return mes;
+	}
+	
+	/**
+	 * Default constructor. Uses AESFixedKeyMultiKeyEncryption object.
+	 */
+	HalfGatesGarbledBooleanCircuitUtil() {
+		super();
+	}
+	
+	@Override
+	public GarbledGate[] createGates(Gate[] ungarbledGates, GarbledTablesHolder garbledTablesHolder) {
+		gates = super.createGates(ungarbledGates, garbledTablesHolder);
+		return gates;
+	}
+	
+	@Override
+	protected GarbledGate createStandardGate(Gate ungarbledGate, BasicGarbledTablesHolder garbledTablesHolder) {
+		if (HalfGatesGarbledGate.isHalfGate(ungarbledGate)) {
+			return new HalfGatesGarbledGate(ungarbledGate, mes, garbledTablesHolder);
+		}
+		return super.createStandardGate(ungarbledGate, garbledTablesHolder);
+	}
+	
+	/**
+	 * Generates keys for a standard gate. <p>
+	 * In case the gate is a half gate, its keys are computed from the keys of its input wires and its garbled table is created.
+	 * @param zeroValueBytes this value is ignored in case of a half gate.
+	 */
+	@Override
+	protected void generateStandardValues(Gate ungarbledGate, Map<Integer, SecretKey[]> allWireValues, byte[] globalKeyOffset, byte[] zeroValueBytes) {
+		GarbledGate gate = gates[ungarbledGate.getGateNumber()];
+		if (!(gate instanceof HalfGatesGarbledGate)) {
+			super.generateStandardValues(ungarbledGate, allWireValues, globalKeyOffset, zeroValueBytes);
+			return;
+		}
+		
+		try {
+			((HalfGatesGarbledGate) gate).garble(allWireValues, globalKeyOffset);
+		} catch (InvalidKeyException e) {
+			// Should not occur since the keys were generated through the encryption scheme that generates keys that match it.
+		} catch (IllegalBlockSizeException e) {
+			// Should not occur since the keys were generated through the encryption scheme that generates keys that match it.
+		} catch (PlaintextTooLongException e) {
+			// Should not occur since the keys were generated through the encryption scheme that generates keys that match it.
+		}
+	}
+}
@@ -0,0 +1,345 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.circuits.garbledCircuit;
+
+import java.nio.ByteBuffer;
+import java.security.InvalidKeyException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+
+import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+import edu.biu.scapi.circuits.circuit.Gate;
+import edu.biu.scapi.circuits.encryption.MultiKeyEncryptionScheme;
+import edu.biu.scapi.exceptions.PlaintextTooLongException;
+
+/**
+ * A garbled gate that uses the half gates technique. <p>
+ * 
+ * See <i>Two Halves Make a Whole: Reducing Data Transfer in Garbled Circuits using Half Gates</i> by Samee Zahur, Mike Rosulek and David Evans. <p>
+ * 
+ * An AND gate is written as the XOR of two "half gates": a gate in which the garbler knows one of the inputs and a gate in which the evaluator 
+ * knows one of the inputs. Each half gate needs a single ciphertext, so the garbled table of the gate contains only two ciphertexts, 
+ * and since the technique requires the keys of each wire to be XOR'd by the global Free XOR offset, XOR gates remain free. <p>
+ * Any 2-input gate whose truth table has an odd number of ones is an AND gate whose inputs and output may be negated: 
+ * f(a,b) = ((a XOR alpha) AND (b XOR beta)) XOR gamma. The negations are free, so all these gates are garbled as half gates. <p>
+ * 
+ * The hash function H(k, j) of the paper is computed by the circuit's {@link MultiKeyEncryptionScheme} with the single key k and the tweak j, 
+ * on a zero plaintext. The tweak of the garbler half is the gate number followed by 0 and the tweak of the evaluator half is the gate number 
+ * followed by 1, so that every hash in the circuit uses a distinct tweak. <p>
+ * Unlike the other garbled gates, the keys of the output wire are not sampled but computed from the keys of the input wires. 
+ * Thus, the garbled table is created by {@link #garble(Map, byte[])} while the keys of the circuit are generated, in the order of the gates.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+class HalfGatesGarbledGate implements GarbledGate {
+	
+	//The indices of the first and second keys when two keys are put in a labels array.
+	private static final int[] FIRST_KEY = new int[] {0};
+	private static final int[] SECOND_KEY = new int[] {1};
+	
+	private MultiKeyEncryptionScheme mes; 					// The {@code MultiKeyEncryptionScheme} that will be used to garble and compute this Gate.
+	private BasicGarbledTablesHolder garbledTablesHolder; 	// Holds the garbled tables.
+	
+	private int[] inputWireIndices;
+	private int[] outputWireIndices;
+	
+	//The dense indices of the input and output wires. The indices of each input wire are kept in an array, as the encryption scheme expects.
+	private int[] firstInputDenseIndex;
+	private int[] secondInputDenseIndex;
+	private int[] denseOutputWireIndices;
+	
+	private int gateNumber;
+	
+	//The negations of the inputs and output, such that the gate computes ((a XOR alpha) AND (b XOR beta)) XOR gamma.
+	private int alpha;
+	private int beta;
+	private int gamma;
+	
+	/*
+	 * The tweak of the hash function. It contains the gate number and the index of the half gate (0 for the garbler half and 1 for 
+	 * the evaluator half) that is changed before each hash.
+	 */
+	private byte[] tweak;
+	
+	//A buffer that holds the garbler half during the computation. Allocated on the first computation.
+	private byte[] computeBuffer;
+	
+	/**
+	 * Constructs a half gates garbled gate from an ungarbled gate using the given {@code MultiKeyEncryptionScheme}.
+	 * @param ungarbledGate The gate to garble. {@link #isHalfGate(Gate)} should return true for it.
+	 * @param mes The encryption scheme used to garble this gate.
+	 * @param garbledTablesHolder A reference to the garbled tables of the circuit.
+	 */
+	HalfGatesGarbledGate(Gate ungarbledGate, MultiKeyEncryptionScheme mes, BasicGarbledTablesHolder garbledTablesHolder) {
+		if (!isHalfGate(ungarbledGate)) {
+			throw new IllegalArgumentException("the given gate should have two inputs and an odd number of ones in its truth table");
+		}
+		this.mes = mes;
+		this.garbledTablesHolder = garbledTablesHolder;
+		inputWireIndices = ungarbledGate.getInputWireIndices();
+		outputWireIndices = ungarbledGate.getOutputWireIndices();
+		firstInputDenseIndex = new int[] {ungarbledGate.getDenseInputWireIndices()[0]};
+		secondInputDenseIndex = new int[] {ungarbledGate.getDenseInputWireIndices()[1]};
+		denseOutputWireIndices = ungarbledGate.getDenseOutputWireIndices();
+		gateNumber = ungarbledGate.getGateNumber();
+		
+		/*
+		 * The row of the truth table whose value differs from the other three rows is the row in which both inputs of the AND are 1.
+		 * If this row is the only 1 in the truth table the output is not negated; if it is the only 0, the output is negated.
+		 * The first input wire is the most significant bit of the row number.
+		 */
+		BitSet truthTable = ungarbledGate.getTruthTable();
+		gamma = (truthTable.cardinality() == 1) ? 0 : 1;
+		int andRow = 0;
+		while (truthTable.get(andRow) == (gamma == 1)) {
+			andRow++;
+		}
+		alpha = 1 - (andRow >> 1);
+		beta = 1 - (andRow & 1);
+		
+		tweak = new byte[StandardGarbledGate.TWEAK_SIZE];
+		ByteBuffer.wrap(tweak).putInt(gateNumber);
+	}
+	
+	/**
+	 * Returns true if the given gate can be garbled by the half gates technique, that is, if it has two inputs and the number of 
+	 * ones in its truth table is odd.
+	 */
+	static boolean isHalfGate(Gate gate) {
+		BitSet truthTable = gate.getTruthTable();
+		return gate.getInputWireIndices().length == 2 && truthTable.length() <= 4 && truthTable.cardinality() % 2 == 1;
+	}
+	
+	/**
+	 * Computes the keys of the output wires from the keys of the input wires and creates the garbled table of this gate. <p>
+	 * The keys of the input wires should already be in the given map. The keys of the output wires are put in the map.
+	 * @param allWireValues Both keys of the circuit's wires.
+	 * @param globalKeyOffset The Free XOR offset R. The keys of every wire are k0 and k0 XOR R.
+	 * @throws InvalidKeyException
+	 * @throws IllegalBlockSizeException
+	 * @throws PlaintextTooLongException
+	 */
+	void garble(Map<Integer, SecretKey[]> allWireValues, byte[] globalKeyOffset) throws InvalidKeyException, IllegalBlockSizeException, PlaintextTooLongException {
+		int size = mes.getCipherSize();
+		int tweakSize = StandardGarbledGate.TWEAK_SIZE;
+		
+		//The zero keys of a XOR alpha and b XOR beta, and their signal bits.
+		byte[] a0 = allWireValues.get(inputWireIndices[0])[alpha].getEncoded();
+		byte[] b0 = allWireValues.get(inputWireIndices[1])[beta].getEncoded();
+		int pa = a0[size - 1] & 1;
+		int pb = b0[size - 1] & 1;
+		
+		//Compute H(a0, j), H(a0 XOR R, j), H(b0, j') and H(b0 XOR R, j') in a single batch.
+		byte[] keys = new byte[4 * size];
+		byte[] tweaks = new byte[4 * tweakSize];
+		for (int i = 0; i < size; i++) {
+			keys[i] = a0[i];
+			keys[size + i] = (byte) (a0[i] ^ globalKeyOffset[i]);
+			keys[2 * size + i] = b0[i];
+			keys[3 * size + i] = (byte) (b0[i] ^ globalKeyOffset[i]);
+		}
+		for (int row = 0; row < 4; row++) {
+			tweak[7] = (byte) (row / 2);
+			System.arraycopy(tweak, 0, tweaks, row * tweakSize, tweakSize);
+		}
+		byte[] hashes = new byte[4 * size];
+		mes.encryptBatch(keys, 1, tweaks, tweakSize, new byte[4 * size], hashes, 4);
+		
+		/*
+		 * The garbler half:   TG = H(a0, j) XOR H(a1, j) XOR pb*R and WG0 = H(a0, j) XOR pa*TG.
+		 * The evaluator half: TE = H(b0, j') XOR H(b1, j') XOR a0 and WE0 = H(b0, j') XOR pb*(TE XOR a0).
+		 * The zero key of the AND is WG0 XOR WE0, and the negation of the output is done by XORing it with R.
+		 */
+		byte[] garbledTable = new byte[2 * size];
+		byte[] zeroValueBytes = new byte[size];
+		byte[] oneValueBytes = new byte[size];
+		for (int i = 0; i < size; i++) {
+			byte tg = (byte) (hashes[i] ^ hashes[size + i] ^ ((pb == 1) ? globalKeyOffset[i] : 0));
+			byte te = (byte) (hashes[2 * size + i] ^ hashes[3 * size + i] ^ a0[i]);
+			byte wg = (byte) (hashes[i] ^ ((pa == 1) ? tg : 0));
+			byte we = (byte) (hashes[2 * size + i] ^ ((pb == 1) ? te ^ a0[i] : 0));
+			garbledTable[i] = tg;
+			garbledTable[size + i] = te;
+			zeroValueBytes[i] = (byte) (wg ^ we ^ ((gamma == 1) ? globalKeyOffset[i] : 0));
+			oneValueBytes[i] = (byte) (zeroValueBytes[i] ^ globalKeyOffset[i]);
+		}
+		garbledTablesHolder.toDoubleByteArray()[gateNumber] = garbledTable;
+		
+		SecretKey[] outputValues = new SecretKey[] { new SecretKeySpec(zeroValueBytes, ""), new SecretKeySpec(oneValueBytes, "") };
+		for (int w : outputWireIndices) {
+			allWireValues.put(w, outputValues);
+		}
+	}
+	
+	@Override
+	public void compute(Map<Integer, GarbledWire> computedWires) throws InvalidKeyException, IllegalBlockSizeException {
+		int size = mes.getCipherSize();
+		
+		//Put both input keys in one array and compute the output key.
+		byte[] labels = new byte[2 * size];
+		System.arraycopy(computedWires.get(inputWireIndices[0]).getValueAndSignalBit().getEncoded(), 0, labels, 0, size);
+		System.arraycopy(computedWires.get(inputWireIndices[1]).getValueAndSignalBit().getEncoded(), 0, labels, size, size);
+		byte[] output = new byte[size];
+		evaluate(labels, FIRST_KEY, SECOND_KEY, size, output, 0, mes);
+		
+		GarbledWire outputWire = new GarbledWire(new SecretKeySpec(output, ""));
+		for (int w : outputWireIndices) {
+			computedWires.put(w, outputWire);
+		}
+	}
+	
+	@Override
+	public void compute(byte[] wireLabels, int labelSize) throws InvalidKeyException, IllegalBlockSizeException {
+		compute(wireLabels, labelSize, mes);
+	}
+	
+	/**
+	 * Computes the output of this gate on the flat array of the circuit's wire labels, using the given encryption scheme instead of 
+	 * this gate's scheme. This allows different threads to compute different gates at the same time.
+	 * @param wireLabels The labels of all the circuit's wires. The labels of this gate's input wires have already been set.
+	 * @param labelSize The size in bytes of a single label.
+	 * @param mes The encryption scheme to use. Should be this gate's scheme or a copy of it.
+	 * @throws InvalidKeyException
+	 * @throws IllegalBlockSizeException
+	 */
+	void compute(byte[] wireLabels, int labelSize, MultiKeyEncryptionScheme mes) throws InvalidKeyException, IllegalBlockSizeException {
+		int outputOffset = denseOutputWireIndices[0] * labelSize;
+		evaluate(wireLabels, firstInputDenseIndex, secondInputDenseIndex, labelSize, wireLabels, outputOffset, mes);
+		
+		// Copy the computed value to the rest of the output wires, if there are any.
+		for (int i = 1; i < denseOutputWireIndices.length; i++) {
+			System.arraycopy(wireLabels, outputOffset, wireLabels, denseOutputWireIndices[i] * labelSize, labelSize);
+		}
+	}
+	
+	/**
+	 * Computes the output key from the keys A and B of the input wires, whose signal bits are sa and sb: <p>
+	 * WG = H(A, j) XOR sa*TG, WE = H(B, j') XOR sb*(TE XOR A) and the output key is WG XOR WE.
+	 * @param labels The array that contains the input keys.
+	 * @param firstIndex The index of the first input key in the labels array.
+	 * @param secondIndex The index of the second input key in the labels array.
+	 * @param labelSize The size in bytes of a single label.
+	 * @param output The array to put the output key in. May be the labels array.
+	 * @param outputOffset The offset in the output array.
+	 * @param mes The encryption scheme that computes the hash function.
+	 */
+	private void evaluate(byte[] labels, int[] firstIndex, int[] secondIndex, int labelSize, byte[] output, int outputOffset, 
+			MultiKeyEncryptionScheme mes) throws InvalidKeyException, IllegalBlockSizeException {
+		byte[] garbledTable = garbledTablesHolder.toDoubleByteArray()[gateNumber];
+		int firstOffset = firstIndex[0] * labelSize;
+		int sa = labels[firstOffset + labelSize - 1] & 1;
+		int sb = labels[(secondIndex[0] + 1) * labelSize - 1] & 1;
+		if (computeBuffer == null) {
+			computeBuffer = new byte[labelSize];
+		}
+		
+		/*
+		 * The decryption of the scheme returns H(key, tweak) XOR the ciphertext, where the ciphertext is TG or TE. 
+		 * If the signal bit is 0 the ciphertext should not be XOR'd, so it is XOR'd again to cancel it.
+		 * A is XOR'd to WG before the output key is written, since the output array may be the labels array.
+		 */
+		tweak[7] = 0;
+		mes.decrypt(labels, firstIndex, tweak, garbledTable, 0, computeBuffer, 0);
+		for (int i = 0; i < labelSize; i++) {
+			computeBuffer[i] ^= ((sa == 0) ? garbledTable[i] : 0) ^ ((sb == 1) ? labels[firstOffset + i] : 0);
+		}
+		
+		tweak[7] = 1;
+		mes.decrypt(labels, secondIndex, tweak, garbledTable, labelSize, output, outputOffset);
+		for (int i = 0; i < labelSize; i++) {
+			output[outputOffset + i] ^= computeBuffer[i] ^ ((sb == 0) ? garbledTable[labelSize + i] : 0);
+		}
+	}
+	
+	@Override
+	public boolean verify(Gate g, Map<Integer, SecretKey[]> allWireValues) throws InvalidKeyException, IllegalBlockSizeException {
+		
+		//Step 1: Check that the gate number and the input and output wires are the same as in the ungarbled gate.
+		if (gateNumber != g.getGateNumber() || !Arrays.equals(inputWireIndices, g.getInputWireIndices()) 
+				|| !Arrays.equals(outputWireIndices, g.getOutputWireIndices())) {
+			return false;
+		}
+		
+		/*
+		 * Step 2: Compute the gate on every combination of input keys. All the rows of the ungarbled truth table that have the same value 
+		 * should give the same output key, and the keys of the two values should differ.
+		 */
+		int size = mes.getCipherSize();
+		BitSet truthTable = g.getTruthTable();
+		byte[] labels = new byte[2 * size];
+		byte[][] outputValues = new byte[2][];
+		for (int row = 0; row < 4; row++) {
+			System.arraycopy(allWireValues.get(inputWireIndices[0])[row >> 1].getEncoded(), 0, labels, 0, size);
+			System.arraycopy(allWireValues.get(inputWireIndices[1])[row & 1].getEncoded(), 0, labels, size, size);
+			byte[] output = new byte[size];
+			evaluate(labels, FIRST_KEY, SECOND_KEY, size, output, 0, mes);
+			
+			int value = truthTable.get(row) ? 1 : 0;
+			if (outputValues[value] == null) {
+				outputValues[value] = output;
+			} else if (!Arrays.equals(outputValues[value], output)) {
+				return false;
+			}
+		}
+		if (outputValues[0] == null || outputValues[1] == null || Arrays.equals(outputValues[0], outputValues[1])) {
+			return false;
+		}
+		
+		//Step 3: Put the output keys in the map, so that the following gates can be verified.
+		SecretKey[] outputKeys = new SecretKey[] { new SecretKeySpec(outputValues[0], ""), new SecretKeySpec(outputValues[1], "") };
+		for (int w : outputWireIndices) {
+			allWireValues.put(w, outputKeys);
+		}
+		return true;
+	}
+	
+	@Override
+	public int[] getInputWireIndices() {
+		return inputWireIndices;
+	}
+	
+	@Override
+	public int[] getOutputWireIndices() {
+		return outputWireIndices;
+	}
+	
+	@Override
+	public int getGarbledTableSize() {
+		//A half gate has two ciphertexts, one for each half.
+		return 2 * mes.getCipherSize();
+	}
+	
+	/**
+	 * Returns the encryption scheme of this gate.
+	 */
+	MultiKeyEncryptionScheme getEncryptionScheme() {
+		return mes;
+	}
+}
@@ -0,0 +1,83 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.circuits.garbledCircuit;
+
+import edu.biu.scapi.circuits.circuit.BooleanCircuit;
+import edu.biu.scapi.circuits.encryption.MultiKeyEncryptionScheme;
+import edu.biu.scapi.primitives.kdf.KeyDerivationFunction;
+
+/**
+ * This is the garbling parameters' class for a half gates circuit.<p>
+ * The half gates technique garbles every AND-like gate with two ciphertexts and keeps XOR gates free. 
+ * See {@link HalfGatesGarbledGate} for more details.<p>
+ * A half gates circuit's parameters are:<p>
+ * 1. The boolean circuit that needs to be garbled. <p>
+ * 2. A MultiKeyEncryptionScheme, that is used as the tweakable hash function of the technique.<p>
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public class HalfGatesGarblingParameters implements GarblingParameters{
+	
+	private BooleanCircuit ungarbledCircuit;
+	private MultiKeyEncryptionScheme mes;
+	
+	/**
+	 * This constructor creates a garbling parameters' object for a half gates circuit.
+	 * @param ungarbledCircuit The boolean circuit that needs to be garbled. 
+	 * @param mes A MultiKeyEncryptionScheme to use. Should be a tweakable scheme: AESFixedKeyMultiKeyEncryption or AES128MultiKeyEncryption.
+	 * @throws IllegalArgumentException if the given scheme does not use the tweak.
+	 */
+	public HalfGatesGarblingParameters(BooleanCircuit ungarbledCircuit, MultiKeyEncryptionScheme mes){
+		this.ungarbledCircuit = ungarbledCircuit;
+		this.mes = HalfGatesGarbledBooleanCircuitUtil.checkScheme(mes);
+	}
+	
+	/**
+	 * The half gates technique does not use a KDF.
+	 * @throws IllegalStateException
+	 */
+	@Override
+	public void setKDF(KeyDerivationFunction kdf){
+		throw new IllegalStateException("the half gates technique does not use a KDF");
+	}
+
+	@Override
+	public BooleanCircuit getUngarbledCircuit() {
+		
+		return ungarbledCircuit;
+	}
+	
+	@Override
+	public CircuitTypeUtil createCircuitUtil() {
+		return new HalfGatesGarbledBooleanCircuitUtil(mes);
+	}
+	
+	@Override
+	public KeyDerivationFunction getKDF(){
+		return null;
+	}
+
+}
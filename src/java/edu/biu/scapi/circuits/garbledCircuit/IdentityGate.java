@@ -52,10 +52,13 @@ import edu.biu.scapi.primitives.prg.PseudorandomGenerator;
  * 
  * The identity gates maps the 0 input key to the 0 output key, and the 1 input key to the 1 output key.
  * 
+ * The outer wires of the identity gates are not part of any {@link edu.biu.scapi.circuits.circuit.BooleanCircuit} and have no dense indices, 
+ * so identity gates are not {@link GarbledGate}s and are always computed using the {@code Map} based {@link #compute(Map)} function.
+ * 
  * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University (Moriya Farbstein)
  *
  */
-public class IdentityGate implements GarbledGate{
+public class IdentityGate {
 
 	private MultiKeyEncryptionScheme mes; 	// The {@code MultiKeyEncryptionScheme} that will be used to garbled and compute this Gate.
 	private PseudorandomGenerator prg;		//The prg to use in case of garbling using a seed.
@@ -172,7 +175,13 @@ public class IdentityGate implements GarbledGate{
 	  	}	  	
 	}
 	
-	@Override
+	/**
+	 * Computes the output of this gate and sets the output wire to that value.
+	 * @param computedWires A {@link Map} containing the {@link GarbledWire}s that have already been computed and had their values set.
+	 * @throws InvalidKeyException
+	 * @throws IllegalBlockSizeException
+	 * @throws CiphertextTooLongException
+	 */
 	public void compute(Map<Integer, GarbledWire> computedWires) throws InvalidKeyException, IllegalBlockSizeException,
 			CiphertextTooLongException {
 		/*
@@ -240,7 +249,7 @@ public class IdentityGate implements GarbledGate{
 		// Create the output wire with the decrypted value.
 		computedWires.put(outputWireIndex, new GarbledWire(outputValue));	
 	}
-
+	
 	/**
 	 * Check that the given byte array contains 0^cipherSize.
 	 * @param validateZeros That should be verified.
@@ -261,7 +270,16 @@ public class IdentityGate implements GarbledGate{
 		return validateRow;
 	}
 
-	@Override
+	/**
+	 * Tests an ungarbled identity {@link Gate} for equality to this gate, that is, they have the same number and indices 
+	 * and the garbled table maps each input key to the matching output key.
+	 * @param g an ungarbled {@code Gate} to be tested for equality to this gate.
+	 * @param allWireValues contains both keys of all wires.
+	 * @return {@code true} if the gates are equal, and {@code false} otherwise.
+	 * @throws InvalidKeyException
+	 * @throws IllegalBlockSizeException
+	 * @throws CiphertextTooLongException
+	 */
 	public boolean verify(Gate g, Map<Integer, SecretKey[]> allWireValues) 	throws InvalidKeyException, IllegalBlockSizeException,
 			CiphertextTooLongException {
 		/*
@@ -393,7 +411,9 @@ public class IdentityGate implements GarbledGate{
 		return true;
 	}
 
-	@Override
+	/**
+	 * @return an array containing the index of the gate's input wire.
+	 */
 	public int[] getInputWireIndices() {
 		
 		int[] inputIndices = new int[1];
@@ -401,7 +421,9 @@ public class IdentityGate implements GarbledGate{
 		return inputIndices;
 	}
 
-	@Override
+	/**
+	 * @return an array containing the index of the gate's output wire.
+	 */
 	public int[] getOutputWireIndices() {
 		
 		int[] outputIndices = new int[1];
@@ -62,6 +62,14 @@ class MinimizeAESSetKeyRowReductionGate extends StandardRowReductionGarbledGate
 	    
 	}	
    
+	/**
+	 * This gate sets the AES keys itself in order to minimize the set key operations, so it is not garbled in a batch.
+	 */
+	@Override
+	boolean canGarbleInBatch() {
+		return false;
+	}
+	
 	@Override
 	void createGarbledTable(Gate ungarbledGate, Map<Integer, SecretKey[]> allWireValues) throws InvalidKeyException, IllegalBlockSizeException {
 		
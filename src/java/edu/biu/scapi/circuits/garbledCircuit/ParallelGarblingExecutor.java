@@ -0,0 +1,301 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.circuits.garbledCircuit;
+
+import java.security.InvalidKeyException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.SecretKey;
+
+import edu.biu.scapi.circuits.circuit.BooleanCircuit;
+import edu.biu.scapi.circuits.circuit.Gate;
+import edu.biu.scapi.circuits.encryption.MultiKeyEncryptionScheme;
+import edu.biu.scapi.exceptions.CiphertextTooLongException;
+import edu.biu.scapi.exceptions.PlaintextTooLongException;
+
+/**
+ * Garbles and computes the gates of a garbled circuit using the threads of a fork-join pool. <p>
+ * The garbled tables are created after all the wire keys are known, so the tables of all the gates are independent of each other. 
+ * They are divided into chunks and each chunk is garbled by a single task. <p>
+ * The computation goes over the levels of the circuit (see {@link BooleanCircuit#getLevels()}) in their order. 
+ * The gates of each level are independent of each other, so they are divided between the pool's threads and the next level 
+ * begins only after all the gates of the current level were computed. <p>
+ * The encryption schemes are not thread safe, so every thread uses its own copy of the circuit's scheme, 
+ * created by {@link MultiKeyEncryptionScheme#createCopy()}. Since the encryption is deterministic, the garbled tables and the computed 
+ * labels are identical to the ones created by the sequential functions.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+class ParallelGarblingExecutor {
+	
+	//The number of gates that are garbled by a single task.
+	private static final int GATES_PER_GARBLING_TASK = 1024;
+	
+	//The number of gates that are computed by a single task. Smaller levels are computed by the calling thread.
+	private static final int GATES_PER_COMPUTE_TASK = 64;
+	
+	private ForkJoinPool pool;
+	private GarbledGate[] gates;				// The garbled gates of the circuit.
+	private boolean canComputeInParallel;		// True if all the gates of the circuit can be computed by different threads.
+	private ThreadLocal<MultiKeyEncryptionScheme> threadSchemes;	// Holds the copy of the encryption scheme of each thread.
+	
+	/**
+	 * Constructor that sets the pool and the gates to garble and compute.
+	 * @param pool The pool whose threads garble and compute the gates.
+	 * @param gates The garbled gates of the circuit.
+	 */
+	ParallelGarblingExecutor(ForkJoinPool pool, GarbledGate[] gates) {
+		this.pool = pool;
+		this.gates = gates;
+		
+		//All the standard and half gates of a circuit use the same encryption scheme. Free XOR gates do not encrypt, so they can always be computed in parallel.
+		MultiKeyEncryptionScheme mes = null;
+		canComputeInParallel = true;
+		for (GarbledGate gate : gates) {
+			if (gate instanceof StandardGarbledGate) {
+				StandardGarbledGate standardGate = (StandardGarbledGate) gate;
+				if (mes == null) {
+					mes = standardGate.mes;
+				}
+				canComputeInParallel &= standardGate.canComputeInParallel();
+			} else if (gate instanceof HalfGatesGarbledGate) {
+				if (mes == null) {
+					mes = ((HalfGatesGarbledGate) gate).getEncryptionScheme();
+				}
+			} else if (!(gate instanceof FreeXORGate)) {
+				canComputeInParallel = false;
+			}
+		}
+		
+		//A circuit that has only free XOR gates does not encrypt, so there is no scheme to copy.
+		if (mes != null) {
+			final MultiKeyEncryptionScheme circuitScheme = mes;
+			threadSchemes = new ThreadLocal<MultiKeyEncryptionScheme>() {
+				@Override
+				protected MultiKeyEncryptionScheme initialValue() {
+					return circuitScheme.createCopy();
+				}
+			};
+		}
+	}
+	
+	/**
+	 * Returns true if the gates can be computed by {@link #compute(int[][], byte[], int)}; 
+	 * false if some of them use objects that can not be shared between threads, in which case the circuit should be computed sequentially.
+	 */
+	boolean canComputeInParallel() {
+		return canComputeInParallel;
+	}
+	
+	/**
+	 * Creates the garbled tables of the given gates. <p>
+	 * Gates that can be garbled in a batch are divided between the pool's threads. The rest of the gates are garbled by the calling thread 
+	 * using their own encryption scheme.
+	 * @param gates The garbled gates to create the garbled tables of.
+	 * @param ungarbledGates The matching ungarbled gates.
+	 * @param allWireValues Both keys of all the circuit's wires.
+	 * @param mes The encryption scheme of the circuit.
+	 * @throws InvalidKeyException
+	 * @throws IllegalBlockSizeException
+	 * @throws PlaintextTooLongException
+	 */
+	void createGarbledTables(List<StandardGarbledGate> gates, List<Gate> ungarbledGates, Map<Integer, SecretKey[]> allWireValues, 
+			MultiKeyEncryptionScheme mes) throws InvalidKeyException, IllegalBlockSizeException, PlaintextTooLongException {
+		
+		ArrayList<StandardGarbledGate> batchGates = new ArrayList<StandardGarbledGate>();
+		ArrayList<Gate> batchUngarbledGates = new ArrayList<Gate>();
+		ArrayList<StandardGarbledGate> otherGates = new ArrayList<StandardGarbledGate>();
+		ArrayList<Gate> otherUngarbledGates = new ArrayList<Gate>();
+		int numberOfGates = gates.size();
+		for (int i = 0; i < numberOfGates; i++) {
+			if (gates.get(i).canGarbleInBatch()) {
+				batchGates.add(gates.get(i));
+				batchUngarbledGates.add(ungarbledGates.get(i));
+			} else {
+				otherGates.add(gates.get(i));
+				otherUngarbledGates.add(ungarbledGates.get(i));
+			}
+		}
+		
+		StandardGarbledGate.createGarbledTables(otherGates, otherUngarbledGates, allWireValues, mes);
+		
+		//A circuit that has only free XOR gates has nothing to garble in the pool, and no scheme for the pool's threads to copy.
+		if (batchGates.isEmpty()) {
+			return;
+		}
+		
+		try {
+			pool.invoke(new GarblingTask(batchGates, batchUngarbledGates, allWireValues, 0, batchGates.size()));
+		} catch (GarblingException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof InvalidKeyException) {
+				throw (InvalidKeyException) cause;
+			}
+			if (cause instanceof IllegalBlockSizeException) {
+				throw (IllegalBlockSizeException) cause;
+			}
+			if (cause instanceof PlaintextTooLongException) {
+				throw (PlaintextTooLongException) cause;
+			}
+			throw new IllegalStateException(cause);
+		}
+	}
+	
+	/**
+	 * Computes the gates level by level. Should be called only if {@link #canComputeInParallel()} returns true.
+	 * @param levels The levels of the circuit, as returned by {@link BooleanCircuit#getLevels()}.
+	 * @param wireLabels The labels of all the circuit's wires. The labels of the input wires have already been set.
+	 * @param labelSize The size in bytes of a single label.
+	 */
+	void compute(int[][] levels, byte[] wireLabels, int labelSize) {
+		for (int[] level : levels) {
+			if (level.length < 2 * GATES_PER_COMPUTE_TASK) {
+				//Dividing a small level costs more than computing it, so it is computed by the calling thread with the gates' own scheme.
+				for (int gate : level) {
+					computeGate(gates[gate], wireLabels, labelSize, null);
+				}
+			} else {
+				pool.invoke(new ComputeTask(level, 0, level.length, wireLabels, labelSize));
+			}
+		}
+	}
+	
+	/**
+	 * Computes a single gate.
+	 * @param mes The encryption scheme to compute a standard gate with. If null, the gate's own scheme is used.
+	 */
+	private static void computeGate(GarbledGate gate, byte[] wireLabels, int labelSize, MultiKeyEncryptionScheme mes) {
+		try {
+			if (mes != null && gate instanceof StandardGarbledGate) {
+				((StandardGarbledGate) gate).compute(wireLabels, labelSize, mes);
+			} else if (mes != null && gate instanceof HalfGatesGarbledGate) {
+				((HalfGatesGarbledGate) gate).compute(wireLabels, labelSize, mes);
+			} else {
+				gate.compute(wireLabels, labelSize);
+			}
+		} catch (InvalidKeyException e) {
+			// Should not occur since the keys were generated through the encryption scheme that generates keys that match it.
+		} catch (IllegalBlockSizeException e) {
+			// Should not occur since the keys were generated through the encryption scheme that generates keys that match it.
+		} catch (CiphertextTooLongException e) {
+			// Should not occur since the keys were generated through the encryption scheme that generates keys that match it.
+		}
+	}
+	
+	/**
+	 * Garbles a range of gates. Large ranges are split in two halves that are garbled concurrently.
+	 */
+	private class GarblingTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private List<StandardGarbledGate> gates;
+		private List<Gate> ungarbledGates;
+		private Map<Integer, SecretKey[]> allWireValues;
+		private int from;
+		private int to;
+		
+		GarblingTask(List<StandardGarbledGate> gates, List<Gate> ungarbledGates, Map<Integer, SecretKey[]> allWireValues, int from, int to) {
+			this.gates = gates;
+			this.ungarbledGates = ungarbledGates;
+			this.allWireValues = allWireValues;
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		protected void compute() {
+			if (to - from <= GATES_PER_GARBLING_TASK) {
+				try {
+					StandardGarbledGate.createGarbledTables(gates.subList(from, to), ungarbledGates.subList(from, to), allWireValues, threadSchemes.get());
+				} catch (InvalidKeyException e) {
+					throw new GarblingException(e);
+				} catch (IllegalBlockSizeException e) {
+					throw new GarblingException(e);
+				} catch (PlaintextTooLongException e) {
+					throw new GarblingException(e);
+				}
+			} else {
+				int middle = (from + to) >>> 1;
+				invokeAll(new GarblingTask(gates, ungarbledGates, allWireValues, from, middle), 
+						new GarblingTask(gates, ungarbledGates, allWireValues, middle, to));
+			}
+		}
+	}
+	
+	/**
+	 * Computes a range of the gates of a single level. Large ranges are split in two halves that are computed concurrently.
+	 */
+	private class ComputeTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private int[] level;
+		private int from;
+		private int to;
+		private byte[] wireLabels;
+		private int labelSize;
+		
+		ComputeTask(int[] level, int from, int to, byte[] wireLabels, int labelSize) {
+			this.level = level;
+			this.from = from;
+			this.to = to;
+			this.wireLabels = wireLabels;
+			this.labelSize = labelSize;
+		}
+		
+		@Override
+		protected void compute() {
+			if (to - from <= GATES_PER_COMPUTE_TASK) {
+				MultiKeyEncryptionScheme mes = (threadSchemes == null) ? null : threadSchemes.get();
+				for (int i = from; i < to; i++) {
+					computeGate(gates[level[i]], wireLabels, labelSize, mes);
+				}
+			} else {
+				int middle = (from + to) >>> 1;
+				invokeAll(new ComputeTask(level, from, middle, wireLabels, labelSize), 
+						new ComputeTask(level, middle, to, wireLabels, labelSize));
+			}
+		}
+	}
+	
+	/**
+	 * Carries a checked exception that was thrown while garbling out of the pool's task.
+	 */
+	private static class GarblingException extends RuntimeException {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private GarblingException(Exception cause) {
+			super(cause);
+		}
+	}
+}
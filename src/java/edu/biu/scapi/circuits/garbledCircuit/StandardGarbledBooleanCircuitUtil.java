@@ -27,6 +27,7 @@ package edu.biu.scapi.circuits.garbledCircuit;
 import java.security.InvalidKeyException;
 import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -53,6 +54,8 @@ import edu.biu.scapi.primitives.prg.PseudorandomGenerator;
 class StandardGarbledBooleanCircuitUtil implements CircuitTypeUtil{
 	protected MultiKeyEncryptionScheme mes;
 	
+	protected ParallelGarblingExecutor executor;	//Creates the garbled tables in parallel. Null if they are created sequentially.
+	
 	protected SecureRandom random;
 	
 	/**
@@ -178,11 +181,22 @@ class StandardGarbledBooleanCircuitUtil implements CircuitTypeUtil{
 	 */
 	private void createGarbledTables(GarbledGate[] gates, BasicGarbledTablesHolder garbledTablesHolder, Gate[] ungarbledGates, Map<Integer, SecretKey[]> allWireValues) throws InvalidKeyException, IllegalBlockSizeException, PlaintextTooLongException {
 		int length = ungarbledGates.length;
-		//After we have all keys, create the garbledTables according to them.
+		ArrayList<StandardGarbledGate> standardGates = new ArrayList<StandardGarbledGate>(length);
 		for (int gate = 0; gate < length; gate++) {
-			((StandardGarbledGate) gates[gate]).createGarbledTable(ungarbledGates[gate], allWireValues);
+			standardGates.add((StandardGarbledGate) gates[gate]);
+		}
+		//After we have all keys, create the garbledTables according to them.
+		if (executor == null) {
+			StandardGarbledGate.createGarbledTables(standardGates, Arrays.asList(ungarbledGates), allWireValues, mes);
+		} else {
+			executor.createGarbledTables(standardGates, Arrays.asList(ungarbledGates), allWireValues, mes);
 		}
 	}
+	
+	@Override
+	public void setParallelExecutor(ParallelGarblingExecutor executor) {
+		this.executor = executor;
+	}
 
 	/**
 	 * Fills the maps containing the keys for the output wires and the translation table.
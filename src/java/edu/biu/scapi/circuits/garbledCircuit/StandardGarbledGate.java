@@ -26,8 +26,11 @@ package edu.biu.scapi.circuits.garbledCircuit;
 
 import java.nio.ByteBuffer;
 import java.security.InvalidKeyException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import javax.crypto.IllegalBlockSizeException;
@@ -69,12 +72,28 @@ class StandardGarbledGate implements GarbledGate {
 	  
 	//An array containing the indices of the output {@code GarbledWire}(s).
 	protected int[] outputWireIndices;
+	
+	//The dense indices of the input and output wires. These are used to address the circuit's flat array of wire labels.
+	protected int[] denseInputWireIndices;
+	protected int[] denseOutputWireIndices;
+	
+	/*
+	 * The tweak that is used when computing the gate on the flat array of wire labels. It is allocated once, on the first computation, 
+	 * and contains the gate number followed by the signal bits of the input wires, each one as a 4 bytes integer.
+	 */
+	private byte[] computeTweak;
 	  
 	/* 
 	 * The number of this {@code StandardGarbledGate}. This number is used to order {@code StandardGarbledGate}s in a 
 	 * {@link StandardGarbledBooleanCircuitUtil}
 	 */
 	protected int gateNumber;
+	
+	//The size of the tweak that is used to garble and compute a gate.
+	static final int TWEAK_SIZE = 16;
+	
+	//The maximal number of rows that are encrypted in one batch when creating the garbled tables.
+	private static final int MAX_BATCH_ROWS = 4096;
 
 	/**
 	 * Constructs a garbled gate from an ungarbled gate using the given {@code MultiKeyEncryptionScheme}.
@@ -87,6 +106,8 @@ class StandardGarbledGate implements GarbledGate {
 	    this.mes = mes;
 	    inputWireIndices = ungarbledGate.getInputWireIndices();
 	    outputWireIndices = ungarbledGate.getOutputWireIndices();
+	    denseInputWireIndices = ungarbledGate.getDenseInputWireIndices();
+	    denseOutputWireIndices = ungarbledGate.getDenseOutputWireIndices();
 	    gateNumber = ungarbledGate.getGateNumber();
 	    this.garbledTablesHolder = garbledTablesHolder;
 	}
@@ -174,6 +195,160 @@ class StandardGarbledGate implements GarbledGate {
 		}
 	}
   
+	/**
+	 * Returns the number of rows in the garbled table of this gate.
+	 */
+	int getNumberOfGarbledRows() {
+		return 1 << inputWireIndices.length;
+	}
+	
+	/**
+	 * Returns true if the garbled table of this gate can be created by the batch encryption of the {@code MultiKeyEncryptionScheme}; 
+	 * false if it should be created by {@link #createGarbledTable(Gate, Map)}.
+	 */
+	boolean canGarbleInBatch() {
+		return true;
+	}
+	
+	/**
+	 * Puts the inputs of the encryptions of this gate's garbled table in the given batch arrays. <p>
+	 * The rows are put in their permuted order, starting at row number {@code firstRow} of the batch, so that after the batch is encrypted 
+	 * the ciphertexts of this gate are exactly its garbled table. See {@link #createGarbledTable(Gate, Map)} for the garbling details.
+	 * @param ungarbledGate The gate to garble.
+	 * @param allWireValues Both keys of all the circuit's wires.
+	 * @param keys The batch array of the keys to encrypt on.
+	 * @param tweaks The batch array of the tweaks.
+	 * @param plaintexts The batch array of the plaintexts.
+	 * @param firstRow The index in the batch of the first row of this gate.
+	 */
+	void fillGarblingBatch(Gate ungarbledGate, Map<Integer, SecretKey[]> allWireValues, byte[] keys, byte[] tweaks, byte[] plaintexts, int firstRow) {
+		int numberOfInputs = inputWireIndices.length;
+		int numberOfRows = 1 << numberOfInputs;
+		int numberOfGarbledRows = getNumberOfGarbledRows();
+		int cipherSize = mes.getCipherSize();
+		
+		//Get both keys of each input wire and its signal bit, which is the last bit of the wire's k0.
+		byte[][][] inputKeys = new byte[numberOfInputs][2][];
+		int[] signalBits = new int[numberOfInputs];
+		for (int i = 0; i < numberOfInputs; i++) {
+			SecretKey[] wireValues = allWireValues.get(inputWireIndices[i]);
+			inputKeys[i][0] = wireValues[0].getEncoded();
+			inputKeys[i][1] = wireValues[1].getEncoded();
+			signalBits[i] = inputKeys[i][0][inputKeys[i][0].length - 1] & 1;
+		}
+		SecretKey[] outputValues = allWireValues.get(outputWireIndices[0]);
+		byte[][] outputKeys = new byte[][] { outputValues[0].getEncoded(), outputValues[1].getEncoded() };
+		BitSet truthTable = ungarbledGate.getTruthTable();
+		ByteBuffer tweakBuffer = ByteBuffer.wrap(tweaks);
+		
+		for (int rowOfTruthTable = 0; rowOfTruthTable < numberOfRows; rowOfTruthTable++) {
+			// Calculate the permuted position of the row. The inputs of the row are the bits of rowOfTruthTable, from the most significant.
+			int permutedPosition = 0;
+			for (int i = 0; i < numberOfInputs; i++) {
+				int input = (rowOfTruthTable >> (numberOfInputs - 1 - i)) & 1;
+				permutedPosition = (permutedPosition << 1) | (input ^ signalBits[i]);
+			}
+			//The rows that are not part of the garbled table (like the last row in the row reduction technique) are not encrypted.
+			if (permutedPosition >= numberOfGarbledRows) {
+				continue;
+			}
+			int row = firstRow + permutedPosition;
+			
+			// The keys and tweak are exactly the ones that are used in createGarbledTable.
+			tweakBuffer.putInt(row * TWEAK_SIZE, gateNumber);
+			for (int i = 0; i < numberOfInputs; i++) {
+				int input = (rowOfTruthTable >> (numberOfInputs - 1 - i)) & 1;
+				System.arraycopy(inputKeys[i][input], 0, keys, (row * numberOfInputs + i) * cipherSize, cipherSize);
+				tweakBuffer.putInt(row * TWEAK_SIZE + 4 * (i + 1), input ^ signalBits[i]);
+			}
+			
+			// The plaintext is the output key that matches the value of the row.
+			int value = truthTable.get(rowOfTruthTable) ? 1 : 0;
+			System.arraycopy(outputKeys[value], 0, plaintexts, row * cipherSize, cipherSize);
+		}
+	}
+	
+	/**
+	 * Sets the garbled table of this gate from the ciphertexts of an encrypted batch.
+	 * @param ciphertexts The ciphertexts of the batch.
+	 * @param firstRow The index in the batch of the first row of this gate.
+	 */
+	void setGarbledTable(byte[] ciphertexts, int firstRow) {
+		int cipherSize = mes.getCipherSize();
+		garbledTablesHolder.toDoubleByteArray()[gateNumber] = 
+				Arrays.copyOfRange(ciphertexts, firstRow * cipherSize, (firstRow + getNumberOfGarbledRows()) * cipherSize);
+	}
+	
+	/**
+	 * Creates the garbled tables of the given gates using the batch encryption of the given {@code MultiKeyEncryptionScheme}. <p>
+	 * Gates with the same number of inputs are garbled together, so that the encryption scheme gets many rows at once instead of a 
+	 * single row each time. Gates that cannot be garbled in a batch are garbled by their {@link #createGarbledTable(Gate, Map)} function.
+	 * @param gates The garbled gates to create the garbled tables of.
+	 * @param ungarbledGates The matching ungarbled gates.
+	 * @param allWireValues Both keys of all the circuit's wires.
+	 * @param mes The encryption scheme used to garble the gates.
+	 * @throws InvalidKeyException
+	 * @throws IllegalBlockSizeException
+	 * @throws PlaintextTooLongException
+	 */
+	static void createGarbledTables(List<StandardGarbledGate> gates, List<Gate> ungarbledGates, Map<Integer, SecretKey[]> allWireValues, 
+			MultiKeyEncryptionScheme mes) throws InvalidKeyException, IllegalBlockSizeException, PlaintextTooLongException {
+		
+		//Group the gates by their number of inputs, since all the blocks of a batch are encrypted with the same number of keys.
+		Map<Integer, ArrayList<Integer>> gatesByNumberOfInputs = new HashMap<Integer, ArrayList<Integer>>();
+		int numberOfGates = gates.size();
+		for (int gate = 0; gate < numberOfGates; gate++) {
+			StandardGarbledGate garbledGate = gates.get(gate);
+			if (!garbledGate.canGarbleInBatch()) {
+				garbledGate.createGarbledTable(ungarbledGates.get(gate), allWireValues);
+				continue;
+			}
+			int numberOfInputs = garbledGate.inputWireIndices.length;
+			ArrayList<Integer> group = gatesByNumberOfInputs.get(numberOfInputs);
+			if (group == null) {
+				group = new ArrayList<Integer>();
+				gatesByNumberOfInputs.put(numberOfInputs, group);
+			}
+			group.add(gate);
+		}
+		
+		int cipherSize = mes.getCipherSize();
+		for (Map.Entry<Integer, ArrayList<Integer>> entry : gatesByNumberOfInputs.entrySet()) {
+			int numberOfInputs = entry.getKey();
+			ArrayList<Integer> group = entry.getValue();
+			
+			//Allocate the batch arrays once for the whole group.
+			int rowsPerGate = 1 << numberOfInputs;
+			int gatesPerBatch = Math.max(1, MAX_BATCH_ROWS / rowsPerGate);
+			int maxRows = gatesPerBatch * rowsPerGate;
+			byte[] keys = new byte[maxRows * numberOfInputs * cipherSize];
+			byte[] tweaks = new byte[maxRows * TWEAK_SIZE];
+			byte[] plaintexts = new byte[maxRows * cipherSize];
+			byte[] ciphertexts = new byte[maxRows * cipherSize];
+			
+			int groupSize = group.size();
+			for (int first = 0; first < groupSize; first += gatesPerBatch) {
+				int last = Math.min(first + gatesPerBatch, groupSize);
+				
+				//Fill the batch with the rows of the gates, encrypt it and set the garbled tables.
+				int row = 0;
+				for (int i = first; i < last; i++) {
+					int gate = group.get(i);
+					gates.get(gate).fillGarblingBatch(ungarbledGates.get(gate), allWireValues, keys, tweaks, plaintexts, row);
+					row += gates.get(gate).getNumberOfGarbledRows();
+				}
+				mes.encryptBatch(keys, numberOfInputs, tweaks, TWEAK_SIZE, plaintexts, ciphertexts, row);
+				
+				row = 0;
+				for (int i = first; i < last; i++) {
+					StandardGarbledGate garbledGate = gates.get(group.get(i));
+					garbledGate.setGarbledTable(ciphertexts, row);
+					row += garbledGate.getNumberOfGarbledRows();
+				}
+			}
+		}
+	}
+	
 	@Override
 	public void compute(Map<Integer, GarbledWire> computedWires) throws InvalidKeyException, IllegalBlockSizeException, CiphertextTooLongException {
 		
@@ -192,6 +367,86 @@ class StandardGarbledGate implements GarbledGate {
 		}
 	}
 
+	@Override
+	public void compute(byte[] wireLabels, int labelSize) throws InvalidKeyException, IllegalBlockSizeException, CiphertextTooLongException {
+		compute(wireLabels, labelSize, mes);
+	}
+	
+	/**
+	 * Returns true if this gate can be computed by {@link #compute(byte[], int, MultiKeyEncryptionScheme)} with any copy of 
+	 * its encryption scheme; false if its computation uses other objects that can not be shared between threads.
+	 */
+	boolean canComputeInParallel() {
+		return true;
+	}
+	
+	/**
+	 * Computes the output of this gate on the flat array of the circuit's wire labels, using the given encryption scheme instead of 
+	 * this gate's scheme. <p>
+	 * This allows different threads to compute different gates at the same time, each with its own copy of the scheme 
+	 * (see {@link MultiKeyEncryptionScheme#createCopy()}). Should be called only if {@link #canComputeInParallel()} returns true.
+	 * @param wireLabels The labels of all the circuit's wires. The labels of this gate's input wires have already been set.
+	 * @param labelSize The size in bytes of a single label.
+	 * @param mes The encryption scheme to use. Should be this gate's scheme or a copy of it.
+	 * @throws InvalidKeyException
+	 * @throws IllegalBlockSizeException
+	 */
+	void compute(byte[] wireLabels, int labelSize, MultiKeyEncryptionScheme mes) throws InvalidKeyException, IllegalBlockSizeException {
+		
+		//Calculate the row in the garbled table we need to decrypt.
+		int garbledTableIndex = getIndexToDecrypt(wireLabels, labelSize);
+		
+		// Decrypt the row directly into the label of the first output wire.
+		int outputOffset = denseOutputWireIndices[0] * labelSize;
+		computeGarbledTable(wireLabels, labelSize, garbledTableIndex, outputOffset, mes);
+		
+		// Copy the decrypted value to the rest of the output wires, if there are any.
+		int numberOfOutputs = denseOutputWireIndices.length;
+		for (int i = 1; i < numberOfOutputs; i++) {
+			System.arraycopy(wireLabels, outputOffset, wireLabels, denseOutputWireIndices[i] * labelSize, labelSize);
+		}
+	}
+	
+	/**
+	 * Computes the garbled table of this gate using the circuit's flat array of wire labels. <p>
+	 * The decryption is done directly from the garbled table into the labels array, with no memory allocation.
+	 * @param wireLabels The labels of all the circuit's wires, indexed by the dense wire index.
+	 * @param labelSize The size in bytes of a single label.
+	 * @param garbledTableIndex The index of the row that should be decrypted.
+	 * @param outputOffset The offset in the wireLabels array to put the output label in.
+	 * @throws InvalidKeyException
+	 * @throws IllegalBlockSizeException
+	 */
+	protected void computeGarbledTable(byte[] wireLabels, int labelSize, int garbledTableIndex, int outputOffset) 
+			throws InvalidKeyException, IllegalBlockSizeException {
+		computeGarbledTable(wireLabels, labelSize, garbledTableIndex, outputOffset, mes);
+	}
+	
+	/**
+	 * Computes the garbled table of this gate using the circuit's flat array of wire labels and the given encryption scheme.
+	 * @see #computeGarbledTable(byte[], int, int, int)
+	 */
+	private void computeGarbledTable(byte[] wireLabels, int labelSize, int garbledTableIndex, int outputOffset, MultiKeyEncryptionScheme mes) 
+			throws InvalidKeyException, IllegalBlockSizeException {
+		
+		if (computeTweak == null) {
+			computeTweak = new byte[16];
+			// Put the gate number in the tweak.
+			ByteBuffer.wrap(computeTweak).putInt(gateNumber);
+		}
+		
+		// Put the signal bits of the input wire values into the tweak. Each signal bit is the last byte of a 4 bytes integer.
+		int numberOfInputs = denseInputWireIndices.length;
+		for (int i = 0; i < numberOfInputs; i++) {
+			computeTweak[4 * (i + 2) - 1] = (byte) (wireLabels[(denseInputWireIndices[i] + 1) * labelSize - 1] & 1);
+		}
+		
+		// Decrypt the output value.
+		int cipherSize = mes.getCipherSize();
+		mes.decrypt(wireLabels, denseInputWireIndices, computeTweak, garbledTablesHolder.toDoubleByteArray()[gateNumber], 
+				garbledTableIndex * cipherSize, wireLabels, outputOffset);
+	}
+
 	/**
 	 * Computes the garbled table of this gate.
 	 * @param computedWires A Map containing the GarbledWiress that have already been computed and had their values set.
@@ -250,6 +505,22 @@ class StandardGarbledGate implements GarbledGate {
 		return garbledTableIndex;
 	}
 
+	/**
+	 * A helper method that computes which index to decrypt based on the signal bits of the input wires.
+	 * @param wireLabels The labels of all the circuit's wires, indexed by the dense wire index.
+	 * @param labelSize The size in bytes of a single label.
+	 * @return the index of the garbled truth table that the input wires' signal bits signal to decrypt.
+	 */
+	protected int getIndexToDecrypt(byte[] wireLabels, int labelSize) {
+		int garbledTableIndex = 0;
+		int numberOfInputs = denseInputWireIndices.length;
+		// The first input wire's signal bit is the most significant bit of the index.
+		for (int i = 0; i < numberOfInputs; i++) {
+			garbledTableIndex = (garbledTableIndex << 1) | (wireLabels[(denseInputWireIndices[i] + 1) * labelSize - 1] & 1);
+		}
+		return garbledTableIndex;
+	}
+
 	@Override
 	public boolean verify(Gate g, Map<Integer, SecretKey[]> allWireValues) throws InvalidKeyException, IllegalBlockSizeException, CiphertextTooLongException {
 	
@@ -419,6 +690,12 @@ class StandardGarbledGate implements GarbledGate {
 		return outputWireIndices;
 	}
 	
+	@Override
+	public int getGarbledTableSize() {
+		//The garbled table has a row for each row of the truth table.
+		return (1 << inputWireIndices.length) * mes.getCipherSize();
+	}
+	
 	
 	 
 }
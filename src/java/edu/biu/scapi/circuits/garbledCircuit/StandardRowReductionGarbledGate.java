@@ -145,6 +145,14 @@ class StandardRowReductionGarbledGate extends StandardGarbledGate{
 		}
 	}
   
+	/**
+	 * Returns the number of rows in the garbled table of this gate. The last row is not saved in the row reduction technique.
+	 */
+	@Override
+	int getNumberOfGarbledRows() {
+		return (1 << inputWireIndices.length) - 1;
+	}
+	
 	@Override
 	public void compute(Map<Integer, GarbledWire> computedWires) throws InvalidKeyException, IllegalBlockSizeException, CiphertextTooLongException {
 		//Calculate the row in the garbled table we need to decrypt.
@@ -180,6 +188,48 @@ class StandardRowReductionGarbledGate extends StandardGarbledGate{
 		}
 	}
 
+	/**
+	 * The output key of the row that is not in the garbled table is computed by the KDF, which can not be shared between threads.
+	 */
+	@Override
+	boolean canComputeInParallel() {
+		return false;
+	}
+
+	@Override
+	public void compute(byte[] wireLabels, int labelSize) throws InvalidKeyException, IllegalBlockSizeException, CiphertextTooLongException {
+		//Calculate the row in the garbled table we need to decrypt.
+		int garbledTableIndex = getIndexToDecrypt(wireLabels, labelSize);
+		int numberOfInputs = denseInputWireIndices.length;
+		int outputOffset = denseOutputWireIndices[0] * labelSize;
+		
+		//In case of the last row, calculate the output key by the KDF.
+		//The number of rows is 2^numberOfInputs - 1. The last row will be calculated by the row reduction technique.
+		int numberOfRows = (1 << numberOfInputs) - 1;
+		if (garbledTableIndex == numberOfRows){
+			
+			ByteBuffer kdfBytes = ByteBuffer.allocate(mes.getCipherSize()*numberOfInputs +16);
+			for (int i = 0; i < numberOfInputs; i++) {
+				kdfBytes.put(wireLabels, denseInputWireIndices[i] * labelSize, labelSize);
+			}
+			kdfBytes.putInt(gateNumber);
+			for (int i = 0; i < numberOfInputs; i++) {
+				kdfBytes.putInt(wireLabels[(denseInputWireIndices[i] + 1) * labelSize - 1] & 1);
+			}
+			byte[] wireValue = kdf.deriveKey(kdfBytes.array(), 0, mes.getCipherSize()*numberOfInputs +16, mes.getCipherSize()).getEncoded();
+			System.arraycopy(wireValue, 0, wireLabels, outputOffset, labelSize);
+			
+		}else {
+		
+			// Decrypt the row directly into the label of the first output wire.
+			computeGarbledTable(wireLabels, labelSize, garbledTableIndex, outputOffset);
+		}
+		int numberOfOutputs = denseOutputWireIndices.length;
+		for (int i = 1; i < numberOfOutputs; i++) {
+			System.arraycopy(wireLabels, outputOffset, wireLabels, denseOutputWireIndices[i] * labelSize, labelSize);
+		}
+	}
+
 	@Override
 	protected boolean verifyGarbledTable(Gate g, Map<Integer, SecretKey[]> allWireValues)
 			throws CiphertextTooLongException, InvalidKeyException,	IllegalBlockSizeException {
@@ -293,4 +343,10 @@ class StandardRowReductionGarbledGate extends StandardGarbledGate{
 		}
 		return true;
 	}
+	
+	@Override
+	public int getGarbledTableSize() {
+		//The last row of the truth table is not saved in the garbled table.
+		return ((1 << inputWireIndices.length) - 1) * mes.getCipherSize();
+	}
 }
@@ -0,0 +1,74 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.comm;
+
+import java.io.Serializable;
+import java.nio.channels.CompletionHandler;
+import java.util.concurrent.Future;
+
+/**
+ * A channel whose send and receive operations do not block the calling thread. <p>
+ * Every operation is started immediately and its result is delivered either by the returned {@link Future} or by a {@link CompletionHandler},
+ * which is called by a thread of the channel (in the same way as in java.nio.channels.AsynchronousByteChannel).
+ * This way a party that waits for a message does not hold a thread, and the rounds of many independent sessions can overlap. <p>
+ * The messages are sent in the order of the calls to the send functions, and the received messages are given to the receive requests in the order of the requests.
+ * There may be any number of outstanding operations. <p>
+ * Since an AsyncChannel is also a {@link Channel}, the existing protocols that use blocking calls can use it as it is:
+ * the blocking functions wait for the completion of the matching asynchronous operation.
+ * The blocking functions should not be called by a completion handler, which runs on a thread of the channel.
+ *
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public interface AsyncChannel extends Channel {
+
+	/**
+	 * Starts sending the given message to the other end-user of the channel.
+	 * @param data The message to send.
+	 * @return a Future that completes when the whole message was written to the connection.
+	 */
+	public Future<Void> sendAsync(Serializable data);
+
+	/**
+	 * Starts sending the given message to the other end-user of the channel.
+	 * @param data The message to send.
+	 * @param attachment The object to give to the handler.
+	 * @param handler The handler that is called when the whole message was written to the connection or when the sending failed.
+	 */
+	public <A> void sendAsync(Serializable data, A attachment, CompletionHandler<Void, ? super A> handler);
+
+	/**
+	 * Requests the next message that is sent by the other end-user of the channel.
+	 * @return a Future that completes with the received message.
+	 */
+	public Future<Serializable> receiveAsync();
+
+	/**
+	 * Requests the next message that is sent by the other end-user of the channel.
+	 * @param attachment The object to give to the handler.
+	 * @param handler The handler that is called with the received message or when the receiving failed.
+	 */
+	public <A> void receiveAsync(A attachment, CompletionHandler<Serializable, ? super A> handler);
+}
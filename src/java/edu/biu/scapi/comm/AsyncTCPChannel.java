@@ -0,0 +1,555 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.comm;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousChannelGroup;
+import java.nio.channels.AsynchronousServerSocketChannel;
+import java.nio.channels.AsynchronousSocketChannel;
+import java.nio.channels.CompletionHandler;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+
+import edu.biu.scapi.generals.Logging;
+
+/**
+ * A TCP channel that implements {@link AsyncChannel} over an {@link AsynchronousSocketChannel}. <p>
+ * The completion handlers of the channel are called by the threads of the socket's {@link AsynchronousChannelGroup}.
+ * Many channels can share a group with a few threads, so protocols that use the asynchronous functions can run many sessions concurrently
+ * without a thread for each session. Protocols that use the blocking functions of {@link Channel} and {@link BinaryChannel} hold their calling thread
+ * while they wait, as with {@link PlainTCPChannel}. <p>
+ * The messages are written in the same binary frames as in {@link PlainTCPChannel}, so an AsyncTCPChannel can talk to a PlainTCPChannel on the other side.
+ *
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public class AsyncTCPChannel implements AsyncChannel, BinaryChannel {
+
+	private AsynchronousSocketChannel socket;
+
+	private LinkedList<Operation<Void, ?>> sendQueue = new LinkedList<Operation<Void, ?>>();				//The sends that were not completed yet, the first one is being written.
+	private LinkedList<Operation<Serializable, ?>> receiveQueue = new LinkedList<Operation<Serializable, ?>>();	//The receive requests that did not get a message yet.
+	private boolean writing = false;	//Is there a write operation on the socket.
+	private boolean reading = false;	//Is there a read operation on the socket.
+	private Throwable failure;			//The reason that the channel can not be used anymore, or null if it can.
+
+	//The header and the body of the frame that is being received. Used only by the read operation of the socket, so they are not shared between threads.
+	private ByteBuffer receiveHeader = ByteBuffer.allocate(PlainTCPChannel.HEADER_SIZE);
+	private ByteBuffer receiveBody;
+
+	private AsyncTCPChannel(AsynchronousSocketChannel socket) {
+		this.socket = socket;
+	}
+
+	/**
+	 * Connects to the given address and returns the channel of the connection.
+	 * @param address The address of the other party.
+	 * @param group The group whose threads run the completion handlers of the channel, or null for the default group of the system.
+	 * @return the connected channel.
+	 * @throws IOException if the connection failed.
+	 */
+	public static AsyncTCPChannel connect(InetSocketAddress address, AsynchronousChannelGroup group) throws IOException {
+		AsynchronousSocketChannel socket = AsynchronousSocketChannel.open(group);
+		try {
+			socket.connect(address).get();
+		} catch (InterruptedException e) {
+			socket.close();
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("interrupted while connecting to " + address);
+		} catch (ExecutionException e) {
+			socket.close();
+			throw new IOException("failed to connect to " + address, e.getCause());
+		}
+		Logging.getLogger().log(Level.INFO, "Socket connected to " + address);
+		return new AsyncTCPChannel(socket);
+	}
+
+	/**
+	 * Waits for the next connection to the given listener and returns the channel of the connection.
+	 * The channel uses the group of the listener.
+	 * @param listener A bound server socket.
+	 * @return the connected channel.
+	 * @throws IOException if the accepting failed.
+	 */
+	public static AsyncTCPChannel accept(AsynchronousServerSocketChannel listener) throws IOException {
+		try {
+			return new AsyncTCPChannel(listener.accept().get());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("interrupted while accepting a connection");
+		} catch (ExecutionException e) {
+			throw new IOException("failed to accept a connection", e.getCause());
+		}
+	}
+
+	@Override
+	public Future<Void> sendAsync(Serializable data) {
+		FutureResult<Void> future = new FutureResult<Void>();
+		this.<Object>sendAsync(data, null, future);
+		return future;
+	}
+
+	@Override
+	public <A> void sendAsync(Serializable data, A attachment, CompletionHandler<Void, ? super A> handler) {
+		ByteBuffer[] frame;
+		try {
+			frame = createFrame(data);
+		} catch (IOException e) {
+			handler.failed(e, attachment);
+			return;
+		}
+		sendFrame(new Operation<Void, A>(frame, attachment, handler));
+	}
+
+	@Override
+	public Future<Serializable> receiveAsync() {
+		FutureResult<Serializable> future = new FutureResult<Serializable>();
+		this.<Object>receiveAsync(null, future);
+		return future;
+	}
+
+	@Override
+	public <A> void receiveAsync(A attachment, CompletionHandler<Serializable, ? super A> handler) {
+		Throwable e;
+		synchronized (this) {
+			e = failure;
+			if (e == null){
+				receiveQueue.addLast(new Operation<Serializable, A>(null, attachment, handler));
+				if (reading){
+					//The message will be given to the request when the previous requests are done.
+					return;
+				}
+				reading = true;
+			}
+		}
+		if (e != null){
+			handler.failed(e, attachment);
+			return;
+		}
+		readNext();
+	}
+
+	/**
+	 * Sends the message and waits until it was written. A byte array is sent as it is, like in {@link #send(byte[], int, int)}.
+	 * @throws IOException if the sending failed.
+	 */
+	@Override
+	public void send(Serializable data) throws IOException {
+		await(sendAsync(data));
+	}
+
+	@Override
+	public void send(byte[] data, int offset, int length) throws IOException {
+		//The blocking function waits until the data is written, so the given array is sent without copying it.
+		FutureResult<Void> future = new FutureResult<Void>();
+		sendFrame(new Operation<Void, Object>(createFrame(PlainTCPChannel.BYTES_MESSAGE, ByteBuffer.wrap(data, offset, length)), null, future));
+		await(future);
+	}
+
+	/**
+	 * Waits for the next message that is not requested by an earlier receive request and returns it.
+	 * Messages that were sent as bytes are returned as a byte array.
+	 */
+	@Override
+	public Serializable receive() throws ClassNotFoundException, IOException {
+		Future<Serializable> future = receiveAsync();
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("interrupted while waiting for a message");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof ClassNotFoundException){
+				throw (ClassNotFoundException) e.getCause();
+			}
+			throw toIOException(e);
+		}
+	}
+
+	@Override
+	public int receive(byte[] into) throws IOException {
+		Serializable message = await(receiveAsync());
+		if (!(message instanceof byte[])){
+			throw new IOException("the received message is not a message of bytes");
+		}
+		byte[] data = (byte[]) message;
+		if (data.length > into.length){
+			throw new IOException("the received message of " + data.length + " bytes is longer than the given array");
+		}
+		System.arraycopy(data, 0, into, 0, data.length);
+		return data.length;
+	}
+
+	/**
+	 * Closes the socket. The operations that were not completed yet fail.
+	 */
+	@Override
+	public void close() {
+		try {
+			socket.close();
+		} catch (IOException e) {
+			Logging.getLogger().log(Level.WARNING, e.toString());
+		}
+	}
+
+	@Override
+	public boolean isClosed() {
+		return !socket.isOpen();
+	}
+
+	/**
+	 * Creates the frame of the given message. A byte array is put in the frame as it is, while any other object is serialized.
+	 */
+	private static ByteBuffer[] createFrame(Serializable data) throws IOException {
+		if (data instanceof byte[]){
+			//The array is copied since the sending continues after this function returns and the caller may change it.
+			return createFrame(PlainTCPChannel.BYTES_MESSAGE, ByteBuffer.wrap(((byte[]) data).clone()));
+		}
+
+		PlainTCPChannel.ExposedByteArrayOutputStream bOut = new PlainTCPChannel.ExposedByteArrayOutputStream();
+		ObjectOutputStream oOut = new ObjectOutputStream(bOut);
+		oOut.writeObject(data);
+		oOut.close();
+		return createFrame(PlainTCPChannel.OBJECT_MESSAGE, ByteBuffer.wrap(bOut.getBuffer(), 0, bOut.size()));
+	}
+
+	/**
+	 * Creates a frame of the given type that contains the given body.
+	 */
+	private static ByteBuffer[] createFrame(byte type, ByteBuffer body) {
+		ByteBuffer header = ByteBuffer.allocate(PlainTCPChannel.HEADER_SIZE);
+		header.put(type).putInt(body.remaining()).flip();
+		return new ByteBuffer[] {header, body};
+	}
+
+	/**
+	 * Adds the given send operation to the queue and starts writing it if there is no other write operation.
+	 */
+	private void sendFrame(Operation<Void, ?> operation) {
+		Throwable e;
+		synchronized (this) {
+			e = failure;
+			if (e == null){
+				sendQueue.addLast(operation);
+				if (writing){
+					//The frame will be written when the previous frames are done.
+					return;
+				}
+				writing = true;
+			}
+		}
+		if (e != null){
+			operation.failed(e);
+			return;
+		}
+		writeNext();
+	}
+
+	/**
+	 * Starts writing the first frame in the send queue, if there is one.
+	 */
+	private void writeNext() {
+		Operation<Void, ?> operation;
+		synchronized (this) {
+			operation = sendQueue.peekFirst();
+			if (operation == null || failure != null){
+				writing = false;
+				return;
+			}
+		}
+		socket.write(operation.frame, 0, operation.frame.length, 0, TimeUnit.MILLISECONDS, operation, writeHandler);
+	}
+
+	/**
+	 * Continues writing a frame until all of it was written, and then completes its operation and starts writing the next frame.
+	 */
+	private CompletionHandler<Long, Operation<Void, ?>> writeHandler = new CompletionHandler<Long, Operation<Void, ?>>() {
+
+		@Override
+		public void completed(Long result, Operation<Void, ?> operation) {
+			ByteBuffer[] frame = operation.frame;
+			for (ByteBuffer buffer : frame){
+				if (buffer.hasRemaining()){
+					socket.write(frame, 0, frame.length, 0, TimeUnit.MILLISECONDS, operation, this);
+					return;
+				}
+			}
+
+			synchronized (AsyncTCPChannel.this) {
+				sendQueue.removeFirst();
+			}
+			operation.completed(null);
+			writeNext();
+		}
+
+		@Override
+		public void failed(Throwable e, Operation<Void, ?> operation) {
+			fail(e);
+		}
+	};
+
+	/**
+	 * Starts reading the next frame if there is a receive request that waits for it.
+	 */
+	private void readNext() {
+		synchronized (this) {
+			if (receiveQueue.isEmpty() || failure != null){
+				reading = false;
+				return;
+			}
+		}
+		receiveHeader.clear();
+		socket.read(receiveHeader, null, headerHandler);
+	}
+
+	/**
+	 * Reads the header of a frame and then starts reading its body.
+	 */
+	private CompletionHandler<Integer, Void> headerHandler = new CompletionHandler<Integer, Void>() {
+
+		@Override
+		public void completed(Integer result, Void attachment) {
+			if (result < 0){
+				fail(new EOFException("the channel was closed by the other end-user"));
+				return;
+			}
+			if (receiveHeader.hasRemaining()){
+				socket.read(receiveHeader, null, this);
+				return;
+			}
+
+			byte type = receiveHeader.get(0);
+			int length = receiveHeader.getInt(1);
+			if ((type != PlainTCPChannel.OBJECT_MESSAGE && type != PlainTCPChannel.BYTES_MESSAGE) || length < 0){
+				fail(new IOException("received an invalid message header"));
+				return;
+			}
+			receiveBody = ByteBuffer.allocate(length);
+			bodyHandler.completed(0, type);
+		}
+
+		@Override
+		public void failed(Throwable e, Void attachment) {
+			fail(e);
+		}
+	};
+
+	/**
+	 * Reads the body of a frame, and then gives the message to the first receive request and starts reading the next frame.
+	 */
+	private CompletionHandler<Integer, Byte> bodyHandler = new CompletionHandler<Integer, Byte>() {
+
+		@Override
+		public void completed(Integer result, Byte type) {
+			if (result < 0){
+				fail(new EOFException("the channel was closed by the other end-user"));
+				return;
+			}
+			if (receiveBody.hasRemaining()){
+				socket.read(receiveBody, type, this);
+				return;
+			}
+
+			Operation<Serializable, ?> operation;
+			synchronized (AsyncTCPChannel.this) {
+				operation = receiveQueue.removeFirst();
+			}
+
+			byte[] data = receiveBody.array();
+			receiveBody = null;
+			if (type == PlainTCPChannel.BYTES_MESSAGE){
+				operation.completed(data);
+			} else {
+				//A message that can not be deserialized fails only its own request, since the next frames can still be read.
+				try {
+					ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(data));
+					operation.completed((Serializable) ois.readObject());
+				} catch (IOException e) {
+					operation.failed(e);
+				} catch (ClassNotFoundException e) {
+					operation.failed(e);
+				}
+			}
+			readNext();
+		}
+
+		@Override
+		public void failed(Throwable e, Byte type) {
+			fail(e);
+		}
+	};
+
+	/**
+	 * Fails all the operations that were not completed yet and all the future operations of the channel.
+	 */
+	private void fail(Throwable e) {
+		ArrayList<Operation<?, ?>> operations = new ArrayList<Operation<?, ?>>();
+		synchronized (this) {
+			if (failure == null){
+				failure = e;
+			}
+			operations.addAll(sendQueue);
+			operations.addAll(receiveQueue);
+			sendQueue.clear();
+			receiveQueue.clear();
+			writing = false;
+			reading = false;
+		}
+		for (Operation<?, ?> operation : operations){
+			operation.failed(e);
+		}
+	}
+
+	/**
+	 * Waits for the given future and returns its result, throwing its failure as an IOException.
+	 */
+	private static <V> V await(Future<V> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("interrupted while waiting for the channel");
+		} catch (ExecutionException e) {
+			throw toIOException(e);
+		}
+	}
+
+	/**
+	 * Returns the cause of the given exception as an IOException.
+	 */
+	private static IOException toIOException(ExecutionException e) {
+		if (e.getCause() instanceof IOException){
+			return (IOException) e.getCause();
+		}
+		return new IOException(e.getCause());
+	}
+
+	/**
+	 * An asynchronous operation of the channel, with the handler that should be called when it is done.
+	 */
+	private static class Operation<V, A> {
+
+		private ByteBuffer[] frame;		//The frame to write. Used only by send operations.
+		private A attachment;
+		private CompletionHandler<V, ? super A> handler;
+
+		private Operation(ByteBuffer[] frame, A attachment, CompletionHandler<V, ? super A> handler) {
+			this.frame = frame;
+			this.attachment = attachment;
+			this.handler = handler;
+		}
+
+		private void completed(V result) {
+			handler.completed(result, attachment);
+		}
+
+		private void failed(Throwable e) {
+			handler.failed(e, attachment);
+		}
+	}
+
+	/**
+	 * A Future that gets its result from the completion handler of an operation.
+	 */
+	private static class FutureResult<V> implements Future<V>, CompletionHandler<V, Object> {
+
+		private boolean done = false;
+		private V result;
+		private Throwable exception;
+
+		@Override
+		public synchronized void completed(V result, Object attachment) {
+			this.result = result;
+			done = true;
+			notifyAll();
+		}
+
+		@Override
+		public synchronized void failed(Throwable exception, Object attachment) {
+			this.exception = exception;
+			done = true;
+			notifyAll();
+		}
+
+		/**
+		 * The operations of the channel can not be cancelled, since the messages of the channel would get mixed.
+		 */
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			return false;
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return false;
+		}
+
+		@Override
+		public synchronized boolean isDone() {
+			return done;
+		}
+
+		@Override
+		public synchronized V get() throws InterruptedException, ExecutionException {
+			while (!done){
+				wait();
+			}
+			return getResult();
+		}
+
+		@Override
+		public synchronized V get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+			long end = System.nanoTime() + unit.toNanos(timeout);
+			while (!done){
+				long left = end - System.nanoTime();
+				if (left <= 0){
+					throw new TimeoutException();
+				}
+				TimeUnit.NANOSECONDS.timedWait(this, left);
+			}
+			return getResult();
+		}
+
+		private V getResult() throws ExecutionException {
+			if (exception != null){
+				throw new ExecutionException(exception);
+			}
+			return result;
+		}
+	}
+}
@@ -0,0 +1,340 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.comm;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.security.InvalidKeyException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.SecretKey;
+
+import edu.biu.scapi.exceptions.SecurityLevelException;
+import edu.biu.scapi.midLayer.symmetricCrypto.mac.Mac;
+import edu.biu.scapi.primitives.prf.PseudorandomPermutation;
+import edu.biu.scapi.securityLevel.UnlimitedTimes;
+
+/** 
+ * This channel encrypts and authenticates every message in a single pass, and can be used instead of stacking an {@link AuthenticatedChannel} on top of 
+ * an {@link EncryptedChannel}. <p>
+ * The message is serialized once into a frame buffer, the frame is encrypted in place in CTR mode using the underlying pseudorandom permutation, 
+ * and then the header and the ciphertext are authenticated using the underlying MAC algorithm (encrypt-then-mac). The frame is sent as it is, 
+ * without creating any ciphertext or tagged objects. <p>
+ * Every frame is sent as:
+ * <pre>
+ * [type (1 byte)] [sender ID (8 bytes)] [sequence number (8 bytes)] [ciphertext] [tag]
+ * </pre>
+ * The sender ID is chosen at random by every channel, and the sequence number counts the frames sent by it. Both of them are authenticated and are used 
+ * as the nonce of the CTR mode. The receiver accepts only the frames of the other party in the order they were sent, therefore a frame that was replayed, 
+ * reordered, dropped or reflected back to its sender is rejected. <p>
+ * The owner of the channel is responsible for setting the keys of the encryption and the MAC, which should be two independent keys.
+ * The same pair of keys should be set to both ends of the channel.
+ *    
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ */
+public class AuthenticatedEncryptionChannel extends ChannelDecorator implements BinaryChannel {
+
+	//The offsets of the fields in the frame.
+	private static final int SENDER_ID_OFFSET = 1;
+	private static final int SEQUENCE_OFFSET = 9;
+	private static final int HEADER_SIZE = 17;
+	
+	private PseudorandomPermutation prp;	//The PRP used to encrypt the messages in CTR mode.
+	private Mac mac;						//The MAC used to authenticate the encrypted messages.
+	private int blockSize;
+	private int macSize;
+	
+	private long senderId;					//The random ID of this end of the channel.
+	private long sendSequence = 0;			//The sequence number of the next sent frame.
+	private boolean peerIdSet = false;		//Indicates whether the ID of the other end was received.
+	private long peerId;
+	private long receiveSequence = 0;		//The sequence number of the next expected frame.
+	
+	//The PRP and the MAC are not thread-safe, so the encryption and the authentication of concurrent send and receive calls are done one at a time.
+	private final Object sendLock = new Object();
+	private final Object receiveLock = new Object();
+	private final Object cryptoLock = new Object();
+	private byte[] counter;
+	private byte[] keyStream;
+
+	/** 
+	 * This public constructor can be used by anyone holding a channel that is connected. Such a channel can be obtained by running the prepareForCommunications function
+	 * of {@link CommunicationSetup} which returns a set of already connected channels.<p>
+	 *   
+	 * @param channel an already connected channel
+	 * @param prp the pseudorandom permutation used to encrypt the messages in CTR mode. Its block size should be at least 16 bytes.
+	 * @param mac the MAC algorithm required to authenticate the messages sent by this channel
+	 * @throws SecurityLevelException if the MAC algorithm passed is not UnlimitedTimes-secure
+	 * @throws IllegalArgumentException if the block size of the given PRP is smaller than 16 bytes
+	 */
+	public AuthenticatedEncryptionChannel(Channel channel, PseudorandomPermutation prp, Mac mac) throws SecurityLevelException {
+		super(channel);
+		if (!(mac instanceof UnlimitedTimes))
+			throw new SecurityLevelException("The MAC algorithm passed is not UnlimitedTimes-secure");
+		//The nonce of every frame (the sender ID and the sequence number) should fit in a single block.
+		if (prp.getBlockSize() < HEADER_SIZE - SENDER_ID_OFFSET)
+			throw new IllegalArgumentException("The block size of the pseudorandom permutation should be at least 16 bytes");
+		
+		this.prp = prp;
+		this.mac = mac;
+		blockSize = prp.getBlockSize();
+		macSize = mac.getMacSize();
+		counter = new byte[blockSize];
+		keyStream = new byte[blockSize];
+		
+		byte[] id = new byte[8];
+		new SecureRandom().nextBytes(id);
+		senderId = getLong(id, 0);
+	}
+	
+	/**
+	 * Sets the keys of the underlying PRP and MAC algorithm. This function must be called before sending or receiving messages if the algorithms passed to this
+	 * channel had not been set with keys yet. 
+	 * @param encKey the key of the pseudorandom permutation
+	 * @param macKey the key of the MAC algorithm
+	 * @throws InvalidKeyException if one of the given keys does not match the underlying algorithm.
+	 */
+	public void setKey(SecretKey encKey, SecretKey macKey) throws InvalidKeyException{
+		synchronized (cryptoLock) {
+			prp.setKey(encKey);
+			mac.setKey(macKey);
+		}
+	}
+	
+	/**
+	 * Serializes the given message directly into a frame, encrypts and authenticates the frame and sends it to the other party.
+	 * @param msg the object to send to the other party  AS IS, the only constraint is that it must be Serializable
+	 */
+	public void send(Serializable msg) throws IOException {
+		PlainTCPChannel.ExposedByteArrayOutputStream bOut = new PlainTCPChannel.ExposedByteArrayOutputStream();
+		//Leave room for the header, which is written when the sequence number is known.
+		bOut.write(new byte[HEADER_SIZE]);
+		ObjectOutputStream oOut = new ObjectOutputStream(bOut);
+		oOut.writeObject(msg);
+		oOut.close();
+		
+		sendFrame(PlainTCPChannel.OBJECT_MESSAGE, bOut);
+	}
+	
+	/**
+	 * Encrypts and authenticates the given bytes and sends them to the other party, without serializing them.
+	 * @param data The array that contains the bytes to send.
+	 * @param offset The offset of the message in the data array.
+	 * @param length The number of bytes to send.
+	 */
+	@Override
+	public void send(byte[] data, int offset, int length) throws IOException {
+		PlainTCPChannel.ExposedByteArrayOutputStream bOut = new PlainTCPChannel.ExposedByteArrayOutputStream();
+		bOut.write(new byte[HEADER_SIZE]);
+		bOut.write(data, offset, length);
+		
+		sendFrame(PlainTCPChannel.BYTES_MESSAGE, bOut);
+	}
+	
+	/**
+	 * Receives a frame sent by the other party, verifies and decrypts it and returns the actual message sent by the other party.
+	 * @return <B> the actual object </B> sent by the other party, if the frame verifies<p>
+	 * 		   <B>{@code null}</B> if the frame does not verify or if it was not the next frame of the other party	  
+	 */
+	public Serializable receive() throws ClassNotFoundException, IOException {
+		byte[] frame = receiveFrame();
+		if (frame == null){
+			return null;
+		}
+		
+		int length = frame.length - HEADER_SIZE - macSize;
+		if (frame[0] == PlainTCPChannel.BYTES_MESSAGE){
+			return Arrays.copyOfRange(frame, HEADER_SIZE, HEADER_SIZE + length);
+		}
+		
+		//Deserialize the object directly from the decrypted frame.
+		ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(frame, HEADER_SIZE, length));
+		return (Serializable) ois.readObject();
+	}
+	
+	/**
+	 * Receives a frame of bytes sent by the other party, verifies and decrypts it into the given array.
+	 * @param into The array to put the received bytes in.
+	 * @return the number of received bytes.
+	 * @throws IOException if the frame does not verify, if it was not the next frame of the other party, if it is not a message of bytes, 
+	 * if it is longer than the given array or any of the usual Input/Output related exceptions.
+	 */
+	@Override
+	public int receive(byte[] into) throws IOException {
+		byte[] frame = receiveFrame();
+		if (frame == null){
+			throw new IOException("the received frame does not verify");
+		}
+		
+		int length = frame.length - HEADER_SIZE - macSize;
+		if (frame[0] != PlainTCPChannel.BYTES_MESSAGE){
+			throw new IOException("the received message is not a message of bytes");
+		}
+		if (length > into.length){
+			throw new IOException("the received message of " + length + " bytes is longer than the given array");
+		}
+		System.arraycopy(frame, HEADER_SIZE, into, 0, length);
+		return length;
+	}
+	
+	/**
+	 * Writes the header of the frame in the given stream, encrypts the message that follows it in place, appends the tag and sends the frame.
+	 * @param type The type of the message.
+	 * @param bOut A stream that contains HEADER_SIZE bytes of room for the header followed by the message.
+	 * @throws IOException
+	 */
+	private void sendFrame(byte type, PlainTCPChannel.ExposedByteArrayOutputStream bOut) throws IOException {
+		synchronized (sendLock) {
+			byte[] frame = bOut.getBuffer();
+			int length = bOut.size();
+			frame[0] = type;
+			putLong(frame, SENDER_ID_OFFSET, senderId);
+			putLong(frame, SEQUENCE_OFFSET, sendSequence);
+			
+			byte[] tag;
+			synchronized (cryptoLock) {
+				crypt(frame, HEADER_SIZE, length - HEADER_SIZE, senderId, sendSequence);
+				tag = mac.mac(frame, 0, length);
+			}
+			bOut.write(tag);
+			sendSequence++;
+			
+			//The stream may have a new buffer after writing the tag.
+			frame = bOut.getBuffer();
+			length = bOut.size();
+			if (channel instanceof BinaryChannel){
+				((BinaryChannel) channel).send(frame, 0, length);
+			} else {
+				channel.send(Arrays.copyOf(frame, length));
+			}
+		}
+	}
+	
+	/**
+	 * Receives the next frame, checks its sender, sequence number and tag and decrypts it in place.
+	 * @return the decrypted frame, or null if the frame should be rejected.
+	 * @throws IOException if the received message is not a frame or any of the usual Input/Output related exceptions.
+	 */
+	private byte[] receiveFrame() throws IOException {
+		synchronized (receiveLock) {
+			Serializable received;
+			try {
+				received = channel.receive();
+			} catch (ClassNotFoundException e) {
+				throw new IOException("the received message is not a frame", e);
+			}
+			if (!(received instanceof byte[])){
+				throw new IOException("the received message is not a frame");
+			}
+			byte[] frame = (byte[]) received;
+			if (frame.length < HEADER_SIZE + macSize){
+				return null;
+			}
+			
+			int length = frame.length - macSize;
+			byte[] tag = Arrays.copyOfRange(frame, length, frame.length);
+			long id = getLong(frame, SENDER_ID_OFFSET);
+			long sequence = getLong(frame, SEQUENCE_OFFSET);
+			
+			synchronized (cryptoLock) {
+				//Verify the tag before doing anything else with the frame.
+				if (!mac.verify(frame, 0, length, tag)){
+					return null;
+				}
+				//A frame of this end that was reflected back, or a frame that is not the next frame of the other end, is rejected.
+				if (id == senderId || (peerIdSet && id != peerId) || sequence != receiveSequence){
+					return null;
+				}
+				crypt(frame, HEADER_SIZE, length - HEADER_SIZE, id, sequence);
+			}
+			
+			peerId = id;
+			peerIdSet = true;
+			receiveSequence++;
+			return frame;
+		}
+	}
+	
+	/**
+	 * Encrypts or decrypts the given bytes in place in CTR mode. The initial counter is the PRP of the nonce, which is made of the given sender ID and sequence number.
+	 * Should be called while holding the cryptoLock.
+	 */
+	private void crypt(byte[] data, int offset, int length, long id, long sequence) {
+		Arrays.fill(keyStream, (byte) 0);
+		putLong(keyStream, 0, id);
+		putLong(keyStream, 8, sequence);
+		try {
+			prp.computeBlock(keyStream, 0, counter, 0);
+			
+			for (int done = 0; done < length; done += blockSize){
+				prp.computeBlock(counter, 0, keyStream, 0);
+				int n = Math.min(blockSize, length - done);
+				for (int i = 0; i < n; i++){
+					data[offset + done + i] ^= keyStream[i];
+				}
+				//Increment the counter as a big-endian number.
+				for (int i = blockSize - 1; i >= 0 && ++counter[i] == 0; i--);
+			}
+		} catch (IllegalBlockSizeException e) {
+			//Should not happen since all the blocks have the block size of the PRP.
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	private static void putLong(byte[] array, int offset, long value) {
+		for (int i = 7; i >= 0; i--){
+			array[offset + i] = (byte) value;
+			value >>>= 8;
+		}
+	}
+	
+	private static long getLong(byte[] array, int offset) {
+		long value = 0;
+		for (int i = 0; i < 8; i++){
+			value = (value << 8) | (array[offset + i] & 0xFF);
+		}
+		return value;
+	}
+	
+	/**
+	 * Close the channel.
+	 */
+	public void close() {
+		channel.close();
+	}
+
+	/* (non-Javadoc)
+	 * @see edu.biu.scapi.comm.Channel#isClosed()
+	 */
+	@Override
+	public boolean isClosed() {
+		return channel.isClosed();
+	}
+}
@@ -0,0 +1,58 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.comm;
+
+import java.io.IOException;
+
+/**
+ * A channel that can send and receive raw byte arrays without the Java serialization mechanism. <p>
+ * Protocols whose messages are plain byte arrays (for example, OT extension and garbled tables) can use this interface in order to 
+ * avoid the serialization headers and the extra memory copies of {@link Channel#send(java.io.Serializable)}. <p>
+ * A byte array sent by {@link #send(byte[], int, int)} can be received either by {@link #receive(byte[])} or by {@link Channel#receive()}, 
+ * which returns it as a new byte array.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public interface BinaryChannel extends Channel {
+
+	/**
+	 * Sends the given bytes to the other end-user of the channel as a single message.
+	 * @param data The array that contains the bytes to send.
+	 * @param offset The offset of the message in the data array.
+	 * @param length The number of bytes to send.
+	 * @throws IOException Any of the usual Input/Output related exceptions.
+	 */
+	public void send(byte[] data, int offset, int length) throws IOException;
+	
+	/**
+	 * Receives a message of bytes that was sent by the other end-user of the channel, directly into the given array.
+	 * @param into The array to put the received bytes in. Should be big enough to hold the whole message.
+	 * @return the number of received bytes.
+	 * @throws IOException if the received message is not a message of bytes, if it is longer than the given array or any of 
+	 * the usual Input/Output related exceptions.
+	 */
+	public int receive(byte[] into) throws IOException;
+}
@@ -0,0 +1,580 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.comm;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.logging.Level;
+
+import edu.biu.scapi.generals.Logging;
+
+/**
+ * This class runs many independent logical sessions over a single channel between two parties. <p>
+ * Each session is identified by an integer id and is used through its own {@link BinaryChannel}, which is returned by {@link #getChannel(int)}.
+ * A protocol that needs a channel (Yao, OT, ZK, etc.) can be given a session channel instead of a channel that owns a whole socket,
+ * so any number of protocols can run concurrently between the same two parties over a single connection that was created by {@link CommunicationSetup}.
+ * The two parties should use the same session ids for the same protocol executions. <p>
+ *
+ * Every message of a session is sent over the underlying channel in frames of at most MAX_FRAME_SIZE bytes (or the window size, if it is smaller).
+ * Each frame is a byte array that starts with a header of the frame type and the session id.
+ * The underlying channel is held by a session for one frame at a time, so the frames of the sessions are interleaved and a long message of one session
+ * does not delay the messages of the other sessions until it is fully written.
+ * A thread of the multiplexer receives all the frames from the underlying channel, assembles the frames of each message and puts the message in the queue of its session,
+ * where it waits until the session's owner receives it. <p>
+ *
+ * Each session has its own flow control: a sender can have at most the window size of bytes that the other party did not receive yet.
+ * Once the other party receives the messages, it returns the credit for their bytes and the sender can continue.
+ * This way the messages of a slow session are never more than its window, and the thread of the multiplexer never has to wait for a session,
+ * so a session that is not read does not block the other sessions. A message longer than the window is sent once all the previous messages of its session were received.
+ * Both parties should use the same window size. <p>
+ *
+ * A session is removed from the multiplexer once it was closed by this party, after its last message was sent, or once it was closed by the other party 
+ * and all its messages were received. The frames that still arrive for a session that this party closed are dropped, until the other party closes it too 
+ * or CLOSED_SESSION_TIMEOUT passes, so a party that never closes its sessions does not keep their messages in memory.
+ *
+ * The underlying channel should not be used directly once it is given to the multiplexer.
+ * If it is a {@link BinaryChannel}, the messages are sent without serializing them again.
+ *
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public class ChannelMultiplexer {
+
+	//The default number of bytes that each session can send before the other party receives them.
+	public static final int DEFAULT_WINDOW_SIZE = 1 << 20;
+
+	//The types of the messages that are sent over the underlying channel.
+	private static final byte OBJECT_MESSAGE = 0;
+	private static final byte BYTES_MESSAGE = 1;
+	private static final byte WINDOW_UPDATE = 2;
+	private static final byte CLOSE_SESSION = 3;
+	private static final byte MESSAGE_FRAGMENT = 4;	//A frame of a message that is followed by more frames. The last frame has the type of the message.
+
+	//The maximal number of message bytes in a single frame.
+	private static final int MAX_FRAME_SIZE = 1 << 16;
+
+	//The size of a message header: the type of the message and the session id.
+	private static final int HEADER_SIZE = 5;
+
+	//The number of milliseconds that the frames of a session that was closed by this party are dropped, if the other party does not close it.
+	private static final long CLOSED_SESSION_TIMEOUT = 60000;
+
+	private Channel channel;
+	private int windowSize;
+	private int frameSize;		//The number of message bytes in a frame, not larger than the window.
+	private HashMap<Integer, SessionChannel> sessions = new HashMap<Integer, SessionChannel>();
+	//The ids of the sessions that were closed by this party and not by the other party yet, mapped to the time they were closed, in the order of closing.
+	//Guarded by the lock of the sessions map.
+	private LinkedHashMap<Integer, Long> closedSessions = new LinkedHashMap<Integer, Long>();
+	private Object sendLock = new Object();		//Sending over the underlying channel is done by one session at a time.
+	private volatile IOException failure;		//The reason that the underlying channel can not be used anymore, or null if it is still open.
+
+	/**
+	 * Creates a multiplexer over the given channel with the default window size and starts receiving its messages.
+	 * @param channel The connection to the other party.
+	 */
+	public ChannelMultiplexer(Channel channel) {
+		this(channel, DEFAULT_WINDOW_SIZE);
+	}
+
+	/**
+	 * Creates a multiplexer over the given channel and starts receiving its messages.
+	 * @param channel The connection to the other party.
+	 * @param windowSize The number of bytes that a session can send before the other party receives them. Should be the same in both parties.
+	 */
+	public ChannelMultiplexer(Channel channel, int windowSize) {
+		if (windowSize <= 0){
+			throw new IllegalArgumentException("the window size should be positive");
+		}
+		this.channel = channel;
+		this.windowSize = windowSize;
+		this.frameSize = Math.min(windowSize, MAX_FRAME_SIZE);
+
+		Thread receiver = new Thread(new Demultiplexer(), "ChannelMultiplexer");
+		receiver.setDaemon(true);
+		receiver.start();
+	}
+
+	/**
+	 * Returns the channel of the session with the given id. The session is created by the first call with its id,
+	 * in any of the parties; messages that arrive before the session is requested wait for it. <p>
+	 * The id of a closed session should not be used again.
+	 * @param sessionId The id of the session.
+	 * @return the channel of the session.
+	 */
+	public BinaryChannel getChannel(int sessionId) {
+		synchronized (sessions) {
+			return getSession(sessionId);
+		}
+	}
+
+	/**
+	 * Closes the underlying channel and thus all the sessions.
+	 */
+	public void close() {
+		channel.close();
+		fail(new EOFException("the multiplexer was closed"));
+	}
+
+	/**
+	 * Returns the session with the given id and creates it if needed. Should be called while holding the lock of the sessions map.
+	 */
+	private SessionChannel getSession(int sessionId) {
+		SessionChannel session = sessions.get(sessionId);
+		if (session == null){
+			session = new SessionChannel(sessionId);
+			sessions.put(sessionId, session);
+		}
+		return session;
+	}
+
+	/**
+	 * Sets the failure of the underlying channel and wakes up all the sessions that are waiting for it.
+	 */
+	private void fail(IOException e) {
+		synchronized (sessions) {
+			if (failure == null){
+				failure = e;
+			}
+			for (SessionChannel session : sessions.values()){
+				synchronized (session) {
+					session.notifyAll();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes the header of a frame of the given session to the given array, starting at the given offset.
+	 */
+	private static void writeHeader(byte[] message, int offset, byte type, int sessionId) {
+		message[offset] = type;
+		message[offset + 1] = (byte) (sessionId >>> 24);
+		message[offset + 2] = (byte) (sessionId >>> 16);
+		message[offset + 3] = (byte) (sessionId >>> 8);
+		message[offset + 4] = (byte) sessionId;
+	}
+
+	/**
+	 * Reads four bytes of the given array as a big endian integer.
+	 */
+	private static int readInt(byte[] message, int offset) {
+		return ((message[offset] & 0xFF) << 24) | ((message[offset + 1] & 0xFF) << 16) | ((message[offset + 2] & 0xFF) << 8) | (message[offset + 3] & 0xFF);
+	}
+
+	/**
+	 * Sends the given frame over the underlying channel.
+	 */
+	private void sendMessage(byte[] message, int offset, int length) throws IOException {
+		IOException e = failure;
+		if (e != null){
+			throw new IOException("the multiplexed channel can not be used anymore", e);
+		}
+
+		synchronized (sendLock) {
+			if (channel instanceof BinaryChannel){
+				((BinaryChannel) channel).send(message, offset, length);
+			} else {
+				byte[] copy = message;
+				if (offset != 0 || length != message.length){
+					copy = new byte[length];
+					System.arraycopy(message, offset, copy, 0, length);
+				}
+				channel.send(copy);
+			}
+		}
+	}
+
+	/**
+	 * Receives the messages of the underlying channel and puts every message in the queue of its session, until the channel is closed.
+	 */
+	private class Demultiplexer implements Runnable {
+
+		@Override
+		public void run() {
+			try {
+				while (true){
+					Serializable received = channel.receive();
+					if (!(received instanceof byte[]) || ((byte[]) received).length < HEADER_SIZE){
+						throw new IOException("received a message that was not sent by a multiplexer");
+					}
+					byte[] message = (byte[]) received;
+
+					int sessionId = readInt(message, 1);
+					SessionChannel session;
+					synchronized (sessions) {
+						//The frames of a session that was closed by this party are dropped.
+						if (closedSessions.containsKey(sessionId)){
+							if (message[0] == CLOSE_SESSION){
+								closedSessions.remove(sessionId);
+							}
+							continue;
+						}
+						session = getSession(sessionId);
+					}
+					if (session.messageReceived(message)){
+						session.remove();
+					}
+				}
+			} catch (IOException e) {
+				fail(e);
+			} catch (ClassNotFoundException e) {
+				fail(new IOException("received a message that was not sent by a multiplexer", e));
+			}
+
+			//A channel that was closed by any of the parties is the normal end of the multiplexer.
+			if (!(failure instanceof EOFException) && !channel.isClosed()){
+				Logging.getLogger().log(Level.WARNING, "the multiplexer stopped receiving messages: " + failure);
+			}
+		}
+	}
+
+	/**
+	 * The channel of a single session of the multiplexer.
+	 */
+	private class SessionChannel implements BinaryChannel {
+
+		private int sessionId;
+		private LinkedList<byte[]> queue = new LinkedList<byte[]>();	//Received messages that were not taken yet, including their headers.
+		private LinkedList<byte[]> fragments = new LinkedList<byte[]>();	//The received frames of a message whose last frame was not received yet.
+		private int fragmentsLength = 0;		//The number of message bytes in the fragments.
+		private Object messageLock = new Object();	//Keeps the frames of a message together, when the session is used by multiple threads.
+		private int credit = windowSize;		//The number of bytes that can be sent before the other party receives them.
+		private int unacknowledged = 0;			//The number of received bytes whose credit was not returned yet.
+		private boolean closed = false;			//Was this session closed by this party.
+		private boolean remoteClosed = false;	//Was this session closed by the other party.
+
+		private SessionChannel(int sessionId) {
+			this.sessionId = sessionId;
+		}
+
+		/**
+		 * Serializes the given object and sends it. A byte array is sent as it is, like in {@link #send(byte[], int, int)}.
+		 */
+		@Override
+		public void send(Serializable data) throws IOException {
+			if (data instanceof byte[]){
+				byte[] bytes = (byte[]) data;
+				send(bytes, 0, bytes.length);
+				return;
+			}
+
+			//Serialize the object after the header, so that the message is sent without copying it.
+			PlainTCPChannel.ExposedByteArrayOutputStream bOut = new PlainTCPChannel.ExposedByteArrayOutputStream();
+			bOut.write(new byte[HEADER_SIZE]);
+			ObjectOutputStream oOut = new ObjectOutputStream(bOut);
+			oOut.writeObject(data);
+			oOut.close();
+
+			byte[] message = bOut.getBuffer();
+			writeHeader(message, 0, OBJECT_MESSAGE, sessionId);
+			sendData(message, bOut.size());
+		}
+
+		@Override
+		public void send(byte[] data, int offset, int length) throws IOException {
+			byte[] message = new byte[HEADER_SIZE + length];
+			writeHeader(message, 0, BYTES_MESSAGE, sessionId);
+			System.arraycopy(data, offset, message, HEADER_SIZE, length);
+			sendData(message, message.length);
+		}
+
+		/**
+		 * Waits until the window of this session allows sending the given message and sends it in frames. <p>
+		 * The given array holds the header of the message followed by its bytes. 
+		 * The header of each frame is written over the end of the previous frame, which was already sent, so the frames are sent without copying the message.
+		 */
+		private void sendData(byte[] message, int length) throws IOException {
+			int size = length - HEADER_SIZE;
+			synchronized (messageLock) {
+				synchronized (this) {
+					//A message that is longer than the window is sent when the window is empty.
+					while (credit < size && credit < windowSize){
+						checkOpen();
+						try {
+							wait();
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+							throw new IOException("interrupted while waiting for the window of the session", e);
+						}
+					}
+					checkOpen();
+					credit -= size;
+				}
+
+				//The underlying channel is released between the frames, so the other sessions can send theirs.
+				byte type = message[0];
+				int offset = HEADER_SIZE;
+				do {
+					int frameLength = Math.min(frameSize, length - offset);
+					boolean last = (offset + frameLength == length);
+					writeHeader(message, offset - HEADER_SIZE, last ? type : MESSAGE_FRAGMENT, sessionId);
+					sendMessage(message, offset - HEADER_SIZE, HEADER_SIZE + frameLength);
+					offset += frameLength;
+				} while (offset < length);
+			}
+		}
+
+		@Override
+		public Serializable receive() throws ClassNotFoundException, IOException {
+			byte[] message = takeMessage();
+			if (message[0] == BYTES_MESSAGE){
+				byte[] data = new byte[message.length - HEADER_SIZE];
+				System.arraycopy(message, HEADER_SIZE, data, 0, data.length);
+				return data;
+			}
+
+			ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(message, HEADER_SIZE, message.length - HEADER_SIZE));
+			return (Serializable) ois.readObject();
+		}
+
+		@Override
+		public int receive(byte[] into) throws IOException {
+			byte[] message = takeMessage();
+			int length = message.length - HEADER_SIZE;
+			if (message[0] != BYTES_MESSAGE){
+				throw new IOException("the received message is not a message of bytes");
+			}
+			if (length > into.length){
+				throw new IOException("the received message of " + length + " bytes is longer than the given array");
+			}
+			System.arraycopy(message, HEADER_SIZE, into, 0, length);
+			return length;
+		}
+
+		/**
+		 * Waits for the next message of this session, removes it from the queue and returns the credit of its bytes to the other party when needed.
+		 */
+		private byte[] takeMessage() throws IOException {
+			byte[] message = null;
+			int returnedCredit = 0;
+			boolean ended = false;
+			synchronized (this) {
+				while (queue.isEmpty()){
+					if (closed){
+						throw new IOException("the session is closed");
+					}
+					if (remoteClosed){
+						//All the messages of the other party were received, so the session is not needed anymore.
+						ended = true;
+						break;
+					}
+					IOException e = failure;
+					if (e != null){
+						throw new IOException("the multiplexed channel can not be used anymore", e);
+					}
+					try {
+						wait();
+					} catch (InterruptedException e1) {
+						Thread.currentThread().interrupt();
+						throw new IOException("interrupted while waiting for a message", e1);
+					}
+				}
+				if (!ended){
+					message = queue.removeFirst();
+
+					//Return the credit once half of the window was received, or when all the sent messages were received,
+					//so that a sender that waits for an empty window can continue.
+					unacknowledged += message.length - HEADER_SIZE;
+					if (unacknowledged >= windowSize / 2 || (queue.isEmpty() && unacknowledged > 0)){
+						returnedCredit = unacknowledged;
+						unacknowledged = 0;
+					}
+				}
+			}
+
+			if (ended){
+				remove();
+				throw new EOFException("the session was closed by the other end-user");
+			}
+
+			if (returnedCredit > 0){
+				byte[] update = new byte[HEADER_SIZE + 4];
+				writeHeader(update, 0, WINDOW_UPDATE, sessionId);
+				update[5] = (byte) (returnedCredit >>> 24);
+				update[6] = (byte) (returnedCredit >>> 16);
+				update[7] = (byte) (returnedCredit >>> 8);
+				update[8] = (byte) returnedCredit;
+				try {
+					sendMessage(update, 0, update.length);
+				} catch (IOException e) {
+					//The message was received, so it is returned anyway. The failure will be thrown by the next use of the channel.
+					Logging.getLogger().log(Level.WARNING, e.toString());
+				}
+			}
+			return message;
+		}
+
+		/**
+		 * Handles a frame of this session that was received by the multiplexer.
+		 * @return true if the session was closed by both parties, and thus should be removed.
+		 */
+		private synchronized boolean messageReceived(byte[] message) throws IOException {
+			switch (message[0]){
+			case MESSAGE_FRAGMENT:
+				//Messages of a session that was closed by this party are not needed anymore.
+				if (!closed){
+					fragments.addLast(message);
+					fragmentsLength += message.length - HEADER_SIZE;
+				}
+				break;
+			case OBJECT_MESSAGE:
+			case BYTES_MESSAGE:
+				if (!closed){
+					queue.addLast(assemble(message));
+				}
+				break;
+			case WINDOW_UPDATE:
+				if (message.length != HEADER_SIZE + 4){
+					throw new IOException("received an invalid window update");
+				}
+				credit += readInt(message, HEADER_SIZE);
+				break;
+			case CLOSE_SESSION:
+				remoteClosed = true;
+				break;
+			default:
+				throw new IOException("received a message of an unknown type");
+			}
+			notifyAll();
+			return closed && remoteClosed;
+		}
+
+		/**
+		 * Returns the message that ends with the given last frame, including the header of the last frame.
+		 * Should be called while holding the lock of this session.
+		 */
+		private byte[] assemble(byte[] lastFrame) {
+			if (fragments.isEmpty()){
+				return lastFrame;
+			}
+			byte[] message = new byte[HEADER_SIZE + fragmentsLength + lastFrame.length - HEADER_SIZE];
+			System.arraycopy(lastFrame, 0, message, 0, HEADER_SIZE);
+			int offset = HEADER_SIZE;
+			for (byte[] fragment : fragments){
+				System.arraycopy(fragment, HEADER_SIZE, message, offset, fragment.length - HEADER_SIZE);
+				offset += fragment.length - HEADER_SIZE;
+			}
+			System.arraycopy(lastFrame, HEADER_SIZE, message, offset, lastFrame.length - HEADER_SIZE);
+			fragments.clear();
+			fragmentsLength = 0;
+			return message;
+		}
+
+		/**
+		 * Removes this session from the sessions of the multiplexer, once it is not used by any of the parties. 
+		 * Should not be called while holding the lock of this session.
+		 */
+		private void remove() {
+			synchronized (sessions) {
+				if (sessions.get(sessionId) == this){
+					sessions.remove(sessionId);
+				}
+				//The session was closed by the other party as well, so its frames will not arrive anymore.
+				if (closed){
+					closedSessions.remove(sessionId);
+				}
+			}
+		}
+
+		/**
+		 * Throws an exception if this session can not send messages.
+		 */
+		private void checkOpen() throws IOException {
+			if (closed){
+				throw new IOException("the session is closed");
+			}
+			if (remoteClosed){
+				throw new EOFException("the session was closed by the other end-user");
+			}
+			IOException e = failure;
+			if (e != null){
+				throw new IOException("the multiplexed channel can not be used anymore", e);
+			}
+		}
+
+		/**
+		 * Closes this session and notifies the other party, once the message that is being sent by another thread was sent. 
+		 * The session is then removed from the multiplexer. The underlying channel and the other sessions stay open.
+		 */
+		@Override
+		public void close() {
+			synchronized (this) {
+				if (closed){
+					return;
+				}
+				closed = true;
+				queue.clear();
+				fragments.clear();
+				fragmentsLength = 0;
+				//Wakes up a sender that waits for the window, so that it releases the message lock.
+				notifyAll();
+			}
+
+			byte[] message = new byte[HEADER_SIZE];
+			writeHeader(message, 0, CLOSE_SESSION, sessionId);
+			synchronized (messageLock) {
+				try {
+					sendMessage(message, 0, message.length);
+				} catch (IOException e) {
+					Logging.getLogger().log(Level.WARNING, e.toString());
+				}
+			}
+
+			synchronized (sessions) {
+				if (sessions.get(sessionId) == this){
+					sessions.remove(sessionId);
+				}
+				//Until the other party closes the session, its frames are dropped instead of creating the session again.
+				boolean ended;
+				synchronized (this) {
+					ended = remoteClosed;
+				}
+				if (!ended){
+					long now = System.currentTimeMillis();
+					Iterator<Map.Entry<Integer, Long>> expired = closedSessions.entrySet().iterator();
+					while (expired.hasNext() && now - expired.next().getValue() > CLOSED_SESSION_TIMEOUT){
+						expired.remove();
+					}
+					closedSessions.put(sessionId, now);
+				}
+			}
+		}
+
+		@Override
+		public synchronized boolean isClosed() {
+			return closed || failure != null;
+		}
+	}
+}
@@ -27,13 +27,11 @@
 package edu.biu.scapi.comm;
 
 
-import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Vector;
 import java.util.logging.Level;
 
 import org.apache.commons.exec.TimeoutObserver;
@@ -79,8 +77,7 @@ public class CommunicationSetup implements TimeoutObserver{
 	private EstablishedConnections establishedConnections;
 	private KeyExchangeProtocol keyExchangeProtocol;
 	private ConnectivitySuccessVerifier connectivitySuccessVerifier;
-	private ListeningThread listeningThread;
-	private Vector<SecuringConnectionThread> threadsVector;
+	private ConnectionSelectorThread connectionThread;
 	private Map<InetSocketAddress,KeyExchangeOutput> keyExchangeMap;
 	private Watchdog watchdog;
 	
@@ -114,8 +111,7 @@ public class CommunicationSetup implements TimeoutObserver{
 		
 		establishedConnections = new EstablishedConnections();
 		
-		//initialize the threadVector and the map of the key exchange outputs
-		threadsVector = new Vector<SecuringConnectionThread>();
+		//initialize the map of the key exchange outputs
 		keyExchangeMap = new HashMap<InetSocketAddress,KeyExchangeOutput>();
 		
 		//start the watch dog with timeout
@@ -215,8 +211,9 @@ public class CommunicationSetup implements TimeoutObserver{
 
 	/**
 	 * 
-	 * Using the SecuringConnectionThread and the ListeningThread we connect the parties via sockets.
+	 * Using the ConnectionSelectorThread we connect the parties via sockets.
 	 * We either connect by initiating a connection or by listening to incoming connection requests.
+	 * All the connections are established in parallel by the single selector of the thread.
 	 * @throws DuplicatePartyException This exception is for the case where there are two parties in the list of parties with the same ip+port
 	 */
 	private void establishAndSecureConnections() throws DuplicatePartyException {
@@ -225,10 +222,6 @@ public class CommunicationSetup implements TimeoutObserver{
 		Iterator<Party> itr = partiesList.iterator();
 		Party firstParty = null;
 		Party party;
-		int numOfIncomingConnections = 0;
-		
-		//temp map
-		Map<InetAddress, Vector<SecuringConnectionThread>> listeningThreadMap = new HashMap<InetAddress, Vector<SecuringConnectionThread>>();
 		
 		//the first party is me. Other parties identity will be compared with this party
 		if(itr.hasNext()){
@@ -236,6 +229,8 @@ public class CommunicationSetup implements TimeoutObserver{
 			firstParty = itr.next();
 		}
 		
+		connectionThread = new ConnectionSelectorThread(firstParty, keyExchangeProtocol);
+		
 		//go over the elements of the list of parties
 		while(itr.hasNext()){
 			
@@ -245,13 +240,13 @@ public class CommunicationSetup implements TimeoutObserver{
 			//create an InetSocketAddress
 			InetSocketAddress inetSocketAdd = new InetSocketAddress(party.getIpAddress(), party.getPort());
 			//create a channel for this party
-			PlainChannel channel = new PlainTCPChannel(inetSocketAdd);
+			PlainTCPChannel channel = new PlainTCPChannel(inetSocketAdd);
 			//set to NOT_INIT state
 			channel.setState(PlainChannel.State.NOT_INIT);
 			//add to the established connection object
 			establishedConnections.addConnection(inetSocketAdd, channel);
 			
-			//create a key exchange output to pass to the SecuringConnectionThread
+			//create a key exchange output to pass to the ConnectionSelectorThread
 			KeyExchangeOutput keyExchangeOutput = new KeyExchangeOutput();
 			
 			//add the key exchange output to the map
@@ -262,116 +257,42 @@ public class CommunicationSetup implements TimeoutObserver{
 			if(partyCompare==0){//should not happen since it means that there is another party in the list with the same ip+port
 				throw new DuplicatePartyException("Another party with the same ip address and port");
 			}
-			//UPWARD connection
+			//UPWARD connection. We need the thread to connect to the other side of the channel. 
 			else if(firstParty.compareTo(party)>0){
 				
-				upwardConnection(party, channel, keyExchangeOutput);
+				connectionThread.addUpwardConnection(channel, inetSocketAdd, keyExchangeOutput);
 								
 			}
-			else{ //DOWN connection
+			else{ //DOWN connection. The thread listens to the connection of the other side.
 				
-				numOfIncomingConnections = downConnection(party,
-						numOfIncomingConnections, listeningThreadMap,
-						channel, keyExchangeOutput);
+				connectionThread.addDownwardConnection(channel, party.getIpAddress(), keyExchangeOutput);
 				
 			}
 		}
 		
-		if(listeningThreadMap.size()>0){//there are down connections need to listen to connections using the listeningThread
-			//send information to the listening thread
-			listeningThread = new ListeningThread(listeningThreadMap, firstParty, numOfIncomingConnections);
-			listeningThread.start();
-		}
+		//start connecting to all the parties at once
+		connectionThread.start();
 		
 	}
 
-	/**
-	 * Connect to a party with ID less than mine.
-	 * @param party
-	 * @param numOfIncomingConnections
-	 * @param listeningThreadMap
-	 * @param channel
-	 * @param keyExchangeOutput
-	 * @return
-	 */
-	private int downConnection(
-			Party party,
-			int numOfIncomingConnections,
-			Map<InetAddress, Vector<SecuringConnectionThread>> listeningThreadMap,
-			PlainChannel channel, KeyExchangeOutput keyExchangeOutput) {
-		boolean doConnect;
-		//increase the index of incoming connections
-		numOfIncomingConnections++;
-		
-		//set doConnect to false. We do not want the thread to try to connect.
-		doConnect = false;
-		
-		//create a new SecuringConnectionThread 
-		SecuringConnectionThread scThread = new SecuringConnectionThread(channel, party.getIpAddress(), party.getPort(), doConnect , keyExchangeProtocol, keyExchangeOutput);
-		
-		//add to the thread vector
-		threadsVector.add(scThread);
-		
-		//a vector holding the securing threads
-		Vector<SecuringConnectionThread> vector; 
-		if(listeningThreadMap.containsKey(party.getIpAddress())){
-			//ip already exists insert to the vector
-			vector = listeningThreadMap.get(party.getIpAddress());
-			
-			//add the thread to the existing vector
-			vector.add(scThread);
-		}
-		else{//there is no such an ip. create a new vector 
-			
-			vector = new Vector<SecuringConnectionThread>();
-			vector.add(scThread);
-			
-			//add thread to the local vector so the listening thread can start the securing thread.
-			listeningThreadMap.put(party.getIpAddress(), vector);
-			
-		}
-		return numOfIncomingConnections;
-	}
-
-	/**
-	 * Connect to a party with ID more than mine.
-	 * @param party
-	 * @param channel
-	 * @param keyExchangeOutput
-	 */
-	private void upwardConnection(Party party, PlainChannel channel,
-			KeyExchangeOutput keyExchangeOutput) {
-		boolean doConnect;
-		//set doConnect to true. We need the thread to connect to the other side of the channel. 
-		doConnect = true;
-		
-		//create a new SecuringConnectionThread 
-		SecuringConnectionThread scThread = new SecuringConnectionThread(channel, party.getIpAddress(), party.getPort(), doConnect , keyExchangeProtocol, keyExchangeOutput);
-		
-		//add to the thread vector
-		threadsVector.add(scThread);
-		
-		//start the thread
-		scThread.start();
-	}
-
 	/** 
 	 * This function serves as a barrier. It is called from the prepareForCommunication function. The idea
-	 * is to let all the threads finish running before proceeding. 
+	 * is to let the connecting thread finish running before proceeding. The thread ends as soon as the last connection is ready,
+	 * or when it is stopped by the timeout. 
 	 */ 
 	private void verifyConnectingStatus() {
-		boolean allConnected = false;
-		//while the thread has not been stopped and not all the channels are connected
-		while(!bTimedOut && !(allConnected = establishedConnections.areAllConnected())){
+		if(connectionThread != null){
 			try {
-				Thread.sleep(500);
+				connectionThread.join();
 			} catch (InterruptedException e) {
-
+				
 				Logging.getLogger().log(Level.FINEST, e.toString());
+				connectionThread.stopConnecting();
 			}
 		}
+		
 		//If we already know that all the connectios were established we can stop the watchdog.
-		if(allConnected)
+		if(!bTimedOut && establishedConnections.areAllConnected())
 			watchdog.stop();
 	}
 
@@ -397,20 +318,9 @@ public class CommunicationSetup implements TimeoutObserver{
 		//timeout has passed set the flag
 		bTimedOut = true;
 		
-		//stop all threads in the vector and the listening thread
-		for(int i=0; i< threadsVector.size(); i++){
-			
-			//get a thread from the vector of threads
-			SecuringConnectionThread thread = threadsVector.elementAt(i);
-			
-			//sets the flag of the thread to stopped. This will make the run function of the thread to terminate if it has not finished yet.
-			thread.stopConnecting();
-			
-		}	
-		
-		//further stop the listening thread if it still runs. Similarly, it sets the flag of the listening thread to stopped.
-		if(listeningThread!=null)
-			listeningThread.stopConnecting();
+		//sets the flag of the connecting thread to stopped. This will make the run function of the thread to terminate if it has not finished yet.
+		if(connectionThread!=null)
+			connectionThread.stopConnecting();
 	}
 	
 }
@@ -0,0 +1,345 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.comm;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Vector;
+import java.util.logging.Level;
+
+import edu.biu.scapi.generals.Logging;
+
+/**
+ * The ConnectionSelectorThread is created by the CommunicationSetup in order to establish and secure the connections to all the other parties. <p>
+ * All the connections are handled by a single thread with a single {@link Selector}:
+ * <ul>
+ * <li>The UP connections (to parties with higher ID) are all started at once with non-blocking connects. A connect that fails,
+ * usually since the other party does not listen yet, is tried again after a delay that starts at MIN_RETRY_DELAY milliseconds and is doubled
+ * after every failure, up to MAX_RETRY_DELAY milliseconds.</li>
+ * <li>The DOWN connections (from parties with lower ID) are accepted by a non-blocking server socket that is registered to the same selector,
+ * and are matched to the waiting channels by the IP address of the connecting party.</li>
+ * </ul>
+ * The thread sleeps in the selector until a socket is ready or until the next connect should be tried again, so every connection is secured as soon as
+ * its socket is connected, and the thread ends as soon as the last connection is ready.
+ * Once a socket is connected it is set back to blocking mode and given to its PlainTCPChannel.
+ *
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ */
+class ConnectionSelectorThread extends Thread {
+
+	//The delays before trying again a connect that failed.
+	private static final long MIN_RETRY_DELAY = 10;
+	private static final long MAX_RETRY_DELAY = 1000;
+
+	/**
+	 * An UP connection that is not connected yet.
+	 */
+	private static class UpwardConnection {
+		private PlainTCPChannel channel;
+		private InetSocketAddress address;
+		private KeyExchangeOutput keyExchangeOutput;
+		private SocketChannel socket;		//The socket of the current connect, or null if the connect should be tried again.
+		private long nextAttempt = 0;		//The time to try the connect again.
+		private long retryDelay = MIN_RETRY_DELAY;
+
+		private UpwardConnection(PlainTCPChannel channel, InetSocketAddress address, KeyExchangeOutput keyExchangeOutput) {
+			this.channel = channel;
+			this.address = address;
+			this.keyExchangeOutput = keyExchangeOutput;
+		}
+	}
+
+	private Party me;
+	private KeyExchangeProtocol keyExchangeProtocol;
+	private List<UpwardConnection> upwardConnections = new ArrayList<UpwardConnection>();
+	//The channels of the DOWN connections, by the IP address of the other party. Since we may have multiple channels from the same IP address we use a vector
+	//for each IP address. We can not differentiate using the port since when a client connects its port is unknown.
+	private Map<InetAddress, Vector<PlainTCPChannel>> downwardChannels = new HashMap<InetAddress, Vector<PlainTCPChannel>>();
+	private Map<PlainTCPChannel, KeyExchangeOutput> downwardKeyExchangeOutputs = new HashMap<PlainTCPChannel, KeyExchangeOutput>();
+	private int numOfIncomingConnections = 0;
+	private int numOfNotReadyConnections = 0;
+	private volatile boolean bStopped = false;	//a flag that indicates if to keep on connecting or stop
+	private volatile Selector selector;
+
+	/**
+	 * @param me The party of this application, whose address is used to listen to the DOWN connections.
+	 * @param keyExchangeProtocol The protocol that secures every connection.
+	 */
+	ConnectionSelectorThread(Party me, KeyExchangeProtocol keyExchangeProtocol) {
+		setName("ConnectionSelector-" + getName());
+		this.me = me;
+		this.keyExchangeProtocol = keyExchangeProtocol;
+	}
+
+	/**
+	 * Adds a connection that this party should initiate. Should be called before the thread is started.
+	 */
+	void addUpwardConnection(PlainTCPChannel channel, InetSocketAddress address, KeyExchangeOutput keyExchangeOutput) {
+		upwardConnections.add(new UpwardConnection(channel, address, keyExchangeOutput));
+		numOfNotReadyConnections++;
+	}
+
+	/**
+	 * Adds a connection that the other party should initiate. Should be called before the thread is started.
+	 */
+	void addDownwardConnection(PlainTCPChannel channel, InetAddress ipAddress, KeyExchangeOutput keyExchangeOutput) {
+		Vector<PlainTCPChannel> vector = downwardChannels.get(ipAddress);
+		if (vector == null){
+			vector = new Vector<PlainTCPChannel>();
+			downwardChannels.put(ipAddress, vector);
+		}
+		vector.add(channel);
+		downwardKeyExchangeOutputs.put(channel, keyExchangeOutput);
+		numOfIncomingConnections++;
+		numOfNotReadyConnections++;
+	}
+
+	/**
+	 * Sets the flag bStopped to true and wakes up the thread, which then stops trying to connect and ends.
+	 */
+	void stopConnecting() {
+		bStopped = true;
+		Selector s = selector;
+		if (s != null){
+			s.wakeup();
+		}
+	}
+
+	/**
+	 * The main function of the thread. Connects, accepts and secures all the connections until all of them are ready or until the thread is stopped.
+	 */
+	public void run() {
+		ServerSocketChannel listener = null;
+		try {
+			selector = Selector.open();
+			//The flag may have been set before the selector existed.
+			if (bStopped){
+				return;
+			}
+
+			//Listen to the DOWN connections, if there are any.
+			if (numOfIncomingConnections > 0){
+				listener = ServerSocketChannel.open();
+				listener.socket().bind(new InetSocketAddress(me.getIpAddress(), me.getPort()));
+				listener.configureBlocking(false);
+				listener.register(selector, SelectionKey.OP_ACCEPT);
+				Logging.getLogger().log(Level.INFO, "Trying to listen " + me.getPort());
+			}
+			for (Vector<PlainTCPChannel> vector : downwardChannels.values()){
+				for (PlainTCPChannel channel : vector){
+					channel.setState(PlainChannel.State.CONNECTING);
+				}
+			}
+
+			while (!bStopped && numOfNotReadyConnections > 0){
+				//Start the connects whose time has come.
+				long now = System.currentTimeMillis();
+				for (UpwardConnection connection : upwardConnections){
+					if (connection.socket == null && !connection.channel.isConnected() && connection.nextAttempt <= now){
+						startConnect(connection);
+					}
+				}
+				if (numOfNotReadyConnections == 0){
+					break;
+				}
+				
+				//Find the time until the next connect, including the ones that have just failed.
+				now = System.currentTimeMillis();
+				long timeout = 0;
+				for (UpwardConnection connection : upwardConnections){
+					if (connection.socket == null && !connection.channel.isConnected()){
+						long delay = Math.max(connection.nextAttempt - now, 1);
+						if (timeout == 0 || delay < timeout){
+							timeout = delay;
+						}
+					}
+				}
+
+				//Wait until a socket is ready or until the next connect should be tried. A timeout of zero waits without a limit.
+				selector.select(timeout);
+
+				List<UpwardConnection> connected = new ArrayList<UpwardConnection>();
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while (keys.hasNext()){
+					SelectionKey key = keys.next();
+					keys.remove();
+					if (!key.isValid()){
+						continue;
+					}
+					if (key.isAcceptable()){
+						acceptConnections(listener);
+					} else if (key.isConnectable()){
+						UpwardConnection connection = (UpwardConnection) key.attachment();
+						try {
+							if (connection.socket.finishConnect()){
+								key.cancel();
+								connected.add(connection);
+							}
+						} catch (IOException e) {
+							key.cancel();
+							connectFailed(connection, e);
+						}
+					}
+				}
+
+				//A socket can be set to blocking mode only after its key was removed from the selector, which happens in the next selection.
+				if (!connected.isEmpty()){
+					selector.selectNow();
+					for (UpwardConnection connection : connected){
+						connection.socket.configureBlocking(true);
+						secureConnection(connection.channel, connection.socket, connection.keyExchangeOutput);
+					}
+				}
+			}
+		} catch (IOException e) {
+			Logging.getLogger().log(Level.WARNING, e.toString());
+		} finally {
+			close(listener);
+			for (UpwardConnection connection : upwardConnections){
+				if (connection.socket != null && !connection.channel.isConnected()){
+					close(connection.socket);
+				}
+			}
+			if (selector != null){
+				close(selector);
+			}
+		}
+		Logging.getLogger().log(Level.INFO, "End of connection selector thread run");
+	}
+
+	/**
+	 * Starts a non-blocking connect of the given connection.
+	 */
+	private void startConnect(UpwardConnection connection) {
+		connection.channel.setState(PlainChannel.State.CONNECTING);
+		Logging.getLogger().log(Level.INFO, "Trying to connect to " + connection.address.getAddress() + " on port " + connection.address.getPort());
+		SocketChannel socket = null;
+		try {
+			socket = SocketChannel.open();
+			socket.configureBlocking(false);
+			connection.socket = socket;
+			if (socket.connect(connection.address)){
+				//Connected immediately; the socket was never registered to the selector.
+				socket.configureBlocking(true);
+				secureConnection(connection.channel, socket, connection.keyExchangeOutput);
+			} else {
+				socket.register(selector, SelectionKey.OP_CONNECT, connection);
+			}
+		} catch (IOException e) {
+			connectFailed(connection, e);
+		}
+	}
+
+	/**
+	 * Closes the socket of a failed connect and sets the time to try it again.
+	 */
+	private void connectFailed(UpwardConnection connection, IOException e) {
+		Logging.getLogger().log(Level.FINEST, e.toString());
+		if (connection.socket != null){
+			close(connection.socket);
+			connection.socket = null;
+		}
+		connection.nextAttempt = System.currentTimeMillis() + connection.retryDelay;
+		connection.retryDelay = Math.min(connection.retryDelay * 2, MAX_RETRY_DELAY);
+	}
+
+	/**
+	 * Accepts all the waiting connections of the listener and gives each one to a channel that waits for a connection from its IP address.
+	 */
+	private void acceptConnections(ServerSocketChannel listener) throws IOException {
+		SocketChannel socketChannel;
+		while ((socketChannel = listener.accept()) != null){
+			//get the ip of the client socket
+			InetAddress inetAddr = socketChannel.socket().getInetAddress();
+			Vector<PlainTCPChannel> channels = downwardChannels.get(inetAddr);
+
+			//check if the ip address is a valid address. I.e. exists in the map.
+			if (channels == null){
+				Logging.getLogger().log(Level.WARNING, "Unauthorized IP " + inetAddr + " tried to connect");
+				close(socketChannel);
+				continue;
+			}
+
+			//Get the first channel of this address. It may be that this is not the channel that has the appropriate port.
+			//However this is for the key exchange algorithm to check if it is important to the application that use the com layer.
+			PlainTCPChannel channel = channels.remove(0);
+			if (channels.isEmpty()){
+				downwardChannels.remove(inetAddr);
+			}
+
+			socketChannel.configureBlocking(true);
+			secureConnection(channel, socketChannel, downwardKeyExchangeOutputs.get(channel));
+		}
+	}
+
+	/**
+	 * Gives the connected socket to its channel, engages in a key exchange protocol and sets the channel to READY state.
+	 */
+	private void secureConnection(PlainTCPChannel channel, SocketChannel socket, KeyExchangeOutput keyExchangeOutput) {
+		channel.setSocket(socket.socket());
+
+		//set channel state to securing
+		channel.setState(PlainChannel.State.SECURING);
+		Logging.getLogger().log(Level.INFO, "state: securing " + channel.toString());
+
+		//start key exchange protocol
+		keyExchangeProtocol.start(null);
+
+		//copy the key exchange output to the output that was passed to the object
+		KeyExchangeOutput localKeyExchangeOutput = (KeyExchangeOutput) keyExchangeProtocol.getOutput();
+		keyExchangeOutput.setEncKey(localKeyExchangeOutput.getEncKey());
+		keyExchangeOutput.setMacKey(localKeyExchangeOutput.getMacKey());
+
+		//set the channel state to READY
+		channel.setState(PlainChannel.State.READY);
+		Logging.getLogger().log(Level.INFO, "state: ready " + channel.toString());
+		numOfNotReadyConnections--;
+	}
+
+	/**
+	 * Closes the given resource and logs a failure.
+	 */
+	private static void close(Closeable closeable) {
+		if (closeable == null){
+			return;
+		}
+		try {
+			closeable.close();
+		} catch (IOException e) {
+			Logging.getLogger().log(Level.WARNING, e.toString());
+		}
+	}
+}
@@ -29,6 +29,7 @@ package edu.biu.scapi.comm;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
@@ -36,7 +37,12 @@ import java.io.Serializable;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.Socket;
-import java.util.Arrays;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.logging.Level;
 
 import edu.biu.scapi.generals.Logging;
@@ -46,11 +52,16 @@ import edu.biu.scapi.generals.Logging;
  * In order to enforce the right usage of the Channel class we will restrict the ability to instantiate one, 
  * only to classes within the Communication Layers package. This means that the constructor of the channel will be unreachable from 
  * another package. However, the send, receive and close functions will be declared public, therefore allowing anyone holding a channel 
- * to be able to use them.
+ * to be able to use them.<p>
+ * 
+ * Each message is written to the socket as a binary frame: a one byte type, a four bytes length and the message bytes. 
+ * Byte arrays (sent by {@link #send(byte[], int, int)} or by {@link #send(Serializable)}) are written as they are, 
+ * while any other object is serialized once into the frame. This way, protocols whose messages are byte arrays do not pay for the 
+ * Java serialization mechanism.
  *  
  * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University (Meital Levy)
  */
-public class PlainTCPChannel extends PlainChannel{
+public class PlainTCPChannel extends PlainChannel implements BinaryChannel{
 	
 	
 	/**
@@ -74,13 +85,30 @@ public class PlainTCPChannel extends PlainChannel{
 			
 	}
 	
+	//The types of the frames that are written to the socket. Also used by AsyncTCPChannel, which writes the same frames.
+	static final byte OBJECT_MESSAGE = 0;
+	static final byte BYTES_MESSAGE = 1;
+	
+	//The size of a frame header: the type of the frame and the length of the message.
+	static final int HEADER_SIZE = 5;
+	
+	/**
+	 * A ByteArrayOutputStream that gives access to its internal buffer, so that a serialized object can be sent without copying it.
+	 */
+	static class ExposedByteArrayOutputStream extends ByteArrayOutputStream {
+		byte[] getBuffer() {
+			return buf;
+		}
+	}
+	
 	private Socket socket = new Socket();
-	private ObjectOutputStream outStream;
-	private ObjectInputStream inStream;
+	private ReadableByteChannel inChannel;
+	private WritableByteChannel outChannel;
 	private InetSocketAddress socketAddress;
-	private Message intermediate;
-	private Message msgObj;
-	byte[] msgBytes;
+	
+	//The headers of the sent and received frames. There are separate buffers since sending and receiving may be done by different threads.
+	private ByteBuffer sendHeader = ByteBuffer.allocate(HEADER_SIZE);
+	private ByteBuffer receiveHeader = ByteBuffer.allocate(HEADER_SIZE);
 
 
 	
@@ -106,52 +134,145 @@ public class PlainTCPChannel extends PlainChannel{
 		
 	
 	/** 
-	 * Sends the message to the other end-user of the channel with TCP protocol.
+	 * Sends the message to the other end-user of the channel with TCP protocol.<p>
+	 * A byte array is sent as it is, like in {@link #send(byte[], int, int)}. Any other object is serialized and then sent.
 	 *  
 	 * @param msg the object to send
 	 * @throws IOException Any of the usual Input/Output related exceptions.  
 	 */
 	public void send(Serializable msg) throws IOException {
-		//For some reason it turns out that writing complex objects first to a byte array message is faster than using the stream
-		//of the socket to write the object. Thus we create here a Message object and translate it back to the actual object in the receive method
-		//The use of a local stream that does the writeObject is faster than the writeObject of outStream member variable of this class
-				
-		ByteArrayOutputStream bOut = new ByteArrayOutputStream();  
+		if (msg instanceof byte[]){
+			byte[] data = (byte[]) msg;
+			sendFrame(BYTES_MESSAGE, data, 0, data.length);
+			return;
+		}
+		
+		//Serialize the object into a local stream, which is faster than writing it to the socket's stream.
+		ExposedByteArrayOutputStream bOut = new ExposedByteArrayOutputStream();  
 	    ObjectOutputStream oOut  = new ObjectOutputStream(bOut);
 		oOut.writeObject(msg);  
 		oOut.close();
 		
-		msgBytes = bOut.toByteArray();
-		msgObj = new Message(null);
-		msgObj.setData(msgBytes);
-		
-		outStream.writeObject(msgObj);
-		
-		outStream.reset();
-		//System.out.println("Sending " + msg.getClass().getName());
-		
-		//outStream.writeObject(msg);
+		sendFrame(OBJECT_MESSAGE, bOut.getBuffer(), 0, bOut.size());
+	}
+	
+	/** 
+	 * Sends the given bytes to the other end-user of the channel with TCP protocol, without serializing them.
+	 * 
+	 * @param data The array that contains the bytes to send.
+	 * @param offset The offset of the message in the data array.
+	 * @param length The number of bytes to send.
+	 * @throws IOException Any of the usual Input/Output related exceptions.  
+	 */
+	public void send(byte[] data, int offset, int length) throws IOException {
+		sendFrame(BYTES_MESSAGE, data, offset, length);
 	}
 
 	/** 
-	 * Receives the message sent by the other end-user of the channel. 
+	 * Receives the message sent by the other end-user of the channel. <p>
+	 * Messages that were sent as bytes are returned as a byte array.
 	 * 
 	 * @throws ClassNotFoundException  The Class of the serialized object cannot be found
 	 * @throws IOException Any of the usual Input/Output related exceptions
 	 */
 	public Serializable receive() throws ClassNotFoundException, IOException {
 		
-
-
-		//We actually received a message of class Message. We translate it back to the original object that was sent by the user and return this object. 
-		intermediate =   (Message) inStream.readObject();
-		ByteArrayInputStream iInput = new ByteArrayInputStream(intermediate.getData());
-		ObjectInputStream ois = new ObjectInputStream(iInput);
+		byte type = receiveHeader();
+		byte[] data = new byte[receiveHeader.getInt(1)];
+		readFully(ByteBuffer.wrap(data));
 		
+		if (type == BYTES_MESSAGE){
+			return data;
+		}
+		
+		//We received a serialized object. We translate it back to the original object that was sent by the user and return this object. 
+		ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(data));
 		return (Serializable) ois.readObject();
+	}
+	
+	/** 
+	 * Receives a message of bytes sent by the other end-user of the channel directly into the given array.
+	 * 
+	 * @param into The array to put the received bytes in.
+	 * @return the number of received bytes.
+	 * @throws IOException if the received message is not a message of bytes, if it is longer than the given array or any of 
+	 * the usual Input/Output related exceptions.
+	 */
+	public int receive(byte[] into) throws IOException {
 		
+		byte type = receiveHeader();
+		int length = receiveHeader.getInt(1);
+		if (type != BYTES_MESSAGE || length > into.length){
+			//Skip the message so that the channel can still be used.
+			readFully(ByteBuffer.allocate(length));
+			if (type != BYTES_MESSAGE){
+				throw new IOException("the received message is not a message of bytes");
+			}
+			throw new IOException("the received message of " + length + " bytes is longer than the given array");
+		}
 		
-		//return (Serializable) inStream.readObject();
+		readFully(ByteBuffer.wrap(into, 0, length));
+		return length;
+	}
+	
+	/**
+	 * Writes a frame that contains the given message to the socket.
+	 * @param type The type of the frame.
+	 * @param data The array that contains the message.
+	 * @param offset The offset of the message in the data array.
+	 * @param length The length of the message.
+	 * @throws IOException
+	 */
+	private void sendFrame(byte type, byte[] data, int offset, int length) throws IOException {
+		sendHeader.clear();
+		sendHeader.put(type).putInt(length).flip();
+		ByteBuffer body = ByteBuffer.wrap(data, offset, length);
+		
+		//Write the header and the message together when possible, so that they are sent in one packet.
+		if (outChannel instanceof GatheringByteChannel){
+			ByteBuffer[] buffers = new ByteBuffer[] {sendHeader, body};
+			while (body.hasRemaining()){
+				((GatheringByteChannel) outChannel).write(buffers);
+			}
+			// A zero length message still has a header to write.
+			while (sendHeader.hasRemaining()){
+				outChannel.write(sendHeader);
+			}
+		} else {
+			while (sendHeader.hasRemaining()){
+				outChannel.write(sendHeader);
+			}
+			while (body.hasRemaining()){
+				outChannel.write(body);
+			}
+		}
+	}
+	
+	/**
+	 * Reads the header of the next frame into receiveHeader.
+	 * @return the type of the frame.
+	 * @throws IOException
+	 */
+	private byte receiveHeader() throws IOException {
+		receiveHeader.clear();
+		readFully(receiveHeader);
+		byte type = receiveHeader.get(0);
+		if ((type != OBJECT_MESSAGE && type != BYTES_MESSAGE) || receiveHeader.getInt(1) < 0){
+			throw new IOException("received an invalid message header");
+		}
+		return type;
+	}
+	
+	/**
+	 * Reads from the socket until the given buffer is full.
+	 * @throws IOException
+	 */
+	private void readFully(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()){
+			if (inChannel.read(buffer) < 0){
+				throw new EOFException("the channel was closed by the other end-user");
+			}
+		}
 	}
 
 	/**
@@ -162,8 +283,12 @@ public class PlainTCPChannel extends PlainChannel{
 		if(socket!=null){
 			try {
 				
-				outStream.close();
-				inStream.close();
+				if (outChannel != null){
+					outChannel.close();
+				}
+				if (inChannel != null){
+					inChannel.close();
+				}
 				socket.close();
 			} catch (IOException e) {
 
@@ -181,8 +306,7 @@ public class PlainTCPChannel extends PlainChannel{
 	
 	/** 
 	 * Connects the socket to the InetSocketAddress of this object. If the server we are trying to connect to 
-	 * is not up yet then we sleep for a while and try again until the connection is established. This is done by the SecuringConnectionThread which keeps trying
-	 * until it succeeds or a timeout has been reached.<p>		
+	 * is not up yet then the connection fails, and the caller should try again until it succeeds or a timeout has been reached.<p>		
 	 * After the connection has succeeded the input and output streams are set for the send and receive functions.
 	 * @return
 	 * @throws IOException 
@@ -194,13 +318,12 @@ public class PlainTCPChannel extends PlainChannel{
 		
 		
 		//create and connect the socket. Cannot reconnect if the function connect fails since it closes the socket.
-		socket = new Socket(socketAddress.getAddress(), socketAddress.getPort());
+		socket = SocketChannel.open(socketAddress).socket();
 			
 		if(socket.isConnected()){
 			try {
 				Logging.getLogger().log(Level.INFO, "Socket connected");
-				outStream = new ObjectOutputStream(socket.getOutputStream());
-				inStream = new ObjectInputStream(socket.getInputStream());
+				setStreams();
 			} catch (IOException e) {
 				
 				Logging.getLogger().log(Level.FINEST, e.toString());
@@ -235,15 +358,30 @@ public class PlainTCPChannel extends PlainChannel{
 		this.socket = socket;
 		
 		try {
-			//set t he input and output streams
-			outStream = new ObjectOutputStream(socket.getOutputStream());
-			inStream = new ObjectInputStream(socket.getInputStream());
+			//set the input and output channels
+			setStreams();
 		} catch (IOException e) {
 
 			Logging.getLogger().log(Level.WARNING, e.toString());
 		}
 	}
 	
+	/**
+	 * Sets the channels that are used to read from and write to the socket. <p>
+	 * If the socket was created by a SocketChannel, the SocketChannel is used directly. Otherwise, the socket's streams are wrapped.
+	 * @throws IOException
+	 */
+	private void setStreams() throws IOException {
+		SocketChannel socketChannel = socket.getChannel();
+		if (socketChannel != null){
+			inChannel = socketChannel;
+			outChannel = socketChannel;
+		} else {
+			inChannel = Channels.newChannel(socket.getInputStream());
+			outChannel = Channels.newChannel(socket.getOutputStream());
+		}
+	}
+	
 	/**
 	 * Return the underlying socket. Used only internally.
 	 * @return the underlying socket
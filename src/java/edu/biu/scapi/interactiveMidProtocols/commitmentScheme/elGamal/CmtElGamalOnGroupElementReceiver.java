@@ -139,8 +139,11 @@ public class CmtElGamalOnGroupElementReceiver extends CmtElGamalReceiverCore imp
 		if (!(commitmentMsg.getCommitment() instanceof ElGamalOnGrElSendableData))
 			throw new IllegalArgumentException("commitment value is not an instance of ElGamalOnGrElSendableData");
 
-		GroupElement u = dlog.reconstructElement(true,((ElGamalOnGrElSendableData)commitmentMsg.getCommitment()).getCipher1());
-		GroupElement v = dlog.reconstructElement(true,((ElGamalOnGrElSendableData)commitmentMsg.getCommitment()).getCipher2());
+		//Reconstruct both parts of the ciphertext, checking their membership together.
+		ElGamalOnGrElSendableData cipher = (ElGamalOnGrElSendableData) commitmentMsg.getCommitment();
+		GroupElement[] cipherElements = dlog.reconstructElements(true, new GroupElementSendableData[]{cipher.getCipher1(), cipher.getCipher2()});
+		GroupElement u = cipherElements[0];
+		GroupElement v = cipherElements[1];
 		GroupElement gToR = dlog.exponentiate(dlog.getGenerator(), ((CmtElGamalDecommitmentMessage) decommitmentMsg).getR().getR());	
 		GroupElement hToR = dlog.exponentiate(publicKey.getH(), ((CmtElGamalDecommitmentMessage) decommitmentMsg).getR().getR());
 		
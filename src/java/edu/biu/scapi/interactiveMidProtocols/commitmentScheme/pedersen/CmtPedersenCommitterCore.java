@@ -180,8 +180,9 @@ public abstract class CmtPedersenCommitterCore implements CmtCommitter{
 		BigInteger r = BigIntegers.createRandomInRange(BigInteger.ZERO, qMinusOne, random);	
 		
 		//Compute  c = g^r * h^x
-		GroupElement gToR = dlog.exponentiate(dlog.getGenerator(), r);
-		GroupElement hToX = dlog.exponentiate(h, x);
+		//g and h are fixed for all the commitments, so the exponentiations use pre computed values.
+		GroupElement gToR = dlog.exponentiateWithPreComputedValues(dlog.getGenerator(), r);
+		GroupElement hToX = dlog.exponentiateWithPreComputedValues(h, x);
 		GroupElement c = dlog.multiplyGroupElements(gToR, hToX);
 		
 		//Keep the committed value in the map together with its ID.
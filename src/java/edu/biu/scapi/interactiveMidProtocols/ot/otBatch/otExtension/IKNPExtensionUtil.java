@@ -0,0 +1,243 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.interactiveMidProtocols.ot.otBatch.otExtension;
+
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Utility class used by the pure Java IKNP OT extension sender and receiver. <p>
+ *
+ * The bit matrices of the protocol are held as arrays of longs, where bit j of a column is bit (j % 64) of the long number j / 64 of the column.
+ * All the AES computations are done by the JCA AES implementation, which is used in a batch manner,
+ * so that many blocks are computed by a single call.
+ *
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+final class IKNPExtensionUtil {
+
+	/**
+	 * The security parameter of the OT extension. This is the number of base OTs and the number of bits in each row of the OTs matrix.
+	 */
+	static final int SECURITY_PARAMETER = 128;
+
+	//The number of bytes in a seed of the PRG that expands the base OTs' outputs.
+	static final int SEED_SIZE = 16;
+
+	//The number of OTs whose hash is computed in a single AES call.
+	private static final int HASH_CHUNK_SIZE = 1024;
+
+	//The key of the fixed key AES that is used as the random permutation of the correlation robust hash function.
+	private static final byte[] FIXED_KEY = new byte[] {(byte) 0x3b, (byte) 0x7c, (byte) 0x15, (byte) 0xe2, (byte) 0x81, (byte) 0xd4, (byte) 0x6a, (byte) 0x09,
+		(byte) 0xc5, (byte) 0x5f, (byte) 0xa0, (byte) 0x27, (byte) 0x96, (byte) 0x4e, (byte) 0xf3, (byte) 0x18};
+
+	private IKNPExtensionUtil() {
+	}
+
+	/**
+	 * Creates a PRG that expands the given seed. The PRG is AES in counter mode keyed with the seed. <p>
+	 * The returned object keeps its state between calls, so that each call to {@link #expand(Cipher, byte[], int)} continues the stream.
+	 * @param seed The seed of the PRG.
+	 * @return the created PRG.
+	 */
+	static Cipher createPrg(byte[] seed) {
+		try {
+			Cipher prg = Cipher.getInstance("AES/CTR/NoPadding");
+			prg.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(seed, "AES"), new IvParameterSpec(new byte[16]));
+			return prg;
+		} catch (GeneralSecurityException e) {
+			// Should not occur since AES in counter mode is supported by every Java platform.
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Creates the fixed key AES that is used by the correlation robust hash function.
+	 */
+	static Cipher createFixedKeyAes() {
+		try {
+			Cipher aes = Cipher.getInstance("AES/ECB/NoPadding");
+			aes.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(FIXED_KEY, "AES"));
+			return aes;
+		} catch (GeneralSecurityException e) {
+			// Should not occur since AES is supported by every Java platform.
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Puts the next len bytes of the given PRG's output in the given array.
+	 * @param prg The PRG to use. Should be created by {@link #createPrg(byte[])}.
+	 * @param out The array to put the output in.
+	 * @param len The number of bytes to generate.
+	 */
+	static void expand(Cipher prg, byte[] out, int len) {
+		//The output of counter mode on zeros is the key stream.
+		Arrays.fill(out, 0, len, (byte) 0);
+		try {
+			prg.update(out, 0, len, out, 0);
+		} catch (GeneralSecurityException e) {
+			// Should not occur since the output array is big enough.
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Transposes the OTs matrix. <p>
+	 * The given matrix has {@link #SECURITY_PARAMETER} columns of words*64 bits.
+	 * The output contains a row of {@link #SECURITY_PARAMETER} bits for each OT, such that row j is in rows[2*j] and rows[2*j+1].
+	 * @param columns The columns of the matrix.
+	 * @param words The number of longs in each column.
+	 * @return the rows of the matrix.
+	 */
+	static long[] transpose(long[][] columns, int words) {
+		long[] rows = new long[words * 64 * 2];
+		long[] block = new long[64];
+
+		//Transpose the matrix in blocks of 64x64 bits.
+		for (int word = 0; word < words; word++) {
+			for (int half = 0; half < 2; half++) {
+				for (int i = 0; i < 64; i++) {
+					block[i] = columns[half * 64 + i][word];
+				}
+				transpose64(block);
+				for (int j = 0; j < 64; j++) {
+					rows[2 * (word * 64 + j) + half] = block[j];
+				}
+			}
+		}
+		return rows;
+	}
+
+	/**
+	 * Transposes the given 64x64 bit matrix in place, such that bit j of block[i] becomes bit i of block[j]. <p>
+	 * The transposition is done recursively by swapping the off diagonal 32x32 blocks, then the 16x16 blocks and so on.
+	 */
+	static void transpose64(long[] block) {
+		long mask = 0x00000000FFFFFFFFL;
+		for (int j = 32; j != 0; j >>= 1, mask ^= (mask << j)) {
+			for (int k = 0; k < 64; k = ((k | j) + 1) & ~j) {
+				long t = ((block[k] >>> j) ^ block[k | j]) & mask;
+				block[k] ^= t << j;
+				block[k | j] ^= t;
+			}
+		}
+	}
+
+	/**
+	 * Computes the correlation robust hash function on the rows of the OTs matrix, XOR'd with the given value. <p>
+	 * The hash of row j is H(j, x) = AES(sigma(x) XOR j) XOR sigma(x) where x is the row XOR'd with (xorLow, xorHigh) and sigma(a, b) = (a XOR b, a).
+	 * Elements that are longer than a block are computed in counter mode, using the tweaks j*blocksPerElement, ..., j*blocksPerElement + blocksPerElement - 1.
+	 * @param aes The fixed key AES. Should be created by {@link #createFixedKeyAes()}.
+	 * @param rows The rows of the OTs matrix, as returned by {@link #transpose(long[][], int)}.
+	 * @param xorLow The low word of the value to XOR the rows with.
+	 * @param xorHigh The high word of the value to XOR the rows with.
+	 * @param numOfOts The number of OTs.
+	 * @param elementSize The size of each output element, in bytes.
+	 * @return an array that holds the hash of all rows, one after the other.
+	 */
+	static byte[] hash(Cipher aes, long[] rows, long xorLow, long xorHigh, int numOfOts, int elementSize) {
+		byte[] out = new byte[numOfOts * elementSize];
+		int blocksPerElement = (elementSize + 15) / 16;
+		byte[] in = new byte[HASH_CHUNK_SIZE * blocksPerElement * 16];
+		byte[] aesOut = new byte[in.length];
+
+		for (int first = 0; first < numOfOts; first += HASH_CHUNK_SIZE) {
+			int count = Math.min(HASH_CHUNK_SIZE, numOfOts - first);
+
+			//Prepare the inputs of the permutation for all the blocks of the chunk.
+			for (int j = 0; j < count; j++) {
+				int ot = first + j;
+				long low = rows[2 * ot] ^ xorLow;
+				long high = rows[2 * ot + 1] ^ xorHigh;
+				for (int b = 0; b < blocksPerElement; b++) {
+					int offset = (j * blocksPerElement + b) * 16;
+					writeLong(low ^ high ^ ((long) ot * blocksPerElement + b), in, offset);
+					writeLong(low, in, offset + 8);
+				}
+			}
+			try {
+				aes.doFinal(in, 0, count * blocksPerElement * 16, aesOut, 0);
+			} catch (GeneralSecurityException e) {
+				// Should not occur since the input is aligned to the block size and the output array is big enough.
+				throw new IllegalStateException(e);
+			}
+
+			//XOR the permutation outputs with sigma(x) and put the result in the output array.
+			for (int j = 0; j < count; j++) {
+				int ot = first + j;
+				long low = rows[2 * ot] ^ xorLow;
+				long high = rows[2 * ot + 1] ^ xorHigh;
+				for (int b = 0; b < blocksPerElement; b++) {
+					int offset = (j * blocksPerElement + b) * 16;
+					writeLong(readLong(aesOut, offset) ^ low ^ high, aesOut, offset);
+					writeLong(readLong(aesOut, offset + 8) ^ low, aesOut, offset + 8);
+				}
+				System.arraycopy(aesOut, j * blocksPerElement * 16, out, ot * elementSize, elementSize);
+			}
+		}
+		return out;
+	}
+
+	/**
+	 * Reads a little endian long from the given array.
+	 */
+	static long readLong(byte[] bytes, int offset) {
+		long value = 0;
+		for (int i = 7; i >= 0; i--) {
+			value = (value << 8) | (bytes[offset + i] & 0xFF);
+		}
+		return value;
+	}
+
+	/**
+	 * Writes the given long to the given array in little endian order.
+	 */
+	static void writeLong(long value, byte[] bytes, int offset) {
+		for (int i = 0; i < 8; i++) {
+			bytes[offset + i] = (byte) value;
+			value >>>= 8;
+		}
+	}
+
+	/**
+	 * XORs the given bytes into the given array.
+	 * @param target The array to XOR into.
+	 * @param targetOffset The offset in the target array.
+	 * @param source The array to XOR from.
+	 * @param sourceOffset The offset in the source array.
+	 * @param len The number of bytes to XOR.
+	 */
+	static void xor(byte[] target, int targetOffset, byte[] source, int sourceOffset, int len) {
+		for (int i = 0; i < len; i++) {
+			target[targetOffset + i] ^= source[sourceOffset + i];
+		}
+	}
+}
@@ -0,0 +1,252 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.interactiveMidProtocols.ot.otBatch.otExtension;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+
+import javax.crypto.Cipher;
+
+import edu.biu.scapi.comm.Channel;
+import edu.biu.scapi.exceptions.CheatAttemptException;
+import edu.biu.scapi.exceptions.InvalidDlogGroupException;
+import edu.biu.scapi.interactiveMidProtocols.ot.OTOnByteArrayROutput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchOnByteArraySInput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchRInput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchROutput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchReceiver;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchSender;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.semiHonest.OTSemiHonestDDHBatchOnByteArraySender;
+import edu.biu.scapi.securityLevel.SemiHonest;
+
+/**
+ * A concrete class for pure Java Semi-Honest OT extension receiver. <P>
+ *
+ * This class implements the OT extension protocol from the paper: <p>
+ * "Y. Ishai, J. Kilian, K. Nissim and E. Petrank. Extending Oblivious Transfers Efficiently. CRYPTO 2003." <p>
+ * together with the correlated and random optimizations of "G. Asharov, Y. Lindell, T. Schneier and M. Zohner.
+ * More Efficient Oblivious Transfer and Extensions for Faster Secure Computation. ACM CCS 2013." <p>
+ *
+ * Unlike {@link OTSemiHonestExtensionReceiver}, this implementation does not need any native library and runs over the channel given
+ * in the transfer function. <p>
+ * The base OTs are done once, in the first call to the transfer function, using the given batch OT sender (the receiver of the
+ * extension plays the sender of the base OTs). Further calls to the transfer function use only symmetric operations.
+ * Since the PRGs that expand the base OTs' outputs keep their state, every call to transfer should be matched by exactly
+ * one call to the sender's transfer function, in the same order. <p>
+ *
+ * The version of the OT extension is chosen by the given input instance, exactly as in {@link OTSemiHonestExtensionReceiver}.
+ *
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public class OTSemiHonestIKNPExtensionReceiver implements SemiHonest, OTBatchReceiver{
+
+	/*
+	  This class runs the following protocol (k is the security parameter and m is the number of OTs):
+		 	Base OTs (done once): SAMPLE k pairs of seeds (k0i, k1i) and run k OTs as the sender with these seeds as inputs.
+		 	For every i=1,...,k, COMPUTE:
+			-	ti = G(k0i)
+			-	ui = ti XOR G(k1i) XOR r, where r is the m bits of the choices.
+			SEND u1,...,uk to S
+			Let tj be row number j of the matrix [t1|...|tk].
+			In the general scenario, WAIT for (y0j, y1j) from S and OUTPUT xj = yrjj XOR H(j, tj).
+			In the correlated scenario, WAIT for y1j from S and OUTPUT xj = H(j, tj) if rj=0 or y1j XOR H(j, tj) if rj=1.
+			In the random scenario, OUTPUT xj = H(j, tj).
+	 */
+
+	private static final int K = IKNPExtensionUtil.SECURITY_PARAMETER;
+
+	private OTBatchSender baseOT;	//Used to run the base OTs.
+	private SecureRandom random;
+
+	//The PRGs that expand the seeds of the base OTs. Created in the first call to the transfer function.
+	private Cipher[] g0;
+	private Cipher[] g1;
+
+	private Cipher fixedKeyAes;		//Used by the correlation robust hash function.
+
+	/**
+	 * Constructor that chooses default values for the base OT and SecureRandom.<p>
+	 * The base OTs are done by {@link OTSemiHonestDDHBatchOnByteArraySender}.
+	 */
+	public OTSemiHonestIKNPExtensionReceiver(){
+		this(new OTSemiHonestDDHBatchOnByteArraySender(), new SecureRandom());
+	}
+
+	/**
+	 * Constructor that sets the given base OT sender and random.
+	 * @param baseOT The batch OT sender to use in the base OTs. Should be on byte arrays, that is, it accepts an {@link OTBatchOnByteArraySInput}.
+	 * @param random Used to sample the seeds of the base OTs.
+	 */
+	public OTSemiHonestIKNPExtensionReceiver(OTBatchSender baseOT, SecureRandom random){
+		this.baseOT = baseOT;
+		this.random = random;
+		fixedKeyAes = IKNPExtensionUtil.createFixedKeyAes();
+	}
+
+	/**
+	 * Runs the transfer phase of the OT extension protocol.<p>
+	 * In the first call, the base OTs are done before the extension.
+	 * @param channel Used to communicate with the sender.
+	 * @param input The input for the receiver specifying the version of the OT extension to run.
+	 * Every call to the transfer function can run a different OT extension version.
+	 * @return OTOnByteArrayROutput that contains the concatenation of the outputs of all the OTs.
+	 * @throws IOException if there was a problem during a communication phase.
+	 * @throws ClassNotFoundException if there was a problem during serialization mechanism.
+	 * @throws CheatAttemptException if the base OT detected a cheat attempt.
+	 */
+	public OTBatchROutput transfer(Channel channel, OTBatchRInput input) throws CheatAttemptException, IOException, ClassNotFoundException {
+
+		//Check if the input is valid. If input is not instance of OTRExtensionInput, throw Exception.
+		if (!(input instanceof OTExtensionRInput)){
+			throw new IllegalArgumentException("input should be an instance of OTRExtensionInput.");
+		}
+		byte[] sigmaArr = ((OTExtensionRInput) input).getSigmaArr();
+		int numOfOts = sigmaArr.length;
+		int elementSize = ((OTExtensionRInput) input).getElementSize();
+		if (elementSize % 8 != 0){
+			throw new IllegalArgumentException("the element size should be a multiple of 8 bits");
+		}
+		elementSize /= 8;
+
+		//Put the choice bits in the bit vector r.
+		int words = (numOfOts + 63) / 64;
+		long[] r = new long[words];
+		for (int j = 0; j < numOfOts; j++){
+			//The given sigmaI should be 0 or 1.
+			if ((sigmaArr[j] != 0) && (sigmaArr[j] != 1)){
+				throw new IllegalArgumentException("Sigma should be 0 or 1");
+			}
+			r[j / 64] |= ((long) sigmaArr[j]) << (j % 64);
+		}
+
+		if (g0 == null){
+			runBaseOTs(channel);
+		}
+
+		//For every i=1,...,k, COMPUTE ti = G(k0i) and ui = ti XOR G(k1i) XOR r.
+		int columnSize = words * 8;
+		long[][] t = new long[K][words];
+		byte[] u = new byte[K * columnSize];
+		byte[] buffer = new byte[columnSize];
+		for (int i = 0; i < K; i++){
+			IKNPExtensionUtil.expand(g0[i], buffer, columnSize);
+			for (int w = 0; w < words; w++){
+				t[i][w] = IKNPExtensionUtil.readLong(buffer, w * 8);
+			}
+			IKNPExtensionUtil.expand(g1[i], buffer, columnSize);
+			for (int w = 0; w < words; w++){
+				long ui = t[i][w] ^ IKNPExtensionUtil.readLong(buffer, w * 8) ^ r[w];
+				IKNPExtensionUtil.writeLong(ui, u, i * columnSize + w * 8);
+			}
+		}
+
+		//SEND u1,...,uk to S
+		try {
+			channel.send(u);
+		} catch (IOException e) {
+			throw new IOException("failed to send the message. The thrown message is: " + e.getMessage());
+		}
+
+		//Compute H(j, tj) for every row of the matrix.
+		long[] rows = IKNPExtensionUtil.transpose(t, words);
+		byte[] output = IKNPExtensionUtil.hash(fixedKeyAes, rows, 0, 0, numOfOts, elementSize);
+
+		//In the general scenario, the output is yrjj XOR H(j, tj).
+		if (input instanceof OTExtensionGeneralRInput){
+			byte[] y = waitForMessageFromSender(channel, 2 * numOfOts * elementSize);
+			for (int j = 0; j < numOfOts; j++){
+				IKNPExtensionUtil.xor(output, j * elementSize, y, (sigmaArr[j] * numOfOts + j) * elementSize, elementSize);
+			}
+
+		//In the correlated scenario, the output is H(j, tj) if rj=0 or y1j XOR H(j, tj) if rj=1.
+		} else if (input instanceof OTExtensionCorrelatedRInput){
+			byte[] y = waitForMessageFromSender(channel, numOfOts * elementSize);
+			for (int j = 0; j < numOfOts; j++){
+				if (sigmaArr[j] == 1){
+					IKNPExtensionUtil.xor(output, j * elementSize, y, j * elementSize, elementSize);
+				}
+			}
+		}
+
+		//In the random scenario, the output is H(j, tj).
+		return new OTOnByteArrayROutput(output);
+	}
+
+	/**
+	 * Runs the base OTs as the sender. The inputs of the base OTs are random seeds that are used to create the PRGs.
+	 */
+	private void runBaseOTs(Channel channel) throws IOException, ClassNotFoundException, CheatAttemptException {
+		ArrayList<byte[]> seeds0 = new ArrayList<byte[]>();
+		ArrayList<byte[]> seeds1 = new ArrayList<byte[]>();
+		for (int i = 0; i < K; i++){
+			byte[] seed0 = new byte[IKNPExtensionUtil.SEED_SIZE];
+			byte[] seed1 = new byte[IKNPExtensionUtil.SEED_SIZE];
+			random.nextBytes(seed0);
+			random.nextBytes(seed1);
+			seeds0.add(seed0);
+			seeds1.add(seed1);
+		}
+
+		try {
+			baseOT.transfer(channel, new OTBatchOnByteArraySInput(seeds0, seeds1));
+		} catch (InvalidDlogGroupException e) {
+			throw new IllegalStateException("the base OT uses an invalid dlog group: " + e.getMessage());
+		}
+
+		//Create the PRGs only after the base OTs succeeded.
+		Cipher[] prgs0 = new Cipher[K];
+		Cipher[] prgs1 = new Cipher[K];
+		for (int i = 0; i < K; i++){
+			prgs0[i] = IKNPExtensionUtil.createPrg(seeds0.get(i));
+			prgs1[i] = IKNPExtensionUtil.createPrg(seeds1.get(i));
+		}
+		g0 = prgs0;
+		g1 = prgs1;
+	}
+
+	/**
+	 * Waits for the y values from the sender.
+	 * @param channel
+	 * @param size The expected size of the message.
+	 * @return the received message.
+	 * @throws ClassNotFoundException
+	 * @throws IOException if failed to receive a message.
+	 */
+	private byte[] waitForMessageFromSender(Channel channel, int size) throws ClassNotFoundException, IOException {
+		Serializable message;
+		try {
+			message = channel.receive();
+		} catch (IOException e) {
+			throw new IOException("failed to receive message. The thrown message is: " + e.getMessage());
+		}
+		if (!(message instanceof byte[]) || ((byte[]) message).length != size){
+			throw new IllegalArgumentException("the given message should be a byte array of size " + size);
+		}
+		return (byte[]) message;
+	}
+}
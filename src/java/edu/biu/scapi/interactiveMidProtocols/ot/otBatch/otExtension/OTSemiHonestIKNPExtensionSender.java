@@ -0,0 +1,276 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.interactiveMidProtocols.ot.otBatch.otExtension;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+
+import javax.crypto.Cipher;
+
+import edu.biu.scapi.comm.Channel;
+import edu.biu.scapi.exceptions.CheatAttemptException;
+import edu.biu.scapi.exceptions.InvalidDlogGroupException;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchOnByteArrayROutput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchRBasicInput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchROutput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchReceiver;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchSInput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchSOutput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchSender;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.semiHonest.OTSemiHonestDDHBatchOnByteArrayReceiver;
+import edu.biu.scapi.securityLevel.SemiHonest;
+
+/**
+ * A concrete class for pure Java Semi-Honest OT extension sender. <P>
+ *
+ * This class implements the OT extension protocol from the paper: <p>
+ * "Y. Ishai, J. Kilian, K. Nissim and E. Petrank. Extending Oblivious Transfers Efficiently. CRYPTO 2003." <p>
+ * together with the correlated and random optimizations of "G. Asharov, Y. Lindell, T. Schneier and M. Zohner.
+ * More Efficient Oblivious Transfer and Extensions for Faster Secure Computation. ACM CCS 2013." <p>
+ *
+ * Unlike {@link OTSemiHonestExtensionSender}, this implementation does not need any native library and runs over the channel given
+ * in the transfer function. <p>
+ * The base OTs are done once, in the first call to the transfer function, using the given batch OT receiver (the sender of the
+ * extension plays the receiver of the base OTs). Further calls to the transfer function use only symmetric operations.
+ * Since the PRGs that expand the base OTs' outputs keep their state, every call to transfer should be matched by exactly
+ * one call to the receiver's transfer function, in the same order. <p>
+ *
+ * There are three versions of OT extension: General, Correlated and Random. The difference between them is the way of getting the inputs: <p>
+ * In general OT extension both x0 and x1 are given by the user.<p>
+ * In Correlated OT extension the user gives a delta array and x0, x1 arrays are chosen such that x0 = delta^x1.<p>
+ * In random OT extension both x0 and x1 are chosen randomly.<p>
+ * The particular OT extension version is executed according to the given input instance, exactly as in {@link OTSemiHonestExtensionSender}.
+ *
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public class OTSemiHonestIKNPExtensionSender implements SemiHonest, OTBatchSender{
+
+	/*
+	  This class runs the following protocol (k is the security parameter and m is the number of OTs):
+		 	Base OTs (done once): SAMPLE a random s in {0,1}^k and run k OTs as the receiver with the bits of s as inputs, to get the seeds ksii.
+		 	WAIT for u1,...,uk from R
+		 	For every i=1,...,k, COMPUTE qi = G(ksii) XOR (si * ui)
+			Let qj be row number j of the matrix [q1|...|qk].
+			In the general scenario, SEND y0j = x0j XOR H(j, qj) and y1j = x1j XOR H(j, qj XOR s) to R.
+			In the correlated scenario, OUTPUT x0j = H(j, qj), x1j = x0j XOR deltaj and SEND y1j = x1j XOR H(j, qj XOR s) to R.
+			In the random scenario, OUTPUT x0j = H(j, qj) and x1j = H(j, qj XOR s).
+	 */
+
+	private static final int K = IKNPExtensionUtil.SECURITY_PARAMETER;
+
+	private OTBatchReceiver baseOT;	//Used to run the base OTs.
+	private SecureRandom random;
+
+	//The bits of s, as two words. Bit i of s is the choice of the sender in base OT number i.
+	private long sLow;
+	private long sHigh;
+
+	//The PRGs that expand the outputs of the base OTs. Created in the first call to the transfer function.
+	private Cipher[] g;
+
+	private Cipher fixedKeyAes;		//Used by the correlation robust hash function.
+
+	/**
+	 * Constructor that chooses default values for the base OT and SecureRandom.<p>
+	 * The base OTs are done by {@link OTSemiHonestDDHBatchOnByteArrayReceiver}.
+	 */
+	public OTSemiHonestIKNPExtensionSender(){
+		this(new OTSemiHonestDDHBatchOnByteArrayReceiver(), new SecureRandom());
+	}
+
+	/**
+	 * Constructor that sets the given base OT receiver and random.
+	 * @param baseOT The batch OT receiver to use in the base OTs. Should be on byte arrays, that is, it accepts an {@link OTBatchRBasicInput}
+	 * 				 and outputs an {@link OTBatchOnByteArrayROutput}.
+	 * @param random Used to sample the choices of the base OTs.
+	 */
+	public OTSemiHonestIKNPExtensionSender(OTBatchReceiver baseOT, SecureRandom random){
+		this.baseOT = baseOT;
+		this.random = random;
+		fixedKeyAes = IKNPExtensionUtil.createFixedKeyAes();
+	}
+
+	/**
+	 * Runs the transfer phase of the OT extension protocol.<p>
+	 * In the first call, the base OTs are done before the extension.
+	 * @param channel Used to communicate with the receiver.
+	 * @param input The input for the sender specifying the version of the OT extension to run.
+	 * Every call to the transfer function can run a different OT extension version.
+	 * @return null in the general version; OTExtensionSOutput that contains x0 and x1 in the correlated and random versions.
+	 * @throws IOException if there was a problem during a communication phase.
+	 * @throws ClassNotFoundException if there was a problem during serialization mechanism.
+	 * @throws CheatAttemptException if the base OT detected a cheat attempt.
+	 * @throws InvalidDlogGroupException if the base OT uses an invalid dlog group.
+	 */
+	public OTBatchSOutput transfer(Channel channel, OTBatchSInput input) throws ClassNotFoundException, IOException, CheatAttemptException, InvalidDlogGroupException {
+
+		//Retrieve the number of OTs and the size of each element from the input.
+		int numOfOts;
+		int elementSize;
+		if (input instanceof OTExtensionGeneralSInput){
+			numOfOts = ((OTExtensionGeneralSInput) input).getNumOfOts();
+			elementSize = ((OTExtensionGeneralSInput) input).getX0Arr().length / numOfOts;
+			if (((OTExtensionGeneralSInput) input).getX1Arr().length != numOfOts * elementSize){
+				throw new IllegalArgumentException("x0 and x1 should be of the same length.");
+			}
+		} else if (input instanceof OTExtensionCorrelatedSInput){
+			numOfOts = ((OTExtensionCorrelatedSInput) input).getNumOfOts();
+			elementSize = ((OTExtensionCorrelatedSInput) input).getDelta().length / numOfOts;
+		} else if (input instanceof OTExtensionRandomSInput){
+			numOfOts = ((OTExtensionRandomSInput) input).getNumOfOts();
+			int bitLength = ((OTExtensionRandomSInput) input).getBitLength();
+			if (bitLength % 8 != 0){
+				throw new IllegalArgumentException("the element size should be a multiple of 8 bits");
+			}
+			elementSize = bitLength / 8;
+
+		//If input is not instance of the above inputs, throw Exception.
+		} else {
+			throw new IllegalArgumentException("input should be an instance of OTExtensionGeneralSInput or OTExtensionCorrelatedSInput or OTExtensionRandomSInput.");
+		}
+
+		if (g == null){
+			runBaseOTs(channel);
+		}
+
+		//WAIT for u1,...,uk from R
+		int words = (numOfOts + 63) / 64;
+		int columnSize = words * 8;
+		byte[] u = waitForMessageFromReceiver(channel, K * columnSize);
+
+		//For every i=1,...,k, COMPUTE qi = G(ksii) XOR (si * ui)
+		long[][] q = new long[K][words];
+		byte[] buffer = new byte[columnSize];
+		for (int i = 0; i < K; i++){
+			IKNPExtensionUtil.expand(g[i], buffer, columnSize);
+			boolean si = (((i < 64) ? sLow >>> i : sHigh >>> (i - 64)) & 1) == 1;
+			for (int w = 0; w < words; w++){
+				long qi = IKNPExtensionUtil.readLong(buffer, w * 8);
+				if (si){
+					qi ^= IKNPExtensionUtil.readLong(u, i * columnSize + w * 8);
+				}
+				q[i][w] = qi;
+			}
+		}
+
+		//Compute H(j, qj) and H(j, qj XOR s) for every row of the matrix.
+		long[] rows = IKNPExtensionUtil.transpose(q, words);
+		byte[] x0 = IKNPExtensionUtil.hash(fixedKeyAes, rows, 0, 0, numOfOts, elementSize);
+		byte[] x1 = IKNPExtensionUtil.hash(fixedKeyAes, rows, sLow, sHigh, numOfOts, elementSize);
+		int length = numOfOts * elementSize;
+
+		// In case the given input is general input, send y0 = x0 XOR H(j, qj) and y1 = x1 XOR H(j, qj XOR s).
+		if (input instanceof OTExtensionGeneralSInput){
+			byte[] y = new byte[2 * length];
+			System.arraycopy(x0, 0, y, 0, length);
+			System.arraycopy(x1, 0, y, length, length);
+			IKNPExtensionUtil.xor(y, 0, ((OTExtensionGeneralSInput) input).getX0Arr(), 0, length);
+			IKNPExtensionUtil.xor(y, length, ((OTExtensionGeneralSInput) input).getX1Arr(), 0, length);
+			sendToReceiver(channel, y);
+
+			//This version has no output. Return null.
+			return null;
+
+		//In case the given input is correlated input, x0 = H(j, qj) and x1 = x0 XOR delta. Send y1 = x1 XOR H(j, qj XOR s).
+		} else if (input instanceof OTExtensionCorrelatedSInput){
+			byte[] y = x1;
+			x1 = x0.clone();
+			IKNPExtensionUtil.xor(x1, 0, ((OTExtensionCorrelatedSInput) input).getDelta(), 0, length);
+			IKNPExtensionUtil.xor(y, 0, x1, 0, length);
+			sendToReceiver(channel, y);
+
+			//Return output contains x0, x1.
+			return new OTExtensionSOutput(x0, x1);
+		}
+
+		//In case the given input is random input, x0 = H(j, qj) and x1 = H(j, qj XOR s).
+		return new OTExtensionSOutput(x0, x1);
+	}
+
+	/**
+	 * Runs the base OTs as the receiver. The choices of the base OTs are the bits of s and the outputs are used as seeds of the PRGs.
+	 */
+	private void runBaseOTs(Channel channel) throws IOException, ClassNotFoundException, CheatAttemptException {
+		long low = random.nextLong();
+		long high = random.nextLong();
+		ArrayList<Byte> sigmaArr = new ArrayList<Byte>();
+		for (int i = 0; i < K; i++){
+			sigmaArr.add((byte) (((i < 64) ? low >>> i : high >>> (i - 64)) & 1));
+		}
+
+		OTBatchROutput output = baseOT.transfer(channel, new OTBatchRBasicInput(sigmaArr));
+		if (!(output instanceof OTBatchOnByteArrayROutput)){
+			throw new IllegalStateException("the base OT should output an OTBatchOnByteArrayROutput");
+		}
+		ArrayList<byte[]> seeds = ((OTBatchOnByteArrayROutput) output).getXSigmaArr();
+
+		//Create the PRGs only after the base OTs succeeded.
+		Cipher[] prgs = new Cipher[K];
+		for (int i = 0; i < K; i++){
+			prgs[i] = IKNPExtensionUtil.createPrg(seeds.get(i));
+		}
+		sLow = low;
+		sHigh = high;
+		g = prgs;
+	}
+
+	/**
+	 * Waits for the u values from the receiver.
+	 * @param channel
+	 * @param size The expected size of the message.
+	 * @return the received message.
+	 * @throws ClassNotFoundException
+	 * @throws IOException if failed to receive a message.
+	 */
+	private byte[] waitForMessageFromReceiver(Channel channel, int size) throws ClassNotFoundException, IOException {
+		Serializable message;
+		try {
+			message = channel.receive();
+		} catch (IOException e) {
+			throw new IOException("failed to receive message. The thrown message is: " + e.getMessage());
+		}
+		if (!(message instanceof byte[]) || ((byte[]) message).length != size){
+			throw new IllegalArgumentException("the given message should be a byte array of size " + size);
+		}
+		return (byte[]) message;
+	}
+
+	/**
+	 * Sends the y values to the receiver.
+	 * @param channel
+	 * @param y The message to send.
+	 * @throws IOException if failed to send the message.
+	 */
+	private void sendToReceiver(Channel channel, byte[] y) throws IOException {
+		try {
+			channel.send(y);
+		} catch (IOException e) {
+			throw new IOException("failed to send the message. The thrown message is: " + e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,130 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.interactiveMidProtocols.ot.otBatch.semiHonest;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import edu.biu.scapi.primitives.dlog.DlogGroup;
+import edu.biu.scapi.primitives.dlog.GroupElement;
+import edu.biu.scapi.primitives.dlog.GroupElementSendableData;
+
+/**
+ * Runs a computation on every index of a batch of OTs, either in the calling thread or divided between the threads of a fork-join pool. <p>
+ * The batch OT protocols use it for the group operations of the OTs, which are the most expensive part of the protocols. 
+ * The computation of each index should depend only on its own inputs and write only its own outputs, 
+ * so the results are identical to the ones of the sequential loop. <p>
+ * The underlying DlogGroup is used by all the threads at the same time, so it should support concurrent operations.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+class OTBatchParallelLoop extends RecursiveAction {
+	
+	private static final long serialVersionUID = 1L;
+	
+	//The number of OTs that are computed by a single task. Smaller batches are computed by the calling thread.
+	private static final int OTS_PER_TASK = 16;
+	
+	/**
+	 * The computation of a single OT in the batch.
+	 */
+	interface Body {
+		
+		/**
+		 * Computes the OT with the given index.
+		 */
+		void compute(int i);
+	}
+	
+	private Body body;
+	private int from;
+	private int to;
+	private int indicesPerTask;	//The number of indices that are computed by a single task.
+	
+	private OTBatchParallelLoop(Body body, int from, int to, int indicesPerTask) {
+		this.body = body;
+		this.from = from;
+		this.to = to;
+		this.indicesPerTask = indicesPerTask;
+	}
+	
+	/**
+	 * Computes the given body on every index between 0 and size.
+	 * @param pool The pool to divide the indices between its threads, or null in order to compute all of them in the calling thread.
+	 * @param size The number of OTs in the batch.
+	 * @param body The computation of a single OT.
+	 */
+	static void run(ForkJoinPool pool, int size, Body body) {
+		if (pool == null || size <= OTS_PER_TASK) {
+			for (int i = 0; i < size; i++) {
+				body.compute(i);
+			}
+		} else {
+			pool.invoke(new OTBatchParallelLoop(body, 0, size, OTS_PER_TASK));
+		}
+	}
+	
+	/**
+	 * Reconstructs and checks the membership of the given group elements by {@link DlogGroup#reconstructElements(boolean, GroupElementSendableData[])}. <p>
+	 * If there is a pool, the elements are divided into parts of OTS_PER_TASK elements and every part is reconstructed as a batch by one of the threads of the pool.
+	 * @param pool The pool to divide the elements between its threads, or null in order to reconstruct all of them in the calling thread.
+	 * @param dlog The group of the elements.
+	 * @param data The data of the elements to reconstruct.
+	 * @return the reconstructed elements, in the order of the given data.
+	 * @throws IllegalArgumentException if one of the given data does not correspond to an element of the group.
+	 */
+	static GroupElement[] reconstructElements(ForkJoinPool pool, final DlogGroup dlog, final GroupElementSendableData[] data) {
+		if (pool == null || data.length <= OTS_PER_TASK) {
+			return dlog.reconstructElements(true, data);
+		}
+		
+		final GroupElement[] elements = new GroupElement[data.length];
+		int parts = (data.length + OTS_PER_TASK - 1) / OTS_PER_TASK;
+		pool.invoke(new OTBatchParallelLoop(new Body() {
+			@Override
+			public void compute(int part) {
+				int partStart = part * OTS_PER_TASK;
+				int partEnd = Math.min(partStart + OTS_PER_TASK, data.length);
+				GroupElement[] partElements = dlog.reconstructElements(true, Arrays.copyOfRange(data, partStart, partEnd));
+				System.arraycopy(partElements, 0, elements, partStart, partElements.length);
+			}
+		}, 0, parts, 1));
+		return elements;
+	}
+	
+	@Override
+	protected void compute() {
+		if (to - from <= indicesPerTask) {
+			for (int i = from; i < to; i++) {
+				body.compute(i);
+			}
+		} else {
+			int middle = (from + to) >>> 1;
+			invokeAll(new OTBatchParallelLoop(body, from, middle, indicesPerTask), new OTBatchParallelLoop(body, middle, to, indicesPerTask));
+		}
+	}
+}
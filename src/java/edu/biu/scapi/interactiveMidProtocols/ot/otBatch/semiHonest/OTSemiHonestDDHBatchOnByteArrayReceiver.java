@@ -36,6 +36,7 @@ import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchOnByteArrayROutpu
 import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchROutput;
 import edu.biu.scapi.primitives.dlog.DlogGroup;
 import edu.biu.scapi.primitives.dlog.GroupElement;
+import edu.biu.scapi.primitives.dlog.GroupElementSendableData;
 import edu.biu.scapi.primitives.kdf.KeyDerivationFunction;
 import edu.biu.scapi.securityLevel.SemiHonest;
 import edu.biu.scapi.tools.Factories.KdfFactory;
@@ -93,19 +94,32 @@ public class OTSemiHonestDDHBatchOnByteArrayReceiver extends OTSemiHonestDDHBatc
 			throw new IllegalArgumentException("message should be instance of OTSemiHonestDDHBatchOnByteArraySenderMsg");
 		}
 		
-		OTSemiHonestDDHBatchOnByteArraySenderMsg msg = (OTSemiHonestDDHBatchOnByteArraySenderMsg)message;
+		final OTSemiHonestDDHBatchOnByteArraySenderMsg msg = (OTSemiHonestDDHBatchOnByteArraySenderMsg)message;
 		int size = sigmaArr.size();
 		ArrayList<byte[]> xSigmaArr = new ArrayList<byte[]> ();
-		GroupElement u, kSigma;
 		byte[] vSigma, xSigma;
+		
+		//Recreate all the u elements from the data in the received message, checking their membership as a batch.
+		GroupElementSendableData[] uData = new GroupElementSendableData[size];
+		for (int i=0; i<size; i++){
+			uData[i] = msg.getTuples().get(i).getU();
+		}
+		final GroupElement[] uArr = OTBatchParallelLoop.reconstructElements(pool, dlog, uData);
+		
+		//Compute kSigma of all the OTs. The exponentiations are divided between the threads of the pool, if there is one.
+		final ArrayList<BigInteger> alpha = alphaArr;
+		final GroupElement[] kSigmaArr = new GroupElement[size];
+		OTBatchParallelLoop.run(pool, size, new OTBatchParallelLoop.Body() {
+			@Override
+			public void compute(int i) {
+				kSigmaArr[i] = dlog.exponentiate(uArr[i], alpha.get(i));
+			}
+		});
 
 		for (int i=0; i<size; i++){
 			
 			OTSemiHonestDDHOnByteArraySenderMsg tuple = msg.getTuples().get(i);
-			//Compute kSigma:
-			u = dlog.reconstructElement(true, tuple.getU());
-			kSigma = dlog.exponentiate(u, alphaArr.get(i));
-			byte[] kBytes = dlog.mapAnyGroupElementToByteArray(kSigma);
+			byte[] kBytes = dlog.mapAnyGroupElementToByteArray(kSigmaArr[i]);
 			
 			//Get v0 or v1 according to sigma.
 			if (sigmaArr.get(i) == 0){
@@ -27,6 +27,7 @@ package edu.biu.scapi.interactiveMidProtocols.ot.otBatch.semiHonest;
 import java.math.BigInteger;
 import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import edu.biu.scapi.exceptions.SecurityLevelException;
 import edu.biu.scapi.interactiveMidProtocols.ot.OTSMsg;
@@ -35,6 +36,7 @@ import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchOnGroupElementROu
 import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchROutput;
 import edu.biu.scapi.primitives.dlog.DlogGroup;
 import edu.biu.scapi.primitives.dlog.GroupElement;
+import edu.biu.scapi.primitives.dlog.GroupElementSendableData;
 import edu.biu.scapi.securityLevel.SemiHonest;
 
 /**
@@ -82,36 +84,38 @@ public class OTSemiHonestDDHBatchOnGroupElementReceiver extends OTSemiHonestDDHB
 			throw new IllegalArgumentException("message should be instance of OTSemiHonestDDHBatchOnGroupElementSenderMsg");
 		}
 		
-		OTSemiHonestDDHBatchOnGroupElementSenderMsg msg = (OTSemiHonestDDHBatchOnGroupElementSenderMsg)message;
+		final OTSemiHonestDDHBatchOnGroupElementSenderMsg msg = (OTSemiHonestDDHBatchOnGroupElementSenderMsg)message;
+		final ArrayList<Byte> sigma = sigmaArr;
+		final ArrayList<BigInteger> alpha = alphaArr;
 		int size = sigmaArr.size();
-		ArrayList<GroupElement> xSigmaArr = new ArrayList<GroupElement>();
-		GroupElement u, kSigma, vSigma;
-		BigInteger beta;
-
-		for (int i=0; i<size; i++){
-			
+		final GroupElement[] xSigmaArr = new GroupElement[size];
+		
+		//Recreate u and v0 or v1 (according to sigma) of all the OTs, checking their membership as a batch.
+		GroupElementSendableData[] uData = new GroupElementSendableData[size];
+		GroupElementSendableData[] vSigmaData = new GroupElementSendableData[size];
+		for (int i = 0; i < size; i++) {
 			OTSemiHonestDDHOnGroupElementSenderMsg tuple = msg.getTuples().get(i);
-			//Compute (kSigma)^(-1) = u^(-alpha):
-			u = dlog.reconstructElement(true, tuple.getU());	//Get u
-			beta = dlog.getOrder().subtract(alphaArr.get(i));	//Get -alpha
-			kSigma = dlog.exponentiate(u, beta);
-			
-			
-			//Get v0 or v1 according to sigma.
-			vSigma = null;
-			if (sigmaArr.get(i) == 0){
-				vSigma = dlog.reconstructElement(true, tuple.getV0());
-			} else {
-				vSigma = dlog.reconstructElement(true, tuple.getV1());
-			}
-			
-			//Compue xSigma
-			GroupElement xSigma = dlog.multiplyGroupElements(vSigma, kSigma);
-			
-			//Create and return the output containing xSigma
-			xSigmaArr.add(i, xSigma);
+			uData[i] = tuple.getU();
+			vSigmaData[i] = (sigma.get(i) == 0) ? tuple.getV0() : tuple.getV1();
 		}
-		return new OTBatchOnGroupElementROutput(xSigmaArr);
+		final GroupElement[] uArr = OTBatchParallelLoop.reconstructElements(pool, dlog, uData);
+		final GroupElement[] vSigmaArr = OTBatchParallelLoop.reconstructElements(pool, dlog, vSigmaData);
+
+		//The OTs are independent, so they are divided between the threads of the pool, if there is one.
+		OTBatchParallelLoop.run(pool, size, new OTBatchParallelLoop.Body() {
+			@Override
+			public void compute(int i) {
+				//Compute (kSigma)^(-1) = u^(-alpha):
+				BigInteger beta = dlog.getOrder().subtract(alpha.get(i));	//Get -alpha
+				GroupElement kSigma = dlog.exponentiate(uArr[i], beta);
+				
+				//Compue xSigma
+				xSigmaArr[i] = dlog.multiplyGroupElements(vSigmaArr[i], kSigma);
+			}
+		});
+		
+		//Create and return the output containing xSigma
+		return new OTBatchOnGroupElementROutput(new ArrayList<GroupElement>(Arrays.asList(xSigmaArr)));
 	
 	}
 
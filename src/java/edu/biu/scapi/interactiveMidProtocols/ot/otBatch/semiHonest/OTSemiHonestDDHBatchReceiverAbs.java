@@ -29,6 +29,8 @@ import java.io.Serializable;
 import java.math.BigInteger;
 import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
 
 import org.bouncycastle.util.BigIntegers;
 
@@ -79,6 +81,7 @@ abstract class OTSemiHonestDDHBatchReceiverAbs implements OTBatchReceiver{
 	protected DlogGroup dlog;
 	private SecureRandom random;
 	private BigInteger qMinusOne;
+	protected ForkJoinPool pool;	//Divides the OTs of the batch between its threads. Null if they are computed sequentially.
 	
 	/**
 	 * Constructor that chooses default values of DlogGroup and SecureRandom.
@@ -133,6 +136,16 @@ abstract class OTSemiHonestDDHBatchReceiverAbs implements OTBatchReceiver{
 		
 	}
 	
+	/**
+	 * Sets a fork-join pool whose threads compute the exponentiations of the OTs in the batch. <p>
+	 * The random values are still sampled by the calling thread, so the results are identical to the ones that are computed without a pool. 
+	 * The underlying DlogGroup is used by all the pool's threads, so it should support concurrent operations.
+	 * @param pool The pool to use, or null in order to compute the OTs in the calling thread.
+	 */
+	public void setForkJoinPool(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+	
 	/**
 	 * Runs the transfer phase of the OT protocol.<p>
 	 * "For every i=1,m, SAMPLE random values alphaI <- Zq and hi <- G <p>
@@ -195,27 +208,31 @@ abstract class OTSemiHonestDDHBatchReceiverAbs implements OTBatchReceiver{
 	 * @param sigma input for the protocol
 	 * @return OTRSemiHonestMessage contains the tuple (h0, h1).
 	 */
-	private OTRGroupElementBatchMsg computeTuples(ArrayList<BigInteger> alphaArr, ArrayList<GroupElement> hArr, ArrayList<Byte> sigmaArr) {
+	private OTRGroupElementBatchMsg computeTuples(final ArrayList<BigInteger> alphaArr, final ArrayList<GroupElement> hArr, final ArrayList<Byte> sigmaArr) {
 		int size = alphaArr.size();
-		GroupElement g = dlog.getGenerator();
-		ArrayList<OTRGroupElementPairMsg> tuples = new ArrayList<OTRGroupElementPairMsg>();
-		for (int i=0; i<size; i++){
-			//Calculate g^alphaI.
-			GroupElement gAlpha = dlog.exponentiate(g, alphaArr.get(i));
-					
-			GroupElement h0 = null;
-			GroupElement h1 = null;
-			//If SigmaI = 0 then hi0 = g^alphaI  and hi1=hi
-			if (sigmaArr.get(i) == 0){
-				h0 = gAlpha;
-				h1 = hArr.get(i);
-			} else{ //If SigmaI = 1 then hi0=hi and hi1 = g^alphaI
-				h0 = hArr.get(i);
-				h1 = gAlpha;
+		final GroupElement g = dlog.getGenerator();
+		final OTRGroupElementPairMsg[] tuples = new OTRGroupElementPairMsg[size];
+		//The OTs are independent, so they are divided between the threads of the pool, if there is one.
+		OTBatchParallelLoop.run(pool, size, new OTBatchParallelLoop.Body() {
+			@Override
+			public void compute(int i) {
+				//Calculate g^alphaI. The generator is fixed for all the OTs, so the exponentiation uses pre computed values.
+				GroupElement gAlpha = dlog.exponentiateWithPreComputedValues(g, alphaArr.get(i));
+						
+				GroupElement h0 = null;
+				GroupElement h1 = null;
+				//If SigmaI = 0 then hi0 = g^alphaI  and hi1=hi
+				if (sigmaArr.get(i) == 0){
+					h0 = gAlpha;
+					h1 = hArr.get(i);
+				} else{ //If SigmaI = 1 then hi0=hi and hi1 = g^alphaI
+					h0 = hArr.get(i);
+					h1 = gAlpha;
+				}
+				tuples[i] = new OTRGroupElementPairMsg(h0.generateSendableData(), h1.generateSendableData());
 			}
-			tuples.add(i, new OTRGroupElementPairMsg(h0.generateSendableData(), h1.generateSendableData()));
-		}
-		return new OTRGroupElementBatchMsg(tuples);
+		});
+		return new OTRGroupElementBatchMsg(new ArrayList<OTRGroupElementPairMsg>(Arrays.asList(tuples)));
 	}
 	
 	/**
@@ -29,6 +29,8 @@ import java.io.Serializable;
 import java.math.BigInteger;
 import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
 import java.util.logging.Level;
 
 import edu.biu.scapi.generals.Logging;
@@ -45,6 +47,7 @@ import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchSOutput;
 import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchSender;
 import edu.biu.scapi.primitives.dlog.DlogGroup;
 import edu.biu.scapi.primitives.dlog.GroupElement;
+import edu.biu.scapi.primitives.dlog.GroupElementSendableData;
 import edu.biu.scapi.securityLevel.DDH;
 import edu.biu.scapi.tools.Factories.DlogGroupFactory;
 
@@ -82,6 +85,7 @@ abstract class OTSemiHonestDDHBatchSenderAbs implements OTBatchSender{
 	protected DlogGroup dlog;
 	private SecureRandom random;
 	private BigInteger qMinusOne;
+	protected ForkJoinPool pool;	//Divides the OTs of the batch between its threads. Null if they are computed sequentially.
 
 	/**
 	 * Constructor that chooses default values of DlogGroup and SecureRandom.
@@ -135,6 +139,16 @@ abstract class OTSemiHonestDDHBatchSenderAbs implements OTBatchSender{
 		// This protocol has no pre process stage.
 	}
 
+	/**
+	 * Sets a fork-join pool whose threads compute the exponentiations of the OTs in the batch. <p>
+	 * The results are identical to the ones that are computed without a pool. 
+	 * The underlying DlogGroup is used by all the pool's threads, so it should support concurrent operations.
+	 * @param pool The pool to use, or null in order to compute the OTs in the calling thread.
+	 */
+	public void setForkJoinPool(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
 	/**
 	 * Runs the transfer phase of the protocol.<p>
 	 *	"WAIT for message (h0i,h1i) from R<p>
@@ -157,34 +171,41 @@ abstract class OTSemiHonestDDHBatchSenderAbs implements OTBatchSender{
 		OTRGroupElementBatchMsg message = waitForMessageFromReceiver(channel);
 		
 		//SAMPLE a random value r in  [0, . . . , q-1] 
-		BigInteger r = BigIntegers.createRandomInRange(BigInteger.ZERO, qMinusOne, random);
+		final BigInteger r = BigIntegers.createRandomInRange(BigInteger.ZERO, qMinusOne, random);
 		GroupElement g = dlog.getGenerator(); //Get the group generator.
 		
-		//Calculate u = g^r.
-		GroupElement u = dlog.exponentiate(g, r);
+		//Calculate u = g^r. The generator is fixed for all the transfers, so the exponentiation uses pre computed values.
+		GroupElement u = dlog.exponentiateWithPreComputedValues(g, r);
 		
 		ArrayList<OTRGroupElementPairMsg> tuples = message.getTuples();
 		int size = tuples.size();
-		ArrayList<GroupElement> k0Array = new ArrayList<GroupElement>();
-		ArrayList<GroupElement> k1Array = new ArrayList<GroupElement>();
-		GroupElement h0, h1;
-		OTRGroupElementPairMsg tuple;
+		final GroupElement[] k0Array = new GroupElement[size];
+		final GroupElement[] k1Array = new GroupElement[size];
+		
+		//Recreate all the h0 and h1 elements from the data in the received message, checking their membership as a batch.
+		GroupElementSendableData[] h0Data = new GroupElementSendableData[size];
+		GroupElementSendableData[] h1Data = new GroupElementSendableData[size];
+		for (int i = 0; i < size; i++) {
+			h0Data[i] = tuples.get(i).getFirstGE();
+			h1Data[i] = tuples.get(i).getSecondGE();
+		}
+		final GroupElement[] h0Array = OTBatchParallelLoop.reconstructElements(pool, dlog, h0Data);
+		final GroupElement[] h1Array = OTBatchParallelLoop.reconstructElements(pool, dlog, h1Data);
 		
 		//For every i=1,...,m, COMPUTE:
 		//	ki0 = (hi0)^r
 		//	ki1 = (hi1)^r
-		for (int i=0; i<size; i++){
-			tuple = tuples.get(i);
-			//Recreate h0 from the data in the received message.
-			h0 = dlog.reconstructElement(true, tuple.getFirstGE());
-			h1 = dlog.reconstructElement(true, tuple.getSecondGE());
-			
-			//Calculate k0 = h0^r.
-			k0Array.add(i, dlog.exponentiate(h0, r));
-			k1Array.add(i, dlog.exponentiate(h1, r));
-		}
+		//The OTs are independent, so they are divided between the threads of the pool, if there is one.
+		OTBatchParallelLoop.run(pool, size, new OTBatchParallelLoop.Body() {
+			@Override
+			public void compute(int i) {
+				//Calculate k0 = h0^r.
+				k0Array[i] = dlog.exponentiate(h0Array[i], r);
+				k1Array[i] = dlog.exponentiate(h1Array[i], r);
+			}
+		});
 		
-		OTSMsg messageToSend = computeMsg(input, u, k0Array, k1Array);
+		OTSMsg messageToSend = computeMsg(input, u, new ArrayList<GroupElement>(Arrays.asList(k0Array)), new ArrayList<GroupElement>(Arrays.asList(k1Array)));
 		sendTupleToReceiver(channel, messageToSend);
 		
 		return null;//sould not return any data
@@ -188,7 +188,7 @@ abstract class OTSemiHonestDDHReceiverAbs implements OTReceiver{
 		
 		//Calculate g^alpha.
 		GroupElement g = dlog.getGenerator();
-		GroupElement gAlpha = dlog.exponentiate(g, alpha);
+		GroupElement gAlpha = dlog.exponentiateWithPreComputedValues(g, alpha);
 				
 		GroupElement h0 = null;
 		GroupElement h1 = null;
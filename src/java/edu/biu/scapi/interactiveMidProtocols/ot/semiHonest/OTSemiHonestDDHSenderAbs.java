@@ -197,8 +197,8 @@ abstract class OTSemiHonestDDHSenderAbs implements OTSender{
 	private GroupElement computeU(BigInteger r) {
 		GroupElement g = dlog.getGenerator(); //Get the group generator.
 
-		//Calculate u = g^r.
-		return dlog.exponentiate(g, r);
+		//Calculate u = g^r. The generator is fixed for all the transfers, so the exponentiation uses pre computed values.
+		return dlog.exponentiateWithPreComputedValues(g, r);
 	}
 	
 	/**
@@ -35,6 +35,7 @@ import edu.biu.scapi.interactiveMidProtocols.sigmaProtocol.utility.SigmaCommonIn
 import edu.biu.scapi.interactiveMidProtocols.sigmaProtocol.utility.SigmaProtocolMsg;
 import edu.biu.scapi.primitives.dlog.DlogGroup;
 import edu.biu.scapi.primitives.dlog.GroupElement;
+import edu.biu.scapi.primitives.dlog.GroupElementSendableData;
 
 /**
  * Concrete implementation of Sigma Protocol verifier computation. <p>
@@ -165,10 +166,11 @@ public class SigmaDHVerifierComputation implements SigmaVerifierComputation, Dlo
 		//If h is not member in the group, set verified to false.
 		verified = verified && dlog.isMember(h);
 		
-		//Get the elements of the first message from the prover.
+		//Get the elements of the first message from the prover, checking their membership together.
 		SigmaDHMsg firstMsg = (SigmaDHMsg) a;
-		GroupElement aElement = dlog.reconstructElement(true, firstMsg.getA());
-		GroupElement bElement = dlog.reconstructElement(true, firstMsg.getB());
+		GroupElement[] firstMsgElements = dlog.reconstructElements(true, new GroupElementSendableData[]{firstMsg.getA(), firstMsg.getB()});
+		GroupElement aElement = firstMsgElements[0];
+		GroupElement bElement = firstMsgElements[1];
 		
 		//Get the exponent in the second message from the prover.
 		SigmaBIMsg exponent = (SigmaBIMsg) z;
@@ -188,13 +188,14 @@ public class SigmaDHExtendedVerifierComputation implements SigmaVerifierComputat
 		//Get the h and a arrays.
 		SigmaDHExtendedMsg firstMsg = (SigmaDHExtendedMsg) a;
 		ArrayList<GroupElementSendableData> aArray = firstMsg.getArray();
+		//Reconstruct all the ai elements, checking their membership as a batch.
+		GroupElement[] aElements = dlog.reconstructElements(true, aArray.toArray(new GroupElementSendableData[aArray.size()]));
 		//Get the exponent in the second message from the prover.
 		SigmaBIMsg exponent = (SigmaBIMsg) z;
 		//Convert e to BigInteger.
 		BigInteger eBI = new BigInteger(1, e);
 		GroupElement left, right;
 		GroupElement hToe;
-		GroupElement aElement;
 		
 		for (int i=0; i<len; i++){
 			//Verify that gi^z = ai*hi^e:
@@ -206,8 +207,7 @@ public class SigmaDHExtendedVerifierComputation implements SigmaVerifierComputat
 			//Calculate hi^e.
 			hToe = dlog.exponentiate(hArray.get(i), eBI);
 			//Calculate a*hi^e.
-			aElement = dlog.reconstructElement(true, aArray.get(i));
-			right = dlog.multiplyGroupElements(aElement, hToe);
+			right = dlog.multiplyGroupElements(aElements[i], hToe);
 			
 			//If left and right sides of the equation are not equal, set verified to false.
 			verified = verified && left.equals(right);
@@ -165,6 +165,11 @@ public abstract class ElGamalAbs implements ElGamalEnc{
 			throw new InvalidKeyException("keys should be instances of ElGamal keys");
 		}
 		
+		//Release the pre computed values of the previous public key, which are not needed anymore.
+		if (this.publicKey != null && this.publicKey.getH() != ((ElGamalPublicKey) publicKey).getH()){
+			dlog.endExponentiateWithPreComputedValues(this.publicKey.getH());
+		}
+		
 		//Sets the keys.
 		this.publicKey = (ElGamalPublicKey) publicKey;
 		
@@ -326,9 +331,10 @@ public abstract class ElGamalAbs implements ElGamalEnc{
 		}
 		
 		//Calculates c1 = g^y and c2 = msg * h^y.
+		//g and h are fixed for all the encryptions with this key, so the exponentiations use pre computed values.
 		GroupElement generator = dlog.getGenerator();
-		GroupElement c1 = dlog.exponentiate(generator, r);
-		GroupElement hy = dlog.exponentiate(publicKey.getH(), r);
+		GroupElement c1 = dlog.exponentiateWithPreComputedValues(generator, r);
+		GroupElement hy = dlog.exponentiateWithPreComputedValues(publicKey.getH(), r);
 		
 		return completeEncryption(c1, hy, plaintext);
 	}
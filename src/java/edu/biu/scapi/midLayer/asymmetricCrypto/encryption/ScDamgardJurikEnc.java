@@ -36,6 +36,8 @@ import java.security.PublicKey;
 import java.security.SecureRandom;
 import java.security.spec.AlgorithmParameterSpec;
 import java.security.spec.InvalidParameterSpecException;
+import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.Vector;
 
 import org.bouncycastle.util.BigIntegers;
@@ -68,6 +70,46 @@ public class ScDamgardJurikEnc implements DamgardJurikEnc {
 	private DamgardJurikPrivateKey privateKey;
 	private SecureRandom random;
 	private boolean isKeySet;
+	
+	//The constants that are used in the decryption of ciphertexts with length parameter s, for each s that was used.
+	//They depend only on the keys, so they are computed once and cleared when new keys are set.
+	private HashMap<Integer, DecryptionConstants> decryptionConstants = new HashMap<Integer, DecryptionConstants>();
+	
+	//Pools of precomputed values r^N mod N' for each length parameter s. See preComputeRandomValues.
+	private HashMap<Integer, LinkedList<BigInteger>> randomValues = new HashMap<Integer, LinkedList<BigInteger>>();
+	
+	/**
+	 * This class holds the constants that are used in the decryption of ciphertexts with a specific length parameter s.
+	 * The exponentiation c^d mod N' is computed modulo p^(s+1) and modulo q^(s+1) and the results are combined using the Chinese Remainder Theorem.
+	 */
+	private static class DecryptionConstants {
+		BigInteger pPow;			//p^(s+1)
+		BigInteger qPow;			//q^(s+1)
+		BigInteger dModP;			//d mod p^s*(p-1), which is the order of Zp^(s+1)*.
+		BigInteger dModQ;			//d mod q^s*(q-1), which is the order of Zq^(s+1)*.
+		BigInteger pPowInverse;		//p^(s+1)^(-1) mod q^(s+1).
+		BigInteger[] nPow;			//n^0, ..., n^(s+1).
+		BigInteger[] factorialInverse; //(k!)^(-1) mod n^s for k = 0, ..., s.
+		
+		DecryptionConstants(BigInteger n, BigInteger p, BigInteger q, BigInteger d, int s){
+			pPow = p.pow(s+1);
+			qPow = q.pow(s+1);
+			dModP = d.mod(p.pow(s).multiply(p.subtract(BigInteger.ONE)));
+			dModQ = d.mod(q.pow(s).multiply(q.subtract(BigInteger.ONE)));
+			pPowInverse = pPow.modInverse(qPow);
+			
+			nPow = new BigInteger[s+2];
+			nPow[0] = BigInteger.ONE;
+			for (int j = 1; j <= s+1; j++){
+				nPow[j] = nPow[j-1].multiply(n);
+			}
+			
+			factorialInverse = new BigInteger[s+1];
+			for (int k = 0; k <= s; k++){
+				factorialInverse[k] = MathAlgorithms.factorialBI(k).modInverse(nPow[s]);
+			}
+		}
+	}
 
 
 	/**
@@ -119,6 +161,9 @@ public class ScDamgardJurikEnc implements DamgardJurikEnc {
 			//Sets the private key
 			this.privateKey = (DamgardJurikPrivateKey) privateKey;
 		}
+		//The cached values belong to the previous keys.
+		decryptionConstants.clear();
+		randomValues.clear();
 		isKeySet = true;
 
 	}
@@ -238,18 +283,80 @@ public class ScDamgardJurikEnc implements DamgardJurikEnc {
 			throw new IllegalArgumentException("The plaintext has to be of type BigIntegerPlainText");
 		}
 		
-		BigInteger x = ((BigIntegerPlainText)plaintext).getX();
-		
-		//Calculates the length parameter s.
-		int s = (x.bitLength()/(publicKey.getModulus().bitLength() - 1)) + 1;
+		//Uses a precomputed value r^N if there is one, otherwise chooses a random r.
+		return computeEncryption(plaintext, null);
+	}
+	
+	/**
+	 * Precomputes random values for later encryptions of plaintexts with length parameter s.<p>
+	 * The computation of r^N mod N' is the most expensive part of the encryption, and it does not depend on the plaintext. 
+	 * This function computes the given amount of such values in advance. The functions that choose their own random value, 
+	 * that is, encrypt(Plaintext), reRandomize(AsymmetricCiphertext), add(AsymmetricCiphertext, AsymmetricCiphertext) 
+	 * and multByConst(AsymmetricCiphertext, BigInteger), use a precomputed value if there is one, and compute a new one otherwise.
+	 * Each precomputed value is used once. The precomputed values are discarded when new keys are set.
+	 * @param s The length parameter of the plaintexts, such that the plaintexts are in Zn^s. The length parameter of plaintexts 
+	 * shorter than the modulus of the public key is 1.
+	 * @param amount The number of values to precompute.
+	 * @throws IllegalStateException if no public key was set.
+	 */
+	public void preComputeRandomValues(int s, int amount){
+		// If there is no public key can not operate the function, throws exception.
+		if (!isKeySet()){
+			throw new IllegalStateException("in order to precompute random values this object must be initialized with public key");
+		}
+		if (s < 1){
+			throw new IllegalArgumentException("s must be positive");
+		}
 		
-		BigInteger Ntag = publicKey.getModulus().pow(s+1);
-		BigInteger NtagMinus1 = Ntag.subtract(BigInteger.ONE);
+		BigInteger n = publicKey.getModulus();
+		BigInteger N = n.pow(s);
+		BigInteger Ntag = n.pow(s+1);
+		LinkedList<BigInteger> pool = randomValues.get(s);
+		if (pool == null){
+			pool = new LinkedList<BigInteger>();
+			randomValues.put(s, pool);
+		}
+		for (int i = 0; i < amount; i++){
+			pool.add(computeRandomValue(N, Ntag));
+		}
+	}
+	
+	/**
+	 * Returns a random value r^N mod N' for the given length parameter. The value is taken from the precomputed values if there is one.
+	 */
+	private BigInteger getRandomValue(int s, BigInteger N, BigInteger Ntag){
+		LinkedList<BigInteger> pool = randomValues.get(s);
+		if (pool != null && !pool.isEmpty()){
+			return pool.removeFirst();
+		}
+		return computeRandomValue(N, Ntag);
+	}
+	
+	/**
+	 * Chooses a random r in ZN'* and computes r^N mod N'.
+	 */
+	private BigInteger computeRandomValue(BigInteger N, BigInteger Ntag){
 		//Chooses a random r in ZNtag*, this can be done by choosing a random value between 1 and Ntag -1 
 		//which is with overwhelming probability in Zntag*.
-		BigInteger r = BigIntegers.createRandomInRange(BigInteger.ONE, NtagMinus1, random);
-		
-		return encrypt(plaintext, r);
+		BigInteger r = BigIntegers.createRandomInRange(BigInteger.ONE, Ntag.subtract(BigInteger.ONE), random);
+		return r.modPow(N, Ntag);
+	}
+	
+	/**
+	 * Computes (1+n)^x mod n^(s+1) using the binomial expansion (1+n)^x = sum(k = 0, ..., s) of (x choose k)*n^k mod n^(s+1), 
+	 * since all the terms with k > s are zero modulo n^(s+1).
+	 */
+	private BigInteger computeOnePlusNPow(BigInteger x, BigInteger n, int s, BigInteger Ntag){
+		BigInteger result = BigInteger.ONE;
+		BigInteger binomial = BigInteger.ONE;
+		BigInteger nPowK = BigInteger.ONE;
+		for (int k = 1; k <= s; k++){
+			//(x choose k) = (x choose k-1) * (x-k+1) / k, where the division is exact.
+			binomial = binomial.multiply(x.subtract(BigInteger.valueOf(k - 1))).divide(BigInteger.valueOf(k));
+			nPowK = nPowK.multiply(n);
+			result = result.add(binomial.multiply(nPowK));
+		}
+		return result.mod(Ntag);
 	}
 	
 	/** 
@@ -268,6 +375,16 @@ public class ScDamgardJurikEnc implements DamgardJurikEnc {
 	 * 		2. If the BigInteger value in the given plaintext is not in ZN.
 	 */
 	public AsymmetricCiphertext encrypt(Plaintext plainText, BigInteger r) {
+		if (r == null){
+			throw new IllegalArgumentException("r must be in Zq");
+		}
+		return computeEncryption(plainText, r);
+	}
+	
+	/**
+	 * Encrypts the given plaintext using the given random value, or using a precomputed random value if r is null.
+	 */
+	private AsymmetricCiphertext computeEncryption(Plaintext plainText, BigInteger r) {
 		/*
 		 * We use the notation N=n^s, and N = n^(s+1).
 		 * Pseudo-Code:
@@ -302,13 +419,14 @@ public class ScDamgardJurikEnc implements DamgardJurikEnc {
 		BigInteger NtagMinus1 = Ntag.subtract(BigInteger.ONE);
 		
 		//Check that the random value passed to this function is in Zq.
-		if(!((r.compareTo(BigInteger.ZERO))>=0) && (r.compareTo(NtagMinus1)<=0)) {
+		if(r != null && !((r.compareTo(BigInteger.ZERO))>=0) && (r.compareTo(NtagMinus1)<=0)) {
 			throw new IllegalArgumentException("r must be in Zq");
 		}
 		
 		//Computes c = ((1 + n) ^x) * r ^N mod N'.
-		BigInteger  mult1= (publicKey.getModulus().add(BigInteger.ONE)).modPow(x, Ntag);
-		BigInteger mult2 = r.modPow(N, Ntag);
+		//(1 + n) ^x is computed by the binomial expansion instead of an exponentiation.
+		BigInteger  mult1= computeOnePlusNPow(x, publicKey.getModulus(), s, Ntag);
+		BigInteger mult2 = (r == null) ? getRandomValue(s, N, Ntag) : r.modPow(N, Ntag);
 		BigInteger c = (mult1.multiply(mult2)).mod(Ntag);
 		
 		//Wraps the BigInteger c with BigIntegerCiphertext and returns it.
@@ -372,32 +490,27 @@ public class ScDamgardJurikEnc implements DamgardJurikEnc {
 		if(djCipher.getCipher().compareTo(BigInteger.ZERO) < 0 || djCipher.getCipher().compareTo(Ntag) >= 0)
 			throw new IllegalArgumentException("The cipher is not in ZN'");
 		
-		BigInteger d;
-		//Optimization for the calculation of d:
-		//If s == 1 used the pre-computed d which we have in the private key
-		//else, compute d using the Chinese Remainder Theorem, such that d = 1 mod N, and d = 0 mod t.
-		if(s==1){
-			d = privateKey.getDForS1();
-		}else{
-			d = generateD(N, privateKey.getT());
-		}
+		DecryptionConstants constants = getDecryptionConstants(s, N);
 		
-		//Computes (cipher ^ d) mod N'
-		BigInteger a = djCipher.getCipher().modPow(d, Ntag);
+		//Computes (cipher ^ d) mod N' using the Chinese Remainder Theorem:
+		//a = ap + p^(s+1) * ((aq - ap) * p^(s+1)^(-1) mod q^(s+1)), where ap = (cipher ^ d) mod p^(s+1) and aq = (cipher ^ d) mod q^(s+1).
+		BigInteger ap = djCipher.getCipher().mod(constants.pPow).modPow(constants.dModP, constants.pPow);
+		BigInteger aq = djCipher.getCipher().mod(constants.qPow).modPow(constants.dModQ, constants.qPow);
+		BigInteger a = ap.add(constants.pPow.multiply(aq.subtract(ap).multiply(constants.pPowInverse).mod(constants.qPow)));
 		
 		//Computes x as the discrete logarithm of c^d to the base (1+n) modulo N. This is done by the algorithm shown above.
+		//The division by factorial(k) is done by multiplying by its inverse modulo n^j.
 		BigInteger x = BigInteger.ZERO;
 		BigInteger t1, t2;
-		BigInteger nPowJ, factorialK, temp;
+		BigInteger nPowJ, temp;
 		for(int j = 1; j <= s; j++){
-			t1 = (a.mod(n.pow(j+1)).subtract(BigInteger.ONE)).divide(n);
+			t1 = (a.mod(constants.nPow[j+1]).subtract(BigInteger.ONE)).divide(n);
 			t2 = x;
-			nPowJ = n.pow(j);
+			nPowJ = constants.nPow[j];
 			for(int k = 2; k <=j; k++){
 				x = x.subtract(BigInteger.ONE);
 				t2 = (t2.multiply(x)).mod(nPowJ);
-				factorialK = MathAlgorithms.factorialBI(k);
-				temp = (t2.multiply(n.pow(k-1))).divide(factorialK);
+				temp = t2.multiply(constants.nPow[k-1]).multiply(constants.factorialInverse[k]);
 				t1 = t1.subtract(temp).mod(nPowJ);
 			}
 			x = t1;
@@ -443,22 +556,8 @@ public class ScDamgardJurikEnc implements DamgardJurikEnc {
 			throw new IllegalArgumentException("cipher should be instance of BigIntegerCiphertext");
 		}
 		
-		BigIntegerCiphertext djCipher = (BigIntegerCiphertext) cipher;
-		//n is the modulus in the public key.
-		//Calculates s = |cipher| / |n|.
-		int s = (djCipher).getCipher().bitLength() / publicKey.getModulus().bitLength();
-
-		//Calculates N and N' based on s: N = n^s, N' = n^(s+1).
-		BigInteger n = publicKey.getModulus();
-		BigInteger Ntag = n.pow(s+1);
-		
-		
-		BigInteger NtagMinus1 = Ntag.subtract(BigInteger.ONE);
-		//Chooses a random r in ZNtag*, this can be done by choosing a random value between 1 and Ntag -1 
-		//which is with overwhelming probability in Zntag*.
-		BigInteger r = BigIntegers.createRandomInRange(BigInteger.ONE, NtagMinus1, random);
-		
-		return reRandomize(cipher, r);
+		//Uses a precomputed value r^N if there is one, otherwise chooses a random r.
+		return computeReRandomization(cipher, null);
 	}
 	
 	/**
@@ -472,6 +571,16 @@ public class ScDamgardJurikEnc implements DamgardJurikEnc {
 	 */
 	@Override
 	public AsymmetricCiphertext reRandomize(AsymmetricCiphertext cipher, BigInteger r) {
+		if (r == null){
+			throw new IllegalArgumentException("r must be in Zq");
+		}
+		return computeReRandomization(cipher, r);
+	}
+	
+	/**
+	 * This function re-randomizes the given ciphertext using the given random value, or using a precomputed random value if r is null.
+	 */
+	private AsymmetricCiphertext computeReRandomization(AsymmetricCiphertext cipher, BigInteger r) {
 		// If there is no public key can not operate the function, throws exception.
 		if (!isKeySet()){
 			throw new IllegalStateException("in order to reRandomize a ciphertext this object must be initialized with public key");
@@ -498,11 +607,11 @@ public class ScDamgardJurikEnc implements DamgardJurikEnc {
 		
 		BigInteger NtagMinus1 = Ntag.subtract(BigInteger.ONE);
 		//Check that the r random value passed to this function is in Zntag*.
-		if(!((r.compareTo(BigInteger.ZERO))>=0) && (r.compareTo(NtagMinus1)<=0)) {
+		if(r != null && !((r.compareTo(BigInteger.ZERO))>=0) && (r.compareTo(NtagMinus1)<=0)) {
 			throw new IllegalArgumentException("r must be in Zq");
 		}
 				
-		BigInteger c = djCipher.getCipher().multiply(r.modPow(N, Ntag)).mod(Ntag);
+		BigInteger c = djCipher.getCipher().multiply(((r == null) ? getRandomValue(s, N, Ntag) : r.modPow(N, Ntag))).mod(Ntag);
 		
 		return new BigIntegerCiphertext(c);
 	}
@@ -527,24 +636,9 @@ public class ScDamgardJurikEnc implements DamgardJurikEnc {
 		if (!(cipher1 instanceof BigIntegerCiphertext)){
 			throw new IllegalArgumentException("cipher should be instance of BigIntegerCiphertext");
 		}
-		BigIntegerCiphertext djCipher1 = (BigIntegerCiphertext) cipher1;
 		
-		BigInteger c = djCipher1.getCipher();
-		
-		//n is the modulus in the public key.
-		//Calculates s = |cipher|/ |n|.
-		int s = c.bitLength() / publicKey.getModulus().bitLength();
-		
-		//Calculates N and N' based on s: N = n^s, N' = n^(s+1).
-		BigInteger n = publicKey.getModulus();
-		BigInteger Ntag = n.pow(s+1);
-		BigInteger NtagMinus1 = Ntag.subtract(BigInteger.ONE);
-		
-		//Chooses a random r in ZNtag*, this can be done by choosing a random value between 1 and Ntag -1 
-		//which is with overwhelming probability in Zntag*.
-		BigInteger r = BigIntegers.createRandomInRange(BigInteger.ONE, NtagMinus1, random);
-		
-		return add(cipher1, cipher2, r);
+		//Uses a precomputed value r^N if there is one, otherwise chooses a random r.
+		return computeAddition(cipher1, cipher2, null);
 	}
 	
 	/**
@@ -564,6 +658,16 @@ public class ScDamgardJurikEnc implements DamgardJurikEnc {
 	 */
 	@Override
 	public AsymmetricCiphertext add(AsymmetricCiphertext cipher1, AsymmetricCiphertext cipher2, BigInteger r) {
+		if (r == null){
+			throw new IllegalArgumentException("r must be in Zq");
+		}
+		return computeAddition(cipher1, cipher2, r);
+	}
+	
+	/**
+	 * This function adds the given ciphertexts using the given random value, or using a precomputed random value if r is null.
+	 */
+	private AsymmetricCiphertext computeAddition(AsymmetricCiphertext cipher1, AsymmetricCiphertext cipher2, BigInteger r) {
 		
 		// If there is no public key can not operate the function, throws exception.
 		if (!isKeySet()){
@@ -595,7 +699,7 @@ public class ScDamgardJurikEnc implements DamgardJurikEnc {
 		BigInteger NtagMinus1 = Ntag.subtract(BigInteger.ONE);
 		
 		//Check that the r random value passed to this function is in Zntag*.
-		if(!((r.compareTo(BigInteger.ZERO))>=0) && (r.compareTo(NtagMinus1)<=0)) {
+		if(r != null && !((r.compareTo(BigInteger.ZERO))>=0) && (r.compareTo(NtagMinus1)<=0)) {
 			throw new IllegalArgumentException("r must be in Zq");
 		}
 		
@@ -607,7 +711,7 @@ public class ScDamgardJurikEnc implements DamgardJurikEnc {
 		
 		BigInteger c = c1.multiply(c2).mod(Ntag);
 		
-		c = c.multiply(r.modPow(N, Ntag)).mod(Ntag);
+		c = c.multiply(((r == null) ? getRandomValue(s1, N, Ntag) : r.modPow(N, Ntag))).mod(Ntag);
 		
 		//Call the other function that computes the addition.
 		return new BigIntegerCiphertext(c);
@@ -636,22 +740,9 @@ public class ScDamgardJurikEnc implements DamgardJurikEnc {
 			throw new IllegalArgumentException("cipher should be instance of BigIntegerCiphertext");
 		}
 		
-		BigIntegerCiphertext djCipher = (BigIntegerCiphertext) cipher;
-		//n is the modulus in the public key.
-		//Calculates s = |cipher| / |n|.
-		int s = (djCipher).getCipher().bitLength() / publicKey.getModulus().bitLength();
-				
-		//Calculates N and N' based on s: N = n^s, N' = n^(s+1).
-		BigInteger n = publicKey.getModulus();
-		BigInteger Ntag = n.pow(s+1);
-		BigInteger NtagMinus1 = Ntag.subtract(BigInteger.ONE);
-		
-		//Chooses a random r in ZNtag*, this can be done by choosing a random value between 1 and Ntag -1 
-		//which is with overwhelming probability in Zntag*.
-		BigInteger r = BigIntegers.createRandomInRange(BigInteger.ONE, NtagMinus1, random);
-		
+		//Uses a precomputed value r^N if there is one, otherwise chooses a random r.
 		//Call the other function that computes the multiplication.
-		return multByConst(cipher, constNumber, r);
+		return computeMultByConst(cipher, constNumber, null);
 	}
 	
 	/**
@@ -675,6 +766,16 @@ public class ScDamgardJurikEnc implements DamgardJurikEnc {
 	 */
 	@Override
 	public AsymmetricCiphertext multByConst(AsymmetricCiphertext cipher, BigInteger constNumber, BigInteger r) {
+		if (r == null){
+			throw new IllegalArgumentException("r must be in Zq");
+		}
+		return computeMultByConst(cipher, constNumber, r);
+	}
+	
+	/**
+	 * This function multiplies the given ciphertext by the given constant using the given random value, or using a precomputed random value if r is null.
+	 */
+	private AsymmetricCiphertext computeMultByConst(AsymmetricCiphertext cipher, BigInteger constNumber, BigInteger r) {
 		// If there is no public key can not operate the function, throws exception.
 		if (!isKeySet()){
 			throw new IllegalStateException("in order to multiply a ciphertext this object must be initialized with public key");
@@ -697,7 +798,7 @@ public class ScDamgardJurikEnc implements DamgardJurikEnc {
 		BigInteger NtagMinus1 = Ntag.subtract(BigInteger.ONE);
 		
 		//Check that the r random value passed to this function is in Zntag*.
-		if(!((r.compareTo(BigInteger.ZERO))>=0) && (r.compareTo(NtagMinus1)<=0)) {
+		if(r != null && !((r.compareTo(BigInteger.ZERO))>=0) && (r.compareTo(NtagMinus1)<=0)) {
 			throw new IllegalArgumentException("r must be in Zq");
 		}
 				
@@ -711,11 +812,33 @@ public class ScDamgardJurikEnc implements DamgardJurikEnc {
 	
 		BigInteger c = djCipher.getCipher().modPow(constNumber, Ntag);
 		
-		c = c.multiply(r.modPow(N, Ntag)).mod(Ntag);
+		c = c.multiply(((r == null) ? getRandomValue(s, N, Ntag) : r.modPow(N, Ntag))).mod(Ntag);
 		
 		return new BigIntegerCiphertext(c);
 	}
 	
+	/**
+	 * Returns the constants that are used in the decryption of ciphertexts with the given length parameter. 
+	 * The constants are computed in the first call for each length parameter.
+	 */
+	private DecryptionConstants getDecryptionConstants(int s, BigInteger N){
+		DecryptionConstants constants = decryptionConstants.get(s);
+		if (constants == null){
+			BigInteger d;
+			//Optimization for the calculation of d:
+			//If s == 1 used the pre-computed d which we have in the private key
+			//else, compute d using the Chinese Remainder Theorem, such that d = 1 mod N, and d = 0 mod t.
+			if(s==1){
+				d = privateKey.getDForS1();
+			}else{
+				d = generateD(N, privateKey.getT());
+			}
+			constants = new DecryptionConstants(publicKey.getModulus(), privateKey.getP(), privateKey.getQ(), d, s);
+			decryptionConstants.put(s, constants);
+		}
+		return constants;
+	}
+	
 	/**
 	 * This function generates a value d such that d = 1 mod N and d = 0 mod t, using the Chinese Remainder Theorem.
 	 */
@@ -29,14 +29,13 @@ package edu.biu.scapi.midLayer.symmetricCrypto.encryption;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 
-import javax.crypto.IllegalBlockSizeException;
-
 import edu.biu.scapi.exceptions.FactoriesException;
 import edu.biu.scapi.midLayer.ciphertext.ByteArraySymCiphertext;
 import edu.biu.scapi.midLayer.ciphertext.IVCiphertext;
 import edu.biu.scapi.midLayer.ciphertext.SymmetricCiphertext;
 import edu.biu.scapi.midLayer.plaintext.ByteArrayPlaintext;
 import edu.biu.scapi.midLayer.plaintext.Plaintext;
+import edu.biu.scapi.primitives.prf.CounterModeKeyStream;
 import edu.biu.scapi.primitives.prf.PseudorandomPermutation;
 
 /**
@@ -46,6 +45,8 @@ import edu.biu.scapi.primitives.prf.PseudorandomPermutation;
  *
  */
 public class ScCTREncRandomIV extends EncWithIVAbs implements CTREnc {
+	
+	private CounterModeKeyStream keyStream;	//Computes the key stream of the prp in counter mode.
 
 	/**
 	 * Default constructor. Uses default implementation of prp and SecureRandom.
@@ -138,34 +139,13 @@ public class ScCTREncRandomIV extends EncWithIVAbs implements CTREnc {
 		
 		//Prepares a buffer where to store the plaintext. It has to be of the same length as the cipher.
 		byte[] plaintext = new byte[cipherLengthInBytes];
-
-		//Calculates the number of blocks in the cipher, so that we can loop over them.
-		int numOfBlocksInCipher = cipherLengthInBytes / prp.getBlockSize();
-
-		int cipherOffset = 0;
-		int plaintextOffset = 0;
-		int blockSize = prp.getBlockSize();
-		//Views the IV passed as the counter.
-		byte[] ctr = ivCipher.getIv();
 		
-		//First, process all full blocks. 
-		//If the length of the input is not a multiple of block size, we will take care of the last part of it not here, but in the next step.
-		boolean isFullBlock = true;
-		for(int i = 0; i < numOfBlocksInCipher; i++){
-			ctr = processBlock(ivCipher.getBytes(), cipherOffset, ctr, plaintext, plaintextOffset, isFullBlock);
-			cipherOffset += blockSize; 
-			plaintextOffset += blockSize;
-		}
+		//Views a copy of the IV passed as the counter, so that the IV of the ciphertext does not change.
+		byte[] ctr = ivCipher.getIv().clone();
 		
+		//XORs the cipher with the key stream. The last part of the cipher may be of size less than blockSize.
+		getKeyStream().xor(ctr, ivCipher.getBytes(), 0, plaintext, 0, cipherLengthInBytes);
 		
-		int remainder = cipherLengthInBytes % prp.getBlockSize();
-		//The last part of the cipher is of size less than blockSize.
-		//Process the remaining bytes not as a full block.
-		if(remainder > 0){
-			isFullBlock = false;
-			ctr = processBlock(ivCipher.getBytes(), cipherOffset, ctr, plaintext, plaintextOffset, isFullBlock);
-		}
-
 		return new ByteArrayPlaintext(plaintext);
 	}
 
@@ -189,93 +169,21 @@ public class ScCTREncRandomIV extends EncWithIVAbs implements CTREnc {
 		byte[] cipher = new byte[plaintextLengthInBytes];
 		byte[] ctr = new byte[iv.length];
 		System.arraycopy(iv,0, ctr, 0, iv.length);
-
-		int numOfBlocksInPlaintext = plaintextLengthInBytes / prp.getBlockSize();
-
-		int cipherOffset = 0;
-		int plaintextOffset = 0;
-		int blockSize = prp.getBlockSize();
-
-		//For each block in ciphertext do:
-		boolean isFullBlock = true;
-		for(int i = 0; i < numOfBlocksInPlaintext; i++){
-			ctr = processBlock(plaintext, plaintextOffset, ctr, cipher, cipherOffset, isFullBlock);
-			cipherOffset += blockSize; 
-			plaintextOffset += blockSize;
-		}
-		int remainder = plaintextLengthInBytes % prp.getBlockSize();
-		//The last part of the plaintext is of size less than blockSize.
-		//Process the remaining bytes not as a full block.
-		if(remainder > 0){
-			isFullBlock = false;
-			ctr = processBlock(plaintext, plaintextOffset, ctr, cipher, cipherOffset, isFullBlock);
-		}
-
+		
+		//XORs the plaintext with the key stream. The last part of the plaintext may be of size less than blockSize.
+		getKeyStream().xor(ctr, plaintext, 0, cipher, 0, plaintextLengthInBytes);
+		
 		return new IVCiphertext(new ByteArraySymCiphertext(cipher), iv);
 	}
 
 
-	/* This function processes a single block. It can be called both by encrypt and by decrypt.<p>
-	 * If called by encrypt then the first two arguments refer to the plaintext being processed and the resulting cipher is written to "out".<p>
-	 * If called by decrypt then the first two arguments refer to the cipher being processed and the resulting plaintext is written to "out". <p>
-	 * The data is not required to be aligned to the block size of this instance of the encryption scheme. If it is not, then the last part of the data needs special care.
-	 * Pseudo-code:
-	 * 		out[i] = prp.computeBlock(ctr) XOR in[i]
-	 *		ctr = ctr +1 mod 2n
-	 * 
-	 * @param in a byte array containing the data to be processed
-	 * @param inOffset the offset in "in" byte array
-	 * @param ctr the counter used by the counter mode of operation
-	 * @param out a byte array containing the processed data
-	 * @param outOffset the offset in "out" byte array
-	 * @param isFullBlock a boolean indicating if the data is aligned to the block size of this instance of the encryption scheme, or not. 
-	 * 
-	 * @return the incremented counter
-	 * 
+	/*
+	 * Returns the key stream of the prp. It is created on the first use since the prp is set by the constructors of the super class.
 	 */
-	private byte[] processBlock(byte[] in, int inOffset, byte[] ctr, byte[] out, int outOffset, boolean isFullBlock){
-		int blockSize = prp.getBlockSize();
-		//Here we have to create a new array because we can't override in and ctr arrays and out array may not be long enough.
-		byte[] prpBytes = new byte[blockSize]; 
-		try {
-			prp.computeBlock(ctr, 0, blockSize, prpBytes, 0, blockSize);
-		} catch (IllegalBlockSizeException e) {
-			//We catch this exception here because there is no chance that the ctr will have the wrong the size.
-			e.printStackTrace();
-		} 
-
-		if(isFullBlock) {
-			for(int i = 0 ; i < blockSize; i++){
-				out[outOffset + i] = (byte)(in[inOffset + i] ^ prpBytes[i]); 
-			}
-		}else{
-			//Only XOR the relevant bytes.
-			int partialBlockLength = in.length - inOffset;
-			for(int i = 0 ; i < partialBlockLength; i++){
-				out[outOffset + i] = (byte)(in[inOffset + i] ^ prpBytes[i]); 
-			}
+	private CounterModeKeyStream getKeyStream(){
+		if (keyStream == null){
+			keyStream = new CounterModeKeyStream(prp, prp.getBlockSize());
 		}
-
-		//Increases the counter by one.
-		int    carry = 1;
-
-		for (int i = blockSize - 1; i >= 0; i--)
-		{
-			int    x = (ctr[i] & 0xff) + carry;
-
-			if (x > 0xff)
-			{
-				carry = 1;
-			}
-			else
-			{
-				carry = 0;
-			}
-
-			ctr[i] = (byte)x;
-		}
-		return ctr;
-
+		return keyStream;
 	}
-
 }
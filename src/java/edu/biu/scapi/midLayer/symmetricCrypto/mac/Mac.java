@@ -26,6 +26,7 @@
 
 package edu.biu.scapi.midLayer.symmetricCrypto.mac;
 
+import java.nio.ByteBuffer;
 import java.security.InvalidKeyException;
 import java.security.spec.AlgorithmParameterSpec;
 import java.security.spec.InvalidParameterSpecException;
@@ -115,6 +116,13 @@ public interface Mac {
 	 */
 	public void update(byte[] msg, int offset, int msgLen);
 	
+	/**
+	 * Adds the remaining bytes of the given buffer to the existing message to mac, and sets the position of the buffer to its limit. <p>
+	 * The implementations that are backed by native code pass direct buffers to the native code without copying them.
+	 * @param msg the buffer that contains the message to add.
+	 */
+	public void update(ByteBuffer msg);
+	
 	/**
 	 * Completes the mac computation and puts the result tag in the tag array.
 	 * @param msg the end of the message to mac.
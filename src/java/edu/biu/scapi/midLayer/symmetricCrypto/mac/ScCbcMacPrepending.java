@@ -27,6 +27,7 @@
 package edu.biu.scapi.midLayer.symmetricCrypto.mac;
 
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
@@ -39,6 +40,7 @@ import javax.crypto.SecretKey;
 
 import edu.biu.scapi.exceptions.FactoriesException;
 import edu.biu.scapi.generals.Logging;
+import edu.biu.scapi.primitives.prf.PrfByteBuffers;
 import edu.biu.scapi.primitives.prf.PrpFixed;
 import edu.biu.scapi.primitives.prf.PseudorandomFunction;
 import edu.biu.scapi.primitives.prf.bc.BcAES;
@@ -459,4 +461,23 @@ public class ScCbcMacPrepending implements CbcMac {
 
 	}
 
+	/**
+	 * Computes the function on the remaining bytes of the input buffer, using the byte array functions of this class.
+	 * @see edu.biu.scapi.primitives.prf.PseudorandomFunction#computeBlock(ByteBuffer, ByteBuffer)
+	 */
+	public void computeBlock(ByteBuffer inBytes, ByteBuffer outBytes) throws IllegalBlockSizeException {
+		PrfByteBuffers.computeBlock(this, inBytes, outBytes);
+	}
+
+	/**
+	 * Adds the remaining bytes of the given buffer to the existing message to mac.
+	 * @param msg the buffer that contains the message to add. The remaining bytes should be aligned to the mac size.
+	 * @throws IllegalStateException if no secret key was set.
+	 */
+	public void update(ByteBuffer msg) {
+		//The message is processed block by block in Java, so it is taken as an array.
+		byte[] bytes = new byte[msg.remaining()];
+		msg.get(bytes);
+		update(bytes, 0, bytes.length);
+	}
 }
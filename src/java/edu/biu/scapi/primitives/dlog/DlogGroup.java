@@ -196,6 +196,18 @@ public interface DlogGroup {
 	 */
 	public GroupElement reconstructElement(boolean bCheckMembership, GroupElementSendableData data);
 	
+	/**
+	 * Reconstructs a batch of GroupElements given their GroupElementSendableData, which might have been received through a Channel open between the party holding this DlogGroup and 
+	 * some other party. <p>
+	 * Protocols that receive many elements at once (such as batch OT) should use this function rather than calling {@link #reconstructElement(boolean, GroupElementSendableData)} 
+	 * for each element, so that groups that can check the membership of many elements together can do so.
+	 * @param bCheckMembership whether to check that the data provided can actually reconstruct elements of this DlogGroup.
+	 * @param data the GroupElementSendableData from which we wish to "reconstruct" the elements of this DlogGroup
+	 * @return the reconstructed GroupElements, in the order of the given data
+	 * @throws IllegalArgumentException if bCheckMembership is true and one of the given data does not correspond to an element of this group
+	 */
+	public GroupElement[] reconstructElements(boolean bCheckMembership, GroupElementSendableData[] data);
+	
 	/**
 	 * Computes the product of several exponentiations with distinct bases 
 	 * and distinct exponents. 
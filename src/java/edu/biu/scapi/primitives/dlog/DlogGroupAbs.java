@@ -29,7 +29,6 @@ package edu.biu.scapi.primitives.dlog;
 import java.math.BigInteger;
 import java.security.SecureRandom;
 import java.util.HashMap;
-import java.util.Vector;
 
 import org.bouncycastle.util.BigIntegers;
 
@@ -46,6 +45,8 @@ public abstract class DlogGroupAbs implements primeOrderSubGroup{
 	protected GroupElement generator;			//generator of the group
 	//map for multExponentiationsWithSameBase calculations
 	private HashMap<GroupElement, GroupElementsExponentiations> exponentiationsMap = new HashMap<GroupElement, GroupElementsExponentiations>();
+	//The maximal number of group elements kept by exponentiateWithPreComputedValues for each base.
+	private int maxPreComputedElements = 4096;
 	protected SecureRandom random;				//Source of randomness to use.
 	//k is the maximum length of a string to be converted to a Group Element of this group. If a string exceeds the k length it cannot be converted.
  	protected int k;
@@ -142,6 +143,19 @@ public abstract class DlogGroupAbs implements primeOrderSubGroup{
 		return randGen;
 
 	}
+	
+	/**
+	 * Reconstructs each of the given elements by {@link #reconstructElement(boolean, GroupElementSendableData)}. <p>
+	 * Groups that can check the membership of a batch of elements more efficiently than one by one should override this function.
+	 * @see edu.biu.scapi.primitives.dlog.DlogGroup#reconstructElements(boolean, edu.biu.scapi.primitives.dlog.GroupElementSendableData[])
+	 */
+	public GroupElement[] reconstructElements(boolean bCheckMembership, GroupElementSendableData[] data) {
+		GroupElement[] elements = new GroupElement[data.length];
+		for (int i = 0; i < data.length; i++) {
+			elements[i] = reconstructElement(bCheckMembership, data[i]);
+		}
+		return elements;
+	}
 
 	/*
 	 * Computes the simultaneousMultiplyExponentiate using a naive algorithm
@@ -312,8 +326,8 @@ public abstract class DlogGroupAbs implements primeOrderSubGroup{
 	/*
 	 * Computes the product of several exponentiations of the same base and
 	 * distinct exponents. An optimization is used to compute it more quickly by
-	 * keeping in memory the result of h1, h2, h4,h8,... and using it in the
-	 * calculation.<p> Note that if we want a one-time exponentiation of h it is
+	 * keeping in memory a table of exponentiations of the base and using it in the
+	 * calculation (see {@link GroupElementsExponentiations}).<p> Note that if we want a one-time exponentiation of h it is
 	 * preferable to use the basic exponentiation function since there is no
 	 * point to keep anything in memory if we have no intention to use it.
 	 * 
@@ -322,13 +336,17 @@ public abstract class DlogGroupAbs implements primeOrderSubGroup{
 	 * @return the exponentiation result
 	 */
 	public GroupElement exponentiateWithPreComputedValues(GroupElement groupElement, BigInteger exponent) {
-		//extracts from the map the GroupElementsExponentiations object corresponding to the accepted base
-		GroupElementsExponentiations exponentiations = exponentiationsMap.get(groupElement);
-	
-		// if there is no object that matches this base - create it and add it to the map
-		if (exponentiations == null) {
-			exponentiations = new GroupElementsExponentiations(groupElement);
-			exponentiationsMap.put(groupElement, exponentiations);
+		GroupElementsExponentiations exponentiations;
+		//The map is shared by all the threads that use this group.
+		synchronized (exponentiationsMap) {
+			//extracts from the map the GroupElementsExponentiations object corresponding to the accepted base
+			exponentiations = exponentiationsMap.get(groupElement);
+		
+			// if there is no object that matches this base - create it and add it to the map
+			if (exponentiations == null) {
+				exponentiations = new GroupElementsExponentiations(groupElement, maxPreComputedElements);
+				exponentiationsMap.put(groupElement, exponentiations);
+			}
 		}
 		// calculates the required exponent
 		return exponentiations.getExponentiation(exponent);
@@ -340,90 +358,129 @@ public abstract class DlogGroupAbs implements primeOrderSubGroup{
 	 */
 	@Override
 	public void endExponentiateWithPreComputedValues(GroupElement base) {
-		exponentiationsMap.remove(base);
+		synchronized (exponentiationsMap) {
+			exponentiationsMap.remove(base);
+		}
+	}
+	
+	/**
+	 * Sets the maximal number of group elements that are kept in memory by {@link #exponentiateWithPreComputedValues(GroupElement, BigInteger)} 
+	 * for each base. <p>
+	 * A bigger number means a bigger window and thus less multiplications in each exponentiation. 
+	 * The given number affects only bases that are used for the first time after this call.
+	 * @param maxElements The maximal number of group elements to keep for each base. Should be at least the bit length of the group order.
+	 */
+	public void setMaxPreComputedElements(int maxElements) {
+		if (maxElements < getOrder().bitLength()){
+			throw new IllegalArgumentException("the number of elements should be at least the bit length of the group order");
+		}
+		maxPreComputedElements = maxElements;
 	}
 	
 	/**
 	 * The class GroupElementExponentiations is a nested class of DlogGroupAbs.<p>
-	 * It performs the actual work of pre-computation of the exponentiations for one base.
-	 * It is composed of two main elements. The group element for which the optimized computations 
-	 * are built for, called the base and a vector of group elements that are the result of 
-	 * exponentiations of order 1,2,4,8, 
+	 * It performs the actual work of pre-computation of the exponentiations for one base using the fixed base windowing method. <p>
+	 * The exponent is split into windows of w bits, such that exponent = sum(e_i * 2^(w*i)). 
+	 * For each window i, the table holds base^(j * 2^(w*i)) for every j = 1, ..., 2^w - 1. 
+	 * Thus, an exponentiation is computed as the product of table[i][e_i] over all the windows, without any squaring. 
+	 * The window size is the biggest one whose table fits the given number of elements. <p>
+	 * Since building the table costs more than a few plain exponentiations, the first calls for each base 
+	 * use the plain exponentiation and the table is built only when the base is used again.
 	 */
 	private class GroupElementsExponentiations {
-		private Vector<GroupElement> exponentiations; //vector of group elements that are the result of exponentiations
-		private GroupElement base;  //group element for which the optimized computations are built for
+		
+		//The number of calls that use the plain exponentiation before the table is built.
+		private static final int PLAIN_EXPONENTIATIONS = 8;
+		
+		private GroupElement base;  		//group element for which the optimized computations are built for
+		private int maxElements;			//The maximal number of elements in the table.
+		private volatile GroupElement[][] table; //table[i][j-1] = base^(j * 2^(w*i)). Null until the table is built.
+		private int windowSize;				//The number of bits in each window (w).
+		private int calls;					//The number of calls to getExponentiation before the table was built.
 		
 		/**
-		 * The constructor creates a map structure in memory. 
-		 * Then calculates the exponentiations of order 1,2,4,8 for the given base and save them in the map.
+		 * Creates the pre-computation object of the given base. The table itself is built lazily.
 		 * @param base
-		 * @throws IllegalArgumentException
+		 * @param maxElements The maximal number of group elements in the table.
 		 */
-		public GroupElementsExponentiations(GroupElement base) {
+		public GroupElementsExponentiations(GroupElement base, int maxElements) {
 			this.base = base;
-			// build new vector of exponentiations
-			exponentiations = new Vector<GroupElement>();
-			exponentiations.add(0, this.base); // add the base - base^1
-			
-			BigInteger two = new BigInteger("2");
-			for (int i=1; i<4; i++) {
-				GroupElement multI;
-				multI = exponentiate(exponentiations.get(i-1), two);
-					
-				exponentiations.add(i, multI);
-			}
+			this.maxElements = maxElements;
 		}
 		
 		/**
-		 * Calculates the necessary additional exponentiations and fills the exponentiations vector with them.
-		 * @param size - the required exponent
-		 * @throws IllegalArgumentException
+		 * Builds the exponentiations table for exponents of the group order size.
 		 */
-		private void prepareExponentiations(BigInteger size) {
-			//find log of the number - this is the index of the size-exponent in the exponentiation array 
-			int index = size.bitLength()-1; 
+		private void prepareExponentiations() {
+			int t = getOrder().bitLength();
+			
+			//Choose the biggest window whose table fits in maxElements.
+			int w = 1;
+			while (w < 16 && ((1 << (w + 1)) - 1) * ((t + w) / (w + 1)) <= maxElements){
+				w++;
+			}
+			int windows = (t + w - 1) / w;
+			int entries = (1 << w) - 1;
+			BigInteger twoPowW = BigInteger.ONE.shiftLeft(w);
 			
-			/* calculates the necessary exponentiations and put them in the exponentiations vector */
-			for (int i=exponentiations.size(); i<=index; i++){
-				GroupElement multI;
-				multI = exponentiate(exponentiations.get(i-1), new BigInteger("2"));
-					
-				exponentiations.add(i, multI);	
+			GroupElement[][] newTable = new GroupElement[windows][entries];
+			GroupElement windowBase = base;
+			for (int i = 0; i < windows; i++) {
+				//windowBase = base^(2^(w*i))
+				if (i > 0) {
+					windowBase = exponentiate(windowBase, twoPowW);
+				}
+				newTable[i][0] = windowBase;
+				for (int j = 1; j < entries; j++) {
+					newTable[i][j] = multiplyGroupElements(newTable[i][j - 1], windowBase);
+				}
 			}
+			windowSize = w;
+			table = newTable;
 		}
 		
-		
 		/**
-		 * Checks if the exponentiations had already been calculated for the required size. 
-		 * If so, returns them, else it calls the private function prepareExponentiations with the given size.
+		 * Calculates the exponentiation of the base with the given exponent, using the exponentiations table.
 		 * @param size - the required exponent
 		 * @return groupElement - the exponentiate result
 		 */
 		public GroupElement getExponentiation(BigInteger size) {
-			/**
-			 * The exponents in the exponents vector are all power of 2.
-			 * In order to achieve the exponent size, we calculate its closest power 2 in the exponents vector 
-			 * and continue the calculations from there.
-			 */
-			// find the the closest power 2 exponent
-			int index = size.bitLength()-1;
+			if (table == null) {
+				synchronized (this) {
+					if (table == null) {
+						if (calls < PLAIN_EXPONENTIATIONS) {
+							calls++;
+							return exponentiate(base, size);
+						}
+						prepareExponentiations();
+					}
+				}
+			}
+			GroupElement[][] exponentiations = table;
 			
-			GroupElement exponent = null;
-			/* if the requested index out of the vector bounds, the exponents have not been calculated yet, so calculates them.*/
-			if (exponentiations.size() <= index)
-				prepareExponentiations(size);
+			//The base is a member of the group, so its order divides the group order and the exponent can be reduced modulo the order.
+			if (size.signum() < 0 || size.bitLength() > exponentiations.length * windowSize) {
+				size = size.mod(getOrder());
+			}
 			
-			exponent = exponentiations.get(index); //get the closest exponent in the exponentiations vector
-			/* if size is not power 2, calculates the additional multiplications */
-			BigInteger lastExp = new BigInteger("2").pow(index);
-			BigInteger difference = size.subtract(lastExp);
-			if (difference.compareTo(BigInteger.ZERO) > 0) {
-				GroupElement diff = getExponentiation(size.subtract(lastExp));
-				exponent = multiplyGroupElements(diff, exponent);
+			//Multiply the table entries of all the non zero windows.
+			GroupElement result = null;
+			int bitLength = size.bitLength();
+			for (int i = 0; i * windowSize < bitLength; i++) {
+				int window = 0;
+				for (int bit = windowSize - 1; bit >= 0; bit--) {
+					window <<= 1;
+					if (size.testBit(i * windowSize + bit)) {
+						window |= 1;
+					}
+				}
+				if (window != 0) {
+					GroupElement entry = exponentiations[i][window - 1];
+					result = (result == null) ? entry : multiplyGroupElements(result, entry);
+				}
 			}
 			
-			return exponent;
+			return (result == null) ? getIdentity() : result;
 		}
 	}
 	
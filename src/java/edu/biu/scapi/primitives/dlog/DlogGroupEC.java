@@ -28,9 +28,14 @@ package edu.biu.scapi.primitives.dlog;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.math.BigInteger;
 import java.security.SecureRandom;
 import java.util.Properties;
 
+import edu.biu.scapi.primitives.dlog.groupParams.ECF2mGroupParams;
+import edu.biu.scapi.primitives.dlog.groupParams.ECFpGroupParams;
+import edu.biu.scapi.primitives.dlog.groupParams.GroupParams;
+
 
 /**
  * This class manages the creation of NIST recommended elliptic curves.
@@ -45,6 +50,7 @@ public abstract class DlogGroupEC extends DlogGroupAbs implements DlogEllipticCu
 	protected static final String NISTEC_PROPERTIES_FILE =  "/propertiesFiles/NISTEC.properties";
 	protected String curveName;
 	protected String fileName;
+	private ECF2mUtility decompressionUtil;	//Computes the y coordinates of compressed points over F2m. Keeps the curve of this group between calls.
 	
 	protected DlogGroupEC(){};
 	
@@ -161,17 +167,44 @@ public abstract class DlogGroupEC extends DlogGroupAbs implements DlogEllipticCu
 	 * @deprecated As of SCAPI-V2_0_0 use generateElment(boolean bCheckMembership, BigInteger...values)
 	 */
 	@Deprecated public GroupElement generateElement(boolean bCheckMembership, GroupElementSendableData data) {
-		if (!(data instanceof ECElementSendableData))
-			throw new IllegalArgumentException("data type doesn't match the group type");
-		return generateElement(bCheckMembership, ((ECElementSendableData)data).getX(), ((ECElementSendableData)data).getY());
+		//The elements may be sent in compressed or uncompressed form, reconstructElement accepts both.
+		return reconstructElement(bCheckMembership, data);
 	}
 	/**
 	 * @see edu.biu.scapi.primitives.dlog.DlogGroup#reconstructElement(boolean, edu.biu.scapi.primitives.dlog.GroupElementSendableData)
 	 */
 	@Override
 	public GroupElement reconstructElement(boolean bCheckMembership, GroupElementSendableData data) {
+		if (data instanceof ECElementCompressedSendableData)
+			return reconstructCompressedElement(bCheckMembership, (ECElementCompressedSendableData) data);
 		if (!(data instanceof ECElementSendableData))
 			throw new IllegalArgumentException("data type doesn't match the group type");
 		return generateElement(bCheckMembership, ((ECElementSendableData)data).getX(), ((ECElementSendableData)data).getY());
 	}
+	
+	/**
+	 * Reconstructs a point from its compressed representation, by computing the y coordinate from the curve equation.
+	 * @param bCheckMembership whether to check that the point is in the group.
+	 * @param data the x coordinate and y bit of the point.
+	 * @return the reconstructed point.
+	 * @throws IllegalArgumentException if there is no point in the curve with the given x coordinate.
+	 */
+	private GroupElement reconstructCompressedElement(boolean bCheckMembership, ECElementCompressedSendableData data) {
+		if (data.isInfinity())
+			return getInfinity();
+		
+		BigInteger x = data.getX();
+		BigInteger y;
+		GroupParams params = getGroupParams();
+		if (params instanceof ECFpGroupParams) {
+			y = new ECFpUtility().decompressY((ECFpGroupParams) params, x, data.getYBit());
+		} else {
+			if (decompressionUtil == null) {
+				decompressionUtil = new ECF2mUtility();
+			}
+			y = decompressionUtil.decompressY((ECF2mGroupParams) params, x, data.getYBit());
+		}
+		//The decompressed point is on the curve, but it may still be outside the sub-group.
+		return generateElement(bCheckMembership, x, y);
+	}
 }
@@ -0,0 +1,154 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.primitives.dlog;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import org.bouncycastle.util.BigIntegers;
+
+/**
+ * The compressed representation of an elliptic curve point, that is sent instead of both coordinates of the point. <p>
+ * For every x there are at most two points on the curve, so the point is represented by its x coordinate and a single bit that 
+ * chooses between the two possible y coordinates. The group that receives the data computes y by solving the curve equation, 
+ * see {@link DlogGroupEC#reconstructElement(boolean, GroupElementSendableData)}. <p>
+ * The data is kept as a single byte array: the first byte is 0 for the point at infinity, otherwise it is 2 or 3 according to the y bit, 
+ * and it is followed by the unsigned big-endian bytes of x. <p>
+ * The y bit is defined as follows:<p>
+ * 1. Over Fp, the two possible y coordinates are y and p-y, so the y bit is the least significant bit of y. <p>
+ * 2. Over F2m, the two possible y coordinates are y and y XOR x, so the y bit is the bit of y in the position of the lowest set bit of x. 
+ * If x is 0 there is a single possible y and the bit is 0.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public class ECElementCompressedSendableData implements GroupElementSendableData {
+
+	private static final long serialVersionUID = -1541709232364217466L;
+	
+	private static final byte INFINITY = 0;
+	private static final byte EVEN = 2;
+	private static final byte ODD = 3;
+
+	private byte[] encoding;
+	
+	/**
+	 * Constructor that sets the x coordinate and y bit of the point.
+	 * @param x The x coordinate of the point, or null for the point at infinity.
+	 * @param yBit The bit that chooses the y coordinate of the point. Ignored for the point at infinity.
+	 */
+	public ECElementCompressedSendableData(BigInteger x, boolean yBit) {
+		if (x == null) {
+			encoding = new byte[] {INFINITY};
+		} else {
+			byte[] xBytes = BigIntegers.asUnsignedByteArray(x);
+			encoding = new byte[xBytes.length + 1];
+			encoding[0] = yBit ? ODD : EVEN;
+			System.arraycopy(xBytes, 0, encoding, 1, xBytes.length);
+		}
+	}
+	
+	/**
+	 * Creates the compressed representation of a point on a curve over Fp.
+	 * @param x The x coordinate of the point, or null for the point at infinity.
+	 * @param y The y coordinate of the point, or null for the point at infinity.
+	 */
+	public static ECElementCompressedSendableData fromFpPoint(BigInteger x, BigInteger y) {
+		if (x == null) {
+			return new ECElementCompressedSendableData(null, false);
+		}
+		return new ECElementCompressedSendableData(x, y.testBit(0));
+	}
+	
+	/**
+	 * Creates the compressed representation of a point on a curve over F2m.
+	 * @param x The x coordinate of the point, or null for the point at infinity.
+	 * @param y The y coordinate of the point, or null for the point at infinity.
+	 */
+	public static ECElementCompressedSendableData fromF2mPoint(BigInteger x, BigInteger y) {
+		if (x == null) {
+			return new ECElementCompressedSendableData(null, false);
+		}
+		boolean yBit = (x.signum() != 0) && y.testBit(x.getLowestSetBit());
+		return new ECElementCompressedSendableData(x, yBit);
+	}
+	
+	/**
+	 * Checks that the received encoding has one of the prefixes described in the class documentation, 
+	 * and that the encoding of the point at infinity has no x coordinate.
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		if (encoding == null || encoding.length == 0) {
+			throw new InvalidObjectException("the encoding of the point is empty");
+		}
+		if (encoding[0] == INFINITY) {
+			if (encoding.length != 1) {
+				throw new InvalidObjectException("the encoding of the point at infinity should not contain an x coordinate");
+			}
+		} else if (encoding[0] != EVEN && encoding[0] != ODD) {
+			throw new InvalidObjectException("the encoding of the point has an invalid prefix " + encoding[0]);
+		}
+	}
+	
+	/**
+	 * Returns true if this is the representation of the point at infinity.
+	 */
+	public boolean isInfinity() {
+		return encoding[0] == INFINITY;
+	}
+	
+	/**
+	 * Returns the x coordinate of the point, or null for the point at infinity.
+	 */
+	public BigInteger getX() {
+		if (isInfinity()) {
+			return null;
+		}
+		return new BigInteger(1, Arrays.copyOfRange(encoding, 1, encoding.length));
+	}
+	
+	/**
+	 * Returns the bit that chooses the y coordinate of the point.
+	 */
+	public boolean getYBit() {
+		return encoding[0] == ODD;
+	}
+	
+	/**
+	 * Returns the encoding of the point, as described in the class documentation.
+	 */
+	public byte[] getEncoded() {
+		return encoding.clone();
+	}
+
+	@Override
+	public String toString() {
+		return "ECElementCompressedSendableData [x=" + getX() + ", yBit=" + getYBit() + "]";
+	}
+}
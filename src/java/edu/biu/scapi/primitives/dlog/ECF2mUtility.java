@@ -29,6 +29,9 @@ package edu.biu.scapi.primitives.dlog;
 import java.math.BigInteger;
 import java.util.Properties;
 
+import org.bouncycastle.math.ec.ECCurve;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.util.BigIntegers;
 import org.bouncycastle.util.encoders.Hex;
 
 import edu.biu.scapi.primitives.dlog.groupParams.ECF2mGroupParams;
@@ -45,6 +48,9 @@ import edu.biu.scapi.primitives.dlog.groupParams.GroupParams;
  */
 public class ECF2mUtility {
 
+	private ECF2mGroupParams curveParams;	//The parameters of the cached Bouncy Castle curve.
+	private ECCurve curve;					//The Bouncy Castle curve that decompressY solves the curve equation with. Created once per group.
+	
 	//Default constructor.
 	public ECF2mUtility() {
 		super();
@@ -205,4 +211,64 @@ public class ECF2mUtility {
 		return result;
 	}
 	
+	/**
+	 * This function finds the y coordinate of a point in the curve from the x coordinate and the y bit of its compressed representation.<p>
+	 * The curve equation is solved by Bouncy Castle, that returns one of the two possible y coordinates, y or y XOR x. 
+	 * The y bit chooses between them, see {@link ECElementCompressedSendableData}.
+	 * @param params the parameters of the group
+	 * @param x
+	 * @param yBit the bit of y in the position of the lowest set bit of x
+	 * @return the y coordinate of the point
+	 * @throws IllegalArgumentException if there is no point in the curve with the given x coordinate
+	 */
+	public BigInteger decompressY(ECF2mGroupParams params, BigInteger x, boolean yBit){
+		int m = params.getM();
+		if (x.signum() < 0 || x.bitLength() > m){
+			throw new IllegalArgumentException("there is no point in the curve with the given x coordinate");
+		}
+		
+		ECCurve curve = getCurve(params);
+		
+		//Decode the point from the standard compressed encoding: the byte 2 followed by x, padded to the size of the field.
+		byte[] encoded = new byte[(m + 7) / 8 + 1];
+		encoded[0] = 2;
+		byte[] xBytes = BigIntegers.asUnsignedByteArray(x);
+		System.arraycopy(xBytes, 0, encoded, encoded.length - xBytes.length, xBytes.length);
+		ECPoint point;
+		try {
+			point = curve.decodePoint(encoded);
+		} catch (RuntimeException e) {
+			throw new IllegalArgumentException("there is no point in the curve with the given x coordinate");
+		}
+		
+		BigInteger y = point.getAffineYCoord().toBigInteger();
+		if (x.signum() != 0 && y.testBit(x.getLowestSetBit()) != yBit){
+			y = y.xor(x);
+		}
+		return y;
+	}
+	
+	/**
+	 * Returns the Bouncy Castle curve with the given parameters. The curve is created in the first call and reused as long as 
+	 * the same parameters are given.
+	 * @param params the parameters of the group
+	 */
+	private synchronized ECCurve getCurve(ECF2mGroupParams params){
+		if (params != curveParams){
+			int m = params.getM();
+			//Create the Bouncy Castle curve with the basis of the field.
+			ECF2mGroupParams basis = params;
+			if (params instanceof ECF2mKoblitz){
+				basis = ((ECF2mKoblitz) params).getCurve();
+			}
+			if (basis instanceof ECF2mTrinomialBasis){
+				curve = new ECCurve.F2m(m, ((ECF2mTrinomialBasis) basis).getK1(), params.getA(), params.getB());
+			} else {
+				ECF2mPentanomialBasis pentaBasis = (ECF2mPentanomialBasis) basis;
+				curve = new ECCurve.F2m(m, pentaBasis.getK1(), pentaBasis.getK2(), pentaBasis.getK3(), params.getA(), params.getB());
+			}
+			curveParams = params;
+		}
+		return curve;
+	}
 }
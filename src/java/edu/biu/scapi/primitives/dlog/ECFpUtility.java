@@ -120,6 +120,30 @@ public class ECFpUtility {
 		}
 	}
 
+	/**
+	 * This function finds the y coordinate of a point in the curve from the x coordinate and the y bit of its compressed representation.
+	 * @param params the parameters of the group
+	 * @param x
+	 * @param yBit the least significant bit of y, see {@link ECElementCompressedSendableData}
+	 * @return the y coordinate of the point
+	 * @throws IllegalArgumentException if there is no point in the curve with the given x coordinate
+	 */
+	public BigInteger decompressY(ECFpGroupParams params, BigInteger x, boolean yBit){
+		BigInteger p = params.getP();
+		BigInteger y = null;
+		if (x.signum() >= 0 && x.compareTo(p) < 0){
+			y = findYInCurveEquationForX(params, x);
+		}
+		if (y == null){
+			throw new IllegalArgumentException("there is no point in the curve with the given x coordinate");
+		}
+		//The two possible y coordinates are y and p-y. Since p is odd, exactly one of them is odd (unless y is 0).
+		if (y.testBit(0) != yBit){
+			y = p.subtract(y).mod(p);
+		}
+		return y;
+	}
+
 	//Auxiliary class used to hold the (x,y) coordinates of a point.It does not have any information about the curve and any further checks regarding membership
 	//to any specific curve should be performed by the user of this auxiliary class.
 	public class FpPoint {
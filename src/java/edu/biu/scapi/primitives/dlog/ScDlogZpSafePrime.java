@@ -0,0 +1,438 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.primitives.dlog;
+
+import java.math.BigInteger;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+import edu.biu.scapi.primitives.dlog.groupParams.ZpGroupParams;
+import edu.biu.scapi.securityLevel.DDH;
+import edu.biu.scapi.tools.math.MathAlgorithms;
+
+/**
+ * This class implements a Dlog group over Zp* in pure Java, without any native library.<p>
+ * The elements of the group are kept in Montgomery form (see {@link ScZpSafePrimeElement}), so that chains of multiplications 
+ * avoid the division that a modular reduction requires and the conversions to and from BigInteger. 
+ * The elements are converted to BigInteger only when their value is requested, for example when they are sent.<p>
+ * Exponentiations are done by {@link BigInteger#modPow(BigInteger, BigInteger)}, which already uses Montgomery multiplication internally 
+ * and is faster than a Montgomery exponentiation written in Java.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ */
+public class ScDlogZpSafePrime extends DlogGroupAbs implements DlogZpSafePrime, DDH{
+
+	private ZpMontgomeryModulus modulus;	//The Montgomery arithmetic modulo p.
+	
+	/**
+	 * Initializes the pure Java implementation of Dlog over Zp* with the given groupParams.
+	 * @param groupParams - contains the group parameters.
+	 */
+	public ScDlogZpSafePrime(ZpGroupParams groupParams) {
+		this(groupParams, new SecureRandom());
+	}
+	
+	/**
+	 * Initializes the pure Java implementation of Dlog over Zp* with the given groupParams.
+	 * @param groupParams - contains the group parameters.
+	 * @param random The source of randomness to use.
+	 */
+	public ScDlogZpSafePrime(ZpGroupParams groupParams, SecureRandom random) {
+
+		BigInteger p = groupParams.getP();
+		BigInteger q = groupParams.getQ();
+		BigInteger g = groupParams.getXg();
+
+		// If p is not 2q+1 throw exception.
+		if (!q.multiply(new BigInteger("2")).add(BigInteger.ONE).equals(p)) {
+			throw new IllegalArgumentException("p must be equal to 2q+1");
+		}
+		// If p is not a prime throw exception.
+		if (!p.isProbablePrime(40)) {
+			throw new IllegalArgumentException("p must be a prime");
+		}
+		// If q is not a prime throw exception.
+		if (!q.isProbablePrime(40)) {
+			throw new IllegalArgumentException("q must be a prime");
+		}
+		// Set the inner parameters.
+		this.groupParams = groupParams;
+		this.random = random;
+		modulus = new ZpMontgomeryModulus(p);
+		
+		//Create the generator and check that it is valid.
+		generator = new ScZpSafePrimeElement(g, modulus, false);
+		if (!isGenerator()) {
+			throw new IllegalArgumentException("generator value is not valid");
+		}
+		
+		//Now that we have p, we can calculate k which is the maximum length of a string to be converted to a Group Element of this group.
+		k = calcK(p);
+	}
+
+	/**
+	 * Initializes the pure Java implementation of Dlog over Zp* with the given parameters.
+	 * @param q the order of the group.
+	 * @param g the generator of the group.
+	 * @param p the prime of the group.
+	 */
+	public ScDlogZpSafePrime(String q, String g, String p)  {
+		//Creates ZpGroupParams from the given arguments and call the appropriate constructor.
+		this(new ZpGroupParams(new BigInteger(q), new BigInteger(g), new BigInteger(p)), new SecureRandom());
+	}
+	
+	/**
+	 * Initializes the pure Java implementation of Dlog over Zp* with the given parameters.
+	 * @param q the order of the group.
+	 * @param g the generator of the group.
+	 * @param p the prime of the group.
+	 * @param randNumGenAlg The random number generator to use.
+	 * @throws NoSuchAlgorithmException 
+	 */
+	public ScDlogZpSafePrime(String q, String g, String p, String randNumGenAlg) throws NoSuchAlgorithmException {
+		//Creates ZpGroupParams from the given arguments and call the appropriate constructor.
+		this(new ZpGroupParams(new BigInteger(q), new BigInteger(g), new BigInteger(p)), SecureRandom.getInstance(randNumGenAlg));
+	}
+
+	/**
+	 * Default constructor. Initializes this object with 1024 bit size.
+	 */
+	public ScDlogZpSafePrime() {
+		this(1024);
+	}
+
+	/**
+	 * Initializes the pure Java implementation of Dlog over Zp* with random values.
+	 * @param numBits - number of p's bits to generate.
+	 */
+	public ScDlogZpSafePrime(int numBits) {
+		this(numBits, new SecureRandom());
+	}
+	
+	/**
+	 * Initializes the pure Java implementation of Dlog over Zp* with random values.<p>
+	 * Note that finding a safe prime of a common size may take a long time.
+	 * @param numBits - number of p's bits to generate.
+	 * @param random The source of randomness to use.
+	 */
+	public ScDlogZpSafePrime(int numBits, SecureRandom random) {
+		this.random = random;
+		
+		//Sample primes q of numBits-1 bits until p = 2q+1 is also a prime.
+		BigInteger q;
+		BigInteger p;
+		do {
+			q = BigInteger.probablePrime(numBits - 1, random);
+			p = q.shiftLeft(1).add(BigInteger.ONE);
+		} while (!p.isProbablePrime(40));
+		modulus = new ZpMontgomeryModulus(p);
+		
+		//In a safe prime group every element except the identity is a generator. Choose a random one.
+		ScZpSafePrimeElement g;
+		do {
+			g = new ScZpSafePrimeElement(modulus, random);
+		} while (g.isIdentity());
+		generator = g;
+		groupParams = new ZpGroupParams(q, g.getElementValue(), p);
+
+		//Now that we have p, we can calculate k which is the maximum length in bytes of a string to be converted to a Group Element of this group. 
+		k = calcK(p);
+	}
+
+	/**
+	 * Initializes the pure Java implementation of Dlog over Zp* with random values.
+	 * @param numBits - number of p's bits to generate. 
+	 * @throws NumberFormatException 
+	 */
+	public ScDlogZpSafePrime(String numBits) throws NumberFormatException {
+		//Creates an int from the given string and calls the appropriate constructor.
+		this(Integer.parseInt(numBits), new SecureRandom());
+	}
+	
+	/**
+	 * Initializes the pure Java implementation of Dlog over Zp* with random values.
+	 * @param numBits - number of p's bits to generate.
+	 * @param randNumGenAlg The random number generator to use.
+	 * @throws NoSuchAlgorithmException 
+	 * @throws NumberFormatException 
+	 */
+	public ScDlogZpSafePrime(String numBits, String randNumGenAlg) throws NumberFormatException, NoSuchAlgorithmException {
+		//Creates an int from the given string and calls the appropriate constructor.
+		this(Integer.parseInt(numBits), SecureRandom.getInstance(randNumGenAlg));
+	}
+	
+	private int calcK(BigInteger p){
+		int bitsInp = p.bitLength();
+		//Any string of length k has a numeric value that is less than (p-1)/2 - 1.
+		int k = (bitsInp - 3)/8; 
+		//The actual k that we allow is one byte less. This will give us an extra byte to pad the binary string passed to encode to a group element with a 01 byte
+		//and at decoding we will remove that extra byte. This way, even if the original string translates to a negative BigInteger the encode and decode functions
+		//always work with positive numbers. The encoding will be responsible for padding and the decoding will be responsible for removing the pad.
+		k--; 
+		//For technical reasons of how we chose to do the padding for encoding and decoding (the least significant byte of the encoded string contains the size of the 
+		//the original binary string sent for encoding, which is used to remove the padding when decoding) k has to be <= 255 bytes so that the size can be encoded in the padding.
+		if( k > 255){
+			k = 255;
+		}
+		return k;
+	}
+	
+	/**
+	 * @return the type of the group - Zp*.
+	 */
+	public String getGroupType() {
+		return "Zp*";
+	}
+
+	/**
+	 * 
+	 * @return the identity of this Zp group - 1.
+	 */
+	public GroupElement getIdentity() {
+		return new ScZpSafePrimeElement(modulus.one(), modulus);
+	}
+	
+	/**
+	 * Creates a random member of this Dlog group.
+	 * 
+	 * @return the random element
+	 */
+	public GroupElement createRandomElement() {
+		//This function overrides the basic implementation of DlogGroupAbs. For the case of Zp Safe Prime this is a more efficient implementation.
+		//It calls the package private constructor of ScZpSafePrimeElement, which randomly creates an element in Zp.
+		return new ScZpSafePrimeElement(modulus, random);
+	}
+
+	/**
+	 * Checks if the given element is member of this Dlog group.
+	 * @param element 
+	 * @return true if the given element is member of that group. false, otherwise.
+	 * @throws IllegalArgumentException if the element does not match this group.
+	 */
+	public boolean isMember(GroupElement element) {
+		ScZpSafePrimeElement zpElement = checkElement(element);
+		
+		//The element is a member iff it is a quadratic residue modulo p, that is, iff its Legendre symbol is 1.
+		//This is equivalent to element^q = 1, but much cheaper than the exponentiation.
+		BigInteger p = ((ZpGroupParams) groupParams).getP();
+		return MathAlgorithms.jacobiSymbol(zpElement.getElementValue(), p) == 1;
+	}
+
+	/**
+	 * Checks if the given generator is indeed the generator of the group.
+	 * @return true, is the generator is valid, false otherwise.
+	 */
+	public boolean isGenerator() {
+		//In a prime order group every member except the identity is a generator.
+		return !generator.isIdentity() && isMember(generator);
+	}
+
+	/**
+	 * Checks if the parameters of the group are correct.
+	 * @return true if valid, false otherwise.
+	 */
+	public boolean validateGroup() {
+		BigInteger p = ((ZpGroupParams) groupParams).getP();
+		BigInteger q = groupParams.getQ();
+		
+		return q.shiftLeft(1).add(BigInteger.ONE).equals(p) && p.isProbablePrime(40) && q.isProbablePrime(40) && isGenerator();
+	}
+
+	/**
+	 * Calculates the inverse of the given GroupElement.
+	 * @param groupElement to inverse.
+	 * @return the inverse element of the given GroupElement.
+	 * @throws IllegalArgumentException if the element does not match this group.
+	 */
+	public GroupElement getInverse(GroupElement groupElement) throws IllegalArgumentException{
+		ScZpSafePrimeElement zpElement = checkElement(groupElement);
+		BigInteger inverse = zpElement.getElementValue().modInverse(((ZpGroupParams) groupParams).getP());
+		
+		return new ScZpSafePrimeElement(inverse, modulus, false);
+	}
+
+	@Override
+	public GroupElement exponentiate(GroupElement base, BigInteger exponent) throws IllegalArgumentException{
+		ScZpSafePrimeElement zpBase = checkElement(base);
+		
+		//modPow computes a negative exponent as the exponentiation of the inverse.
+		//The result keeps its actual value, so it is converted to Montgomery form only if it is later multiplied.
+		BigInteger result = zpBase.getElementValue().modPow(exponent, ((ZpGroupParams) groupParams).getP());
+		return new ScZpSafePrimeElement(result, modulus, false);
+	}
+	
+	@Override
+	public GroupElement multiplyGroupElements(GroupElement groupElement1, GroupElement groupElement2) throws IllegalArgumentException {
+		ScZpSafePrimeElement element1 = checkElement(groupElement1);
+		ScZpSafePrimeElement element2 = checkElement(groupElement2);
+		
+		//The Montgomery product of the Montgomery forms is the Montgomery form of the product.
+		return new ScZpSafePrimeElement(modulus.multiply(element1.getMontgomeryValue(), element2.getMontgomeryValue()), modulus);
+	}
+
+	/**
+	 * Computes the product of several exponentiations with distinct bases and distinct exponents. 
+	 * Instead of computing each part separately, an optimization is used to compute it simultaneously. 
+	 * @param groupElements
+	 * @param exponentiations
+	 * @return the exponentiation result
+	 */
+	@Override
+	public GroupElement simultaneousMultipleExponentiations(GroupElement[] groupElements, BigInteger[] exponentiations){
+		
+		for (int i=0; i < groupElements.length; i++){
+			checkElement(groupElements[i]);
+		}
+		//Since the multiplications are done in Java, there is no JNI overhead and the LL algorithm can be used.
+		return computeLL(groupElements, exponentiations);
+	}
+	
+	/**
+	 * Checks that the given element belongs to this group.
+	 * @return the given element as ScZpSafePrimeElement.
+	 * @throws IllegalArgumentException if the element does not match this group.
+	 */
+	private ScZpSafePrimeElement checkElement(GroupElement element){
+		if (!(element instanceof ScZpSafePrimeElement)){
+			throw new IllegalArgumentException("element type doesn't match the group type");
+		}
+		//Elements of another group instance with the same p have the same Montgomery representation, so they are accepted too.
+		ZpMontgomeryModulus elementModulus = ((ScZpSafePrimeElement) element).getModulus();
+		if (elementModulus != modulus && !elementModulus.getModulus().equals(modulus.getModulus())){
+			throw new IllegalArgumentException("element doesn't belong to this group");
+		}
+		return (ScZpSafePrimeElement) element;
+	}
+
+	/**
+	 * @deprecated As of SCAPI-V2_0_0 use generateElment(boolean bCheckMembership, BigInteger...values).
+	*/
+	@Deprecated public ZpElement generateElement(Boolean bCheckMembership, BigInteger x) {
+
+		return new ScZpSafePrimeElement(x, modulus, bCheckMembership);
+	}
+	
+	@Override
+	public GroupElement generateElement(boolean bCheckMembership, BigInteger... values) throws IllegalArgumentException {
+		if(values.length != 1){
+			throw new IllegalArgumentException("To generate an ZpElement you should pass the x value of the point");
+		}
+				
+		return new ScZpSafePrimeElement(values[0], modulus, bCheckMembership);
+	}
+	
+	/**
+	 * @see edu.biu.scapi.primitives.dlog.DlogGroup#generateElement(boolean, edu.biu.scapi.primitives.dlog.GroupElementSendableData)
+	 * @deprecated The name of this function was changed.As of SCAPI-V1-0-2-2 use {@link reconstructElement(boolean bCheckMembership, GroupElementSendableData data)} instead.
+	 */
+	@Override
+	@Deprecated public GroupElement generateElement(boolean bCheckMembership, GroupElementSendableData data) {
+		return reconstructElement(bCheckMembership, data);
+	}
+
+	/**
+	 * @see edu.biu.scapi.primitives.dlog.DlogGroup#reconstructElement(boolean, edu.biu.scapi.primitives.dlog.GroupElementSendableData)
+	 * @throws IllegalArgumentException if bCheckMembership is true and the data does not correspond to an illegal value of this group
+	 */
+	@Override
+	public GroupElement reconstructElement(boolean bCheckMembership, GroupElementSendableData data) {
+		if (!(data instanceof ZpElementSendableData))
+			throw new IllegalArgumentException("data type doesn't match the group type");
+		return generateElement(bCheckMembership, ((ZpElementSendableData)data).getX());
+	}
+
+	/**
+	 * This function takes any string of length up to k bytes and encodes it to a Group Element.<p>
+	 * k is calculated upon construction of this group and it depends on the length in bits of p.<p>
+	 * The encoding-decoding functionality is not a bijection, that is, it is a 1-1 function but is not onto.<p>
+	 * Therefore, any string of length in bytes up to k can be encoded to a group element but not<p>
+	 * every group element can be decoded to a binary string in the group of binary strings of length up to 2^k.<p>
+	 * Thus, the right way to use this functionality is first to encode a byte array and the to decode it, and not the opposite.
+	 * @throws IndexOutOfBoundsException if the length of the binary array to encode is longer than k
+	 */
+	public GroupElement encodeByteArrayToGroupElement(byte[] binaryString) {
+		//Any string of length up to k has numeric value that is less than (p-1)/2 - 1.
+		//If longer than k then throw exception.
+		if (binaryString.length > k){
+			throw new IndexOutOfBoundsException("The binary array to encode is too long.");
+		}
+	
+		//Pad the binaryString with a x01 byte in the most significant byte to ensure that the 
+		//encoding and decoding always work with positive numbers.
+		byte[] newString = new byte[binaryString.length + 1];
+		newString[0] = 1;
+		System.arraycopy(binaryString, 0, newString, 1, binaryString.length);
+	
+		//Denote the string of length k by s.
+		//Set the group element to be y=(s+1)^2 (this ensures that the result is not 0 and is a square)
+		BigInteger s = new BigInteger(newString);
+		BigInteger y = (s.add(BigInteger.ONE)).pow(2).mod(((ZpGroupParams) groupParams).getP());
+		//There is no need to check membership since the "element" was generated so that it is always an element.
+		return new ScZpSafePrimeElement(y, modulus, false);
+	}
+	
+	/**
+	 * This function decodes a group element to a byte array.<p> 
+	 * This function is guaranteed to work properly ONLY if the group element was obtained as a result
+	 * of encoding a binary string of length in bytes up to k. This is because the encoding-decoding functionality is not a bijection, that is, it is a 1-1 function but is not onto.<p>
+	 * Therefore, any string of length in bytes up to k can be encoded to a group element but not<p>
+	 * any group element can be decoded to a binary sting in the group of binary strings of length up to 2^k.
+	 * @param groupElement the GroupElement to decode
+	 * @return a byte[] decoding of the group element
+	 */
+	public byte[] decodeGroupElementToByteArray(GroupElement groupElement) {
+		checkElement(groupElement);
+		
+		//Given a group element y, find the two inverses z,-z. Take z to be the value between 1 and (p-1)/2. Return s=z-1
+		BigInteger y = ((ZpElement) groupElement).getElementValue();
+		BigInteger p = ((ZpGroupParams) groupParams).getP();
+		MathAlgorithms.SquareRootResults roots = MathAlgorithms.sqrtModP_3_4(y, p);
+	
+		BigInteger goodRoot;
+		BigInteger halfP = (p.subtract(BigInteger.ONE)).divide(BigInteger.valueOf(2));
+		if(roots.getRoot1().compareTo(BigInteger.ONE)>= 0 && roots.getRoot1().compareTo(halfP) < 0)
+			goodRoot = roots.getRoot1();
+		else 
+			goodRoot = roots.getRoot2();
+		
+		goodRoot = goodRoot.subtract(BigInteger.ONE);
+	
+		//Remove the padding byte at the most significant position (that was added while encoding)
+		byte[] rootByteArray = goodRoot.toByteArray();
+		byte[] oneByteLess = new byte[rootByteArray.length -1];
+		System.arraycopy(rootByteArray, 1, oneByteLess, 0,oneByteLess.length );
+		return oneByteLess;
+	}
+
+	/**
+	 * This function maps a group element of this dlog group to a byte array.<p>
+	 * This function does not have an inverse function, that is, it is not possible to re-construct the original group element from the resulting byte array. 
+	 * @return a byte array representation of the given group element
+	 */
+	public byte[] mapAnyGroupElementToByteArray(GroupElement groupElement){
+		checkElement(groupElement);
+		return ((ZpElement) groupElement).getElementValue().toByteArray();		
+	}
+}
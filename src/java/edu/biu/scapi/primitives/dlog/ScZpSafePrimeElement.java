@@ -0,0 +1,182 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.primitives.dlog;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+import org.bouncycastle.util.BigIntegers;
+
+import edu.biu.scapi.tools.math.MathAlgorithms;
+
+/**
+ * This class is the pure Java implementation of an element of {@link ScDlogZpSafePrime}.<p>
+ * The results of multiplications are kept in Montgomery form, so that a chain of multiplications does not need any conversion or division. 
+ * Their actual value is calculated only when it is requested, for example when the element is sent. 
+ * Elements that are created from their actual value, such as the results of exponentiations and received elements, keep that value 
+ * and calculate the Montgomery form only when they are multiplied.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public class ScZpSafePrimeElement implements ZpSafePrimeElement{
+	
+	private ZpMontgomeryModulus modulus;	//The Montgomery arithmetic of the group.
+	private int[] montgomeryValue;			//The Montgomery form of the element. Calculated lazily if the element was created from its value.
+	private BigInteger value;				//The actual value of the element. Calculated lazily if the element was created in Montgomery form.
+
+	/**
+	 * This constructor accepts x value, the Montgomery arithmetic of the group and a boolean indicates if the x values needs to be checked.
+	 * If x is needs to be checked and it is valid element in the group, sets it; else, throws exception.
+	 * If x does not need to be checked, it is set without checking.
+	 * @param x element in the group.
+	 * @param modulus the Montgomery arithmetic of the group.
+	 * @param bCheckMembership indicates if x is needs to be checked.
+	 * @throws IllegalArgumentException
+	 */
+	ScZpSafePrimeElement(BigInteger x, ZpMontgomeryModulus modulus, boolean bCheckMembership) throws IllegalArgumentException{
+		BigInteger p = modulus.getModulus();
+		if(bCheckMembership){
+			//If the element is in the expected range, set it. else, throw exception.
+			if ((x.compareTo(BigInteger.ZERO)>0) && (x.compareTo(p.subtract(BigInteger.ONE))<=0)){
+				//The members of a safe prime group are exactly the quadratic residues, which the Legendre symbol tells 
+				//without the exponentiation x^q mod p.
+				if (MathAlgorithms.jacobiSymbol(x, p) != 1){
+					throw new IllegalArgumentException("Cannot create Zp element. Requested value " + x + " is not a quadratic residue.");
+				}
+			} else throw new IllegalArgumentException("Cannot create Zp element. Requested value " + x + " is not in the range of this group.");
+		} else if (x.signum() < 0 || x.compareTo(p) >= 0){
+			//The Montgomery form is defined only for values between 0 and p-1.
+			x = x.mod(p);
+		}
+		this.modulus = modulus;
+		value = x;
+	}
+	
+	/**
+	 * Constructor that chooses random element with order q.
+	 * The algorithm is: 
+	 * input: the Montgomery arithmetic of the group.
+	 * choose a random element between 1 to p-1.
+	 * calculate element^2 mod p.
+     *  
+	 * @param modulus the Montgomery arithmetic of the group.
+	 * @param random The source of randomness to use.
+	 */
+	ScZpSafePrimeElement(ZpMontgomeryModulus modulus, SecureRandom random){
+		this.modulus = modulus;
+		BigInteger p = modulus.getModulus();
+		// find a number in the range [1, ..., p-1]
+		BigInteger element = BigIntegers.createRandomInRange(BigInteger.ONE, p.subtract(BigInteger.ONE), random);
+		
+		//calculate its power to get a number in the subgroup and set the power as the element. 
+		int[] montgomeryElement = modulus.toMontgomery(element);
+		montgomeryValue = modulus.multiply(montgomeryElement, montgomeryElement);
+	}
+	
+	/*
+	 * Constructor that gets an element in Montgomery form and sets it.
+	 * Only the group functions use this constructor to set the results of the group operations.
+	 */
+	ScZpSafePrimeElement(int[] montgomeryValue, ZpMontgomeryModulus modulus) {
+		this.modulus = modulus;
+		this.montgomeryValue = montgomeryValue;
+	}
+	
+	/*
+	 * Returns the Montgomery form of the element.
+	 */
+	int[] getMontgomeryValue() {
+		if (montgomeryValue == null){
+			montgomeryValue = modulus.toMontgomery(value);
+		}
+		return montgomeryValue;
+	}
+	
+	/*
+	 * Returns the Montgomery arithmetic that this element belongs to.
+	 */
+	ZpMontgomeryModulus getModulus() {
+		return modulus;
+	}
+	
+	/**
+	 * @return BigInteger - value of the element
+	 */
+	public BigInteger getElementValue() {
+		if (value == null){
+			value = modulus.fromMontgomery(montgomeryValue);
+		}
+		return value;
+	}
+	
+	/**
+	 * This function checks if this element is the identity of the Dlog group.
+	 * @return <code>true</code> if this element is the identity of the group; <code>false</code> otherwise.
+	 */
+	public boolean isIdentity(){
+		if (montgomeryValue == null){
+			return value.equals(BigInteger.ONE);
+		}
+		return Arrays.equals(montgomeryValue, modulus.one());
+	}
+
+	/**
+	 * Checks if the given GroupElement is equal to this groupElement.
+	 * 
+	 * @param elementToCompare
+	 * @return true if the given element is equal to this element. false, otherwise.
+	 */
+	public boolean equals(Object elementToCompare) {
+		if (!(elementToCompare instanceof ScZpSafePrimeElement)) {
+			return false;
+		}
+		ScZpSafePrimeElement element = (ScZpSafePrimeElement) elementToCompare;
+		//Elements of the same group are equal iff their Montgomery forms are equal, so compare the forms that both elements already have.
+		if (element.modulus == modulus && (value == null || element.value == null)) {
+			return Arrays.equals(element.getMontgomeryValue(), getMontgomeryValue());
+		}
+		return element.getElementValue().equals(getElementValue());
+	}
+	
+	@Override
+	public int hashCode() {
+		return getElementValue().hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return "ScZpSafePrimeElement [element value=" + getElementValue() + "]";
+	}
+	
+	/** 
+	 * @see edu.biu.scapi.primitives.dlog.GroupElement#generateSendableData()
+	 */
+	@Override
+	public GroupElementSendableData generateSendableData() {
+		return new ZpElementSendableData(getElementValue());
+	}
+}
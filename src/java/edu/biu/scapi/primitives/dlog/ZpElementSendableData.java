@@ -26,17 +26,26 @@
 
 package edu.biu.scapi.primitives.dlog;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.math.BigInteger;
 
+import org.bouncycastle.util.BigIntegers;
+
 /**
+ * The sendable data of a Zp element. <p>
+ * The element is serialized compactly, as its length followed by its unsigned big-endian bytes, 
+ * instead of the default serialization of BigInteger that adds its sign and some cached fields.
+ * 
  * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University (Yael Ejgenberg)
  *
  */
 public class ZpElementSendableData implements GroupElementSendableData {
 
-	private static final long serialVersionUID = -4297988366522382659L;
+	private static final long serialVersionUID = 1928364117582012335L;
 
-	BigInteger x;
+	transient BigInteger x;
 
 	public ZpElementSendableData(BigInteger x) {
 		super();
@@ -47,6 +56,18 @@ public class ZpElementSendableData implements GroupElementSendableData {
 		return x;
 	}
 
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		byte[] bytes = BigIntegers.asUnsignedByteArray(x);
+		out.writeShort(bytes.length);
+		out.write(bytes);
+	}
+	
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		byte[] bytes = new byte[in.readUnsignedShort()];
+		in.readFully(bytes);
+		x = new BigInteger(1, bytes);
+	}
+
 	@Override
 	public String toString() {
 		return "ZpElementSendableData [x=" + x + "]";
@@ -0,0 +1,208 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.primitives.dlog;
+
+import java.math.BigInteger;
+
+/**
+ * This class performs the Montgomery arithmetic modulo an odd prime p, used by {@link ScDlogZpSafePrime}. <p>
+ * 
+ * Numbers are held as arrays of n 32-bit words in little endian order, where n is the number of words in p.
+ * The Montgomery form of x is x*R mod p where R = 2^(32n). The product of two numbers in Montgomery form is computed 
+ * by {@link #multiply(int[], int[])}, which multiplies and reduces in a single pass without any division. 
+ * Thus, a chain of multiplications is done in Montgomery form and the conversion back to 
+ * a BigInteger is done only when the actual value is needed.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+final class ZpMontgomeryModulus {
+	
+	private static final long MASK = 0xFFFFFFFFL;
+	
+	private final BigInteger p;
+	private final int[] modulus;	//p as an array of words.
+	private final int n;			//The number of words in p.
+	private final int n0;			//-p^(-1) mod 2^32.
+	private final int[] rSquare;	//R^2 mod p, used to convert numbers to Montgomery form.
+	private final int[] one;		//The Montgomery form of 1, which is R mod p.
+	
+	/**
+	 * Creates the Montgomery arithmetic for the given modulus.
+	 * @param p An odd modulus.
+	 */
+	ZpMontgomeryModulus(BigInteger p) {
+		if (!p.testBit(0)) {
+			throw new IllegalArgumentException("the modulus should be odd");
+		}
+		this.p = p;
+		n = (p.bitLength() + 31) / 32;
+		modulus = toWords(p);
+		
+		//Compute p^(-1) mod 2^32 using Newton iterations. Each iteration doubles the number of correct bits.
+		int inverse = modulus[0];
+		for (int i = 0; i < 5; i++) {
+			inverse *= 2 - modulus[0] * inverse;
+		}
+		n0 = -inverse;
+		
+		rSquare = toWords(BigInteger.ONE.shiftLeft(64 * n).mod(p));
+		one = toWords(BigInteger.ONE.shiftLeft(32 * n).mod(p));
+	}
+	
+	/**
+	 * Returns the modulus.
+	 */
+	BigInteger getModulus() {
+		return p;
+	}
+	
+	/**
+	 * Returns the Montgomery form of 1.
+	 */
+	int[] one() {
+		return one;
+	}
+	
+	/**
+	 * Converts the given number to Montgomery form.
+	 * @param x A number between 0 and p-1.
+	 * @return x*R mod p.
+	 */
+	int[] toMontgomery(BigInteger x) {
+		return multiply(toWords(x), rSquare);
+	}
+	
+	/**
+	 * Converts the given number from Montgomery form.
+	 * @param x A number in Montgomery form.
+	 * @return x*R^(-1) mod p as a BigInteger.
+	 */
+	BigInteger fromMontgomery(int[] x) {
+		int[] unit = new int[n];
+		unit[0] = 1;
+		int[] value = multiply(x, unit);
+		
+		//Write the words in big endian order.
+		byte[] bytes = new byte[n * 4];
+		for (int i = 0; i < n; i++) {
+			int word = value[n - 1 - i];
+			bytes[4 * i] = (byte) (word >>> 24);
+			bytes[4 * i + 1] = (byte) (word >>> 16);
+			bytes[4 * i + 2] = (byte) (word >>> 8);
+			bytes[4 * i + 3] = (byte) word;
+		}
+		return new BigInteger(1, bytes);
+	}
+	
+	/**
+	 * Multiplies the given numbers in Montgomery form.
+	 * @return a*b*R^(-1) mod p, which is the Montgomery form of the product.
+	 */
+	int[] multiply(int[] a, int[] b) {
+		int[] result = new int[n];
+		multiply(a, b, result, new int[n + 2]);
+		return result;
+	}
+	
+	/**
+	 * Computes the Montgomery product a*b*R^(-1) mod p into the given result array, 
+	 * using the Coarsely Integrated Operand Scanning (CIOS) method.
+	 * @param a A number in Montgomery form.
+	 * @param b A number in Montgomery form.
+	 * @param result An array of n words to put the result in. May not be one of the inputs.
+	 * @param t A temporary array of n+2 words.
+	 */
+	private void multiply(int[] a, int[] b, int[] result, int[] t) {
+		for (int i = 0; i < n + 2; i++) {
+			t[i] = 0;
+		}
+		long m0 = modulus[0] & MASK;
+		for (int i = 0; i < n; i++) {
+			//t = t + a[i]*b
+			long ai = a[i] & MASK;
+			long carry = 0;
+			for (int j = 0; j < n; j++) {
+				long s = (t[j] & MASK) + ai * (b[j] & MASK) + carry;
+				t[j] = (int) s;
+				carry = s >>> 32;
+			}
+			long s = (t[n] & MASK) + carry;
+			t[n] = (int) s;
+			t[n + 1] = (int) (s >>> 32);
+			
+			//t = (t + m*p) / 2^32, where m is chosen so that the lowest word is zero.
+			long m = (t[0] * n0) & MASK;
+			s = (t[0] & MASK) + m * m0;
+			carry = s >>> 32;
+			for (int j = 1; j < n; j++) {
+				s = (t[j] & MASK) + m * (modulus[j] & MASK) + carry;
+				t[j - 1] = (int) s;
+				carry = s >>> 32;
+			}
+			s = (t[n] & MASK) + carry;
+			t[n - 1] = (int) s;
+			t[n] = t[n + 1] + (int) (s >>> 32);
+		}
+		
+		//The result is less than 2p. Subtract p if it is not less than p.
+		if (t[n] != 0 || !lessThanModulus(t)) {
+			long borrow = 0;
+			for (int j = 0; j < n; j++) {
+				long d = (t[j] & MASK) - (modulus[j] & MASK) - borrow;
+				result[j] = (int) d;
+				borrow = (d >>> 63);
+			}
+		} else {
+			System.arraycopy(t, 0, result, 0, n);
+		}
+	}
+	
+	/**
+	 * Checks if the lowest n words of the given number are less than p.
+	 */
+	private boolean lessThanModulus(int[] x) {
+		for (int j = n - 1; j >= 0; j--) {
+			long xj = x[j] & MASK;
+			long mj = modulus[j] & MASK;
+			if (xj != mj) {
+				return xj < mj;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Converts the given non negative number, which is less than 2^(32n), to an array of n words.
+	 */
+	private int[] toWords(BigInteger x) {
+		int[] words = new int[(p.bitLength() + 31) / 32];
+		byte[] bytes = x.toByteArray();
+		for (int i = 0; i < bytes.length && i < words.length * 4; i++) {
+			words[i / 4] |= (bytes[bytes.length - 1 - i] & 0xFF) << (8 * (i % 4));
+		}
+		return words;
+	}
+}
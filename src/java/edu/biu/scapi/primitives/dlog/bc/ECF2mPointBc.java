@@ -29,7 +29,9 @@ package edu.biu.scapi.primitives.dlog.bc;
 import java.math.BigInteger;
 import org.bouncycastle.math.ec.ECPoint;
 
+import edu.biu.scapi.primitives.dlog.ECElementCompressedSendableData;
 import edu.biu.scapi.primitives.dlog.ECF2mPoint;
+import edu.biu.scapi.primitives.dlog.GroupElementSendableData;
 import edu.biu.scapi.primitives.dlog.groupParams.ECF2mGroupParams;
 
 /**
@@ -70,5 +72,14 @@ public class ECF2mPointBc extends ECPointBc implements ECF2mPoint {
 	ECF2mPointBc(ECPoint point) {
 		this.point = point;
 	}
+	
+	/** 
+	 * Returns the compressed representation of the point.
+	 * @see edu.biu.scapi.primitives.dlog.GroupElement#generateSendableData()
+	 */
+	@Override
+	public GroupElementSendableData generateSendableData() {
+		return ECElementCompressedSendableData.fromF2mPoint(getX(), getY());
+	}
 
 }
@@ -30,8 +30,10 @@ import java.math.BigInteger;
 
 import org.bouncycastle.math.ec.ECPoint;
 
+import edu.biu.scapi.primitives.dlog.ECElementCompressedSendableData;
 import edu.biu.scapi.primitives.dlog.ECFpPoint;
 import edu.biu.scapi.primitives.dlog.ECFpUtility;
+import edu.biu.scapi.primitives.dlog.GroupElementSendableData;
 import edu.biu.scapi.primitives.dlog.groupParams.ECFpGroupParams;
 
 /**
@@ -75,5 +77,14 @@ public class ECFpPointBc extends ECPointBc implements ECFpPoint{
 	ECFpPointBc(ECPoint point) {
 		this.point = point;
 	}
+	
+	/** 
+	 * Returns the compressed representation of the point.
+	 * @see edu.biu.scapi.primitives.dlog.GroupElement#generateSendableData()
+	 */
+	@Override
+	public GroupElementSendableData generateSendableData() {
+		return ECElementCompressedSendableData.fromFpPoint(getX(), getY());
+	}
 
 }
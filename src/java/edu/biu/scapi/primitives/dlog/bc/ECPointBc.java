@@ -31,8 +31,6 @@ import java.math.BigInteger;
 import org.bouncycastle.math.ec.ECPoint;
 
 import edu.biu.scapi.primitives.dlog.ECElement;
-import edu.biu.scapi.primitives.dlog.ECElementSendableData;
-import edu.biu.scapi.primitives.dlog.GroupElementSendableData;
 
 /**
  * This class is an adapter for BC point.
@@ -94,14 +92,6 @@ public abstract class ECPointBc implements ECElement{
 		
 		return false;
 	}
-	/** 
-	 * @see edu.biu.scapi.primitives.dlog.GroupElement#generateSendableData()
-	 */
-	@Override
-	public GroupElementSendableData generateSendableData() {
-		return new ECElementSendableData(getX(), getY());
-	}
-	
 	@Override
 	public String toString() {
 		return "ECPointBc [point=" + getX()+"; " + getY() + "]";
@@ -29,7 +29,7 @@ package edu.biu.scapi.primitives.dlog.miracl;
 import java.math.BigInteger;
 
 import edu.biu.scapi.primitives.dlog.ECElement;
-import edu.biu.scapi.primitives.dlog.ECElementSendableData;
+import edu.biu.scapi.primitives.dlog.ECElementCompressedSendableData;
 import edu.biu.scapi.primitives.dlog.ECF2mPoint;
 import edu.biu.scapi.primitives.dlog.GroupElementSendableData;
 /**
@@ -142,7 +142,8 @@ public class ECF2mPointMiracl implements ECElement, ECF2mPoint{
 	 */
 	@Override
 	public GroupElementSendableData generateSendableData() {
-		return new ECElementSendableData(getX(), getY());
+		//Send the compressed representation of the point.
+		return ECElementCompressedSendableData.fromF2mPoint(getX(), getY());
 	}
 	
 	@Override
@@ -29,7 +29,7 @@ package edu.biu.scapi.primitives.dlog.miracl;
 import java.math.BigInteger;
 
 import edu.biu.scapi.primitives.dlog.ECElement;
-import edu.biu.scapi.primitives.dlog.ECElementSendableData;
+import edu.biu.scapi.primitives.dlog.ECElementCompressedSendableData;
 import edu.biu.scapi.primitives.dlog.ECFpPoint;
 import edu.biu.scapi.primitives.dlog.GroupElementSendableData;
 
@@ -135,7 +135,8 @@ public class ECFpPointMiracl implements ECElement, ECFpPoint{
 	 */
 	@Override
 	public GroupElementSendableData generateSendableData() {
-		return new ECElementSendableData(getX(), getY());
+		//Send the compressed representation of the point.
+		return ECElementCompressedSendableData.fromFpPoint(getX(), getY());
 	}
 	
 	@Override
@@ -26,7 +26,7 @@ package edu.biu.scapi.primitives.dlog.openSSL;
 
 import java.math.BigInteger;
 
-import edu.biu.scapi.primitives.dlog.ECElementSendableData;
+import edu.biu.scapi.primitives.dlog.ECElementCompressedSendableData;
 import edu.biu.scapi.primitives.dlog.ECF2mPoint;
 import edu.biu.scapi.primitives.dlog.GroupElementSendableData;
 
@@ -144,7 +144,8 @@ public class ECF2mPointOpenSSL implements ECF2mPoint{
 
 	@Override
 	public GroupElementSendableData generateSendableData() {
-		return new ECElementSendableData(getX(), getY());
+		//Send the compressed representation of the point.
+		return ECElementCompressedSendableData.fromF2mPoint(getX(), getY());
 	}
 	
 	/**
@@ -26,7 +26,7 @@ package edu.biu.scapi.primitives.dlog.openSSL;
 
 import java.math.BigInteger;
 
-import edu.biu.scapi.primitives.dlog.ECElementSendableData;
+import edu.biu.scapi.primitives.dlog.ECElementCompressedSendableData;
 import edu.biu.scapi.primitives.dlog.ECFpPoint;
 import edu.biu.scapi.primitives.dlog.ECFpUtility;
 import edu.biu.scapi.primitives.dlog.GroupElementSendableData;
@@ -143,7 +143,8 @@ public class ECFpPointOpenSSL implements ECFpPoint{
 
 	@Override
 	public GroupElementSendableData generateSendableData() {
-		return new ECElementSendableData(getX(), getY());
+		//Send the compressed representation of the point.
+		return ECElementCompressedSendableData.fromFpPoint(getX(), getY());
 	}
 	
 	/**
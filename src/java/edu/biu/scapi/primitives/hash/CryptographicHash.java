@@ -26,6 +26,7 @@
 
 package edu.biu.scapi.primitives.hash;
 
+import java.nio.ByteBuffer;
 
 /**
  * General interface for CryptographicHash. Every concrete class should implement this interface. <p>
@@ -61,4 +62,45 @@ public interface CryptographicHash {
 	 * @param outOffset the offset which to put the result bytes from
 	 */
 	public void hashFinal(byte[] out, int outOffset);
+	
+	/**
+	 * Adds the remaining bytes of the given buffer to the existing message to hash, and sets the position of the buffer to its limit. <p>
+	 * The implementations that are backed by native code pass direct buffers to the native code without copying them.
+	 * @param in input buffer
+	 */
+	public void update(ByteBuffer in);
+	
+	/** 
+	 * Completes the hash computation and puts the result in the given buffer, starting at its position. 
+	 * The position of the buffer is advanced by the size of the hashed message.
+	 * @param out the output buffer
+	 * @throws java.nio.BufferOverflowException if the buffer does not have enough remaining space for the hashed message
+	 */
+	public void hashFinal(ByteBuffer out);
+	
+	/**
+	 * Hashes each one of the given messages separately and puts the hash of inputs[i] in outputs[i], starting at index 0. <p>
+	 * The result is the same as calling update and hashFinal for every message, but the implementations that are backed by native code 
+	 * hash all the messages in a single native call, and the other implementations reuse the same digest state. 
+	 * Any message that was added by update and was not finalized yet is discarded.
+	 * @param inputs the messages to hash
+	 * @param outputs the arrays to put the results in. Each array should be at least of the size of the hashed message.
+	 * @throws IllegalArgumentException if the number of outputs is different from the number of inputs or one of the outputs is too short
+	 */
+	public void hashMany(byte[][] inputs, byte[][] outputs);
+	
+	/**
+	 * Hashes numOfMsgs messages of the same length that are stored one after the other in the given input array, 
+	 * and puts their hashes one after the other in the given output array. <p>
+	 * The hash of the message that starts at inOffset + i*msgLen is put at outOffset + i*getHashedMsgSize(). 
+	 * Any message that was added by update and was not finalized yet is discarded.
+	 * @param in the array that holds the messages
+	 * @param inOffset the offset of the first message within the input array
+	 * @param msgLen the length of each message
+	 * @param numOfMsgs the number of messages to hash
+	 * @param out the array to put the results in
+	 * @param outOffset the offset which to put the first result from
+	 * @throws ArrayIndexOutOfBoundsException if the messages or the results exceed the given arrays
+	 */
+	public void hashMany(byte[] in, int inOffset, int msgLen, int numOfMsgs, byte[] out, int outOffset);
 }
@@ -0,0 +1,85 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+
+
+package edu.biu.scapi.primitives.hash;
+
+/**
+ * This class holds the checks of the arguments of the batch functions of {@link CryptographicHash}, 
+ * which are the same for all the implementations.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public final class HashBatches {
+	
+	private HashBatches(){}
+	
+	/**
+	 * Checks the arguments of {@link CryptographicHash#hashMany(byte[][], byte[][])}.
+	 * @param hash the hash that computes the batch
+	 * @param inputs the messages to hash
+	 * @param outputs the arrays to put the results in
+	 * @throws IllegalArgumentException if the number of outputs is different from the number of inputs or one of the outputs is too short
+	 */
+	public static void checkArguments(CryptographicHash hash, byte[][] inputs, byte[][] outputs){
+		if (inputs.length != outputs.length){
+			throw new IllegalArgumentException("the number of outputs should be the same as the number of inputs");
+		}
+		int size = hash.getHashedMsgSize();
+		for (int i=0; i<outputs.length; i++){
+			if (inputs[i] == null || outputs[i] == null){
+				throw new IllegalArgumentException("the inputs and outputs can not contain null arrays");
+			}
+			if (outputs[i].length < size){
+				throw new IllegalArgumentException("each output should be at least of the size of the hashed message");
+			}
+		}
+	}
+	
+	/**
+	 * Checks the arguments of {@link CryptographicHash#hashMany(byte[], int, int, int, byte[], int)}.
+	 * @param hash the hash that computes the batch
+	 * @param in the array that holds the messages
+	 * @param inOffset the offset of the first message within the input array
+	 * @param msgLen the length of each message
+	 * @param numOfMsgs the number of messages to hash
+	 * @param out the array to put the results in
+	 * @param outOffset the offset which to put the first result from
+	 * @throws ArrayIndexOutOfBoundsException if the messages or the results exceed the given arrays
+	 */
+	public static void checkArguments(CryptographicHash hash, byte[] in, int inOffset, int msgLen, int numOfMsgs, byte[] out, int outOffset){
+		if (msgLen < 0 || numOfMsgs < 0){
+			throw new NegativeArraySizeException("wrong length for the given input buffer");
+		}
+		//The lengths are multiplied as longs since the products may exceed the range of int.
+		if ((inOffset < 0) || (inOffset + (long) msgLen * numOfMsgs > in.length)){
+			throw new ArrayIndexOutOfBoundsException("wrong offset for the given input buffer");
+		}
+		if ((outOffset < 0) || (outOffset + (long) hash.getHashedMsgSize() * numOfMsgs > out.length)){
+			throw new ArrayIndexOutOfBoundsException("wrong offset for the given output buffer");
+		}
+	}
+}
@@ -26,9 +26,13 @@
 
 package edu.biu.scapi.primitives.hash.bc;
 
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
 import org.bouncycastle.crypto.Digest;
 
 import edu.biu.scapi.primitives.hash.CryptographicHash;
+import edu.biu.scapi.primitives.hash.HashBatches;
 
 /** 
  * A general adapter class of hash for Bouncy Castle. <p>
@@ -110,4 +114,80 @@ public abstract class BcHash implements CryptographicHash {
 		//will update the out array.
 		digest.doFinal(out, outOffset);
 	}
+
+	/**
+	 * Adds the remaining bytes of the given buffer to the existing message to hash. 
+	 * @param in input buffer
+	 */
+	public void update(ByteBuffer in) {
+		
+		if (in.hasArray()){
+			//delegates the update request to the underlying digest with the array of the buffer
+			digest.update(in.array(), in.arrayOffset() + in.position(), in.remaining());
+			in.position(in.limit());
+		} else {
+			//the digest works only on arrays, so the bytes of a direct buffer are copied in chunks
+			byte[] chunk = new byte[Math.min(in.remaining(), 4096)];
+			while (in.hasRemaining()){
+				int len = Math.min(in.remaining(), chunk.length);
+				in.get(chunk, 0, len);
+				digest.update(chunk, 0, len);
+			}
+		}
+	}
+
+	/** 
+	 * Completes the hash computation and puts the result in the given buffer, starting at its position.
+	 * @param out the output buffer
+	 */
+	public void hashFinal(ByteBuffer out) {
+		
+		//checks that the buffer has enough space
+		if (out.remaining() < getHashedMsgSize()){
+			throw new BufferOverflowException();
+		}
+		if (out.hasArray()){
+			digest.doFinal(out.array(), out.arrayOffset() + out.position());
+			out.position(out.position() + getHashedMsgSize());
+		} else {
+			byte[] result = new byte[getHashedMsgSize()];
+			digest.doFinal(result, 0);
+			out.put(result);
+		}
+	}
+
+	/**
+	 * Hashes each one of the given messages separately with the same underlying digest, which is reset after every message.
+	 * @param inputs the messages to hash
+	 * @param outputs the arrays to put the results in
+	 */
+	public void hashMany(byte[][] inputs, byte[][] outputs) {
+		HashBatches.checkArguments(this, inputs, outputs);
+		//Discards any message that was not finalized.
+		digest.reset();
+		for (int i=0; i<inputs.length; i++){
+			digest.update(inputs[i], 0, inputs[i].length);
+			digest.doFinal(outputs[i], 0);
+		}
+	}
+	
+	/**
+	 * Hashes the messages that are stored one after the other in the input array with the same underlying digest, which is reset after every message.
+	 * @param in the array that holds the messages
+	 * @param inOffset the offset of the first message within the input array
+	 * @param msgLen the length of each message
+	 * @param numOfMsgs the number of messages to hash
+	 * @param out the array to put the results in
+	 * @param outOffset the offset which to put the first result from
+	 */
+	public void hashMany(byte[] in, int inOffset, int msgLen, int numOfMsgs, byte[] out, int outOffset) {
+		HashBatches.checkArguments(this, in, inOffset, msgLen, numOfMsgs, out, outOffset);
+		//Discards any message that was not finalized.
+		digest.reset();
+		int size = digest.getDigestSize();
+		for (int i=0; i<numOfMsgs; i++){
+			digest.update(in, inOffset + i*msgLen, msgLen);
+			digest.doFinal(out, outOffset + i*size);
+		}
+	}
 }
@@ -26,7 +26,11 @@
 
 package edu.biu.scapi.primitives.hash.cryptopp;
 
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
 import edu.biu.scapi.primitives.hash.CryptographicHash;
+import edu.biu.scapi.primitives.hash.HashBatches;
 
 /**
  * A general adapter class of hash for Crypto++. <p>
@@ -59,6 +63,18 @@ public abstract class CryptoPpHash implements CryptographicHash {
 	//finishes the hash computation
 	private native void finalHash(long ptr, byte[] output);
 	
+	//updates the message to the hash from the given direct buffer
+	private native void updateHashDirect(long ptr, ByteBuffer input, int offset, int len);
+	
+	//finishes the hash computation and puts the result in the given direct buffer
+	private native void finalHashDirect(long ptr, ByteBuffer output, int offset);
+	
+	//hashes each one of the given messages separately
+	private native void hashManyArrays(long ptr, byte[][] inputs, byte[][] outputs);
+	
+	//hashes the messages that are stored one after the other in the input array
+	private native void hashManyNative(long ptr, byte[] in, int inOffset, int msgLen, int numOfMsgs, byte[] out, int outOffset);
+	
 	//returns the size of the hashed msg
 	private native int getDigestSize(long ptr);
 	
@@ -153,6 +169,75 @@ public abstract class CryptoPpHash implements CryptographicHash {
 
 	}
 
+	/**
+	 * Adds the remaining bytes of the given buffer to the existing message to hash. <p>
+	 * A direct buffer is passed to the native code without copying.
+	 * @param in input buffer.
+	 */
+	public void update(ByteBuffer in) {
+		int len = in.remaining();
+		if (len == 0){
+			return;
+		}
+		if (in.isDirect()){
+			updateHashDirect(collHashPtr, in, in.position(), len);
+		} else if (in.hasArray()){
+			update(in.array(), in.arrayOffset() + in.position(), len);
+		} else {
+			byte[] input = new byte[len];
+			in.duplicate().get(input);
+			updateHash(collHashPtr, input, len);
+		}
+		in.position(in.limit());
+	}
+	
+	/** 
+	 * Completes the hash computation and puts the result in the given buffer, starting at its position. <p>
+	 * A direct buffer is passed to the native code without copying.
+	 * @param out the output buffer.
+	 * @throws BufferOverflowException if the remaining space in the buffer is smaller than the hash size.
+	 */
+	public void hashFinal(ByteBuffer out){
+		int length = getDigestSize(collHashPtr);
+		if (out.remaining() < length){
+			throw new BufferOverflowException();
+		}
+		if (out.isDirect()){
+			finalHashDirect(collHashPtr, out, out.position());
+			out.position(out.position() + length);
+		} else {
+			byte[] tempOut = new byte[length];
+			finalHash(collHashPtr, tempOut);
+			out.put(tempOut);
+		}
+	}
+
+	/**
+	 * Hashes each one of the given messages separately. All the messages are hashed in a single native call.
+	 * @param inputs the messages to hash
+	 * @param outputs the arrays to put the results in
+	 */
+	public void hashMany(byte[][] inputs, byte[][] outputs) {
+		HashBatches.checkArguments(this, inputs, outputs);
+		hashManyArrays(collHashPtr, inputs, outputs);
+	}
+	
+	/**
+	 * Hashes the messages that are stored one after the other in the input array. All the messages are hashed in a single native call.
+	 * @param in the array that holds the messages
+	 * @param inOffset the offset of the first message within the input array
+	 * @param msgLen the length of each message
+	 * @param numOfMsgs the number of messages to hash
+	 * @param out the array to put the results in
+	 * @param outOffset the offset which to put the first result from
+	 */
+	public void hashMany(byte[] in, int inOffset, int msgLen, int numOfMsgs, byte[] out, int outOffset) {
+		HashBatches.checkArguments(this, in, inOffset, msgLen, numOfMsgs, out, outOffset);
+		if (numOfMsgs > 0){
+			hashManyNative(collHashPtr, in, inOffset, msgLen, numOfMsgs, out, outOffset);
+		}
+	}
+
 	/** 
 	 * @return the size of the hashed massage in bytes
 	 */
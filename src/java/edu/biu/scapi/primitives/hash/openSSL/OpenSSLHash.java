@@ -24,7 +24,11 @@
 */
 package edu.biu.scapi.primitives.hash.openSSL;
 
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
 import edu.biu.scapi.primitives.hash.CryptographicHash;
+import edu.biu.scapi.primitives.hash.HashBatches;
 
 /**
  * A general adapter class of hash for OpenSSL. <p>
@@ -58,6 +62,18 @@ public class OpenSSLHash implements CryptographicHash {
 	//Finishes the hash computation.
 	private native void finalHash(long ptr, byte[] output);
 	
+	//Updates the message to the hash from the given direct buffer.
+	private native void updateHashDirect(long ptr, ByteBuffer input, int offset, int len);
+	
+	//Finishes the hash computation and puts the result in the given direct buffer.
+	private native void finalHashDirect(long ptr, ByteBuffer output, int offset);
+	
+	//Hashes each one of the given messages separately.
+	private native void hashManyArrays(long ptr, byte[][] inputs, byte[][] outputs);
+	
+	//Hashes the messages that are stored one after the other in the input array.
+	private native void hashManyNative(long ptr, byte[] in, int inOffset, int msgLen, int numOfMsgs, byte[] out, int outOffset);
+	
 	//Returns the size of the hashed msg.
 	private native int getDigestSize(long ptr);
 	
@@ -150,6 +166,75 @@ public class OpenSSLHash implements CryptographicHash {
 
 	}
 
+	/**
+	 * Adds the remaining bytes of the given buffer to the existing message to hash. <p>
+	 * A direct buffer is passed to the native code without copying.
+	 * @param in input buffer.
+	 */
+	public void update(ByteBuffer in) {
+		int len = in.remaining();
+		if (len == 0){
+			return;
+		}
+		if (in.isDirect()){
+			updateHashDirect(hash, in, in.position(), len);
+		} else if (in.hasArray()){
+			update(in.array(), in.arrayOffset() + in.position(), len);
+		} else {
+			byte[] input = new byte[len];
+			in.duplicate().get(input);
+			updateHash(hash, input, len);
+		}
+		in.position(in.limit());
+	}
+	
+	/** 
+	 * Completes the hash computation and puts the result in the given buffer, starting at its position. <p>
+	 * A direct buffer is passed to the native code without copying.
+	 * @param out the output buffer.
+	 * @throws BufferOverflowException if the remaining space in the buffer is smaller than the hash size.
+	 */
+	public void hashFinal(ByteBuffer out){
+		int length = getDigestSize(hash);
+		if (out.remaining() < length){
+			throw new BufferOverflowException();
+		}
+		if (out.isDirect()){
+			finalHashDirect(hash, out, out.position());
+			out.position(out.position() + length);
+		} else {
+			byte[] tempOut = new byte[length];
+			finalHash(hash, tempOut);
+			out.put(tempOut);
+		}
+	}
+
+	/**
+	 * Hashes each one of the given messages separately. All the messages are hashed in a single native call.
+	 * @param inputs the messages to hash
+	 * @param outputs the arrays to put the results in
+	 */
+	public void hashMany(byte[][] inputs, byte[][] outputs) {
+		HashBatches.checkArguments(this, inputs, outputs);
+		hashManyArrays(hash, inputs, outputs);
+	}
+	
+	/**
+	 * Hashes the messages that are stored one after the other in the input array. All the messages are hashed in a single native call.
+	 * @param in the array that holds the messages
+	 * @param inOffset the offset of the first message within the input array
+	 * @param msgLen the length of each message
+	 * @param numOfMsgs the number of messages to hash
+	 * @param out the array to put the results in
+	 * @param outOffset the offset which to put the first result from
+	 */
+	public void hashMany(byte[] in, int inOffset, int msgLen, int numOfMsgs, byte[] out, int outOffset) {
+		HashBatches.checkArguments(this, in, inOffset, msgLen, numOfMsgs, out, outOffset);
+		if (numOfMsgs > 0){
+			hashManyNative(hash, in, inOffset, msgLen, numOfMsgs, out, outOffset);
+		}
+	}
+
 	/** 
 	 * @return the size of the hashed massage in bytes.
 	 */
@@ -51,6 +51,9 @@ public final class HKDF implements KeyDerivationFunction {
 	
 	private Hmac hmac; // the underlying hmac
 	
+	//the fixed key of the extraction step, that was randomly generated once. Decoded once since it is set in every call to deriveKey.
+	private static final SecretKey EXTRACTION_KEY = new SecretKeySpec(Hex.decode("606162636465666768696a6b6c6d6e6f707172737475767778797a7b7c7d7e7f808182838485868788898a8b8c8d8e8f909192939495969798999a9b9c9d9e9fa0a1a2a3a4a5a6a7a8a9aaabacadaeaf"), "");
+	
 	/**
 	 * Constructor that accepts a name of Hmac and creates the HKDF object with it.
 	 * @param hmac the underlying object
@@ -206,7 +209,7 @@ public final class HKDF implements KeyDerivationFunction {
 		//Sets the hmac object with a fixed key that was randomly generated once. This is done every time a new derived key is requested otherwise the result of deriving
 		//a key from the same entropy source will be different in subsequent calls to this function (as long as the same instance of HKDF is used). 
 		try {
-			hmac.setKey(new SecretKeySpec(Hex.decode("606162636465666768696a6b6c6d6e6f707172737475767778797a7b7c7d7e7f808182838485868788898a8b8c8d8e8f909192939495969798999a9b9c9d9e9fa0a1a2a3a4a5a6a7a8a9aaabacadaeaf"), ""));
+			hmac.setKey(EXTRACTION_KEY);
 		} catch (InvalidKeyException e) {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
@@ -220,7 +223,7 @@ public final class HKDF implements KeyDerivationFunction {
 		//first computes the new key. The new key is the result of computing the hmac function.
 		try {
 			//roundKey is now K(0)
-			hmac.computeBlock(entropySource, 0, entropySource.length, roundKey, 0);
+			hmac.computeBlock(entropySource, inOff, inLen, roundKey, 0);
 		} catch (IllegalBlockSizeException e) {//should not happen since the roundKey is of the right size.
 			
 			Logging.getLogger().log(Level.WARNING, e.toString());
@@ -0,0 +1,172 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+
+
+package edu.biu.scapi.primitives.prf;
+
+import javax.crypto.IllegalBlockSizeException;
+
+/** 
+ * This class computes a counter mode key stream of a pseudorandom function, that is, the concatenation of prf(ctr), prf(ctr+1), prf(ctr+2) and so on. 
+ * It is used by both the pseudorandom generator {@link edu.biu.scapi.primitives.prg.ScPrgFromPrf} and the counter mode encryption 
+ * {@link edu.biu.scapi.midLayer.symmetricCrypto.encryption.ScCTREncRandomIV}. <p>
+ * The counters are written in chunks of many blocks, and if the given function is a {@link PrfFixedBatch} each chunk is computed in a single call.
+ * The type of the function is checked once in the constructor, so the key stream is computed without trying the different computeBlock functions. <p>
+ * This class is not thread-safe, in the same way as the underlying pseudorandom function.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ */
+public final class CounterModeKeyStream {
+	
+	//The maximal number of blocks that are computed in a single call.
+	private static final int CHUNK_BLOCKS = 256;
+	//The minimal number of blocks that are worth a call to optimizedCompute with newly allocated arrays.
+	private static final int MIN_BATCH_BLOCKS = 8;
+	
+	private PseudorandomFunction prf;
+	private int blockSize;
+	private byte[] counters;	//The counters of the current chunk.
+	private byte[] stream;		//The key stream of the current chunk.
+	
+	/**
+	 * @param prf The pseudorandom function that computes the key stream. Its key should be set before the key stream is computed.
+	 * @param blockSize The size of the counter and of every output block of the function. Should be the block size of the given function, 
+	 * unless it is a PrfVaryingIOLength that has no fixed block size.
+	 */
+	public CounterModeKeyStream(PseudorandomFunction prf, int blockSize) {
+		this.prf = prf;
+		this.blockSize = blockSize;
+		counters = new byte[CHUNK_BLOCKS * blockSize];
+		stream = new byte[CHUNK_BLOCKS * blockSize];
+	}
+	
+	/**
+	 * Writes the key stream of the given counter to the given array. <p>
+	 * The counter is incremented once for every block of the key stream, including the last block that may be used only partially.
+	 * @param ctr The counter of the first block. Its length should be the block size. It is incremented by the number of computed blocks.
+	 * @param outBytes The array to write the key stream to.
+	 * @param outOffset The offset of the key stream in the output array.
+	 * @param outLen The number of bytes of the key stream.
+	 */
+	public void generate(byte[] ctr, byte[] outBytes, int outOffset, int outLen) {
+		process(ctr, null, 0, outBytes, outOffset, outLen);
+	}
+	
+	/**
+	 * XORs the key stream of the given counter with the given input. This is the encryption and decryption of the counter mode. <p>
+	 * The input and output arrays may be the same array.
+	 * The counter is incremented once for every block of the key stream, including the last block that may be used only partially.
+	 * @param ctr The counter of the first block. Its length should be the block size. It is incremented by the number of computed blocks.
+	 * @param inBytes The array that contains the input.
+	 * @param inOffset The offset of the input in the input array.
+	 * @param outBytes The array to write the result to.
+	 * @param outOffset The offset of the result in the output array.
+	 * @param len The number of bytes to process.
+	 */
+	public void xor(byte[] ctr, byte[] inBytes, int inOffset, byte[] outBytes, int outOffset, int len) {
+		process(ctr, inBytes, inOffset, outBytes, outOffset, len);
+	}
+	
+	/**
+	 * Computes the key stream chunk by chunk. If the input array is null the key stream is copied to the output, otherwise it is XORed with the input.
+	 */
+	private void process(byte[] ctr, byte[] inBytes, int inOffset, byte[] outBytes, int outOffset, int len) {
+		if (ctr.length != blockSize){
+			throw new IllegalArgumentException("the counter should be of size " + blockSize);
+		}
+		if ((outOffset > outBytes.length) || ((outOffset + len) > outBytes.length)){
+			throw new ArrayIndexOutOfBoundsException("wrong offset for the given output buffer");
+		}
+		
+		int done = 0;
+		while (done < len) {
+			int chunkLen = Math.min(len - done, stream.length);
+			int numBlocks = (chunkLen + blockSize - 1) / blockSize;
+			
+			//Write the counters of the chunk.
+			for (int block = 0; block < numBlocks; block++) {
+				System.arraycopy(ctr, 0, counters, block * blockSize, blockSize);
+				increaseCtr(ctr);
+			}
+			
+			computeBlocks(numBlocks);
+			
+			if (inBytes == null) {
+				System.arraycopy(stream, 0, outBytes, outOffset + done, chunkLen);
+			} else {
+				for (int i = 0; i < chunkLen; i++) {
+					outBytes[outOffset + done + i] = (byte) (inBytes[inOffset + done + i] ^ stream[i]);
+				}
+			}
+			done += chunkLen;
+		}
+	}
+	
+	/**
+	 * Computes the function on the first numBlocks counters and writes the results to the stream array.
+	 */
+	private void computeBlocks(int numBlocks) {
+		try {
+			if (prf instanceof PrfFixedBatch && numBlocks == CHUNK_BLOCKS) {
+				((PrfFixedBatch) prf).optimizedCompute(counters, stream);
+				
+			} else if (prf instanceof PrfFixedBatch && numBlocks >= MIN_BATCH_BLOCKS) {
+				//optimizedCompute works on whole arrays, so a smaller chunk needs arrays of its own size.
+				int length = numBlocks * blockSize;
+				byte[] in = new byte[length];
+				byte[] out = new byte[length];
+				System.arraycopy(counters, 0, in, 0, length);
+				((PrfFixedBatch) prf).optimizedCompute(in, out);
+				System.arraycopy(out, 0, stream, 0, length);
+				
+			} else if (prf instanceof PrfFixed) {
+				for (int block = 0; block < numBlocks; block++) {
+					prf.computeBlock(counters, block * blockSize, stream, block * blockSize);
+				}
+				
+			} else if (prf instanceof PrfVaryingIOLength) {
+				for (int block = 0; block < numBlocks; block++) {
+					prf.computeBlock(counters, block * blockSize, blockSize, stream, block * blockSize, blockSize);
+				}
+				
+			} else {
+				//A function with varying input length, for example Hmac, whose output is of the block size.
+				for (int block = 0; block < numBlocks; block++) {
+					prf.computeBlock(counters, block * blockSize, blockSize, stream, block * blockSize);
+				}
+			}
+		} catch (IllegalBlockSizeException e) {
+			//Should not happen since all the counters are of the block size.
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/**
+	 * Increases the given counter by one.
+	 */
+	private static void increaseCtr(byte[] ctr) {
+		for (int i = ctr.length - 1; i >= 0 && ++ctr[i] == 0; i--);
+	}
+}
@@ -30,10 +30,38 @@ import edu.biu.scapi.midLayer.symmetricCrypto.mac.UniqueTagMac;
 import edu.biu.scapi.securityLevel.UnlimitedTimes;
 
 /** 
- * Marker interface. Every class that implements it is signed as Hmac.
- * Hmac has varying input length and thus implements the interface PrfVaryingInputLength.
+ * General interface for Hmac. Every class that implements it is signed as Hmac.
+ * Hmac has varying input length and thus implements the interface PrfVaryingInputLength. <p>
+ * The implementations compute the keyed inner and outer hash states once in setKey, and start every message from copies of these states.
  * 
  * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University (Meital Levy)
  */
 public interface Hmac extends PrfVaryingInputLength, UniqueTagMac, UnlimitedTimes {
+	
+	/**
+	 * Computes the function on each one of the given inputs separately with the current key, and puts the result of inBytes[i] in outBytes[i], starting at index 0. <p>
+	 * The result is the same as calling computeBlock for every input, but the implementations that are backed by native code compute all the inputs in a single native call. 
+	 * Any message that was added by update and was not finalized yet is discarded.
+	 * @param inBytes the inputs to compute.
+	 * @param outBytes the arrays to put the results in. Each array should be at least of the size of the mac.
+	 * @throws IllegalStateException if the key is not set.
+	 * @throws IllegalArgumentException if the number of outputs is different from the number of inputs or one of the outputs is too short.
+	 */
+	public void computeBlocks(byte[][] inBytes, byte[][] outBytes);
+	
+	/**
+	 * Computes the function with the current key on numOfInputs inputs of the same length that are stored one after the other in the given input array, 
+	 * and puts the results one after the other in the given output array. <p>
+	 * The result of the input that starts at inOffset + i*inLen is put at outOffset + i*getMacSize(). 
+	 * Any message that was added by update and was not finalized yet is discarded.
+	 * @param inBytes the array that holds the inputs.
+	 * @param inOffset the offset of the first input within the input array.
+	 * @param inLen the length of each input.
+	 * @param numOfInputs the number of inputs to compute.
+	 * @param outBytes the array to put the results in.
+	 * @param outOffset the offset which to put the first result from.
+	 * @throws IllegalStateException if the key is not set.
+	 * @throws ArrayIndexOutOfBoundsException if the inputs or the results exceed the given arrays.
+	 */
+	public void computeBlocks(byte[] inBytes, int inOffset, int inLen, int numOfInputs, byte[] outBytes, int outOffset);
 }
@@ -0,0 +1,118 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+
+
+package edu.biu.scapi.primitives.prf;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+import javax.crypto.IllegalBlockSizeException;
+
+/** 
+ * This class implements {@link PseudorandomFunction#computeBlock(ByteBuffer, ByteBuffer)} on top of the byte array functions of the given pseudorandom function. <p>
+ * It is used by the implementations that are written in Java, and by the native implementations when the given buffers are not direct.
+ * The arrays that back the given buffers are used as they are, so only direct buffers are copied.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ */
+public final class PrfByteBuffers {
+	
+	private PrfByteBuffers() {
+	}
+	
+	/**
+	 * Returns the number of bytes that {@link PseudorandomFunction#computeBlock(ByteBuffer, ByteBuffer)} writes to the output buffer for the given buffers.
+	 * @throws IllegalBlockSizeException if the given function has fixed lengths and the remaining input is not aligned to its block size.
+	 * @throws BufferOverflowException if the output buffer does not have enough remaining space.
+	 */
+	public static int getOutputLength(PseudorandomFunction prf, ByteBuffer inBytes, ByteBuffer outBytes) throws IllegalBlockSizeException {
+		int outLen;
+		if (prf instanceof PrfFixed){
+			//Every block of the input is computed separately.
+			if ((inBytes.remaining() % prf.getBlockSize()) != 0){
+				throw new IllegalBlockSizeException("the input should be aligned to the block size");
+			}
+			outLen = inBytes.remaining();
+		} else if (prf instanceof PrfVaryingIOLength){
+			//The output fills the remaining space of the output buffer.
+			outLen = outBytes.remaining();
+		} else {
+			outLen = prf.getBlockSize();
+		}
+		
+		if (outBytes.remaining() < outLen){
+			throw new BufferOverflowException();
+		}
+		return outLen;
+	}
+	
+	/**
+	 * Computes the given function on the remaining bytes of the input buffer, using the byte array functions of the given function.
+	 * @see PseudorandomFunction#computeBlock(ByteBuffer, ByteBuffer)
+	 */
+	public static void computeBlock(PseudorandomFunction prf, ByteBuffer inBytes, ByteBuffer outBytes) throws IllegalBlockSizeException {
+		int outLen = getOutputLength(prf, inBytes, outBytes);
+		int inLen = inBytes.remaining();
+		
+		byte[] in;
+		int inOff;
+		if (inBytes.hasArray()){
+			in = inBytes.array();
+			inOff = inBytes.arrayOffset() + inBytes.position();
+		} else {
+			in = new byte[inLen];
+			inBytes.duplicate().get(in);
+			inOff = 0;
+		}
+		byte[] out;
+		int outOff;
+		if (outBytes.hasArray()){
+			out = outBytes.array();
+			outOff = outBytes.arrayOffset() + outBytes.position();
+		} else {
+			out = new byte[outLen];
+			outOff = 0;
+		}
+		
+		if (prf instanceof PrfFixed){
+			int blockSize = prf.getBlockSize();
+			for (int i = 0; i < inLen; i += blockSize){
+				prf.computeBlock(in, inOff + i, out, outOff + i);
+			}
+		} else if (prf instanceof PrfVaryingIOLength){
+			prf.computeBlock(in, inOff, inLen, out, outOff, outLen);
+		} else {
+			prf.computeBlock(in, inOff, inLen, out, outOff);
+		}
+		
+		inBytes.position(inBytes.limit());
+		if (outBytes.hasArray()){
+			outBytes.position(outBytes.position() + outLen);
+		} else {
+			outBytes.put(out);
+		}
+	}
+}
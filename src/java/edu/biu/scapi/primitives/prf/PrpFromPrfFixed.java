@@ -26,6 +26,7 @@
 
 package edu.biu.scapi.primitives.prf;
 
+import java.nio.ByteBuffer;
 import java.security.InvalidKeyException;
 
 import javax.crypto.IllegalBlockSizeException;
@@ -165,6 +166,12 @@ public abstract class PrpFromPrfFixed implements PrpFixed {
 			throw new IllegalBlockSizeException("the length should be the same as block size");
 		
 	}
-	
-	
+
+	/**
+	 * Computes the function on the remaining bytes of the input buffer, using the byte array functions of this class.
+	 * @see edu.biu.scapi.primitives.prf.PseudorandomFunction#computeBlock(ByteBuffer, ByteBuffer)
+	 */
+	public void computeBlock(ByteBuffer inBytes, ByteBuffer outBytes) throws IllegalBlockSizeException {
+		PrfByteBuffers.computeBlock(this, inBytes, outBytes);
+	}
 }
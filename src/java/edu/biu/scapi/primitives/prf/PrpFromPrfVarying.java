@@ -26,6 +26,7 @@
 
 package edu.biu.scapi.primitives.prf;
 
+import java.nio.ByteBuffer;
 import java.security.InvalidKeyException;
 import java.security.spec.AlgorithmParameterSpec;
 import java.security.spec.InvalidParameterSpecException;
@@ -143,6 +144,12 @@ public abstract class PrpFromPrfVarying implements PrpVaryingIOLength {
 	public SecretKey generateKey(int keySize) {
 		return prfVaryingIOLength.generateKey(keySize);
 	}
-	
-	
+
+	/**
+	 * Computes the function on the remaining bytes of the input buffer, using the byte array functions of this class.
+	 * @see edu.biu.scapi.primitives.prf.PseudorandomFunction#computeBlock(ByteBuffer, ByteBuffer)
+	 */
+	public void computeBlock(ByteBuffer inBytes, ByteBuffer outBytes) throws IllegalBlockSizeException {
+		PrfByteBuffers.computeBlock(this, inBytes, outBytes);
+	}
 }
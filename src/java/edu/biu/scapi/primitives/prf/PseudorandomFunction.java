@@ -26,6 +26,7 @@
 
 package edu.biu.scapi.primitives.prf;
 
+import java.nio.ByteBuffer;
 import java.security.InvalidKeyException;
 import java.security.spec.AlgorithmParameterSpec;
 import java.security.spec.InvalidParameterSpecException;
@@ -129,5 +130,23 @@ public interface PseudorandomFunction {
 	 */
 	public void computeBlock(byte[] inBytes, int inOffset, int inLen, byte[] outBytes, int outOffset) throws IllegalBlockSizeException;
 
+	/**
+	 * Computes the function using the secret key on the remaining bytes of the input buffer, and puts the output in the output buffer starting at its position. <p>
+	 * The implementations that are backed by native code pass direct buffers to the native code without copying them, 
+	 * so data that is already in a direct buffer (for example, a buffer of a channel) does not need to be copied to a byte array. <p>
+	 * The length of the output depends on the sub-family of the function:
+	 * <ul>
+	 * <li>PrfFixed - the remaining input should be aligned to the block size, and every block is computed separately. The output has the length of the input.</li>
+	 * <li>PrfVaryingIOLength - the output fills the remaining space of the output buffer.</li>
+	 * <li>Otherwise (for example, Hmac) - the output is of the block size.</li>
+	 * </ul>
+	 * The position of the input buffer is set to its limit, and the position of the output buffer is advanced by the output length.
+	 * @param inBytes input bytes to compute
+	 * @param outBytes output buffer. The resulted bytes of compute
+	 * @throws IllegalBlockSizeException if the remaining input is not aligned to the block size of a PrfFixed
+	 * @throws java.nio.BufferOverflowException if the output buffer does not have enough remaining space
+	 */
+	public void computeBlock(ByteBuffer inBytes, ByteBuffer outBytes) throws IllegalBlockSizeException;
+	
 	
 }
@@ -26,6 +26,7 @@
 
 package edu.biu.scapi.primitives.prf.bc;
 
+import java.nio.ByteBuffer;
 import java.security.InvalidParameterException;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
@@ -42,6 +43,7 @@ import org.bouncycastle.crypto.macs.HMac;
 import edu.biu.scapi.exceptions.FactoriesException;
 import edu.biu.scapi.primitives.hash.CryptographicHash;
 import edu.biu.scapi.primitives.prf.Hmac;
+import edu.biu.scapi.primitives.prf.PrfByteBuffers;
 import edu.biu.scapi.tools.Factories.BCFactory;
 import edu.biu.scapi.tools.Translation.BCParametersTranslator;
 
@@ -140,7 +142,8 @@ public final class BcHMAC implements Hmac {
 		//gets the relevant BC cipher parameter
 		bcParams = BCParametersTranslator.getInstance().translateParameter(secretKey);
 		
-		//passes the key parameter to bc hmac
+		//passes the key parameter to bc hmac. Since the digests of bc are Memoable, bc hmac computes the keyed inner and outer digest 
+		//states once here and restores them after every doFinal, instead of hashing the padded key again for every message.
 		hMac.init(bcParams);
 		
 		//sets flag to true. Object is initializing.
@@ -239,6 +242,65 @@ public final class BcHMAC implements Hmac {
 		hMac.doFinal(outBytes, outOffset);
 	}
 	
+	/**
+	 * Computes the function on each one of the given inputs separately with the current key. 
+	 * Every input starts from the keyed state of the underlying hmac, which is restored by doFinal.
+	 * @param inBytes the inputs to compute.
+	 * @param outBytes the arrays to put the results in. Each array should be at least of the size of the mac.
+	 */
+	public void computeBlocks(byte[][] inBytes, byte[][] outBytes) {
+		if (!isKeySet()){
+			throw new IllegalStateException("secret key isn't set");
+		}
+		if (inBytes.length != outBytes.length){
+			throw new IllegalArgumentException("the number of outputs should be the same as the number of inputs");
+		}
+		int size = hMac.getMacSize();
+		for (int i=0; i<outBytes.length; i++){
+			if (outBytes[i].length < size){
+				throw new IllegalArgumentException("each output should be at least of the size of the mac");
+			}
+		}
+		
+		//discards any message that was not finalized.
+		hMac.reset();
+		for (int i=0; i<inBytes.length; i++){
+			hMac.update(inBytes[i], 0, inBytes[i].length);
+			hMac.doFinal(outBytes[i], 0);
+		}
+	}
+	
+	/**
+	 * Computes the function with the current key on the inputs that are stored one after the other in the input array. 
+	 * Every input starts from the keyed state of the underlying hmac, which is restored by doFinal.
+	 * @param inBytes the array that holds the inputs.
+	 * @param inOffset the offset of the first input within the input array.
+	 * @param inLen the length of each input.
+	 * @param numOfInputs the number of inputs to compute.
+	 * @param outBytes the array to put the results in.
+	 * @param outOffset the offset which to put the first result from.
+	 */
+	public void computeBlocks(byte[] inBytes, int inOffset, int inLen, int numOfInputs, byte[] outBytes, int outOffset) {
+		if (!isKeySet()){
+			throw new IllegalStateException("secret key isn't set");
+		}
+		int size = hMac.getMacSize();
+		// checks that the offsets and lengths are correct 
+		if ((inOffset < 0) || (inLen < 0) || (numOfInputs < 0) || (inOffset + (long) inLen * numOfInputs > inBytes.length)){
+			throw new ArrayIndexOutOfBoundsException("wrong offset for the given input buffer");
+		}
+		if ((outOffset < 0) || (outOffset + (long) size * numOfInputs > outBytes.length)){
+			throw new ArrayIndexOutOfBoundsException("wrong offset for the given output buffer");
+		}
+		
+		//discards any message that was not finalized.
+		hMac.reset();
+		for (int i=0; i<numOfInputs; i++){
+			hMac.update(inBytes, inOffset + i*inLen, inLen);
+			hMac.doFinal(outBytes, outOffset + i*size);
+		}
+	}
+	
 	/**
 	 * Generates a secret key to initialize this prf object.
 	 * @param keyParams algorithmParameterSpec contains the required secret key size in bits 
@@ -373,7 +435,35 @@ public final class BcHMAC implements Hmac {
 		//returns the tag
 		return tag;
 	}
-	
-	
 
+	/**
+	 * Adds the remaining bytes of the given buffer to the existing message to mac.
+	 * @param msg the buffer that contains the message to add
+	 */
+	public void update(ByteBuffer msg){
+		if (!isKeySet()){
+			throw new IllegalStateException("secret key isn't set");
+		}
+		if (msg.hasArray()){
+			//calls the underlying hmac update with the array of the buffer
+			hMac.update(msg.array(), msg.arrayOffset() + msg.position(), msg.remaining());
+			msg.position(msg.limit());
+		} else {
+			//the hmac works only on arrays, so the bytes of a direct buffer are copied in chunks
+			byte[] chunk = new byte[Math.min(msg.remaining(), 4096)];
+			while (msg.hasRemaining()){
+				int len = Math.min(msg.remaining(), chunk.length);
+				msg.get(chunk, 0, len);
+				hMac.update(chunk, 0, len);
+			}
+		}
+	}
+	
+	/**
+	 * Computes the hmac of the remaining bytes of the input buffer, using the byte array functions of this class.
+	 * @see edu.biu.scapi.primitives.prf.PseudorandomFunction#computeBlock(ByteBuffer, ByteBuffer)
+	 */
+	public void computeBlock(ByteBuffer inBytes, ByteBuffer outBytes) throws IllegalBlockSizeException {
+		PrfByteBuffers.computeBlock(this, inBytes, outBytes);
+	}
 }
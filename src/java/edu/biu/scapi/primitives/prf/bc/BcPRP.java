@@ -26,6 +26,7 @@
 
 package edu.biu.scapi.primitives.prf.bc;
 
+import java.nio.ByteBuffer;
 import java.security.InvalidKeyException;
 import java.security.InvalidParameterException;
 import java.security.NoSuchAlgorithmException;
@@ -39,6 +40,7 @@ import javax.crypto.spec.SecretKeySpec;
 import org.bouncycastle.crypto.BlockCipher;
 import org.bouncycastle.crypto.CipherParameters;
 
+import edu.biu.scapi.primitives.prf.PrfByteBuffers;
 import edu.biu.scapi.primitives.prf.PrpFixed;
 import edu.biu.scapi.tools.Translation.BCParametersTranslator;
 
@@ -313,5 +315,11 @@ public abstract class BcPRP implements PrpFixed{
 		
 	}
 
-
+	/**
+	 * Computes the function on the remaining bytes of the input buffer, using the byte array functions of this class.
+	 * @see edu.biu.scapi.primitives.prf.PseudorandomFunction#computeBlock(ByteBuffer, ByteBuffer)
+	 */
+	public void computeBlock(ByteBuffer inBytes, ByteBuffer outBytes) throws IllegalBlockSizeException {
+		PrfByteBuffers.computeBlock(this, inBytes, outBytes);
+	}
 }
@@ -26,6 +26,7 @@
 
 package edu.biu.scapi.primitives.prf.cryptopp;
 
+import java.nio.ByteBuffer;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
@@ -37,6 +38,8 @@ import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
 
 import edu.biu.scapi.primitives.prf.AES;
+import edu.biu.scapi.primitives.prf.PrfByteBuffers;
+import edu.biu.scapi.primitives.prf.PrfFixedBatch;
 
 /**
  * Concrete class of prf family for AES. This class wraps the implementation of Crypto++.
@@ -44,7 +47,7 @@ import edu.biu.scapi.primitives.prf.AES;
  * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University (Moriya Farbstein)
  *
  */
-public class CryptoPpAES implements AES{
+public class CryptoPpAES implements AES, PrfFixedBatch{
 
 	private boolean isKeySet;
 	private long aesCompute;		//native object used for compute blocks
@@ -56,6 +59,7 @@ public class CryptoPpAES implements AES{
 	private native void setNativeKey(long aesCompute, long aesInvert, byte[] key);
 	private native void computeBlock(long aesCompute, byte[] in, byte[] out, int outOffset, boolean forEncrypt);
 	private native void optimizedCompute(long aesCompute, byte[] in, byte[] out, boolean forEncrypt);
+	private native void computeBlocksDirect(long aesCompute, ByteBuffer in, int inOffset, ByteBuffer out, int outOffset, int len, boolean forEncrypt);
 	private native String getName(long aes);
 	private native int getBlockSize(long aes);
 	private native void deleteAES(long aesCompute, long aesInvert);
@@ -376,4 +380,27 @@ public class CryptoPpAES implements AES{
 	static {
         System.loadLibrary("CryptoPPJavaInterface");
 	}
+
+	/** 
+	 * Computes the AES permutation on the remaining bytes of the input buffer, which should be aligned to the block size. <p>
+	 * If both buffers are direct, their memory is passed to the native code without copying and all the blocks are computed in a single native call.
+	 * Otherwise, the byte array functions of this class are used.
+	 * @param inBytes input bytes to compute.
+	 * @param outBytes output buffer. The resulted bytes of compute.
+	 * @throws IllegalBlockSizeException if the remaining input is not aligned to the block size.
+	 */
+	public void computeBlock(ByteBuffer inBytes, ByteBuffer outBytes) throws IllegalBlockSizeException {
+		if (!isKeySet()){
+			throw new IllegalStateException("secret key isn't set");
+		}
+		if (!inBytes.isDirect() || !outBytes.isDirect()){
+			PrfByteBuffers.computeBlock(this, inBytes, outBytes);
+			return;
+		}
+		
+		int len = PrfByteBuffers.getOutputLength(this, inBytes, outBytes);
+		computeBlocksDirect(aesCompute, inBytes, inBytes.position(), outBytes, outBytes.position(), len, true);
+		inBytes.position(inBytes.limit());
+		outBytes.position(outBytes.position() + len);
+	}
 }
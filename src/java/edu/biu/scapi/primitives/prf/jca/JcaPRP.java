@@ -0,0 +1,282 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+
+
+package edu.biu.scapi.primitives.prf.jca;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+import javax.crypto.Cipher;
+import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.KeyGenerator;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.SecretKey;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+
+import edu.biu.scapi.primitives.prf.PrfByteBuffers;
+import edu.biu.scapi.primitives.prf.PrfFixedBatch;
+import edu.biu.scapi.primitives.prf.PrpFixed;
+
+/** 
+ * A general adapter class of PrpFixed for the block ciphers of the Java Cryptography Architecture. 
+ * This class implements all the functionality by passing requests to two {@link Cipher} objects in ECB mode without padding, 
+ * one that computes the permutation and one that inverts it. <p>
+ * The JCA implementations do not need any native library, and HotSpot computes AES with the AES-NI instructions of the processor 
+ * when they are available. Since every call to the Cipher object processes any number of blocks, {@link #optimizedCompute(byte[], byte[])} 
+ * computes all the given blocks in a single call.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ * 
+ */
+public abstract class JcaPRP implements PrpFixed, PrfFixedBatch{
+	
+	private String algName;		//the JCA name of the block cipher, for example "AES"
+	private Cipher computeCipher;	//computes the permutation
+	private Cipher invertCipher;	//inverts the permutation
+	private SecureRandom random;
+	protected boolean isKeySet = false;//until setKey is called set to false.
+	
+	/** 
+	 * Constructor that accepts the JCA name of the underlying block cipher and a source of randomness.
+	 * 
+	 * @param algName the JCA name of the block cipher, for example "AES"
+	 * @param random source of randomness to use
+	 * @throws IllegalStateException if the default JCA providers do not implement the given block cipher in ECB mode.
+	 */
+	public JcaPRP(String algName, SecureRandom random) {
+		this.algName = algName;
+		this.random = random;
+		try {
+			computeCipher = Cipher.getInstance(algName + "/ECB/NoPadding");
+			invertCipher = Cipher.getInstance(algName + "/ECB/NoPadding");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		} catch (NoSuchPaddingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/** 
+	 * Initializes this PRP with the given secret key.
+	 * @param secretKey secret key
+	 * @throws InvalidKeyException if the key does not fit the block cipher.
+	 */
+	public void setKey(SecretKey secretKey) throws InvalidKeyException {
+		//The keys that are generated by SCAPI may have other algorithm names, but the JCA ciphers accept only keys of their own algorithm.
+		SecretKeySpec key = new SecretKeySpec(secretKey.getEncoded(), algName);
+		computeCipher.init(Cipher.ENCRYPT_MODE, key);
+		invertCipher.init(Cipher.DECRYPT_MODE, key);
+		isKeySet = true;
+	}
+	
+	public boolean isKeySet(){
+		return isKeySet;
+	}
+	
+	/**
+	 * @return the name of the underlying block cipher
+	 */
+	public String getAlgorithmName() {
+		return algName;
+	}
+
+	/**  
+	 * @return the block size of the underlying block cipher in bytes.
+	 */
+	public int getBlockSize(){
+		return computeCipher.getBlockSize();
+	}
+	
+	/**
+	 * Generates a secret key to initialize this PRP object.
+	 * @param keySize is the required secret key size in bits. If it is zero or less the default key size of the block cipher is used.
+	 * @return the generated secret key 
+	 */
+	public SecretKey generateKey(int keySize){
+		try {
+			//gets the KeyGenerator of this algorithm
+			KeyGenerator keyGen = KeyGenerator.getInstance(algName);
+			//if the key size is zero or less - uses the default key size as implemented in the provider implementation
+			if(keySize <= 0){
+				keyGen.init(random);
+			} else {
+				keyGen.init(keySize, random);
+			}
+			return keyGen.generateKey();
+		} catch (NoSuchAlgorithmException e) {
+			//Should not happen since the block cipher itself was found.
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/** 
+	 * Computes the underlying permutation. <p>
+	 * 
+	 * @param inBytes input bytes to compute
+	 * @param inOff input offset in the inBytes array
+	 * @param outBytes output bytes. The resulted bytes of compute.
+	 * @param outOff output offset in the outBytes array to put the result from
+	 */
+	public void computeBlock(byte[] inBytes, int inOff, byte[] outBytes, int outOff) {
+		process(computeCipher, inBytes, inOff, outBytes, outOff, getBlockSize());
+	}
+	
+	/**
+	 * This function is provided in the interface especially for the sub-family PrfVaryingInputLength, which may have variable input length.
+	 * Since this is a prp, the input length is fixed with the block size, so this function normally shouldn't be called. 
+	 * If the user still wants to use this function, the input length should be the same as the block size. Otherwise, throws an exception.
+	 * 
+	 * @param inBytes input bytes to compute
+	 * @param inLen the length of the input array
+	 * @param inOffset input offset in the inBytes array
+	 * @param outBytes output bytes. The resulted bytes of invert
+	 * @param outOffset output offset in the outBytes array to put the result from
+	 */
+	public void computeBlock(byte[] inBytes, int inOffset, int inLen, byte[] outBytes, int outOffset) throws IllegalBlockSizeException{
+		if(inLen==getBlockSize()) //checks that the input length is the same as the block size.
+			computeBlock(inBytes, inOffset, outBytes, outOffset);
+		else
+			throw new IllegalBlockSizeException("Wrong size");
+	}
+	
+	/** 
+	 * This function is provided in the interface especially for the sub-family PrfVaryingIOLength, which may have variable input/output lengths.
+	 * Since both Input and output variables are fixed this function should not normally be called. 
+	 * If the user still wants to use this function, the input and output lengths should be the same as 
+	 * the result of <code>getBlockSize</code>, otherwise, throws an exception.
+	 * @param inBytes input bytes to compute
+	 * @param inOff input offset in the inBytes array
+	 * @param outBytes output bytes. The resulted bytes of compute.
+	 * @param outOff output offset in the outBytes array to put the result from
+	 * @throws IllegalBlockSizeException 
+	 */
+	public void computeBlock(byte[] inBytes, int inOff, int inLen, byte[] outBytes, int outOff, int outLen)	throws IllegalBlockSizeException{
+		if (inLen==outLen && inLen==getBlockSize()) //checks that the lengths are the same as the block size
+			computeBlock(inBytes, inOff, outBytes, outOff);
+		else 
+			throw new IllegalBlockSizeException("Wrong size");			
+	}
+	
+	/** 
+	 * Computes the permutation on the given array. 
+	 * The given array length does not have to be the size of the block but a MUST be aligned to the block size.
+	 * All the blocks are computed by a single call to the underlying Cipher. 
+	 * The output array will contain a concatenation of all the results of computing the blocks. 
+	 * 
+	 * @param inBytes input bytes to compute.
+	 * @param outBytes output bytes. The resulted bytes of compute.
+	 * @throws IllegalArgumentException if the given input is not aligned to block size.
+	 * @throws IllegalArgumentException if the given input and output are not in the same size.
+	 */
+	public void optimizedCompute(byte[] inBytes, byte[] outBytes) {
+		if ((inBytes.length % getBlockSize()) != 0){
+			throw new IllegalArgumentException("inBytes should be aligned to the block size");
+		}
+		if (outBytes.length != inBytes.length){
+			throw new IllegalArgumentException("outBytes and inBytes must be in the same size");
+		}
+		process(computeCipher, inBytes, 0, outBytes, 0, inBytes.length);
+	}
+	
+	/** 
+	 * Computes the permutation on the remaining bytes of the input buffer, which should be aligned to the block size. <p>
+	 * The buffers are passed as they are to the underlying Cipher, so direct buffers are processed by the provider without copying.
+	 * @param inBytes input bytes to compute.
+	 * @param outBytes output buffer. The resulted bytes of compute.
+	 * @throws IllegalBlockSizeException if the remaining input is not aligned to the block size.
+	 */
+	public void computeBlock(ByteBuffer inBytes, ByteBuffer outBytes) throws IllegalBlockSizeException {
+		if (!isKeySet()){
+			throw new IllegalStateException("secret key isn't set");
+		}
+		//Checks the alignment and the space in the output buffer.
+		PrfByteBuffers.getOutputLength(this, inBytes, outBytes);
+		try {
+			computeCipher.update(inBytes, outBytes);
+		} catch (ShortBufferException e) {
+			//Should not happen since the output buffer was checked above.
+			throw new BufferOverflowException();
+		}
+	}
+	
+	/** 
+	 * Inverts the underlying permutation.
+	 * 
+	 * @param inBytes input bytes to invert
+	 * @param inOff input offset in the inBytes array
+	 * @param outBytes output bytes. The resulted bytes of invert
+	 * @param outOff output offset in the outBytes array to put the result from
+	 */
+	public void invertBlock(byte[] inBytes, int inOff, byte[] outBytes, int outOff) {
+		process(invertCipher, inBytes, inOff, outBytes, outOff, getBlockSize());
+	}
+	
+	/**
+	 * This function is provided in the interface especially for the sub-family PrpVarying, which may have variable input/output lengths.
+	 * Since in this case, both input and output variables are fixed this function should not normally be called. 
+	 * If the user still wants to use this function, the specified argument <code>len</code> should be the same as 
+	 * the result of <code>getBlockSize</code>, otherwise, throws an exception. 
+	 * @param inBytes input bytes to invert
+	 * @param inOff input offset in the inBytes array
+	 * @param outBytes output bytes. The resulted bytes of invert.
+	 * @param outOff output offset in the outBytes array to put the result from
+	 * @param len the length of the input and the output.
+	 * @throws IllegalBlockSizeException 
+	 */
+	public void invertBlock(byte[] inBytes, int inOff, byte[] outBytes, int outOff, int len) throws IllegalBlockSizeException{
+		if (len==getBlockSize()) //checks that the length is the same as the block size
+			invertBlock(inBytes, inOff, outBytes, outOff);
+		else 
+			throw new IllegalBlockSizeException("Wrong size");
+	}
+	
+	/**
+	 * Passes the given blocks to the given cipher. Since the cipher is in ECB mode without padding, it processes all the blocks at once 
+	 * and does not keep any state between the calls.
+	 */
+	private void process(Cipher cipher, byte[] inBytes, int inOff, byte[] outBytes, int outOff, int len) {
+		if (!isKeySet()){
+			throw new IllegalStateException("secret key isn't set");
+		}
+		// checks that the offset and length are correct 
+		if ((inOff > inBytes.length) || (inOff+len > inBytes.length)){
+			throw new ArrayIndexOutOfBoundsException("wrong offset for the given input buffer");
+		}
+		if ((outOff > outBytes.length) || (outOff+len > outBytes.length)){
+			throw new ArrayIndexOutOfBoundsException("wrong offset for the given output buffer");
+		}
+		try {
+			cipher.update(inBytes, inOff, len, outBytes, outOff);
+		} catch (ShortBufferException e) {
+			//Should not happen since the output buffer was checked above.
+			throw new ArrayIndexOutOfBoundsException("wrong offset for the given output buffer");
+		}
+	}
+}
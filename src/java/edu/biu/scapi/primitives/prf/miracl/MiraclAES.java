@@ -24,6 +24,7 @@
 */
 package edu.biu.scapi.primitives.prf.miracl;
 
+import java.nio.ByteBuffer;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
@@ -35,8 +36,10 @@ import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
 
 import edu.biu.scapi.primitives.prf.AES;
+import edu.biu.scapi.primitives.prf.PrfByteBuffers;
+import edu.biu.scapi.primitives.prf.PrfFixedBatch;
 
-public class MiraclAES implements AES{
+public class MiraclAES implements AES, PrfFixedBatch{
 
 	private boolean isKeySet;
 	private long aes;				//native object used for compute AES permutation
@@ -46,6 +49,7 @@ public class MiraclAES implements AES{
 	private native void computeBlock(long aes, byte[] in, int inOffset, byte[] out, int outOffset);
 	private native void invertBlock(long aes, byte[] in, int inOffset, byte[] out, int outOffset);
 	private native void optimizedCompute(long aes, byte[] in, byte[] out);
+	private native void computeBlocksDirect(long aes, ByteBuffer in, int inOffset, ByteBuffer out, int outOffset, int len);
 	private native void optimizedInvert(long aes, byte[] in, byte[] out);
 	private native void deleteAES(long aes);
 	
@@ -345,4 +349,27 @@ public class MiraclAES implements AES{
 	static {
         System.loadLibrary("MiraclJavaInterface");
 	}
+
+	/** 
+	 * Computes the AES permutation on the remaining bytes of the input buffer, which should be aligned to the block size. <p>
+	 * If both buffers are direct, their memory is passed to the native code without copying and all the blocks are computed in a single native call.
+	 * Otherwise, the byte array functions of this class are used.
+	 * @param inBytes input bytes to compute.
+	 * @param outBytes output buffer. The resulted bytes of compute.
+	 * @throws IllegalBlockSizeException if the remaining input is not aligned to the block size.
+	 */
+	public void computeBlock(ByteBuffer inBytes, ByteBuffer outBytes) throws IllegalBlockSizeException {
+		if (!isKeySet()){
+			throw new IllegalStateException("secret key isn't set");
+		}
+		if (!inBytes.isDirect() || !outBytes.isDirect()){
+			PrfByteBuffers.computeBlock(this, inBytes, outBytes);
+			return;
+		}
+		
+		int len = PrfByteBuffers.getOutputLength(this, inBytes, outBytes);
+		computeBlocksDirect(aes, inBytes, inBytes.position(), outBytes, outBytes.position(), len);
+		inBytes.position(inBytes.limit());
+		outBytes.position(outBytes.position() + len);
+	}
 }
@@ -24,6 +24,7 @@
 */
 package edu.biu.scapi.primitives.prf.openSSL;
 
+import java.nio.ByteBuffer;
 import java.security.InvalidParameterException;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
@@ -37,6 +38,7 @@ import javax.crypto.spec.SecretKeySpec;
 import edu.biu.scapi.exceptions.FactoriesException;
 import edu.biu.scapi.primitives.hash.CryptographicHash;
 import edu.biu.scapi.primitives.prf.Hmac;
+import edu.biu.scapi.primitives.prf.PrfByteBuffers;
 
 /**
  * Concrete class of PRF family for Hmac. This class wraps the implementation of OpenSSL library.
@@ -56,7 +58,10 @@ public class OpenSSLHMAC implements Hmac {
 	private native int getNativeBlockSize(long hmac);	//Returns the block size of this Hmac object.
 	private native String getName(long hmac);			//Returns the name of the underlying hash.
 	private native void updateNative(long hmac, byte[] in, int inOffset, int inLen);//Updates the Hmac eith the given in array.
+	private native void updateNativeDirect(long hmac, ByteBuffer in, int inOffset, int inLen);//Updates the Hmac with the bytes of the given direct buffer.
 	private native void updateFinal(long hmac, byte[] out, int outOffset);//Finalize the Hmac operation and puts the result in the given out array.
+	private native void computeBlocksArrays(long hmac, byte[][] in, byte[][] out);//Computes the Hmac on each one of the given in arrays.
+	private native void computeBlocksNative(long hmac, byte[] in, int inOffset, int inLen, int numOfInputs, byte[] out, int outOffset);//Computes the Hmac on the inputs that are stored one after the other in the given in array.
 	private native void deleteNative(long hmac);		//Deletes the native object.
 	
 	/**
@@ -292,6 +297,80 @@ public class OpenSSLHMAC implements Hmac {
 		return getBlockSize();
 	}
 	
+	/**
+	 * Computes the function on the remaining bytes of the input buffer and puts the tag in the output buffer. <p>
+	 * If the input buffer is direct, its memory is passed to the native code without copying.
+	 * @param inBytes input bytes to compute.
+	 * @param outBytes output buffer. The resulted bytes of compute.
+	 * @throws IllegalBlockSizeException 
+	 */
+	public void computeBlock(ByteBuffer inBytes, ByteBuffer outBytes) throws IllegalBlockSizeException {
+		if (!isKeySet()){
+			throw new IllegalStateException("secret key isn't set");
+		}
+		if (!inBytes.isDirect()){
+			PrfByteBuffers.computeBlock(this, inBytes, outBytes);
+			return;
+		}
+		//Checks that the tag fits in the output buffer before the input is consumed.
+		int outLen = PrfByteBuffers.getOutputLength(this, inBytes, outBytes);
+		update(inBytes);
+		byte[] tag = new byte[outLen];
+		updateFinal(hmac, tag, 0);
+		outBytes.put(tag);
+	}
+	
+	/**
+	 * Computes the function on each one of the given inputs separately with the current key. All the inputs are computed in a single native call, 
+	 * and each one of them starts from a copy of the keyed inner hash state that was computed in setKey.
+	 * @param inBytes the inputs to compute.
+	 * @param outBytes the arrays to put the results in. Each array should be at least of the size of the mac.
+	 */
+	public void computeBlocks(byte[][] inBytes, byte[][] outBytes) {
+		if (!isKeySet()){
+			throw new IllegalStateException("secret key isn't set");
+		}
+		if (inBytes.length != outBytes.length){
+			throw new IllegalArgumentException("the number of outputs should be the same as the number of inputs");
+		}
+		int size = getBlockSize();
+		for (int i=0; i<outBytes.length; i++){
+			if (inBytes[i] == null || outBytes[i] == null){
+				throw new IllegalArgumentException("the inputs and outputs can not contain null arrays");
+			}
+			if (outBytes[i].length < size){
+				throw new IllegalArgumentException("each output should be at least of the size of the mac");
+			}
+		}
+		computeBlocksArrays(hmac, inBytes, outBytes);
+	}
+	
+	/**
+	 * Computes the function with the current key on the inputs that are stored one after the other in the input array. All the inputs are computed 
+	 * in a single native call, and each one of them starts from a copy of the keyed inner hash state that was computed in setKey.
+	 * @param inBytes the array that holds the inputs.
+	 * @param inOffset the offset of the first input within the input array.
+	 * @param inLen the length of each input.
+	 * @param numOfInputs the number of inputs to compute.
+	 * @param outBytes the array to put the results in.
+	 * @param outOffset the offset which to put the first result from.
+	 */
+	public void computeBlocks(byte[] inBytes, int inOffset, int inLen, int numOfInputs, byte[] outBytes, int outOffset) {
+		if (!isKeySet()){
+			throw new IllegalStateException("secret key isn't set");
+		}
+		// Check that the offsets and lengths are correct.
+		if ((inOffset < 0) || (inLen < 0) || (numOfInputs < 0) || (inOffset + (long) inLen * numOfInputs > inBytes.length)){
+			throw new ArrayIndexOutOfBoundsException("wrong offset for the given input buffer");
+		}
+		if ((outOffset < 0) || (outOffset + (long) getBlockSize() * numOfInputs > outBytes.length)){
+			throw new ArrayIndexOutOfBoundsException("wrong offset for the given output buffer");
+		}
+		if (numOfInputs > 0){
+			computeBlocksNative(hmac, inBytes, inOffset, inLen, numOfInputs, outBytes, outOffset);
+		}
+	}
+	
 	/**
 	 * Computes the hmac operation on the given msg and return the calculated tag.
 	 * @param msg the message to operate the mac on.
@@ -357,6 +436,28 @@ public class OpenSSLHMAC implements Hmac {
 		updateNative(hmac, msg, offset, msgLen);
 	}
 	
+	/**
+	 * Adds the remaining bytes of the given buffer to the existing message to mac. <p>
+	 * A direct buffer is passed to the native code without copying.
+	 * @param msg the message to add.
+	 */
+	public void update(ByteBuffer msg){
+		if (!isKeySet()){
+			throw new IllegalStateException("secret key isn't set");
+		}
+		int len = msg.remaining();
+		if (msg.isDirect()){
+			updateNativeDirect(hmac, msg, msg.position(), len);
+		} else if (msg.hasArray()){
+			updateNative(hmac, msg.array(), msg.arrayOffset() + msg.position(), len);
+		} else {
+			byte[] bytes = new byte[len];
+			msg.duplicate().get(bytes);
+			updateNative(hmac, bytes, 0, len);
+		}
+		msg.position(msg.limit());
+	}
+	
 	/**
 	 * Completes the mac computation and puts the result tag in the tag array.
 	 * @param msg the end of the message to mac.
@@ -24,6 +24,7 @@
 */
 package edu.biu.scapi.primitives.prf.openSSL;
 
+import java.nio.ByteBuffer;
 import java.security.InvalidParameterException;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
@@ -35,9 +36,11 @@ import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
 
+import edu.biu.scapi.primitives.prf.PrfByteBuffers;
+import edu.biu.scapi.primitives.prf.PrfFixedBatch;
 import edu.biu.scapi.primitives.prf.PrpFixed;
 
-public abstract class OpenSSLPRP implements PrpFixed{
+public abstract class OpenSSLPRP implements PrpFixed, PrfFixedBatch{
 	protected long computeP;	//Native object used to compute the prp.
 	protected long invertP;		//Native object used to invert the prp.
 	
@@ -49,6 +52,7 @@ public abstract class OpenSSLPRP implements PrpFixed{
 	private native void invertBlock(long invertP, byte[] in, byte[] out, int outOffset, int blockSize);		//Inverts the PRP on the given in block.
 	private native void doOptimizedCompute(long computeP, byte[] inBytes, byte[] outBytes, int blockSize);	//Computes the PRP on the given in array.
 	private native void doOptimizedInvert(long invertP, byte[] inBytes, byte[] outBytes, int blockSize);	//Inverts the PRP on the given in array.
+	private native void doComputeDirect(long computeP, ByteBuffer in, int inOffset, ByteBuffer out, int outOffset, int len);	//Computes the PRP on the given direct buffers.
 	private native void deleteNative(long computeP, long invertP);											//Deleted the native objects.
 	
 	/**
@@ -349,4 +353,27 @@ public abstract class OpenSSLPRP implements PrpFixed{
 		//Loads the OpenSSL dll.
 		 System.loadLibrary("OpenSSLJavaInterface");
 	}
+
+	/** 
+	 * Computes the permutation on the remaining bytes of the input buffer, which should be aligned to the block size. <p>
+	 * If both buffers are direct, their memory is passed to the native code without copying and all the blocks are computed in a single native call.
+	 * Otherwise, the byte array functions of this class are used.
+	 * @param inBytes input bytes to compute.
+	 * @param outBytes output buffer. The resulted bytes of compute.
+	 * @throws IllegalBlockSizeException if the remaining input is not aligned to the block size.
+	 */
+	public void computeBlock(ByteBuffer inBytes, ByteBuffer outBytes) throws IllegalBlockSizeException {
+		if (!isKeySet()){
+			throw new IllegalStateException("secret key isn't set");
+		}
+		if (!inBytes.isDirect() || !outBytes.isDirect()){
+			PrfByteBuffers.computeBlock(this, inBytes, outBytes);
+			return;
+		}
+		
+		int len = PrfByteBuffers.getOutputLength(this, inBytes, outBytes);
+		doComputeDirect(computeP, inBytes, inBytes.position(), outBytes, outBytes.position(), len);
+		inBytes.position(inBytes.limit());
+		outBytes.position(outBytes.position() + len);
+	}
 }
@@ -35,6 +35,8 @@ import javax.crypto.SecretKey;
 
 import edu.biu.scapi.exceptions.FactoriesException;
 import edu.biu.scapi.exceptions.NoMaxException;
+import edu.biu.scapi.primitives.prf.CounterModeKeyStream;
+import edu.biu.scapi.primitives.prf.PrfVaryingIOLength;
 import edu.biu.scapi.primitives.prf.PseudorandomFunction;
 import edu.biu.scapi.primitives.prf.bc.BcAES;
 import edu.biu.scapi.tools.Factories.PrfFactory;
@@ -49,6 +51,7 @@ public class ScPrgFromPrf implements PseudorandomGenerator{
 
 	private PseudorandomFunction prf;	// Underlying PRF.
 	private byte[] ctr;					//Counter used for key generation.
+	private CounterModeKeyStream keyStream;	//Computes the pseudorandom bytes from the counter.
 	private boolean isKeySet;
 
 	/**
@@ -91,6 +94,7 @@ public class ScPrgFromPrf implements PseudorandomGenerator{
 
 		//Initializes the counter to 1.
 		ctr[ctr.length-1] = 1;
+		keyStream = new CounterModeKeyStream(prf, ctr.length);
 		isKeySet = true;
 
 	}
@@ -146,50 +150,24 @@ public class ScPrgFromPrf implements PseudorandomGenerator{
 			throw new ArrayIndexOutOfBoundsException("wrong offset for the given output buffer");
 		}
 
-		int numGeneratedBytes = 0;	//Number of current generated bytes.
-		byte [] generatedBytes = new byte[ctr.length];
+		if (outLen == 0){
+			return;
+		}
 
-		while(numGeneratedBytes < outLen){
+		if (prf instanceof PrfVaryingIOLength){
+			//If the prf can output any length (for example, IteratedPrfVarying) a single call to computeBlock computes all the bytes.
 			try {
-				//If the prf can output any length (for example, IteratedPrfVarying) call the computeBlock with the outputLen.
-				prf.computeBlock(ctr, 0, ctr.length, outBytes, outOffset + numGeneratedBytes, outLen);
-				numGeneratedBytes += outLen;
+				prf.computeBlock(ctr, 0, ctr.length, outBytes, outOffset, outLen);
 			} catch (IllegalBlockSizeException e) {
-				try {
-					//If the prf can receive any input length (for example, Hmac) call the computeBlock with the ctr length.
-					//The output is written to a new array because there is no guarantee that output array is long enough to hold the next output block.
-					prf.computeBlock(ctr, 0, ctr.length, generatedBytes, 0);
-					//Copy the right number of generated bytes.
-					if (numGeneratedBytes + generatedBytes.length <= outLen){
-						System.arraycopy(generatedBytes, 0, outBytes, outOffset + numGeneratedBytes, generatedBytes.length);
-					} else {
-						System.arraycopy(generatedBytes, 0, outBytes, outOffset + numGeneratedBytes, outLen - numGeneratedBytes);
-					}
-					//Increases the number of generated bytes.
-					numGeneratedBytes += ctr.length;
-				} catch (IllegalBlockSizeException e1) {
-					try {
-						//If the prf can receive fixed input length (for example, AES) call the computeBlock without the input length.
-						//The output is written to a new array because there is no guarantee that output array is long enough to hold the next output block.
-						prf.computeBlock(ctr, 0, generatedBytes, 0);
-						//Copy the right number of generated bytes.
-						if (numGeneratedBytes + generatedBytes.length <= outLen){
-							System.arraycopy(generatedBytes, 0, outBytes, outOffset + numGeneratedBytes, generatedBytes.length);
-						} else {
-							System.arraycopy(generatedBytes, 0, outBytes, outOffset + numGeneratedBytes, outLen - numGeneratedBytes);
-						}
-						//Increases the number of generated bytes.
-						numGeneratedBytes += ctr.length;
-					} catch (IllegalBlockSizeException e2) {
-						// TODO Auto-generated catch block
-						e2.printStackTrace();
-					}
-				}
+				//Should not happen since the prf can receive and output any length.
+				throw new IllegalStateException(e);
 			}
 			//Increases the counter.
 			increaseCtr();
+		} else {
+			//Otherwise, the key stream computes one block for each counter and increases the counter after every block.
+			keyStream.generate(ctr, outBytes, outOffset, outLen);
 		}
-
 	}
 
 	/**
@@ -85,6 +85,40 @@ public class HKDFBasedRO implements RandomOracle{
 		return key.getEncoded();
 	}
 	
+	/**
+	 * Computes the random oracle function on each one of the given inputs separately.
+	 * HKDF has no batch computation, so every input is computed by a separate call to compute.
+	 * @param inputs the inputs to compute the random oracle function on.
+	 * @param outLen required output length IN BYTES.
+	 * @return an array that holds in place i the result of computing the function on inputs[i].
+	 */
+	public byte[][] computeMany(byte[][] inputs, int outLen){
+		byte[][] outputs = new byte[inputs.length][];
+		for (int i=0; i<inputs.length; i++){
+			outputs[i] = compute(inputs[i], 0, inputs[i].length, outLen);
+		}
+		return outputs;
+	}
+	
+	/**
+	 * Computes the random oracle function on numOfInputs inputs of the same length that are stored one after the other in the given array.
+	 * HKDF has no batch computation, so every input is computed by a separate call to compute.
+	 * @param input the array that holds the inputs.
+	 * @param inOffset offset within the array of the first input.
+	 * @param inLen length of each input.
+	 * @param numOfInputs the number of inputs.
+	 * @param outLen required output length IN BYTES.
+	 * @return an array of numOfInputs*outLen bytes that holds the results one after the other.
+	 */
+	public byte[] computeMany(byte[] input, int inOffset, int inLen, int numOfInputs, int outLen){
+		byte[] out = new byte[numOfInputs * outLen];
+		for (int i=0; i<numOfInputs; i++){
+			byte[] output = compute(input, inOffset + i*inLen, inLen, outLen);
+			System.arraycopy(output, 0, out, i*outLen, outLen);
+		}
+		return out;
+	}
+	
 	@Override
 	public String getAlgorithmName() {
 		
@@ -24,6 +24,8 @@
 */
 package edu.biu.scapi.primitives.randomOracle;
 
+import java.util.Arrays;
+
 import edu.biu.scapi.exceptions.FactoriesException;
 import edu.biu.scapi.primitives.hash.CryptographicHash;
 import edu.biu.scapi.primitives.hash.cryptopp.CryptoPpSHA1;
@@ -93,6 +95,62 @@ public class HashBasedRO implements RandomOracle{
 		}
 		return output;
 	}
+	
+	/**
+	 * Computes the random oracle function on each one of the given inputs separately. 
+	 * All the inputs are hashed by a single call to the underlying hash.
+	 * @param inputs the inputs to compute the random oracle function on.
+	 * @param outLen required output length in BYTES.
+	 * @return an array that holds in place i the result of computing the function on inputs[i].
+	 */
+	public byte[][] computeMany(byte[][] inputs, int outLen){
+		int size = hash.getHashedMsgSize();
+		if (outLen>size){
+			throw new IllegalArgumentException("The given output length is greater then the output length of the hash function");
+		}
+		byte[][] outputs = new byte[inputs.length][];
+		for (int i=0; i<inputs.length; i++){
+			outputs[i] = new byte[size];
+		}
+		//Compute the hash function on all the inputs.
+		hash.hashMany(inputs, outputs);
+		
+		if (outLen < size){
+			for (int i=0; i<outputs.length; i++){
+				outputs[i] = Arrays.copyOf(outputs[i], outLen);
+			}
+		}
+		return outputs;
+	}
+	
+	/**
+	 * Computes the random oracle function on numOfInputs inputs of the same length that are stored one after the other in the given array. 
+	 * All the inputs are hashed by a single call to the underlying hash.
+	 * @param input the array that holds the inputs.
+	 * @param inOffset offset within the array of the first input.
+	 * @param inLen length of each input.
+	 * @param numOfInputs the number of inputs.
+	 * @param outLen required output length in BYTES.
+	 * @return an array of numOfInputs*outLen bytes that holds the results one after the other.
+	 */
+	public byte[] computeMany(byte[] input, int inOffset, int inLen, int numOfInputs, int outLen){
+		int size = hash.getHashedMsgSize();
+		if (outLen>size){
+			throw new IllegalArgumentException("The given output length is greater then the output length of the hash function");
+		}
+		//Compute the hash function on all the inputs.
+		byte[] out = new byte[numOfInputs * size];
+		hash.hashMany(input, inOffset, inLen, numOfInputs, out, 0);
+		
+		if (outLen < size){
+			//Truncate each result by moving its first outLen bytes right after the previous truncated result.
+			for (int i=1; i<numOfInputs; i++){
+				System.arraycopy(out, i*size, out, i*outLen, outLen);
+			}
+			out = Arrays.copyOf(out, numOfInputs * outLen);
+		}
+		return out;
+	}
 
 
 	@Override
@@ -51,4 +51,25 @@ public interface RandomOracle {
 	 * @return a string with the required length.
 	 */
 	public byte[] compute(byte[] input, int inOffset, int inLen, int outLen);
+	
+	/**
+	 * Computes the random oracle function on each one of the given inputs separately. <p>
+	 * The result is the same as calling compute for every input, but the implementations may compute all the inputs in one batch.
+	 * @param inputs the inputs to compute the random oracle function on.
+	 * @param outLen required output length IN BYTES.
+	 * @return an array that holds in place i the result of computing the function on inputs[i].
+	 */
+	public byte[][] computeMany(byte[][] inputs, int outLen);
+	
+	/**
+	 * Computes the random oracle function on numOfInputs inputs of the same length that are stored one after the other in the given array. <p>
+	 * The result is the same as calling compute for every input, but the implementations may compute all the inputs in one batch.
+	 * @param input the array that holds the inputs.
+	 * @param inOffset offset within the array of the first input.
+	 * @param inLen length of each input.
+	 * @param numOfInputs the number of inputs.
+	 * @param outLen required output length IN BYTES.
+	 * @return an array of numOfInputs*outLen bytes that holds the results one after the other.
+	 */
+	public byte[] computeMany(byte[] input, int inOffset, int inLen, int numOfInputs, int outLen);
 }
@@ -141,5 +141,41 @@ public class MathAlgorithms {
 		return new SquareRootResults(x, x.negate().mod(p));
     }
 	
+	/*-------------------------------------------------------------*/
+	/**
+	 * Computes the Jacobi symbol (a/n) by the binary algorithm, which only uses shifts and reductions and is therefore
+	 * much faster than computing the Legendre symbol by Euler's criterion a^((n-1)/2) mod n. <p>
+	 * If n is a prime, the result is the Legendre symbol of a: 1 if a is a non-zero quadratic residue modulo n, -1 if it is a non-residue and 0 if n divides a.
+	 * @param a the number for which we calculate the symbol
+	 * @param n an odd positive number
+	 * @throws IllegalArgumentException if n is not odd and positive
+	 * @return the Jacobi symbol (a/n), which is 1, -1 or 0
+	 */
+	public static int jacobiSymbol(BigInteger a, BigInteger n){
+		if (n.signum() <= 0 || !n.testBit(0))
+			throw new IllegalArgumentException("n has to be an odd positive number");
+		
+		a = a.mod(n);
+		int result = 1;
+		while (a.signum() != 0){
+			//Remove the factors of two from a. (2/n) = -1 iff n = 3 or 5 mod 8.
+			int twos = a.getLowestSetBit();
+			a = a.shiftRight(twos);
+			int nMod8 = n.intValue() & 7;
+			if ((twos & 1) == 1 && (nMod8 == 3 || nMod8 == 5)){
+				result = -result;
+			}
+			//Quadratic reciprocity: (a/n) = (n/a), unless both are 3 mod 4.
+			BigInteger temp = a;
+			a = n;
+			n = temp;
+			if ((a.intValue() & 3) == 3 && (n.intValue() & 3) == 3){
+				result = -result;
+			}
+			a = a.mod(n);
+		}
+		return n.equals(BigInteger.ONE) ? result : 0;
+	}
+	
 	/*-------------------------------------------------------------*/
 }
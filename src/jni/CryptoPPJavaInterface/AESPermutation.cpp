@@ -116,6 +116,28 @@ JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_prf_cryptopp_CryptoPpAES_op
 	  env->ReleaseByteArrayElements(inBytes,in,0);
 }
 
+/* function computeBlocksDirect : This function computes the AES permutation on the memory of two direct buffers, without copying it.
+ * param aes					: pointer to the AESEncryption or AESDecryption object.
+ * param inBuffer				: direct buffer that holds the blocks to compute.
+ * param inOffset				: the offset of the first block within the input buffer.
+ * param outBuffer				: direct buffer to put the result in.
+ * param outOffset				: the offset within the output buffer to put the result from.
+ * param len					: the length of the blocks to compute. Should be aligned to the block size.
+ */
+JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_prf_cryptopp_CryptoPpAES_computeBlocksDirect
+  (JNIEnv *env, jobject, jlong aes, jobject inBuffer, jint inOffset, jobject outBuffer, jint outOffset, jint len, jboolean forEncrypt){
+
+	  byte* in = (byte*) env->GetDirectBufferAddress(inBuffer);
+	  byte* out = (byte*) env->GetDirectBufferAddress(outBuffer);
+
+	  //process all the blocks in one call, which lets crypto++ use its pipelined implementation of the mode-less transformation.
+	  if (forEncrypt){
+		  ((AESEncryption*)aes)->AdvancedProcessBlocks(in+inOffset, NULL, out+outOffset, len, 0);
+	  } else {
+		  ((AESDecryption*)aes)->AdvancedProcessBlocks(in+inOffset, NULL, out+outOffset, len, 0);
+	  }
+}
+
 JNIEXPORT jstring JNICALL Java_edu_biu_scapi_primitives_prf_cryptopp_CryptoPpAES_getName
   (JNIEnv *env, jobject, jlong aes){
 	  string name = ((AESEncryption*)aes)->AlgorithmName();
@@ -72,6 +72,14 @@ JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_prf_cryptopp_CryptoPpAES_co
 JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_prf_cryptopp_CryptoPpAES_optimizedCompute
   (JNIEnv *, jobject, jlong, jbyteArray, jbyteArray, jboolean);
 
+/*
+ * Class:     edu_biu_scapi_primitives_prf_cryptopp_CryptoPpAES
+ * Method:    computeBlocksDirect
+ * Signature: (JLjava/nio/ByteBuffer;ILjava/nio/ByteBuffer;IIZ)V
+ */
+JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_prf_cryptopp_CryptoPpAES_computeBlocksDirect
+  (JNIEnv *, jobject, jlong, jobject, jint, jobject, jint, jint, jboolean);
+
 /*
  * Class:     edu_biu_scapi_primitives_prf_cryptopp_CryptoPpAES
  * Method:    getName
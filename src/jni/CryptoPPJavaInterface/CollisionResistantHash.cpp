@@ -138,6 +138,102 @@ JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_hash_cryptopp_CryptoPpHash_
 
 }
 
+/* function updateHashDirect : This function updates the hash function with the memory of a direct buffer, without copying it
+ * param hashPtr	   : The actual hash object pointer to update
+ * param data		   : the direct buffer that holds the data
+ * param offset		   : the offset of the data within the buffer
+ * param len		   : the length of the data
+ */
+JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_hash_cryptopp_CryptoPpHash_updateHashDirect
+(JNIEnv *env, jobject, jlong hashPtr, jobject data, jint offset, jint len){
+
+	//get the memory of the buffer
+	byte *carr = (byte *) env->GetDirectBufferAddress(data);
+
+	((HashTransformation *)hashPtr)->Update((const byte *)(carr+offset), len);
+}
+
+/* function finalHashDirect : This function completes the hash computation and puts the result directly in a direct buffer
+ * param hashPtr	   : The actual hash object pointer 
+ * param output		   : the direct buffer to put the result in
+ * param offset		   : the offset within the buffer to put the result from
+ */
+JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_hash_cryptopp_CryptoPpHash_finalHashDirect
+(JNIEnv *env, jobject, jlong hashPtr, jobject output, jint offset){
+
+	//get the memory of the buffer
+	byte *ret = (byte *) env->GetDirectBufferAddress(output);
+
+	//perform the final function
+	((HashTransformation *)hashPtr)->Final(ret+offset);
+}
+
+/* function hashManyArrays : This function hashes each one of the given messages separately and puts each result in the matching output array
+ * param hashPtr	   : The actual hash object pointer 
+ * param inputs		   : the array of the messages to hash
+ * param outputs	   : the array of the arrays to put the results in
+ */
+JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_hash_cryptopp_CryptoPpHash_hashManyArrays
+(JNIEnv *env, jobject, jlong hashPtr, jobjectArray inputs, jobjectArray outputs){
+
+	HashTransformation *localHashPtr = (HashTransformation *)hashPtr;
+	int size = localHashPtr->DigestSize();
+	byte *ret = new byte[size];
+
+	//discard any message that was not finalized
+	localHashPtr->Restart();
+
+	int num = env->GetArrayLength(inputs);
+	for (int i=0; i<num; i++){
+		jbyteArray data = (jbyteArray) env->GetObjectArrayElement(inputs, i);
+		jbyteArray output = (jbyteArray) env->GetObjectArrayElement(outputs, i);
+
+		//hash the message. The message is not changed so there is no need to copy it back
+		jbyte *carr = env->GetByteArrayElements(data, 0);
+		localHashPtr->CalculateDigest(ret, (const byte *)carr, env->GetArrayLength(data));
+		env->ReleaseByteArrayElements(data, carr, JNI_ABORT);
+
+		env->SetByteArrayRegion(output, 0, size, (jbyte*)ret);
+
+		//release the local references, since there may be more messages than the JVM allows in one native call
+		env->DeleteLocalRef(data);
+		env->DeleteLocalRef(output);
+	}
+
+	delete [] ret;
+}
+
+/* function hashManyNative : This function hashes the messages that are stored one after the other in the input array,
+ *							 and puts the results one after the other in the output array
+ * param hashPtr	   : The actual hash object pointer 
+ * param in			   : the array that holds the messages
+ * param inOffset	   : the offset of the first message within the input array
+ * param msgLen		   : the length of each message
+ * param numOfMsgs	   : the number of messages to hash
+ * param out		   : the array to put the results in
+ * param outOffset	   : the offset within the output array to put the first result from
+ */
+JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_hash_cryptopp_CryptoPpHash_hashManyNative
+(JNIEnv *env, jobject, jlong hashPtr, jbyteArray in, jint inOffset, jint msgLen, jint numOfMsgs, jbyteArray out, jint outOffset){
+
+	HashTransformation *localHashPtr = (HashTransformation *)hashPtr;
+	int size = localHashPtr->DigestSize();
+
+	jbyte *input = env->GetByteArrayElements(in, 0);
+	jbyte *output = env->GetByteArrayElements(out, 0);
+
+	//discard any message that was not finalized
+	localHashPtr->Restart();
+
+	for (int i=0; i<numOfMsgs; i++){
+		localHashPtr->CalculateDigest((byte *)(output+outOffset+i*size), (const byte *)(input+inOffset+i*msgLen), msgLen);
+	}
+
+	//the input is not changed so there is no need to copy it back
+	env->ReleaseByteArrayElements(in, input, JNI_ABORT);
+	env->ReleaseByteArrayElements(out, output, 0);
+}
+
 
 JNIEXPORT jint JNICALL Java_edu_biu_scapi_primitives_hash_cryptopp_CryptoPpHash_getDigestSize
   (JNIEnv *, jobject, jlong hashPtr){
@@ -66,6 +66,38 @@ JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_hash_cryptopp_CryptoPpHash_
 JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_hash_cryptopp_CryptoPpHash_finalHash
   (JNIEnv *, jobject, jlong, jbyteArray);
 
+/*
+ * Class:     edu_biu_scapi_primitives_hash_cryptopp_CryptoPpHash
+ * Method:    updateHashDirect
+ * Signature: (JLjava/nio/ByteBuffer;II)V
+ */
+JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_hash_cryptopp_CryptoPpHash_updateHashDirect
+  (JNIEnv *, jobject, jlong, jobject, jint, jint);
+
+/*
+ * Class:     edu_biu_scapi_primitives_hash_cryptopp_CryptoPpHash
+ * Method:    finalHashDirect
+ * Signature: (JLjava/nio/ByteBuffer;I)V
+ */
+JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_hash_cryptopp_CryptoPpHash_finalHashDirect
+  (JNIEnv *, jobject, jlong, jobject, jint);
+
+/*
+ * Class:     edu_biu_scapi_primitives_hash_cryptopp_CryptoPpHash
+ * Method:    hashManyArrays
+ * Signature: (J[[B[[B)V
+ */
+JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_hash_cryptopp_CryptoPpHash_hashManyArrays
+  (JNIEnv *, jobject, jlong, jobjectArray, jobjectArray);
+
+/*
+ * Class:     edu_biu_scapi_primitives_hash_cryptopp_CryptoPpHash
+ * Method:    hashManyNative
+ * Signature: (J[BIII[BI)V
+ */
+JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_hash_cryptopp_CryptoPpHash_hashManyNative
+  (JNIEnv *, jobject, jlong, jbyteArray, jint, jint, jint, jbyteArray, jint);
+
 
 /*
  * Class:     edu_biu_scapi_primitives_hash_cryptopp_CryptoPpHash
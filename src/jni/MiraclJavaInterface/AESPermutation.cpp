@@ -141,6 +141,30 @@ JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_prf_miracl_MiraclAES_optimi
 	  env->ReleaseByteArrayElements(inBytes,in,0);
 }
 
+/* function computeBlocksDirect	: This function computes the AES permutation on the memory of two direct buffers, without copying it to java arrays.
+ * param aesPointer				: pointer to the aes struct
+ * param inBuffer				: direct buffer that holds the blocks to compute.
+ * param inOffset				: the offset of the first block within the input buffer.
+ * param outBuffer				: direct buffer to put the result in.
+ * param outOffset				: the offset within the output buffer to put the result from.
+ * param len					: the length of the blocks to compute. Should be aligned to the block size.
+ */
+JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_prf_miracl_MiraclAES_computeBlocksDirect
+  (JNIEnv *env, jobject, jlong aesPointer, jobject inBuffer, jint inOffset, jobject outBuffer, jint outOffset, jint len){
+	  
+	  char* in = (char*) env->GetDirectBufferAddress(inBuffer);
+	  char* out = (char*) env->GetDirectBufferAddress(outBuffer);
+	  
+	  int blockSize = 16; //In AES permutation in a CBC mode the block size is fixed, 16 bytes. 
+
+	  //aes_encrypt function computes the permutation in place, so each block is moved to the output buffer and encrypted there.
+	  //memmove is used since the buffers may overlap.
+	  for (int i=0; i<len; i+=blockSize){
+		  memmove(out+outOffset+i, in+inOffset+i, blockSize);
+		  aes_encrypt((aes*)aesPointer, out+outOffset+i);
+	  }
+}
+
 /* function optimizedInvert	: This function inverts the AES permutation on a big byte array, by inverting each block separately.
  * param aesPointer			: pointer to the aes struct
  * param inBytes			: byte array to invert the aes permutation on.
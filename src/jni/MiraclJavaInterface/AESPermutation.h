@@ -39,6 +39,14 @@ JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_prf_miracl_MiraclAES_invert
 JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_prf_miracl_MiraclAES_optimizedCompute
   (JNIEnv *, jobject, jlong, jbyteArray, jbyteArray);
 
+/*
+ * Class:     edu_biu_scapi_primitives_prf_miracl_MiraclAES
+ * Method:    computeBlocksDirect
+ * Signature: (JLjava/nio/ByteBuffer;ILjava/nio/ByteBuffer;II)V
+ */
+JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_prf_miracl_MiraclAES_computeBlocksDirect
+  (JNIEnv *, jobject, jlong, jobject, jint, jobject, jint, jint);
+
 /*
  * Class:     edu_biu_scapi_primitives_prf_miracl_MiraclAES
  * Method:    optimizedInvert
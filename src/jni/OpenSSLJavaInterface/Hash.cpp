@@ -120,6 +120,110 @@ JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_hash_openSSL_OpenSSLHash_fi
 	  delete ret;
 }
 
+/* 
+ * function updateHashDirect	: Update the hash function with the memory of the given direct buffer, without copying it.
+ * param hash					: Pointer to the native hash.
+ * param message				: Direct buffer that holds the message.
+ * param offset					: The offset of the message within the buffer.
+ * param len					: The length of the message.
+ */
+JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_hash_openSSL_OpenSSLHash_updateHashDirect
+  (JNIEnv *env, jobject, jlong hash, jobject message, jint offset, jint len){
+	  //Get the memory of the buffer.
+	  unsigned char* msg = (unsigned char*) env->GetDirectBufferAddress(message);
+
+	  //Update the hash with the message.
+	  EVP_DigestUpdate((EVP_MD_CTX *) hash, msg+offset, len);
+}
+
+/* 
+ * function finalHashDirect	: Finalize the hash function and put the result directly in the given direct buffer.
+ * param hash				: Pointer to the native hash.
+ * param result				: Direct buffer to hold the hashed message.
+ * param offset				: The offset within the buffer to put the result from.
+ */
+JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_hash_openSSL_OpenSSLHash_finalHashDirect
+  (JNIEnv *env, jobject, jlong hash, jobject result, jint offset){
+	  //Get the memory of the buffer.
+	  unsigned char* ret = (unsigned char*) env->GetDirectBufferAddress(result);
+
+	  //Compute the hash function and put the result in the buffer.
+	  EVP_DigestFinal_ex((EVP_MD_CTX *)hash, ret+offset, NULL);
+	  
+	  //Initialize the hash structure again to enable repeated calls.
+	  EVP_DigestInit((EVP_MD_CTX *)hash, EVP_MD_CTX_md((EVP_MD_CTX *)hash));
+}
+
+/* 
+ * function hashManyArrays	: Hash each one of the given messages separately and put each result in the matching output array.
+ * param hash				: Pointer to the native hash.
+ * param inputs				: Array of the messages to hash.
+ * param outputs			: Array of the arrays to hold the hashed messages.
+ */
+JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_hash_openSSL_OpenSSLHash_hashManyArrays
+  (JNIEnv *env, jobject, jlong hash, jobjectArray inputs, jobjectArray outputs){
+	  EVP_MD_CTX* ctx = (EVP_MD_CTX *) hash;
+	  const EVP_MD* md = EVP_MD_CTX_md(ctx);
+	  int size = EVP_MD_CTX_size(ctx);
+	  unsigned char ret[EVP_MAX_MD_SIZE];
+	  
+	  //Discard any message that was not finalized.
+	  EVP_DigestInit(ctx, md);
+
+	  int num = env->GetArrayLength(inputs);
+	  for (int i=0; i<num; i++){
+		  jbyteArray message = (jbyteArray) env->GetObjectArrayElement(inputs, i);
+		  jbyteArray result = (jbyteArray) env->GetObjectArrayElement(outputs, i);
+		  
+		  //Hash the message. The message is not changed so there is no need to copy it back.
+		  jbyte* msg = env->GetByteArrayElements(message, 0);
+		  EVP_DigestUpdate(ctx, msg, env->GetArrayLength(message));
+		  env->ReleaseByteArrayElements(message, msg, JNI_ABORT);
+		  EVP_DigestFinal_ex(ctx, ret, NULL);
+		  EVP_DigestInit(ctx, md);
+		  
+		  env->SetByteArrayRegion(result, 0, size, (jbyte*)ret);
+		  
+		  //Release the local references, since there may be more messages than the JVM allows in one native call.
+		  env->DeleteLocalRef(message);
+		  env->DeleteLocalRef(result);
+	  }
+}
+
+/* 
+ * function hashManyNative	: Hash the messages that are stored one after the other in the input array, and put the results one after the other in the output array.
+ * param hash				: Pointer to the native hash.
+ * param in					: The array that holds the messages.
+ * param inOffset			: The offset of the first message within the input array.
+ * param msgLen				: The length of each message.
+ * param numOfMsgs			: The number of messages to hash.
+ * param out				: The array to hold the hashed messages.
+ * param outOffset			: The offset within the output array to put the first result from.
+ */
+JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_hash_openSSL_OpenSSLHash_hashManyNative
+  (JNIEnv *env, jobject, jlong hash, jbyteArray in, jint inOffset, jint msgLen, jint numOfMsgs, jbyteArray out, jint outOffset){
+	  EVP_MD_CTX* ctx = (EVP_MD_CTX *) hash;
+	  const EVP_MD* md = EVP_MD_CTX_md(ctx);
+	  int size = EVP_MD_CTX_size(ctx);
+	  
+	  //Convert the arrays to c++ notation.
+	  jbyte* input = env->GetByteArrayElements(in, 0);
+	  jbyte* output = env->GetByteArrayElements(out, 0);
+	  
+	  //Discard any message that was not finalized.
+	  EVP_DigestInit(ctx, md);
+
+	  for (int i=0; i<numOfMsgs; i++){
+		  EVP_DigestUpdate(ctx, input+inOffset+i*msgLen, msgLen);
+		  EVP_DigestFinal_ex(ctx, (unsigned char*)(output+outOffset+i*size), NULL);
+		  EVP_DigestInit(ctx, md);
+	  }
+	  
+	  //The input is not changed so there is no need to copy it back.
+	  env->ReleaseByteArrayElements(in, input, JNI_ABORT);
+	  env->ReleaseByteArrayElements(out, output, 0);
+}
+
 /* 
  * function getDigestSize	: Returns the length of the hashed message.
  */
@@ -64,6 +64,38 @@ JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_hash_openSSL_OpenSSLHash_up
 JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_hash_openSSL_OpenSSLHash_finalHash
   (JNIEnv *, jobject, jlong, jbyteArray);
 
+/*
+ * Class:     edu_biu_scapi_primitives_hash_openSSL_OpenSSLHash
+ * Method:    updateHashDirect
+ * Signature: (JLjava/nio/ByteBuffer;II)V
+ */
+JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_hash_openSSL_OpenSSLHash_updateHashDirect
+  (JNIEnv *, jobject, jlong, jobject, jint, jint);
+
+/*
+ * Class:     edu_biu_scapi_primitives_hash_openSSL_OpenSSLHash
+ * Method:    finalHashDirect
+ * Signature: (JLjava/nio/ByteBuffer;I)V
+ */
+JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_hash_openSSL_OpenSSLHash_finalHashDirect
+  (JNIEnv *, jobject, jlong, jobject, jint);
+
+/*
+ * Class:     edu_biu_scapi_primitives_hash_openSSL_OpenSSLHash
+ * Method:    hashManyArrays
+ * Signature: (J[[B[[B)V
+ */
+JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_hash_openSSL_OpenSSLHash_hashManyArrays
+  (JNIEnv *, jobject, jlong, jobjectArray, jobjectArray);
+
+/*
+ * Class:     edu_biu_scapi_primitives_hash_openSSL_OpenSSLHash
+ * Method:    hashManyNative
+ * Signature: (J[BIII[BI)V
+ */
+JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_hash_openSSL_OpenSSLHash_hashManyNative
+  (JNIEnv *, jobject, jlong, jbyteArray, jint, jint, jint, jbyteArray, jint);
+
 /*
  * Class:     edu_biu_scapi_primitives_hash_openSSL_OpenSSLHash
  * Method:    getDigestSize
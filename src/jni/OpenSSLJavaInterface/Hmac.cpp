@@ -116,6 +116,22 @@ JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_prf_openSSL_OpenSSLHMAC_upd
 	  env->ReleaseByteArrayElements(in, input, 0);
 }
 
+/* 
+ * function updateNativeDirect	: Update the Hmac object with the memory of the given direct buffer, without copying it.
+ * param hmac					: Pointer to the native Hmac object.
+ * param in						: Direct buffer that should be updated to the Hmac function.
+ * param inOffset				: The offset within the buffer that the update should take place from.
+ * param len					: The number of bytes to update.
+ */
+JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_prf_openSSL_OpenSSLHMAC_updateNativeDirect
+  (JNIEnv *env, jobject, jlong hmac, jobject in, jint inOffset, jint len){
+	  //Get the memory of the buffer.
+	  unsigned char* input = (unsigned char*) env->GetDirectBufferAddress(in);
+
+	  //Update the Hmac object.
+	  HMAC_Update((HMAC_CTX*)hmac, (const unsigned char*)(input+inOffset), len);
+}
+
 /* 
  * function updateFinal		: Finalize the Hmac operation
  * param hmac				: Pointer to the native Hmac object.
@@ -126,25 +142,86 @@ JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_prf_openSSL_OpenSSLHMAC_upd
   (JNIEnv *env, jobject, jlong hmac, jbyteArray out, jint outOffset){
 	  
 	  int size = EVP_MD_size(((HMAC_CTX *)hmac)->md); //Get the size of the hash output.
-	  unsigned char* output = new unsigned char[size];//Create a char array to hold the result.
+	  unsigned char output[EVP_MAX_MD_SIZE];//Create a char array to hold the result.
 	  
 	  //Compute the final function and copy the output the the given output array
-	  if (0 == (HMAC_Final((HMAC_CTX *)hmac, output, NULL))){
-		  delete output;
-	  }
-
+	  HMAC_Final((HMAC_CTX *)hmac, output, NULL);
 	  env->SetByteArrayRegion(out, outOffset, size, (jbyte*)output); 
 
-	  //initialize the Hmac again in order to enable repeated calls.
-	  const EVP_MD *md = ((HMAC_CTX *)hmac)->md;
-	  unsigned char* key = ((HMAC_CTX *)hmac)->key;
-	  int keyLen =  ((HMAC_CTX *)hmac)->key_length;
-	  if (0 == (HMAC_Init_ex((HMAC_CTX *)hmac, key, keyLen,  md, NULL))){
-		  delete(output);
+	  //Initialize the Hmac again in order to enable repeated calls. 
+	  //Since the key is not given again, OpenSSL only copies the keyed inner hash state that was computed in setKey, instead of hashing the padded key again.
+	  HMAC_Init_ex((HMAC_CTX *)hmac, NULL, 0, NULL, NULL);
+}
+
+/* 
+ * function computeBlocksArrays	: Compute the Hmac on each one of the given input arrays and put each result in the matching output array.
+ * param hmac					: Pointer to the native Hmac object.
+ * param inputs					: Array of the inputs to compute.
+ * param outputs				: Array of the arrays that should hold the results.
+ */
+JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_prf_openSSL_OpenSSLHMAC_computeBlocksArrays
+  (JNIEnv *env, jobject, jlong hmac, jobjectArray inputs, jobjectArray outputs){
+	  HMAC_CTX* ctx = (HMAC_CTX*)hmac;
+	  int size = EVP_MD_size(ctx->md); //Get the size of the hash output.
+	  unsigned char output[EVP_MAX_MD_SIZE];
+	  
+	  //Discard any message that was not finalized.
+	  HMAC_Init_ex(ctx, NULL, 0, NULL, NULL);
+
+	  int num = env->GetArrayLength(inputs);
+	  for (int i=0; i<num; i++){
+		  jbyteArray in = (jbyteArray) env->GetObjectArrayElement(inputs, i);
+		  jbyteArray out = (jbyteArray) env->GetObjectArrayElement(outputs, i);
+		  
+		  //Compute the Hmac on the input. The input is not changed so there is no need to copy it back.
+		  jbyte* input = env->GetByteArrayElements(in, 0);
+		  HMAC_Update(ctx, (const unsigned char*)input, env->GetArrayLength(in));
+		  env->ReleaseByteArrayElements(in, input, JNI_ABORT);
+		  HMAC_Final(ctx, output, NULL);
+		  
+		  //Start the next input from the keyed inner hash state.
+		  HMAC_Init_ex(ctx, NULL, 0, NULL, NULL);
+		  
+		  env->SetByteArrayRegion(out, 0, size, (jbyte*)output);
+
+		  //Release the local references, since there may be more inputs than the JVM allows in one native call.
+		  env->DeleteLocalRef(in);
+		  env->DeleteLocalRef(out);
 	  }
+}
 
-	  //Release the allocated memory.
-	  delete output;
+/* 
+ * function computeBlocksNative	: Compute the Hmac on the inputs that are stored one after the other in the input array, and put the results one after the other in the output array.
+ * param hmac					: Pointer to the native Hmac object.
+ * param in						: The array that holds the inputs.
+ * param inOffset				: The offset of the first input within the input array.
+ * param inLen					: The length of each input.
+ * param numOfInputs			: The number of inputs to compute.
+ * param out					: The array that should hold the results.
+ * param outOffset				: The offset within the output array that the first result should start from.
+ */
+JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_prf_openSSL_OpenSSLHMAC_computeBlocksNative
+  (JNIEnv *env, jobject, jlong hmac, jbyteArray in, jint inOffset, jint inLen, jint numOfInputs, jbyteArray out, jint outOffset){
+	  HMAC_CTX* ctx = (HMAC_CTX*)hmac;
+	  int size = EVP_MD_size(ctx->md); //Get the size of the hash output.
+
+	  //Convert the arrays into c++ notation.
+	  jbyte* input = env->GetByteArrayElements(in, 0);
+	  jbyte* output = env->GetByteArrayElements(out, 0);
+	  
+	  //Discard any message that was not finalized.
+	  HMAC_Init_ex(ctx, NULL, 0, NULL, NULL);
+
+	  for (int i=0; i<numOfInputs; i++){
+		  HMAC_Update(ctx, (const unsigned char*)(input+inOffset+i*inLen), inLen);
+		  HMAC_Final(ctx, (unsigned char*)(output+outOffset+i*size), NULL);
+		  //Start the next input from the keyed inner hash state.
+		  HMAC_Init_ex(ctx, NULL, 0, NULL, NULL);
+	  }
+
+	  //The input is not changed so there is no need to copy it back.
+	  env->ReleaseByteArrayElements(in, input, JNI_ABORT);
+	  env->ReleaseByteArrayElements(out, output, 0);
 }
 
 /* 
@@ -66,6 +66,14 @@ JNIEXPORT jstring JNICALL Java_edu_biu_scapi_primitives_prf_openSSL_OpenSSLHMAC_
 JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_prf_openSSL_OpenSSLHMAC_updateNative
   (JNIEnv *, jobject, jlong, jbyteArray, jint, jint);
 
+/*
+ * Class:     edu_biu_scapi_primitives_prf_openSSL_OpenSSLHMAC
+ * Method:    updateNativeDirect
+ * Signature: (JLjava/nio/ByteBuffer;II)V
+ */
+JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_prf_openSSL_OpenSSLHMAC_updateNativeDirect
+  (JNIEnv *, jobject, jlong, jobject, jint, jint);
+
 /*
  * Class:     edu_biu_scapi_primitives_prf_openSSL_OpenSSLHMAC
  * Method:    updateFinal
@@ -74,6 +82,22 @@ JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_prf_openSSL_OpenSSLHMAC_upd
 JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_prf_openSSL_OpenSSLHMAC_updateFinal
   (JNIEnv *, jobject, jlong, jbyteArray, jint);
 
+/*
+ * Class:     edu_biu_scapi_primitives_prf_openSSL_OpenSSLHMAC
+ * Method:    computeBlocksArrays
+ * Signature: (J[[B[[B)V
+ */
+JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_prf_openSSL_OpenSSLHMAC_computeBlocksArrays
+  (JNIEnv *, jobject, jlong, jobjectArray, jobjectArray);
+
+/*
+ * Class:     edu_biu_scapi_primitives_prf_openSSL_OpenSSLHMAC
+ * Method:    computeBlocksNative
+ * Signature: (J[BIII[BI)V
+ */
+JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_prf_openSSL_OpenSSLHMAC_computeBlocksNative
+  (JNIEnv *, jobject, jlong, jbyteArray, jint, jint, jint, jbyteArray, jint);
+
 /*
  * Class:     edu_biu_scapi_primitives_prf_openSSL_OpenSSLHMAC
  * Method:    deleteNative
@@ -114,6 +114,26 @@ JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_prf_openSSL_OpenSSLPRP_doOp
 	  delete (outBlock);
 }
 
+/* 
+ * function doComputeDirect		: Compute the PRP on the memory of two direct buffers, without copying it. The input can be longer than one block.
+ * param prp						: pointer to the PRP object.
+ * param inBuffer					: Direct buffer that holds the input to compute the permutation on.
+ * param inOffset					: The offset of the input within the input buffer.
+ * param outBuffer					: Direct buffer to hold the permutation result.
+ * param outOffset					: The offset within the output buffer to put the result from.
+ * param len						: The length of the input. Should be aligned to the block size.
+ */
+JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_prf_openSSL_OpenSSLPRP_doComputeDirect
+  (JNIEnv *env, jobject, jlong prp, jobject inBuffer, jint inOffset, jobject outBuffer, jint outOffset, jint len){
+	  //Get the memory of the buffers.
+	  unsigned char* in = (unsigned char*) env->GetDirectBufferAddress(inBuffer);
+	  unsigned char* out = (unsigned char*) env->GetDirectBufferAddress(outBuffer);
+	  
+	  //Compute the prp on all the blocks and put the result directly in the output buffer.
+	  int size = len;
+	  EVP_EncryptUpdate ((EVP_CIPHER_CTX*)prp, out+outOffset, &size, in+inOffset, len);
+}
+
 /* 
  * function doOptimizedInvert		: Inverts the PRP on the given input array. The array can be longer than one block.
  * param prp						: pointer to the PRP object.
@@ -56,6 +56,14 @@ JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_prf_openSSL_OpenSSLPRP_inve
 JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_prf_openSSL_OpenSSLPRP_doOptimizedCompute
   (JNIEnv *, jobject, jlong, jbyteArray, jbyteArray, jint);
 
+/*
+ * Class:     edu_biu_scapi_primitives_prf_openSSL_openSSLPRP
+ * Method:    doComputeDirect
+ * Signature: (JLjava/nio/ByteBuffer;ILjava/nio/ByteBuffer;II)V
+ */
+JNIEXPORT void JNICALL Java_edu_biu_scapi_primitives_prf_openSSL_OpenSSLPRP_doComputeDirect
+  (JNIEnv *, jobject, jlong, jobject, jint, jobject, jint, jint);
+
 /*
  * Class:     edu_biu_scapi_primitives_prf_openSSL_openSSLPRP
  * Method:    doOptimizedInvert
@@ -0,0 +1,122 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.circuits.garbledCircuit;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import edu.biu.scapi.circuits.circuit.BooleanCircuit;
+import edu.biu.scapi.circuits.circuit.Gate;
+import edu.biu.scapi.circuits.circuit.Wire;
+import edu.biu.scapi.circuits.encryption.AES128MultiKeyEncryption;
+import edu.biu.scapi.primitives.prf.bc.BcAES;
+
+/**
+ * Tests garbling and computing circuits on a fork-join pool.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public class ParallelGarblingExecutorTest {
+	
+	private static ForkJoinPool pool;
+	
+	@BeforeClass
+	public static void createPool() {
+		pool = new ForkJoinPool(4);
+	}
+	
+	@AfterClass
+	public static void shutdownPool() {
+		pool.shutdown();
+	}
+	
+	/**
+	 * A circuit that has only free XOR gates has no encryption scheme to copy, and no gates to garble in the pool.
+	 */
+	@Test
+	public void xorOnlyCircuitWithPool() throws Exception {
+		checkXorCircuit(1);
+	}
+	
+	/**
+	 * A level that is wide enough is divided between the pool's threads.
+	 */
+	@Test
+	public void wideXorOnlyCircuitWithPool() throws Exception {
+		checkXorCircuit(512);
+	}
+	
+	/**
+	 * Builds a circuit of n independent XOR gates, where gate i computes x_i XOR y_i, and checks all its outputs on a few inputs.
+	 */
+	private void checkXorCircuit(int n) throws Exception {
+		BitSet xor = new BitSet();
+		xor.set(1);
+		xor.set(2);
+		
+		Gate[] gates = new Gate[n];
+		int[] outputWires = new int[n];
+		ArrayList<Integer> firstPartyInputs = new ArrayList<Integer>();
+		ArrayList<Integer> secondPartyInputs = new ArrayList<Integer>();
+		for (int i = 0; i < n; i++) {
+			firstPartyInputs.add(i);
+			secondPartyInputs.add(n + i);
+			outputWires[i] = 2 * n + i;
+			gates[i] = new Gate(i, xor, new int[]{i, n + i}, new int[]{outputWires[i]});
+		}
+		ArrayList<ArrayList<Integer>> partiesInputs = new ArrayList<ArrayList<Integer>>();
+		partiesInputs.add(firstPartyInputs);
+		partiesInputs.add(secondPartyInputs);
+		BooleanCircuit bc = new BooleanCircuit(gates, outputWires, partiesInputs);
+		
+		GarbledBooleanCircuitImp circuit = new GarbledBooleanCircuitImp(new FreeXORGarblingParameters(bc, new AES128MultiKeyEncryption(new BcAES()), false));
+		circuit.setForkJoinPool(pool);
+		CircuitCreationValues values = circuit.garble();
+		
+		for (int round = 0; round < 4; round++) {
+			Map<Integer, Byte> ungarbledInput = new HashMap<Integer, Byte>();
+			for (int i = 0; i < n; i++) {
+				ungarbledInput.put(i, (byte) (round & 1));
+				ungarbledInput.put(n + i, (byte) (((round >> 1) + i) & 1));
+			}
+			circuit.setGarbledInputFromUngarbledInput(ungarbledInput, values.getAllInputWireValues());
+			Map<Integer, Wire> output = circuit.translate(circuit.compute());
+			
+			for (int i = 0; i < n; i++) {
+				assertEquals(ungarbledInput.get(i) ^ ungarbledInput.get(n + i), output.get(outputWires[i]).getValue());
+			}
+		}
+	}
+}